@@ -0,0 +1,55 @@
+package com.example.banking.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 按线程数依次运行基准，每个线程数输出一个 JSON 结果文件，便于不同版本之间逐项对比。
+ * <p>
+ * 系统属性：
+ * <ul>
+ *   <li>{@code jmh.include}：基准名正则，默认全部</li>
+ *   <li>{@code jmh.threads}：逗号分隔的线程数，默认 1,4,16</li>
+ *   <li>{@code jmh.storeSizes}：逗号分隔的数据量，覆盖各基准的 storeSize 默认值</li>
+ *   <li>{@code jmh.resultDir}：结果目录，默认 target/jmh</li>
+ *   <li>{@code jmh.jvmArgs}：传给基准子进程的JVM参数，默认 -Xms2g -Xmx16g</li>
+ * </ul>
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = System.getProperty("jmh.include", "com\\.example\\.banking\\.benchmark\\..*");
+        String[] threads = System.getProperty("jmh.threads", "1,4,16").split(",");
+        String storeSizes = System.getProperty("jmh.storeSizes", "");
+        Path resultDir = Path.of(System.getProperty("jmh.resultDir", "target/jmh"));
+        String[] jvmArgs = System.getProperty("jmh.jvmArgs", "-Xms2g -Xmx16g").trim().split("\\s+");
+        Files.createDirectories(resultDir);
+
+        for (String value : threads) {
+            int threadCount = Integer.parseInt(value.trim());
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threadCount)
+                    .forks(1)
+                    .warmupIterations(3)
+                    .measurementIterations(5)
+                    .jvmArgsAppend(jvmArgs)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultDir.resolve("results-threads-" + threadCount + ".json").toString());
+            if (!storeSizes.isBlank()) {
+                options.param("storeSize", storeSizes.split(","));
+            }
+            new Runner(options.build()).run();
+        }
+    }
+}
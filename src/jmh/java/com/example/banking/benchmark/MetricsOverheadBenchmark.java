@@ -0,0 +1,113 @@
+package com.example.banking.benchmark;
+
+import com.example.banking.dto.CreateTransactionRequest;
+import com.example.banking.dto.TransactionDTO;
+import com.example.banking.model.TransactionQuery;
+import com.example.banking.model.TransactionType;
+import com.example.banking.repository.MeteredTransactionRepository;
+import com.example.banking.repository.ParallelScanEngine;
+import com.example.banking.repository.TransactionRepository;
+import com.example.banking.repository.TransactionRepositoryImpl;
+import com.example.banking.repository.TransactionWriteAheadLog;
+import com.example.banking.service.MeteredTransactionService;
+import com.example.banking.service.TransactionService;
+import com.example.banking.service.TransactionServiceImpl;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 监控埋点的开销：同一组调用分别经过带计时器和不带计时器的服务与存储，两者的吞吐量之差即埋点开销。
+ * <p>
+ * 带计时器的一组使用 Prometheus 注册表，并按 application.properties 开启百分位直方图，与生产配置一致。
+ * findById 是最短的调用路径，开销占比最大；createUnique 和 findByQuery 代表常见请求。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MetricsOverheadBenchmark {
+
+    @Param({"100000"})
+    public int storeSize;
+
+    @Param({"false", "true"})
+    public boolean instrumented;
+
+    private TransactionService service;
+    private ParallelScanEngine scanEngine;
+    private TransactionQuery firstPage;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final String prefix = "bench-" + Thread.currentThread().threadId() + "-";
+        private long sequence;
+        private long next;
+
+        String nextDescription() {
+            return prefix + sequence++;
+        }
+
+        long nextId(int storeSize) {
+            next = next % storeSize + 1;
+            return next;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        scanEngine = new ParallelScanEngine(0, 8192);
+        TransactionRepository repository = new TransactionRepositoryImpl((TransactionWriteAheadLog) null, null, scanEngine);
+        TransactionFixtures.populate(repository, storeSize);
+
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().startsWith("transaction")) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .minimumExpectedValue((double) TimeUnit.MICROSECONDS.toNanos(1))
+                        .build()
+                        .merge(config);
+            }
+        });
+        if (instrumented) {
+            repository = new MeteredTransactionRepository(repository, registry);
+        }
+        TransactionServiceImpl impl = new TransactionServiceImpl(repository);
+        ReflectionTestUtils.setField(impl, "duplicateTimeWindow", 5);
+        service = instrumented ? new MeteredTransactionService(impl, registry) : impl;
+        firstPage = TransactionQuery.builder().type(TransactionType.EXPENSE).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scanEngine.close();
+    }
+
+    @Benchmark
+    public TransactionDTO findById(ThreadState state) {
+        return service.getTransactionById(state.nextId(storeSize));
+    }
+
+    @Benchmark
+    public TransactionDTO createUnique(ThreadState state) {
+        return service.createTransaction(
+                new CreateTransactionRequest(new BigDecimal("12.34"), state.nextDescription(), TransactionType.INCOME));
+    }
+
+    @Benchmark
+    public List<TransactionDTO> findByQuery() {
+        return service.findTransactions(firstPage);
+    }
+}
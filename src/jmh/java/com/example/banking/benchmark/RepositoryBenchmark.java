@@ -0,0 +1,136 @@
+package com.example.banking.benchmark;
+
+import com.example.banking.model.EpochMicros;
+import com.example.banking.model.Money;
+import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionCursor;
+import com.example.banking.model.TransactionQuery;
+import com.example.banking.model.TransactionType;
+import com.example.banking.repository.ParallelScanEngine;
+import com.example.banking.repository.TransactionRepositoryImpl;
+import com.example.banking.repository.TransactionWriteAheadLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TransactionRepositoryImpl} 热路径的吞吐量基准。
+ * <p>
+ * 写入类基准只覆盖已有ID或插入后立即删除，迭代之间数据量保持为 storeSize；
+ * 范围查询的区间宽度按数据量缩放，每次命中约 {@value #RANGE_HITS} 行，结果代表索引定位而非结果集复制的开销。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RepositoryBenchmark {
+
+    private static final int RANGE_HITS = 100;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int storeSize;
+
+    private TransactionRepositoryImpl repository;
+    private ParallelScanEngine scanEngine;
+    private long startMicros;
+    private long stepMicros;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        scanEngine = new ParallelScanEngine(0, 8192);
+        repository = new TransactionRepositoryImpl((TransactionWriteAheadLog) null, null, scanEngine);
+        TransactionFixtures.populate(repository, storeSize);
+        startMicros = TransactionFixtures.startMicros();
+        stepMicros = Math.max(1, TransactionFixtures.SPAN_MICROS / storeSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scanEngine.close();
+    }
+
+    @Benchmark
+    public Transaction save() {
+        long id = randomId();
+        return repository.save(TransactionFixtures.transaction(id, startMicros + id * stepMicros)
+                .withAmount(BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(1, 1_000_000), 2)));
+    }
+
+    @Benchmark
+    public boolean saveAndDelete() {
+        Transaction saved = repository.save(new Transaction(new BigDecimal("12.34"), "transient", TransactionType.EXPENSE));
+        return repository.deleteById(saved.getId());
+    }
+
+    @Benchmark
+    public Optional<Transaction> findById() {
+        return repository.findById(randomId());
+    }
+
+    @Benchmark
+    public List<Transaction> findByType() {
+        return repository.findByType(TransactionType.values()[ThreadLocalRandom.current().nextInt(3)]);
+    }
+
+    @Benchmark
+    public List<Transaction> findByAmountRange() {
+        long width = Math.max(1, TransactionFixtures.MAX_AMOUNT_MINOR_UNITS * RANGE_HITS / storeSize);
+        long min = ThreadLocalRandom.current().nextLong(1, TransactionFixtures.MAX_AMOUNT_MINOR_UNITS - width + 2);
+        return repository.findByAmountRange(Money.toBigDecimal(min), Money.toBigDecimal(min + width - 1));
+    }
+
+    @Benchmark
+    public List<Transaction> findByDateRange() {
+        long from = startMicros + randomId() * stepMicros;
+        return repository.findByDateRange(EpochMicros.toLocalDateTime(from),
+                EpochMicros.toLocalDateTime(from + RANGE_HITS * stepMicros));
+    }
+
+    @Benchmark
+    public List<Transaction> findPotentialDuplicates() {
+        return repository.findPotentialDuplicates(new BigDecimal("12.34"), "benchmark", TransactionType.EXPENSE, 5);
+    }
+
+    @Benchmark
+    public List<Transaction> findWithPagination() {
+        return repository.findWithPagination(ThreadLocalRandom.current().nextInt(Math.max(1, storeSize - PAGE_SIZE)),
+                PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Transaction> findByQueryFirstPage() {
+        return repository.findByQuery(TransactionQuery.builder()
+                .type(TransactionType.EXPENSE)
+                .amountRange(new BigDecimal("100.00"), new BigDecimal("5000.00"))
+                .page(0, PAGE_SIZE)
+                .build());
+    }
+
+    @Benchmark
+    public List<Transaction> findByQueryDeepPage() {
+        // 偏移分页越深代价越高，与 findByQueryCursorPage 对照
+        int page = ThreadLocalRandom.current().nextInt(Math.max(1, storeSize / PAGE_SIZE / 2));
+        return repository.findByQuery(TransactionQuery.builder()
+                .dateRange(LocalDateTime.now().minusDays(40), LocalDateTime.now())
+                .page(page, PAGE_SIZE)
+                .build());
+    }
+
+    @Benchmark
+    public List<Transaction> findByQueryCursorPage() {
+        Transaction anchor = repository.findById(randomId()).orElseThrow();
+        return repository.findByQuery(TransactionQuery.builder()
+                .after(TransactionCursor.after(anchor))
+                .page(0, PAGE_SIZE)
+                .build());
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, storeSize + 1L);
+    }
+}
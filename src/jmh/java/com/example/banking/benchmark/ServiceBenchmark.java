@@ -0,0 +1,79 @@
+package com.example.banking.benchmark;
+
+import com.example.banking.dto.CreateTransactionRequest;
+import com.example.banking.dto.TransactionDTO;
+import com.example.banking.exception.DuplicateTransactionException;
+import com.example.banking.model.StatsGranularity;
+import com.example.banking.model.TransactionType;
+import com.example.banking.repository.ParallelScanEngine;
+import com.example.banking.repository.TransactionRepositoryImpl;
+import com.example.banking.repository.TransactionWriteAheadLog;
+import com.example.banking.service.TransactionServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TransactionServiceImpl#createTransaction} 的吞吐量基准，包含重复检测、汇总和全量视图的维护。
+ * <p>
+ * createUnique 每次写入一笔新交易，数据量随测量时间增长，结果应与相同 storeSize 的其他版本对比，
+ * 不宜与不同的迭代时长对比；createDuplicate 每次都被重复检测拒绝，不改变数据量。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int storeSize;
+
+    private TransactionServiceImpl service;
+    private ParallelScanEngine scanEngine;
+    private CreateTransactionRequest duplicate;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final String prefix = "bench-" + Thread.currentThread().threadId() + "-";
+        private long sequence;
+
+        String nextDescription() {
+            return prefix + sequence++;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        scanEngine = new ParallelScanEngine(0, 8192);
+        TransactionRepositoryImpl repository = new TransactionRepositoryImpl((TransactionWriteAheadLog) null, null, scanEngine);
+        TransactionFixtures.populate(repository, storeSize);
+        service = new TransactionServiceImpl(repository);
+        ReflectionTestUtils.setField(service, "duplicateTimeWindow", 5);
+        // 预热汇总和全量视图，测量不包含首次构建
+        service.getAllTransactions();
+        service.getTransactionStats(StatsGranularity.DAY, null, null, null);
+        duplicate = new CreateTransactionRequest(new BigDecimal("99.99"), "duplicate", TransactionType.EXPENSE);
+        service.createTransaction(duplicate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scanEngine.close();
+    }
+
+    @Benchmark
+    public TransactionDTO createUnique(ThreadState state) {
+        return service.createTransaction(
+                new CreateTransactionRequest(new BigDecimal("12.34"), state.nextDescription(), TransactionType.INCOME));
+    }
+
+    @Benchmark
+    public Object createDuplicate() {
+        try {
+            return service.createTransaction(duplicate);
+        } catch (DuplicateTransactionException e) {
+            return e;
+        }
+    }
+}
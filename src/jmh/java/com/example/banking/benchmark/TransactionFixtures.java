@@ -0,0 +1,42 @@
+package com.example.banking.benchmark;
+
+import com.example.banking.model.EpochMicros;
+import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionType;
+import com.example.banking.repository.TransactionRepository;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基准测试的数据集：ID 1..size，类型轮流取值，金额在 0.01~10000.00 之间均匀打散，
+ * 时间戳均匀分布在过去30天内（早于重复检测窗口，预填充数据不进入指纹索引）。
+ */
+final class TransactionFixtures {
+
+    static final long MAX_AMOUNT_MINOR_UNITS = 1_000_000;
+    static final long SPAN_MICROS = TimeUnit.DAYS.toMicros(30);
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private TransactionFixtures() {
+    }
+
+    static void populate(TransactionRepository repository, int size) {
+        long start = startMicros();
+        long step = Math.max(1, SPAN_MICROS / size);
+        for (int i = 1; i <= size; i++) {
+            repository.save(transaction(i, start + i * step));
+        }
+    }
+
+    static Transaction transaction(long id, long timestampMicros) {
+        // 乘以质数打散金额，金额与ID、时间戳不相关
+        long amount = id * 7919 % MAX_AMOUNT_MINOR_UNITS + 1;
+        return new Transaction(id, amount, "benchmark-" + id, TYPES[(int) (id % TYPES.length)], timestampMicros);
+    }
+
+    static long startMicros() {
+        return EpochMicros.of(LocalDateTime.now().minusDays(31));
+    }
+}
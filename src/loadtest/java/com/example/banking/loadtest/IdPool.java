@@ -0,0 +1,58 @@
+package com.example.banking.loadtest;
+
+import java.util.OptionalLong;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 负载过程中已创建交易的ID，供查询、修改、删除随机选取。
+ * 固定容量的环形数组，写满后覆盖最早的ID；槽位为 0 表示空或已被删除请求取走。
+ */
+final class IdPool {
+
+    private static final int PICK_ATTEMPTS = 8;
+
+    private final AtomicLongArray slots;
+    private final AtomicLong writes = new AtomicLong();
+
+    IdPool(int capacity) {
+        this.slots = new AtomicLongArray(capacity);
+    }
+
+    void add(long id) {
+        slots.set((int) (writes.getAndIncrement() % slots.length()), id);
+    }
+
+    /**
+     * 随机取一个ID，不从池中移除
+     */
+    OptionalLong random() {
+        int filled = filled();
+        for (int i = 0; i < PICK_ATTEMPTS && filled > 0; i++) {
+            long id = slots.get(ThreadLocalRandom.current().nextInt(filled));
+            if (id != 0) {
+                return OptionalLong.of(id);
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * 随机取出一个ID并从池中移除，同一ID只会被一个删除请求取到
+     */
+    OptionalLong take() {
+        int filled = filled();
+        for (int i = 0; i < PICK_ATTEMPTS && filled > 0; i++) {
+            long id = slots.getAndSet(ThreadLocalRandom.current().nextInt(filled), 0);
+            if (id != 0) {
+                return OptionalLong.of(id);
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    private int filled() {
+        return (int) Math.min(writes.get(), slots.length());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.banking.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * 负载生成参数，全部来自系统属性 {@code loadtest.*}。
+ *
+ * @param model       open：按固定速率发起请求，不等待响应（开放模型）；closed：concurrency 个工作线程循环"发送-等待响应"（封闭模型）
+ * @param rate        开放模型的目标请求速率（次/秒）
+ * @param concurrency 封闭模型的并发用户数，以及预热数据时的并发数
+ * @param warmup      预热时长，期间的请求不计入结果
+ * @param duration    测量时长
+ * @param preload     开始前创建的交易数，供查询、修改、删除使用
+ */
+record LoadConfig(URI baseUrl, Model model, int rate, int concurrency, Duration warmup, Duration duration,
+                  WorkloadMix mix, int preload, Duration requestTimeout, Path reportDir) {
+
+    enum Model {
+        OPEN,
+        CLOSED
+    }
+
+    static LoadConfig fromSystemProperties() {
+        LoadConfig config = new LoadConfig(
+                URI.create(property("baseUrl", "http://localhost:8080")),
+                Model.valueOf(property("model", "open").toUpperCase()),
+                Integer.parseInt(property("rate", "500")),
+                Integer.parseInt(property("concurrency", "32")),
+                Duration.parse(property("warmup", "PT10S")),
+                Duration.parse(property("duration", "PT60S")),
+                WorkloadMix.parse(property("mix", "create:20,get:45,list:20,update:10,delete:5")),
+                Integer.parseInt(property("preload", "1000")),
+                Duration.parse(property("requestTimeout", "PT5S")),
+                Path.of(property("reportDir", "target/loadtest")));
+        if (config.rate <= 0 || config.concurrency <= 0) {
+            throw new IllegalArgumentException("loadtest.rate and loadtest.concurrency must be positive");
+        }
+        return config;
+    }
+
+    private static String property(String name, String defaultValue) {
+        String value = System.getProperty("loadtest." + name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+}
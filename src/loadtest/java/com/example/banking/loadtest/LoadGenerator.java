@@ -0,0 +1,197 @@
+package com.example.banking.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 针对本地运行的服务发起混合负载并记录每种请求的延迟分布。
+ * <p>
+ * 开放模型按固定间隔计算每个请求的计划发起时间，到点后交给虚拟线程发送，不等待此前的请求完成；
+ * 延迟从计划发起时间算起。服务变慢时请求在客户端排队，排队时间同样计入延迟，
+ * 避免"协调遗漏"：封闭模型和固定线程池的压测在服务卡顿时自动少发请求，慢请求在结果中被严重低估。
+ * <p>
+ * 封闭模型由 concurrency 个虚拟线程循环"发送-等待响应"，延迟从实际发送时刻算起，衡量固定并发用户数下的服务时间。
+ */
+final class LoadGenerator {
+
+    private static final String[] TYPES = {"INCOME", "EXPENSE", "TRANSFER"};
+    private static final int ID_POOL_CAPACITY = 1 << 16;
+
+    private final LoadConfig config;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final IdPool ids = new IdPool(ID_POOL_CAPACITY);
+    private final LoadReport report;
+    // 创建请求的描述各不相同，避免被服务的重复检测拒绝
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+
+    private volatile long measureStartNanos = Long.MAX_VALUE;
+
+    LoadGenerator(LoadConfig config) {
+        this.config = config;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(config.requestTimeout())
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        this.report = new LoadReport(config);
+    }
+
+    LoadReport run() throws InterruptedException {
+        preload();
+        long start = System.nanoTime();
+        measureStartNanos = start + config.warmup().toNanos();
+        long end = measureStartNanos + config.duration().toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (config.model() == LoadConfig.Model.OPEN) {
+                runOpen(executor, start, end);
+            } else {
+                runClosed(executor, end);
+            }
+        }
+        report.finish(config.duration());
+        return report;
+    }
+
+    private void runOpen(ExecutorService executor, long start, long end) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.rate();
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                return;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = config.mix().next();
+            executor.execute(() -> execute(operation, intended));
+        }
+    }
+
+    private void runClosed(ExecutorService executor, long end) {
+        for (int i = 0; i < config.concurrency(); i++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < end) {
+                    execute(config.mix().next(), System.nanoTime());
+                }
+            });
+        }
+    }
+
+    private void preload() throws InterruptedException {
+        try (ExecutorService executor = Executors.newFixedThreadPool(config.concurrency())) {
+            for (int i = 0; i < config.preload(); i++) {
+                executor.execute(() -> {
+                    try {
+                        send(Operation.CREATE, createRequest());
+                    } catch (IOException e) {
+                        // 预热数据失败只影响可选取的ID数量
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+        }
+        System.out.printf("Preloaded %d transactions%n", config.preload());
+    }
+
+    /**
+     * 发送一个请求并按计划发起时间记录延迟；需要ID的请求在池中没有ID时改为创建
+     */
+    private void execute(Operation operation, long intendedNanos) {
+        Operation actual = operation;
+        OptionalLong id = OptionalLong.empty();
+        if (operation == Operation.GET || operation == Operation.UPDATE) {
+            id = ids.random();
+        } else if (operation == Operation.DELETE) {
+            id = ids.take();
+        }
+        if (operation != Operation.CREATE && operation != Operation.LIST && id.isEmpty()) {
+            actual = Operation.CREATE;
+        }
+        HttpRequest request = switch (actual) {
+            case CREATE -> createRequest();
+            case GET -> builder("/api/transactions/" + id.getAsLong()).GET().build();
+            case LIST -> listRequest();
+            case UPDATE -> builder("/api/transactions/" + id.getAsLong())
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(
+                            "{\"amount\": " + randomAmount() + ", \"description\": \"load-update-" + runId + "\"}"))
+                    .build();
+            case DELETE -> builder("/api/transactions/" + id.getAsLong()).DELETE().build();
+        };
+
+        int status;
+        try {
+            status = send(actual, request);
+        } catch (IOException e) {
+            status = LoadReport.FAILED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (intendedNanos >= measureStartNanos) {
+            report.record(actual, status, System.nanoTime() - intendedNanos);
+        }
+    }
+
+    private int send(Operation operation, HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (operation == Operation.CREATE && response.statusCode() == 201) {
+            JsonNode body = objectMapper.readTree(response.body());
+            ids.add(body.get("id").asLong());
+        }
+        return response.statusCode();
+    }
+
+    private HttpRequest createRequest() {
+        String body = "{\"amount\": " + randomAmount()
+                + ", \"description\": \"load-" + runId + "-" + sequence.incrementAndGet()
+                + "\", \"type\": \"" + randomType() + "\"}";
+        return builder("/api/transactions")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest listRequest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int minAmount = random.nextInt(1, 500);
+        return builder("/api/transactions?type=" + randomType()
+                + "&minAmount=" + minAmount
+                + "&maxAmount=" + (minAmount + random.nextInt(100, 5000))
+                + "&page=" + random.nextInt(3)
+                + "&size=20")
+                .GET()
+                .build();
+    }
+
+    private HttpRequest.Builder builder(String path) {
+        return HttpRequest.newBuilder(URI.create(config.baseUrl() + path))
+                .timeout(config.requestTimeout())
+                .header("Accept", "application/json");
+    }
+
+    private static String randomAmount() {
+        return ThreadLocalRandom.current().nextInt(1, 1_000_000) / 100 + "."
+                + String.format("%02d", ThreadLocalRandom.current().nextInt(100));
+    }
+
+    private static String randomType() {
+        return TYPES[ThreadLocalRandom.current().nextInt(TYPES.length)];
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.banking.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 负载生成入口，需先在本地启动服务（如 {@code mvn spring-boot:run}），再通过 {@code mvn verify -Ploadtest} 运行。
+ * 参数见 {@link LoadConfig}。
+ */
+public final class LoadGeneratorMain {
+
+    private LoadGeneratorMain() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        LoadConfig config = LoadConfig.fromSystemProperties();
+        System.out.printf("Driving %s with %s model, warmup %s, duration %s%n",
+                config.baseUrl(), config.model().name().toLowerCase(), config.warmup(), config.duration());
+
+        LoadReport report = new LoadGenerator(config).run();
+
+        report.print(System.out);
+        Path directory = report.write();
+        System.out.println("Report written to " + directory.toAbsolutePath());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.banking.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 每种请求的 HdrHistogram 延迟分布（微秒，3位有效数字）和按状态分类的计数。
+ * 输出汇总表 report.txt，以及每种请求一个 .hgrm 百分位分布文件（毫秒），可用 HdrHistogram 的绘图工具对比。
+ */
+final class LoadReport {
+
+    static final int FAILED = -1;
+
+    // 状态分类：2xx、4xx、5xx、连接失败或超时
+    private static final int OK = 0;
+    private static final int CLIENT_ERROR = 1;
+    private static final int SERVER_ERROR = 2;
+    private static final int FAILURE = 3;
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final LoadConfig config;
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLongArray> statuses = new EnumMap<>(Operation.class);
+    private Duration measured;
+
+    LoadReport(LoadConfig config) {
+        this.config = config;
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new ConcurrentHistogram(3));
+            statuses.put(operation, new AtomicLongArray(4));
+        }
+    }
+
+    void record(Operation operation, int status, long latencyNanos) {
+        histograms.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        int category = status == FAILED ? FAILURE : status >= 500 ? SERVER_ERROR : status >= 400 ? CLIENT_ERROR : OK;
+        statuses.get(operation).incrementAndGet(category);
+    }
+
+    void finish(Duration measured) {
+        this.measured = measured;
+    }
+
+    void print(PrintStream out) {
+        out.printf("model=%s rate=%d/s concurrency=%d warmup=%s duration=%s mix=%s%n",
+                config.model().name().toLowerCase(), config.rate(), config.concurrency(),
+                config.warmup(), measured, config.mix());
+        out.printf("%-30s %9s %9s %9s %9s %9s %9s %9s %7s %7s %7s%n", "endpoint", "count", "req/s",
+                "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)", "mean(ms)", "4xx", "5xx", "failed");
+        Histogram total = new Histogram(3);
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = histograms.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            total.add(histogram);
+            AtomicLongArray counts = statuses.get(operation);
+            printRow(out, operation.endpoint(), histogram,
+                    counts.get(CLIENT_ERROR), counts.get(SERVER_ERROR), counts.get(FAILURE));
+        }
+        long clientErrors = 0;
+        long serverErrors = 0;
+        long failures = 0;
+        for (AtomicLongArray counts : statuses.values()) {
+            clientErrors += counts.get(CLIENT_ERROR);
+            serverErrors += counts.get(SERVER_ERROR);
+            failures += counts.get(FAILURE);
+        }
+        printRow(out, "total", total, clientErrors, serverErrors, failures);
+    }
+
+    /**
+     * 写出汇总表和每种请求的百分位分布，返回报告目录
+     */
+    Path write() throws IOException {
+        Path directory = config.reportDir()
+                .resolve(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        Files.createDirectories(directory);
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve("report.txt")))) {
+            print(out);
+        }
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = histograms.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            try (PrintStream out = new PrintStream(
+                    Files.newOutputStream(directory.resolve(operation.name().toLowerCase() + ".hgrm")))) {
+                histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+        return directory;
+    }
+
+    private void printRow(PrintStream out, String name, Histogram histogram,
+                          long clientErrors, long serverErrors, long failures) {
+        out.printf("%-30s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %7d %7d %7d%n",
+                name,
+                histogram.getTotalCount(),
+                histogram.getTotalCount() / (measured.toMillis() / 1000.0),
+                histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+                histogram.getMaxValue() / MICROS_PER_MILLI,
+                histogram.getMean() / MICROS_PER_MILLI,
+                clientErrors, serverErrors, failures);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.banking.loadtest;
+
+/**
+ * 负载中的请求类型，每种类型单独统计延迟分布
+ */
+enum Operation {
+    CREATE("POST /api/transactions"),
+    GET("GET /api/transactions/{id}"),
+    LIST("GET /api/transactions?filters"),
+    UPDATE("PUT /api/transactions/{id}"),
+    DELETE("DELETE /api/transactions/{id}");
+
+    private final String endpoint;
+
+    Operation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+}
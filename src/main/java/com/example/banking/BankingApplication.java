@@ -3,12 +3,14 @@ package com.example.banking;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * 银行交易管理系统应用程序入口
  */
 @SpringBootApplication
 @EnableCaching
+@EnableScheduling
 public class BankingApplication {
 
 	public static void main(String[] args) {
@@ -1,18 +1,84 @@
 package com.example.banking.config;
 
+import com.example.banking.dto.TransactionDTO;
+import com.example.banking.repository.TransactionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
+import java.util.List;
 
+/**
+ * Caffeine 缓存配置。每个缓存可通过 transaction.cache.specs.&lt;缓存名&gt; 单独设置容量、过期和刷新策略，
+ * 未单独配置时使用 spring.cache.caffeine.spec。已知缓存以加载器从Repository直接读取（读穿透），
+ * 因而支持 refreshAfterWrite，并且加载耗时计入统计。所有缓存都开启统计，命中率、加载耗时和淘汰次数
+ * 由 Actuator 绑定到 Micrometer；淘汰原因另外按缓存和原因计数。
+ * spring.cache.type 不是 caffeine 时不注册本缓存管理器，交由 Spring Boot 自动配置（例如测试环境的 none）。
+ */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(CacheConfig.class);
+
+    public static final String TRANSACTIONS = "transactions";
+
+    static final String SPEC_PROPERTY_PREFIX = "transaction.cache.specs.";
+    static final String EVICTIONS_METRIC = "cache.evictions.by.cause";
+
     @Bean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("transactions", "allTransactions");
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "caffeine", matchIfMissing = true)
+    public CacheManager cacheManager(Environment environment,
+                                     @Value("${spring.cache.caffeine.spec:maximumSize=500,expireAfterWrite=30m}") String defaultSpec,
+                                     ObjectProvider<TransactionRepository> transactionRepository,
+                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // 未预先注册的缓存名按默认配置动态创建
+        cacheManager.setCaffeine(Caffeine.from(defaultSpec).recordStats());
+
+        // 预先注册已知缓存，启动时即可被 Actuator 绑定指标
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        for (String name : List.of(TRANSACTIONS)) {
+            String spec = environment.getProperty(SPEC_PROPERTY_PREFIX + name, defaultSpec);
+            cacheManager.registerCustomCache(name, buildCache(name, spec, transactionRepository, registry));
+        }
+        return cacheManager;
+    }
+
+    private static Cache<Object, Object> buildCache(String name, String spec,
+                                                    ObjectProvider<TransactionRepository> transactionRepository,
+                                                    MeterRegistry registry) {
+        Caffeine<Object, Object> builder = Caffeine.from(spec)
+                .recordStats()
+                .evictionListener((key, value, cause) -> {
+                    log.debug("Evicted {} from cache {} ({})", key, name, cause);
+                    if (registry != null) {
+                        registry.counter(EVICTIONS_METRIC, "cache", name, "cause", cause.name()).increment();
+                    }
+                });
+        log.info("Cache {} configured with spec [{}]", name, spec);
+        return builder.build(loaderFor(name, transactionRepository));
+    }
+
+    private static CacheLoader<Object, Object> loaderFor(String name, ObjectProvider<TransactionRepository> transactionRepository) {
+        return switch (name) {
+            // 返回null表示交易不存在：不缓存，由被注解的方法处理；刷新时条目被移除
+            case TRANSACTIONS -> key -> transactionRepository.getObject().findById((Long) key)
+                    .map(TransactionDTO::from)
+                    .orElse(null);
+            default -> throw new IllegalArgumentException("No loader for cache " + name);
+        };
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package com.example.banking.config;
+
+import com.example.banking.repository.BlockIdAllocator;
+import com.example.banking.repository.IdAllocator;
+import com.example.banking.repository.SnowflakeIdAllocator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class IdAllocatorConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "transaction.id.strategy", havingValue = "block", matchIfMissing = true)
+    public IdAllocator blockIdAllocator(
+            @Value("${transaction.id.block-size:1000}") int blockSize,
+            @Value("${transaction.id.state-file:}") String stateFile) throws IOException {
+        // 块越大回到共享分配点的次数越少，但重启时跳过的ID也越多
+        return stateFile.isBlank()
+                ? new BlockIdAllocator(blockSize)
+                : BlockIdAllocator.open(blockSize, Path.of(stateFile));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "transaction.id.strategy", havingValue = "snowflake")
+    public IdAllocator snowflakeIdAllocator(@Value("${transaction.id.node-id:0}") int nodeId) {
+        return new SnowflakeIdAllocator(nodeId);
+    }
+}
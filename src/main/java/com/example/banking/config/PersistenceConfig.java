@@ -0,0 +1,33 @@
+package com.example.banking.config;
+
+import com.example.banking.repository.TransactionSnapshotStore;
+import com.example.banking.repository.TransactionWriteAheadLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class PersistenceConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "transaction.wal.enabled", havingValue = "true")
+    public TransactionWriteAheadLog transactionWriteAheadLog(
+            @Value("${transaction.wal.dir:data/wal}") String directory,
+            @Value("${transaction.wal.group-commit-window-micros:200}") long groupCommitWindowMicros,
+            @Value("${transaction.wal.fsync:true}") boolean fsync,
+            @Value("${transaction.wal.segment-size-bytes:67108864}") long segmentSizeBytes) throws IOException {
+        // 组提交窗口越大，单次fsync合并的写入越多，吞吐越高但单次写入延迟越大
+        return new TransactionWriteAheadLog(Path.of(directory), groupCommitWindowMicros, fsync, segmentSizeBytes);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "transaction.snapshot.enabled", havingValue = "true")
+    public TransactionSnapshotStore transactionSnapshotStore(
+            @Value("${transaction.snapshot.dir:${transaction.wal.dir:data/wal}}") String directory) throws IOException {
+        return new TransactionSnapshotStore(Path.of(directory));
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.banking.config;
+
+import com.example.banking.repository.ParallelScanEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ScanConfig {
+
+    @Bean(destroyMethod = "close")
+    public ParallelScanEngine parallelScanEngine(
+            @Value("${transaction.scan.parallelism:0}") int parallelism,
+            @Value("${transaction.scan.segment-size:8192}") int segmentSize) {
+        // 段越小负载越均衡，但每段的任务调度和部分结果合并开销占比越高
+        return new ParallelScanEngine(parallelism, segmentSize);
+    }
+}
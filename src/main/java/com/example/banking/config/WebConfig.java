@@ -0,0 +1,21 @@
+package com.example.banking.config;
+
+import com.example.banking.controller.BinaryTransactionMessageConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Web MVC 配置。二进制格式的转换器追加在默认转换器之后：只有明确请求该媒体类型时才会选中，
+ * Accept 为 *&#47;* 或未指定时仍返回 JSON。
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new BinaryTransactionMessageConverter());
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.banking.controller;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 从输入流读取二进制格式的基本类型，按缓冲区大小分块读取。格式错误时抛出 {@link MalformedMessageException}
+ */
+final class BinaryReader {
+
+    static final class MalformedMessageException extends IOException {
+        MalformedMessageException(String message) {
+            super(message);
+        }
+    }
+
+    private final byte[] buffer;
+    private final InputStream in;
+    private int position;
+    private int limit;
+
+    BinaryReader(byte[] buffer, InputStream in) {
+        this.buffer = buffer;
+        this.in = in;
+    }
+
+    int readByte() throws IOException {
+        if (position == limit && !fill()) {
+            throw new EOFException("Unexpected end of binary message");
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new MalformedMessageException("Varint is longer than 10 bytes");
+    }
+
+    long readZigZag() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 读取长度前缀不超过 maxBytes 的 UTF-8 字符串
+     */
+    String readString(int maxBytes) throws IOException {
+        long length = readVarLong();
+        if (length < 0 || length > maxBytes) {
+            throw new MalformedMessageException("String length " + length + " exceeds " + maxBytes + " bytes");
+        }
+        int remaining = (int) length;
+        if (remaining <= limit - position) {
+            String value = new String(buffer, position, remaining, StandardCharsets.UTF_8);
+            position += remaining;
+            return value;
+        }
+        byte[] bytes = new byte[remaining];
+        int copied = 0;
+        while (copied < remaining) {
+            if (position == limit && !fill()) {
+                throw new EOFException("Unexpected end of binary message");
+            }
+            int chunk = Math.min(remaining - copied, limit - position);
+            System.arraycopy(buffer, position, bytes, copied, chunk);
+            position += chunk;
+            copied += chunk;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 输入是否已经读完
+     */
+    boolean atEnd() throws IOException {
+        return position == limit && !fill();
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
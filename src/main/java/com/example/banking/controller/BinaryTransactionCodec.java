@@ -0,0 +1,280 @@
+package com.example.banking.controller;
+
+import com.example.banking.dto.BatchItemResult;
+import com.example.banking.dto.BatchTransactionResponse;
+import com.example.banking.dto.CreateTransactionRequest;
+import com.example.banking.dto.TransactionDTO;
+import com.example.banking.dto.UpdateTransactionRequest;
+import com.example.banking.model.EpochMicros;
+import com.example.banking.model.TransactionType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 交易二进制格式的编解码。所有整数为 LEB128 变长编码，有符号数先做 ZigZag 映射。
+ * <pre>
+ * 消息     = 版本(1字节，当前为1) 消息类型(1字节) 内容
+ * 交易     = 标志 [id:varint] [金额] [描述:字符串] [类型:1字节] [时间:zigzag 纪元微秒，UTC]
+ * 创建请求 = 标志 [金额] [描述:字符串] [类型:1字节]，更新请求相同
+ * 金额     = 非标度值:zigzag 标度:1字节，如 100.50 编码为 10050 和 2
+ * 字符串   = UTF-8 字节数:varint UTF-8 内容
+ * 列表     = 条数:varint 元素...
+ * 批量结果 = total:varint created:varint rejected:varint 条数:varint
+ *            每条 = index:varint 状态:1字节 标志 [id:varint] [error:字符串]
+ * </pre>
+ * 标志字节的各位依次表示后面各个可空字段是否存在，不存在的字段不占空间。
+ * 交易类型和批量状态按枚举的声明顺序编码，只能在末尾追加新取值。
+ */
+final class BinaryTransactionCodec {
+
+    static final int VERSION = 1;
+
+    static final int TRANSACTION = 1;
+    static final int TRANSACTION_LIST = 2;
+    static final int BATCH_RESPONSE = 3;
+    static final int CREATE_REQUEST = 4;
+    static final int CREATE_REQUEST_LIST = 5;
+    static final int UPDATE_REQUEST = 6;
+
+    // 单个字符串的上限，防止格式错误的长度前缀导致分配过大的数组
+    private static final int MAX_STRING_BYTES = 64 * 1024;
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_AMOUNT = 1 << 1;
+    private static final int HAS_DESCRIPTION = 1 << 2;
+    private static final int HAS_TYPE = 1 << 3;
+    private static final int HAS_TIMESTAMP = 1 << 4;
+    private static final int HAS_ERROR = 1 << 1;
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final BatchItemResult.Status[] STATUSES = BatchItemResult.Status.values();
+
+    private BinaryTransactionCodec() {
+    }
+
+    static void writeHeader(BinaryWriter writer, int messageType) throws IOException {
+        writer.writeByte(VERSION);
+        writer.writeByte(messageType);
+    }
+
+    /**
+     * 读取消息头，返回消息类型
+     */
+    static int readHeader(BinaryReader reader) throws IOException {
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new BinaryReader.MalformedMessageException("Unsupported binary message version " + version);
+        }
+        return reader.readByte();
+    }
+
+    static void writeTransaction(BinaryWriter writer, TransactionDTO transaction) throws IOException {
+        writer.writeByte(flag(transaction.getId() != null, HAS_ID)
+                | flag(transaction.getAmount() != null, HAS_AMOUNT)
+                | flag(transaction.getDescription() != null, HAS_DESCRIPTION)
+                | flag(transaction.getType() != null, HAS_TYPE)
+                | flag(transaction.getTimestamp() != null, HAS_TIMESTAMP));
+        if (transaction.getId() != null) {
+            writer.writeVarLong(transaction.getId());
+        }
+        if (transaction.getAmount() != null) {
+            writeAmount(writer, transaction.getAmount());
+        }
+        if (transaction.getDescription() != null) {
+            writer.writeString(transaction.getDescription());
+        }
+        if (transaction.getType() != null) {
+            writer.writeByte(transaction.getType().ordinal());
+        }
+        if (transaction.getTimestamp() != null) {
+            writer.writeZigZag(EpochMicros.of(transaction.getTimestamp()));
+        }
+    }
+
+    static TransactionDTO readTransaction(BinaryReader reader) throws IOException {
+        int flags = reader.readByte();
+        TransactionDTO transaction = new TransactionDTO();
+        if ((flags & HAS_ID) != 0) {
+            transaction.setId(reader.readVarLong());
+        }
+        if ((flags & HAS_AMOUNT) != 0) {
+            transaction.setAmount(readAmount(reader));
+        }
+        if ((flags & HAS_DESCRIPTION) != 0) {
+            transaction.setDescription(reader.readString(MAX_STRING_BYTES));
+        }
+        if ((flags & HAS_TYPE) != 0) {
+            transaction.setType(readType(reader));
+        }
+        if ((flags & HAS_TIMESTAMP) != 0) {
+            transaction.setTimestamp(EpochMicros.toLocalDateTime(reader.readZigZag()));
+        }
+        return transaction;
+    }
+
+    static void writeTransactions(BinaryWriter writer, List<?> transactions) throws IOException {
+        writer.writeVarLong(transactions.size());
+        for (Object transaction : transactions) {
+            writeTransaction(writer, (TransactionDTO) transaction);
+        }
+    }
+
+    static List<TransactionDTO> readTransactions(BinaryReader reader) throws IOException {
+        int count = readCount(reader, Integer.MAX_VALUE);
+        List<TransactionDTO> transactions = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            transactions.add(readTransaction(reader));
+        }
+        return transactions;
+    }
+
+    static void writeRequest(BinaryWriter writer, BigDecimal amount, String description, TransactionType type)
+            throws IOException {
+        writer.writeByte(flag(amount != null, HAS_AMOUNT)
+                | flag(description != null, HAS_DESCRIPTION)
+                | flag(type != null, HAS_TYPE));
+        if (amount != null) {
+            writeAmount(writer, amount);
+        }
+        if (description != null) {
+            writer.writeString(description);
+        }
+        if (type != null) {
+            writer.writeByte(type.ordinal());
+        }
+    }
+
+    static CreateTransactionRequest readCreateRequest(BinaryReader reader) throws IOException {
+        CreateTransactionRequest request = new CreateTransactionRequest();
+        int flags = reader.readByte();
+        if ((flags & HAS_AMOUNT) != 0) {
+            request.setAmount(readAmount(reader));
+        }
+        if ((flags & HAS_DESCRIPTION) != 0) {
+            request.setDescription(reader.readString(MAX_STRING_BYTES));
+        }
+        if ((flags & HAS_TYPE) != 0) {
+            request.setType(readType(reader));
+        }
+        return request;
+    }
+
+    /**
+     * 读取创建请求列表，条数超过 maxCount 时在读取任何元素之前抛出 {@link BatchTooLargeException}
+     */
+    static List<CreateTransactionRequest> readCreateRequests(BinaryReader reader, int maxCount) throws IOException {
+        int count = readCount(reader, maxCount);
+        List<CreateTransactionRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            requests.add(readCreateRequest(reader));
+        }
+        return requests;
+    }
+
+    static UpdateTransactionRequest readUpdateRequest(BinaryReader reader) throws IOException {
+        CreateTransactionRequest fields = readCreateRequest(reader);
+        return new UpdateTransactionRequest(fields.getAmount(), fields.getDescription(), fields.getType());
+    }
+
+    static void writeBatchResponse(BinaryWriter writer, BatchTransactionResponse response) throws IOException {
+        writer.writeVarLong(response.getTotal());
+        writer.writeVarLong(response.getCreated());
+        writer.writeVarLong(response.getRejected());
+        List<BatchItemResult> results = response.getResults() != null ? response.getResults() : List.of();
+        writer.writeVarLong(results.size());
+        for (BatchItemResult result : results) {
+            writer.writeVarLong(result.getIndex());
+            writer.writeByte(result.getStatus().ordinal());
+            writer.writeByte(flag(result.getId() != null, HAS_ID) | flag(result.getError() != null, HAS_ERROR));
+            if (result.getId() != null) {
+                writer.writeVarLong(result.getId());
+            }
+            if (result.getError() != null) {
+                writer.writeString(result.getError());
+            }
+        }
+    }
+
+    static BatchTransactionResponse readBatchResponse(BinaryReader reader) throws IOException {
+        BatchTransactionResponse response = new BatchTransactionResponse();
+        response.setTotal((int) reader.readVarLong());
+        response.setCreated((int) reader.readVarLong());
+        response.setRejected((int) reader.readVarLong());
+        int count = readCount(reader, Integer.MAX_VALUE);
+        List<BatchItemResult> results = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            int index = (int) reader.readVarLong();
+            int status = reader.readByte();
+            if (status >= STATUSES.length) {
+                throw new BinaryReader.MalformedMessageException("Unknown batch item status " + status);
+            }
+            int flags = reader.readByte();
+            Long id = (flags & HAS_ID) != 0 ? reader.readVarLong() : null;
+            String error = (flags & HAS_ERROR) != 0 ? reader.readString(MAX_STRING_BYTES) : null;
+            results.add(new BatchItemResult(index, STATUSES[status], id, error));
+        }
+        response.setResults(results);
+        return response;
+    }
+
+    /**
+     * 创建请求列表超过允许的条数
+     */
+    static final class BatchTooLargeException extends IOException {
+        BatchTooLargeException(long count) {
+            super("Batch of " + count + " requests is too large");
+        }
+    }
+
+    private static void writeAmount(BinaryWriter writer, BigDecimal amount) throws IOException {
+        BigInteger unscaled = amount.unscaledValue();
+        if (unscaled.bitLength() > 63 || amount.scale() < 0 || amount.scale() > 255) {
+            // 超出范围的金额先去掉末尾的零再尝试一次
+            amount = amount.stripTrailingZeros();
+            if (amount.scale() < 0) {
+                amount = amount.setScale(0);
+            }
+            unscaled = amount.unscaledValue();
+            if (unscaled.bitLength() > 63 || amount.scale() > 255) {
+                throw new IllegalArgumentException("Amount cannot be encoded in binary format: " + amount);
+            }
+        }
+        writer.writeZigZag(unscaled.longValue());
+        writer.writeByte(amount.scale());
+    }
+
+    private static BigDecimal readAmount(BinaryReader reader) throws IOException {
+        long unscaled = reader.readZigZag();
+        return BigDecimal.valueOf(unscaled, reader.readByte());
+    }
+
+    private static TransactionType readType(BinaryReader reader) throws IOException {
+        int ordinal = reader.readByte();
+        if (ordinal >= TYPES.length) {
+            throw new BinaryReader.MalformedMessageException("Unknown transaction type " + ordinal);
+        }
+        return TYPES[ordinal];
+    }
+
+    /**
+     * 读取列表条数，超过 maxCount 时抛出 {@link BatchTooLargeException}，不读取任何元素
+     */
+    static int readCount(BinaryReader reader, int maxCount) throws IOException {
+        long count = reader.readVarLong();
+        if (count < 0 || count > Integer.MAX_VALUE) {
+            throw new BinaryReader.MalformedMessageException("Invalid element count " + count);
+        }
+        if (count > maxCount) {
+            throw new BatchTooLargeException(count);
+        }
+        return (int) count;
+    }
+
+    private static int flag(boolean present, int bit) {
+        return present ? bit : 0;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.banking.controller;
+
+import com.example.banking.dto.BatchTransactionResponse;
+import com.example.banking.dto.CreateTransactionRequest;
+import com.example.banking.dto.TransactionDTO;
+import com.example.banking.dto.UpdateTransactionRequest;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * 交易接口的紧凑二进制格式，供内部服务间的大流量调用使用，格式见 {@link BinaryTransactionCodec}。
+ * <p>
+ * 客户端在 Accept 中指定 {@value #MEDIA_TYPE_VALUE} 时，单笔交易、交易列表和批量导入结果以二进制返回；
+ * 以同样的 Content-Type 提交创建、更新请求和批量导入。错误响应仍为 JSON，客户端应在 Accept 中同时接受 application/json。
+ * 编解码使用池化的缓冲区，整个消息装得下一个缓冲区时设置 Content-Length，否则分块写出。
+ */
+public class BinaryTransactionMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-banking-transaction";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int POOLED_BUFFERS = 256;
+
+    // 转换器和批量导入共用，池中最多保留 4MB
+    private static final BufferPool BUFFERS = new BufferPool(BUFFER_SIZE, POOLED_BUFFERS);
+
+    public BinaryTransactionMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    /**
+     * 按类粗筛，决定 {@link #getSupportedMediaTypes(Class)} 的结果；列表元素类型由 {@link #canWrite(Type, Class, MediaType)} 检查
+     */
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return TransactionDTO.class == clazz || BatchTransactionResponse.class == clazz
+                || CreateTransactionRequest.class == clazz || UpdateTransactionRequest.class == clazz
+                || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        Class<?> clazz = ResolvableType.forType(type).resolve();
+        return (clazz == CreateTransactionRequest.class || clazz == UpdateTransactionRequest.class)
+                && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        Class<?> resolved = type != null ? ResolvableType.forType(type).resolve(clazz) : clazz;
+        boolean writable = resolved == TransactionDTO.class || resolved == BatchTransactionResponse.class
+                || isTransactionList(type != null ? type : clazz);
+        return writable && canWrite(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        return readInternal(ResolvableType.forType(type).resolve(), inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        byte[] buffer = BUFFERS.acquire();
+        try {
+            BinaryReader reader = new BinaryReader(buffer, inputMessage.getBody());
+            int messageType = BinaryTransactionCodec.readHeader(reader);
+            if (clazz == CreateTransactionRequest.class && messageType == BinaryTransactionCodec.CREATE_REQUEST) {
+                return BinaryTransactionCodec.readCreateRequest(reader);
+            }
+            if (clazz == UpdateTransactionRequest.class && messageType == BinaryTransactionCodec.UPDATE_REQUEST) {
+                return BinaryTransactionCodec.readUpdateRequest(reader);
+            }
+            throw new HttpMessageNotReadableException(
+                    "Unexpected binary message type " + messageType + " for " + clazz.getSimpleName(), inputMessage);
+        } catch (BinaryReader.MalformedMessageException | EOFException e) {
+            throw new HttpMessageNotReadableException("Malformed binary message: " + e.getMessage(), e, inputMessage);
+        } finally {
+            BUFFERS.release(buffer);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        byte[] buffer = BUFFERS.acquire();
+        try {
+            BinaryWriter writer = new BinaryWriter(buffer, outputMessage::getBody);
+            if (body instanceof TransactionDTO transaction) {
+                BinaryTransactionCodec.writeHeader(writer, BinaryTransactionCodec.TRANSACTION);
+                BinaryTransactionCodec.writeTransaction(writer, transaction);
+            } else if (body instanceof BatchTransactionResponse response) {
+                BinaryTransactionCodec.writeHeader(writer, BinaryTransactionCodec.BATCH_RESPONSE);
+                BinaryTransactionCodec.writeBatchResponse(writer, response);
+            } else if (body instanceof List<?> transactions) {
+                BinaryTransactionCodec.writeHeader(writer, BinaryTransactionCodec.TRANSACTION_LIST);
+                BinaryTransactionCodec.writeTransactions(writer, transactions);
+            } else {
+                throw new HttpMessageNotWritableException("Unsupported type for binary format: " + body.getClass());
+            }
+            if (!writer.isStreaming()) {
+                // 在打开响应体之前设置长度，之后响应头不能再修改
+                outputMessage.getHeaders().setContentLength(writer.size());
+            }
+            writer.finish();
+        } finally {
+            BUFFERS.release(buffer);
+        }
+    }
+
+    /**
+     * 解码批量导入请求，条数超过 maxCount 时抛出 {@link BinaryTransactionCodec.BatchTooLargeException}
+     */
+    static List<CreateTransactionRequest> readBatch(InputStream body, int maxCount) throws IOException {
+        byte[] buffer = BUFFERS.acquire();
+        try {
+            BinaryReader reader = new BinaryReader(buffer, body);
+            int messageType = BinaryTransactionCodec.readHeader(reader);
+            if (messageType != BinaryTransactionCodec.CREATE_REQUEST_LIST) {
+                throw new BinaryReader.MalformedMessageException("Unexpected binary message type " + messageType);
+            }
+            return BinaryTransactionCodec.readCreateRequests(reader, maxCount);
+        } finally {
+            BUFFERS.release(buffer);
+        }
+    }
+
+    private static boolean isTransactionList(Type type) {
+        ResolvableType resolvable = ResolvableType.forType(type);
+        return List.class.isAssignableFrom(resolvable.toClass())
+                && resolvable.asCollection().getGeneric(0).resolve() == TransactionDTO.class;
+    }
+}
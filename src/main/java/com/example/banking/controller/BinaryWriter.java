@@ -0,0 +1,142 @@
+package com.example.banking.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 向固定大小的缓冲区写入二进制格式的基本类型，缓冲区写满时才交给输出流。
+ * <p>
+ * 输出流在第一次写满时才打开：整个消息装得下一个缓冲区时，调用方可以在 {@link #finish} 之前得知消息总长度。
+ */
+final class BinaryWriter {
+
+    interface Sink {
+        OutputStream open() throws IOException;
+    }
+
+    private final byte[] buffer;
+    private final Sink sink;
+    private OutputStream out;
+    private int position;
+
+    BinaryWriter(byte[] buffer, Sink sink) {
+        this.buffer = buffer;
+        this.sink = sink;
+    }
+
+    void writeByte(int value) throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * 无符号 LEB128 变长整数，每字节7位，小于128的值占1字节
+     */
+    void writeVarLong(long value) throws IOException {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * 有符号整数先按 ZigZag 映射为无符号数，绝对值小的负数同样只占很少的字节
+     */
+    void writeZigZag(long value) throws IOException {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * 变长的 UTF-8 字节数加 UTF-8 内容，直接编码进缓冲区，不创建中间字节数组
+     */
+    void writeString(String value) throws IOException {
+        int length = utf8Length(value);
+        writeVarLong(length);
+        if (length > buffer.length) {
+            flushBuffer();
+            out.write(value.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        ensure(length);
+        int pos = position;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[pos++] = (byte) (0xC0 | (c >> 6));
+                buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // 不成对的代理字符按 String.getBytes 的方式替换为 '?'
+                buffer[pos++] = '?';
+            } else {
+                buffer[pos++] = (byte) (0xE0 | (c >> 12));
+                buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        position = pos;
+    }
+
+    /**
+     * 输出流是否已经打开，未打开时 {@link #size()} 即整个消息的长度
+     */
+    boolean isStreaming() {
+        return out != null;
+    }
+
+    int size() {
+        return position;
+    }
+
+    /**
+     * 写出缓冲区中剩余的内容并刷新输出流
+     */
+    void finish() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (position + bytes > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (out == null) {
+            out = sink.open();
+        }
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
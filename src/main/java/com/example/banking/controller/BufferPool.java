@@ -0,0 +1,33 @@
+package com.example.banking.controller;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * 固定大小字节缓冲区的有界池。池空时新建，归还时池满则丢弃，池中最多保留 capacity 个缓冲区。
+ * 不使用 ThreadLocal：虚拟线程模式下每个请求一个线程，线程本地的缓冲区几乎不会被复用。
+ */
+final class BufferPool {
+
+    private final int bufferSize;
+    private final ArrayBlockingQueue<byte[]> buffers;
+
+    BufferPool(int bufferSize, int capacity) {
+        this.bufferSize = bufferSize;
+        this.buffers = new ArrayBlockingQueue<>(capacity);
+    }
+
+    byte[] acquire() {
+        byte[] buffer = buffers.poll();
+        return buffer != null ? buffer : new byte[bufferSize];
+    }
+
+    void release(byte[] buffer) {
+        if (buffer.length == bufferSize) {
+            buffers.offer(buffer);
+        }
+    }
+
+    int getBufferSize() {
+        return bufferSize;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.banking.controller;
+
+import com.example.banking.dto.TransactionDTO;
+import com.example.banking.exception.BusinessException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * 交易导出格式。逐行写出，不在内存中拼装整个响应体
+ */
+enum ExportFormat {
+
+    NDJSON("ndjson", MediaType.APPLICATION_NDJSON) {
+        @Override
+        void write(Iterator<TransactionDTO> rows, OutputStream out, ObjectMapper objectMapper) throws IOException {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // 关闭逐条flush，由外层缓冲区决定何时写出
+            try (SequenceWriter writer = objectMapper.writerFor(TransactionDTO.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n")
+                    .writeValues(generator)) {
+                while (rows.hasNext()) {
+                    writer.write(rows.next());
+                }
+                generator.writeRaw('\n');
+            }
+            generator.close();
+        }
+    },
+
+    CSV("csv", new MediaType("text", "csv", StandardCharsets.UTF_8)) {
+        @Override
+        void write(Iterator<TransactionDTO> rows, OutputStream out, ObjectMapper objectMapper) throws IOException {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("id,amount,description,type,timestamp\n");
+            while (rows.hasNext()) {
+                TransactionDTO row = rows.next();
+                writer.write(String.valueOf(row.getId()));
+                writer.write(',');
+                writer.write(row.getAmount() != null ? row.getAmount().toPlainString() : "");
+                writer.write(',');
+                writeField(writer, row.getDescription());
+                writer.write(',');
+                writer.write(row.getType() != null ? row.getType().name() : "");
+                writer.write(',');
+                writer.write(row.getTimestamp() != null ? row.getTimestamp().toString() : "");
+                writer.write('\n');
+            }
+            writer.flush();
+        }
+
+        // RFC 4180：包含分隔符、引号或换行的字段加引号，内部引号双写
+        private void writeField(Writer writer, String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    };
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    ExportFormat(String extension, MediaType mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    abstract void write(Iterator<TransactionDTO> rows, OutputStream out, ObjectMapper objectMapper) throws IOException;
+
+    String getExtension() {
+        return extension;
+    }
+
+    MediaType getMediaType() {
+        return mediaType;
+    }
+
+    static ExportFormat parse(String format) {
+        try {
+            return valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("不支持的导出格式: " + format, HttpStatus.BAD_REQUEST.value(), "Invalid Format");
+        }
+    }
+}
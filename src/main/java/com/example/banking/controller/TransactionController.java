@@ -1,39 +1,73 @@
 package com.example.banking.controller;
 
+import com.example.banking.dto.BatchTransactionResponse;
 import com.example.banking.dto.CreateTransactionRequest;
 import com.example.banking.dto.TransactionDTO;
+import com.example.banking.dto.TransactionStatsDTO;
 import com.example.banking.dto.UpdateTransactionRequest;
+import com.example.banking.exception.BusinessException;
+import com.example.banking.model.StatsGranularity;
+import com.example.banking.model.TransactionCursor;
+import com.example.banking.model.TransactionQuery;
 import com.example.banking.model.TransactionType;
 import com.example.banking.service.TransactionService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/transactions")
 @Tag(name = "交易管理", description = "交易CRUD操作API")
 public class TransactionController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
+    // ETag 中的启动标识：内存中的修改版本号重启后从0开始，不同进程生成的 ETag 不会相同
+    private final String etagEpoch = Long.toString(System.currentTimeMillis(), 36);
+
     private final TransactionService transactionService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${transaction.batch.max-size:10000}")
+    private int batchMaxSize;
 
     @Autowired
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService, ObjectMapper objectMapper) {
         this.transactionService = transactionService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -51,11 +85,36 @@ public class TransactionController {
         return new ResponseEntity<>(createdTransaction, HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+            BinaryTransactionMessageConverter.MEDIA_TYPE_VALUE})
+    @Operation(summary = "批量创建交易", description = "接收交易请求的JSON数组、NDJSON流或二进制格式的请求列表，逐条返回创建结果",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "交易创建请求的JSON数组，或每行一个请求的NDJSON", required = true,
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = CreateTransactionRequest.class)))))
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "批次已处理，逐条结果见响应体",
+                content = @Content(schema = @Schema(implementation = BatchTransactionResponse.class))),
+        @ApiResponse(responseCode = "400", description = "请求体无法解析", content = @Content),
+        @ApiResponse(responseCode = "413", description = "批次超过最大条数", content = @Content)
+    })
+    public ResponseEntity<BatchTransactionResponse> createTransactions(
+            @Parameter(hidden = true) InputStream body,
+            @Parameter(hidden = true)
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) {
+        // 直接读取原始请求流，避免先把整个批次缓冲成字符串或JsonNode
+        List<CreateTransactionRequest> requests = BinaryTransactionMessageConverter.MEDIA_TYPE.includes(contentType)
+                ? readBinaryBatch(body) : readBatch(body);
+        BatchTransactionResponse response = transactionService.createTransactions(requests);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
     @GetMapping
     @Operation(summary = "获取交易列表", description = "获取所有交易，支持分页和过滤")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "成功获取交易列表", 
-                content = @Content(schema = @Schema(implementation = TransactionDTO.class)))
+                content = @Content(schema = @Schema(implementation = TransactionDTO.class))),
+        @ApiResponse(responseCode = "304", description = "If-None-Match 与当前 ETag 一致，交易数据没有变化", content = @Content),
+        @ApiResponse(responseCode = "400", description = "无效的分页或过滤参数", content = @Content)
     })
     public ResponseEntity<List<TransactionDTO>> getAllTransactions(
             @Parameter(description = "页码，从0开始") 
@@ -73,44 +132,121 @@ public class TransactionController {
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @Parameter(description = "结束日期 (ISO格式: yyyy-MM-dd'T'HH:mm:ss)") 
             @RequestParam(value = "endDate", required = false) 
-            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @Parameter(description = "排序方式，默认按时间倒序") 
+            @RequestParam(value = "sort", defaultValue = "TIMESTAMP_DESC") TransactionQuery.Sort sort,
+            @Parameter(description = "分页游标，取自上一页响应头 " + NEXT_CURSOR_HEADER + "，设置后忽略页码") 
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @Parameter(hidden = true) WebRequest webRequest) {
 
-        // 获取所有交易
-        List<TransactionDTO> transactions = transactionService.getAllTransactions();
-        
-        // 按类型过滤
-        if (type != null) {
-            transactions = transactions.stream()
-                .filter(t -> t.getType() == type)
-                .collect(Collectors.toList());
-        }
-        
-        // 按金额范围过滤
-        if (minAmount != null || maxAmount != null) {
-            transactions = transactions.stream()
-                .filter(t -> (minAmount == null || t.getAmount().compareTo(minAmount) >= 0) &&
-                           (maxAmount == null || t.getAmount().compareTo(maxAmount) <= 0))
-                .collect(Collectors.toList());
+        // 过滤、排序和分页统一下推到Repository，只物化当前页
+        TransactionQuery query = TransactionQuery.builder()
+                .type(type)
+                .amountRange(minAmount, maxAmount)
+                .dateRange(startDate, endDate)
+                .sort(sort)
+                .page(page, size)
+                .after(cursor != null ? parseCursor(cursor) : null)
+                .build();
+
+        // 先校验再判断条件请求：非法参数无论 If-None-Match 是否匹配都返回 400
+        transactionService.validateQuery(query);
+        // 先取版本号再查询：全库没有修改时同一URL的结果不变，直接返回304，不查询也不序列化
+        String etag = etag(transactionService.getModificationVersion());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
         }
+        List<TransactionDTO> transactions = transactionService.findTransactions(query);
         
-        // 按日期范围过滤
-        if (startDate != null || endDate != null) {
-            transactions = transactions.stream()
-                .filter(t -> (startDate == null || t.getTimestamp().isEqual(startDate) || t.getTimestamp().isAfter(startDate)) &&
-                           (endDate == null || t.getTimestamp().isEqual(endDate) || t.getTimestamp().isBefore(endDate)))
-                .collect(Collectors.toList());
+        // 按时间排序且本页已满时，返回指向最后一条记录的游标供客户端继续翻页
+        HttpHeaders headers = conditionalHeaders();
+        if (sort.isByTimestamp() && !transactions.isEmpty() && transactions.size() == size) {
+            TransactionDTO last = transactions.get(transactions.size() - 1);
+            headers.set(NEXT_CURSOR_HEADER, new TransactionCursor(last.getTimestamp(), last.getId()).encode());
         }
-        
-        // 应用分页
-        int fromIndex = page * size;
-        int toIndex = Math.min(fromIndex + size, transactions.size());
-        
-        if (fromIndex >= transactions.size()) {
-            return new ResponseEntity<>(Collections.emptyList(), HttpStatus.OK);
+        return new ResponseEntity<>(transactions, headers, HttpStatus.OK);
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "导出交易", description = "按与列表相同的过滤条件流式导出全部匹配的交易，"
+            + "请求头 Accept-Encoding 包含 gzip 时压缩输出")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "导出成功，响应体为NDJSON或CSV"),
+        @ApiResponse(responseCode = "400", description = "无效的导出格式或过滤参数", content = @Content)
+    })
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @Parameter(description = "导出格式：ndjson 或 csv")
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @Parameter(description = "交易类型")
+            @RequestParam(value = "type", required = false) TransactionType type,
+            @Parameter(description = "最小金额")
+            @RequestParam(value = "minAmount", required = false) BigDecimal minAmount,
+            @Parameter(description = "最大金额")
+            @RequestParam(value = "maxAmount", required = false) BigDecimal maxAmount,
+            @Parameter(description = "开始日期 (ISO格式: yyyy-MM-dd'T'HH:mm:ss)")
+            @RequestParam(value = "startDate", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @Parameter(description = "结束日期 (ISO格式: yyyy-MM-dd'T'HH:mm:ss)")
+            @RequestParam(value = "endDate", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @Parameter(hidden = true)
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        TransactionQuery query = TransactionQuery.builder()
+                .type(type)
+                .amountRange(minAmount, maxAmount)
+                .dateRange(startDate, endDate)
+                .sort(TransactionQuery.Sort.TIMESTAMP_ASC)
+                .build();
+        // 过滤条件在此处同步校验，错误仍以普通错误响应返回；行数据在写出时才逐条读取
+        Stream<TransactionDTO> rows = transactionService.exportTransactions(query);
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(exportFormat.getMediaType());
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename("transactions." + exportFormat.getExtension())
+                .build());
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
         }
-        
-        List<TransactionDTO> pagedTransactions = transactions.subList(fromIndex, toIndex);
-        return new ResponseEntity<>(pagedTransactions, HttpStatus.OK);
+
+        StreamingResponseBody body = out -> {
+            try (rows) {
+                OutputStream target = gzip ? new GZIPOutputStream(out, EXPORT_BUFFER_SIZE) : out;
+                OutputStream buffered = new BufferedOutputStream(target, EXPORT_BUFFER_SIZE);
+                exportFormat.write(rows.iterator(), buffered, objectMapper);
+                buffered.flush();
+                if (target instanceof GZIPOutputStream compressed) {
+                    compressed.finish();
+                }
+            }
+        };
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "交易统计", description = "按交易类型和小时、天或月分桶返回笔数、合计、最小、最大和平均金额")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "成功获取统计",
+                content = @Content(array = @ArraySchema(schema = @Schema(implementation = TransactionStatsDTO.class)))),
+        @ApiResponse(responseCode = "400", description = "无效的统计参数", content = @Content)
+    })
+    public ResponseEntity<List<TransactionStatsDTO>> getTransactionStats(
+            @Parameter(description = "分桶粒度：HOUR、DAY 或 MONTH")
+            @RequestParam(value = "groupBy", defaultValue = "DAY") StatsGranularity groupBy,
+            @Parameter(description = "交易类型，不传时返回全部类型")
+            @RequestParam(value = "type", required = false) TransactionType type,
+            @Parameter(description = "开始日期 (ISO格式: yyyy-MM-dd'T'HH:mm:ss)，包含其所在分桶")
+            @RequestParam(value = "startDate", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @Parameter(description = "结束日期 (ISO格式: yyyy-MM-dd'T'HH:mm:ss)")
+            @RequestParam(value = "endDate", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        List<TransactionStatsDTO> stats = transactionService.getTransactionStats(groupBy, type, startDate, endDate);
+        return new ResponseEntity<>(stats, HttpStatus.OK);
     }
 
     @GetMapping("/{id}")
@@ -118,13 +254,18 @@ public class TransactionController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "成功获取交易", 
                 content = @Content(schema = @Schema(implementation = TransactionDTO.class))),
+        @ApiResponse(responseCode = "304", description = "If-None-Match 与当前 ETag 一致，交易没有被修改", content = @Content),
         @ApiResponse(responseCode = "404", description = "交易不存在", content = @Content)
     })
     public ResponseEntity<TransactionDTO> getTransactionById(
             @Parameter(description = "交易ID", required = true) 
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @Parameter(hidden = true) WebRequest webRequest) {
         TransactionDTO transaction = transactionService.getTransactionById(id);
-        return new ResponseEntity<>(transaction, HttpStatus.OK);
+        if (webRequest.checkNotModified(etag(transaction.getVersion()))) {
+            return null;
+        }
+        return new ResponseEntity<>(transaction, conditionalHeaders(), HttpStatus.OK);
     }
 
     @PutMapping("/{id}")
@@ -167,4 +308,79 @@ public class TransactionController {
         long count = transactionService.getTransactionCount();
         return new ResponseEntity<>(count, HttpStatus.OK);
     }
-} 
\ No newline at end of file
+
+    /**
+     * 流式解析批量请求，JSON数组和NDJSON共用同一个读取器，超过上限时立即停止读取
+     */
+    private List<CreateTransactionRequest> readBatch(InputStream body) {
+        List<CreateTransactionRequest> requests = new ArrayList<>();
+        try (MappingIterator<CreateTransactionRequest> iterator =
+                     objectMapper.readerFor(CreateTransactionRequest.class).readValues(body)) {
+            while (iterator.hasNextValue()) {
+                if (requests.size() == batchMaxSize) {
+                    throw new BusinessException("批量交易不能超过" + batchMaxSize + "条",
+                            HttpStatus.PAYLOAD_TOO_LARGE.value(), "Batch Too Large");
+                }
+                requests.add(iterator.nextValue());
+            }
+        } catch (JsonProcessingException e) {
+            throw new BusinessException("无效的批量请求数据", HttpStatus.BAD_REQUEST.value(), "Invalid Batch");
+        } catch (IOException e) {
+            throw new BusinessException("读取批量请求失败", HttpStatus.BAD_REQUEST.value(), "Invalid Batch");
+        }
+        return requests;
+    }
+
+    /**
+     * 解码二进制格式的批量请求，条数在消息开头，超过上限时不读取任何元素
+     */
+    private List<CreateTransactionRequest> readBinaryBatch(InputStream body) {
+        try {
+            return BinaryTransactionMessageConverter.readBatch(body, batchMaxSize);
+        } catch (BinaryTransactionCodec.BatchTooLargeException e) {
+            throw new BusinessException("批量交易不能超过" + batchMaxSize + "条",
+                    HttpStatus.PAYLOAD_TOO_LARGE.value(), "Batch Too Large");
+        } catch (IOException e) {
+            throw new BusinessException("无效的批量请求数据", HttpStatus.BAD_REQUEST.value(), "Invalid Batch");
+        }
+    }
+
+    /**
+     * 弱 ETag：同一版本的 JSON 和二进制表示、压缩与未压缩的响应体字节不同，只保证语义相同；
+     * Tomcat 也不压缩带强 ETag 的响应
+     */
+    private String etag(long version) {
+        return "W/\"" + etagEpoch + "-" + Long.toString(version, 36) + "\"";
+    }
+
+    /**
+     * 条件请求的响应头：客户端每次使用缓存前都须带 If-None-Match 重新验证
+     */
+    private static HttpHeaders conditionalHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(CacheControl.noCache());
+        headers.setVary(List.of(HttpHeaders.ACCEPT));
+        return headers;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").equalsIgnoreCase("q=0");
+            }
+        }
+        return false;
+    }
+
+    private TransactionCursor parseCursor(String cursor) {
+        try {
+            return TransactionCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("无效的分页游标", HttpStatus.BAD_REQUEST.value(), "Invalid Cursor");
+        }
+    }
+}
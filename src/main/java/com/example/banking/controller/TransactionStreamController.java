@@ -0,0 +1,46 @@
+package com.example.banking.controller;
+
+import com.example.banking.dto.TransactionChangeEvent;
+import com.example.banking.stream.TransactionChangeFeed;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/transactions")
+@Tag(name = "交易变更推送", description = "以 Server-Sent Events 推送交易的创建、修改和删除")
+public class TransactionStreamController {
+
+    private final TransactionChangeFeed changeFeed;
+
+    @Autowired
+    public TransactionStreamController(TransactionChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅交易变更", description = "每条 message 事件的数据为一个交易变更，事件 ID 可作为 Last-Event-ID 断线续传；"
+            + "续传位置已不在缓冲区中时先发送 reset 事件，客户端应重新加载列表")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "事件流",
+                content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                        schema = @Schema(implementation = TransactionChangeEvent.class))),
+        @ApiResponse(responseCode = "503", description = "订阅数已达上限", content = @Content)
+    })
+    public SseEmitter streamChanges(
+            @Parameter(description = "断线重连时最后收到的事件 ID，浏览器的 EventSource 会自动携带")
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return changeFeed.subscribe(lastEventId);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.banking.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "批量导入中单条交易的处理结果")
+public class BatchItemResult {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+
+    @Schema(description = "该条交易在请求中的序号，从0开始", example = "0")
+    private int index;
+
+    @Schema(description = "处理结果", example = "CREATED")
+    private Status status;
+
+    @Schema(description = "创建成功时的交易ID", example = "1")
+    private Long id;
+
+    @Schema(description = "失败原因", example = "交易金额必须大于零")
+    private String error;
+
+    // 默认构造函数
+    public BatchItemResult() {
+    }
+
+    public BatchItemResult(int index, Status status, Long id, String error) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.error = error;
+    }
+
+    public static BatchItemResult created(int index, Long id) {
+        return new BatchItemResult(index, Status.CREATED, id, null);
+    }
+
+    public static BatchItemResult rejected(int index, Status status, String error) {
+        return new BatchItemResult(index, status, null, error);
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
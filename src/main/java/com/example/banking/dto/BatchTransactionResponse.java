@@ -0,0 +1,67 @@
+package com.example.banking.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "批量导入交易的响应对象")
+public class BatchTransactionResponse {
+
+    @Schema(description = "请求中的交易条数", example = "3")
+    private int total;
+
+    @Schema(description = "创建成功的条数", example = "2")
+    private int created;
+
+    @Schema(description = "被拒绝（重复或无效）的条数", example = "1")
+    private int rejected;
+
+    @Schema(description = "逐条处理结果，顺序与请求一致")
+    private List<BatchItemResult> results;
+
+    // 默认构造函数
+    public BatchTransactionResponse() {
+    }
+
+    public BatchTransactionResponse(List<BatchItemResult> results) {
+        this.results = results;
+        this.total = results.size();
+        this.created = (int) results.stream()
+                .filter(result -> result.getStatus() == BatchItemResult.Status.CREATED)
+                .count();
+        this.rejected = total - created;
+    }
+
+    // Getters and Setters
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<BatchItemResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchItemResult> results) {
+        this.results = results;
+    }
+}
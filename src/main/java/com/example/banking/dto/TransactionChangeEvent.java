@@ -0,0 +1,85 @@
+package com.example.banking.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "交易变更事件，由变更推送接口发送")
+public class TransactionChangeEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    @Schema(description = "变更类型", example = "CREATED")
+    private Type type;
+
+    @Schema(description = "交易ID", example = "1")
+    private Long id;
+
+    @Schema(description = "变更后的交易版本号，同一交易的事件可能乱序到达，版本号较小的应当忽略；"
+            + "删除事件为被删除版本加1，比该交易此前的所有事件都大，收到删除后迟到的修改事件会被忽略", example = "1")
+    private long version;
+
+    @Schema(description = "变更后的交易，删除事件为空")
+    private TransactionDTO transaction;
+
+    // 默认构造函数
+    public TransactionChangeEvent() {
+    }
+
+    public TransactionChangeEvent(Type type, Long id, long version, TransactionDTO transaction) {
+        this.type = type;
+        this.id = id;
+        this.version = version;
+        this.transaction = transaction;
+    }
+
+    public static TransactionChangeEvent created(TransactionDTO transaction) {
+        return new TransactionChangeEvent(Type.CREATED, transaction.getId(), transaction.getVersion(), transaction);
+    }
+
+    public static TransactionChangeEvent updated(TransactionDTO transaction) {
+        return new TransactionChangeEvent(Type.UPDATED, transaction.getId(), transaction.getVersion(), transaction);
+    }
+
+    /**
+     * removedVersion 为被删除的那个版本，删除事件的版本号取其加1
+     */
+    public static TransactionChangeEvent deleted(Long id, long removedVersion) {
+        return new TransactionChangeEvent(Type.DELETED, id, removedVersion + 1, null);
+    }
+
+    // Getters and Setters
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public TransactionDTO getTransaction() {
+        return transaction;
+    }
+
+    public void setTransaction(TransactionDTO transaction) {
+        this.transaction = transaction;
+    }
+}
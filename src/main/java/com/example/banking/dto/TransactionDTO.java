@@ -1,6 +1,8 @@
 package com.example.banking.dto;
 
+import com.example.banking.model.Transaction;
 import com.example.banking.model.TransactionType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import java.math.BigDecimal;
@@ -23,6 +25,11 @@ public class TransactionDTO {
     @Schema(description = "交易时间", example = "2023-06-15T14:30:00")
     private LocalDateTime timestamp;
 
+    // 存储版本号，只用于生成 ETag，不出现在响应体中
+    @JsonIgnore
+    @Schema(hidden = true)
+    private long version;
+
     // 默认构造函数
     public TransactionDTO() {
     }
@@ -36,6 +43,18 @@ public class TransactionDTO {
         this.timestamp = timestamp;
     }
 
+    public static TransactionDTO from(Transaction transaction) {
+        TransactionDTO dto = new TransactionDTO(
+                transaction.getId(),
+                transaction.getAmount(),
+                transaction.getDescription(),
+                transaction.getType(),
+                transaction.getTimestamp()
+        );
+        dto.setVersion(transaction.getVersion());
+        return dto;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -76,4 +95,12 @@ public class TransactionDTO {
     public void setTimestamp(LocalDateTime timestamp) {
         this.timestamp = timestamp;
     }
-} 
\ No newline at end of file
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
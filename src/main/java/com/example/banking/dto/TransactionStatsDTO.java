@@ -0,0 +1,102 @@
+package com.example.banking.dto;
+
+import com.example.banking.model.TransactionType;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Schema(description = "按交易类型和时间分桶的交易统计")
+public class TransactionStatsDTO {
+
+    @Schema(description = "分桶起始时间", example = "2023-06-15T00:00:00")
+    private LocalDateTime bucket;
+
+    @Schema(description = "交易类型", example = "EXPENSE")
+    private TransactionType type;
+
+    @Schema(description = "交易笔数", example = "42")
+    private long count;
+
+    @Schema(description = "金额合计", example = "4210.50")
+    private BigDecimal sum;
+
+    @Schema(description = "最小金额", example = "3.20")
+    private BigDecimal min;
+
+    @Schema(description = "最大金额", example = "880.00")
+    private BigDecimal max;
+
+    @Schema(description = "平均金额", example = "100.25")
+    private BigDecimal avg;
+
+    public TransactionStatsDTO() {
+    }
+
+    public TransactionStatsDTO(LocalDateTime bucket, TransactionType type, long count,
+                               BigDecimal sum, BigDecimal min, BigDecimal max, BigDecimal avg) {
+        this.bucket = bucket;
+        this.type = type;
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.avg = avg;
+    }
+
+    public LocalDateTime getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(LocalDateTime bucket) {
+        this.bucket = bucket;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public void setType(TransactionType type) {
+        this.type = type;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public BigDecimal getSum() {
+        return sum;
+    }
+
+    public void setSum(BigDecimal sum) {
+        this.sum = sum;
+    }
+
+    public BigDecimal getMin() {
+        return min;
+    }
+
+    public void setMin(BigDecimal min) {
+        this.min = min;
+    }
+
+    public BigDecimal getMax() {
+        return max;
+    }
+
+    public void setMax(BigDecimal max) {
+        this.max = max;
+    }
+
+    public BigDecimal getAvg() {
+        return avg;
+    }
+
+    public void setAvg(BigDecimal avg) {
+        this.avg = avg;
+    }
+}
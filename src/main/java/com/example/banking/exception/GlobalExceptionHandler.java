@@ -1,7 +1,13 @@
 package com.example.banking.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -18,6 +24,14 @@ import java.util.NoSuchElementException;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
+    // Web层切片测试等未装配监控的环境中退回全局注册表
+    @Autowired
+    public GlobalExceptionHandler(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+    }
+
     @ExceptionHandler(value = {TransactionNotFoundException.class, NoSuchElementException.class})
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ErrorResponse handleNotFoundException(Exception ex, WebRequest request) {
@@ -79,8 +93,25 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleNotReadable(HttpMessageNotReadableException ex, WebRequest request) {
+        return buildErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                "Malformed Request",
+                "请求体无法解析",
+                request.getDescription(false)
+        );
+    }
+
     @ExceptionHandler(BusinessException.class)
     public ResponseEntity<ErrorResponse> handleBusinessException(BusinessException ex, WebRequest request) {
+        // errorType 是代码中的固定取值，作为标签不会导致时间序列膨胀
+        Counter.builder("transaction.errors")
+                .description("按错误类型统计的业务异常数")
+                .tag("type", ex.getErrorType())
+                .register(meterRegistry)
+                .increment();
         ErrorResponse errorResponse = buildErrorResponse(
                 ex.getStatusCode(),
                 ex.getErrorType(),
@@ -0,0 +1,137 @@
+package com.example.banking.health;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 通过 {@link GarbageCollectorMXBean} 的回收通知累计 GC 停顿和分配量，由 {@link HealthSampler} 按采样周期取走。
+ * <p>
+ * 只统计停顿：G1 Concurrent GC、ZGC Cycles 等并发阶段与应用线程并行执行，不计入。分配量按年轻代计算：
+ * 本次回收前的年轻代占用减去上次回收后的占用，即两次回收之间新分配的字节数，与 Micrometer 的
+ * {@code jvm.gc.memory.allocated} 口径相同；只在回收发生时更新，没有回收的采样周期分配量为0。
+ */
+class GcMonitor implements NotificationListener, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(GcMonitor.class);
+
+    /**
+     * 一个采样周期内的回收活动
+     *
+     * @param pauses         停顿次数
+     * @param pauseMillis    停顿总时长
+     * @param maxPauseMillis 最长的一次停顿
+     * @param allocatedBytes 年轻代新分配的字节数
+     */
+    record Activity(long pauses, long pauseMillis, long maxPauseMillis, long allocatedBytes) {
+    }
+
+    private final AtomicLong pauses = new AtomicLong();
+    private final AtomicLong pauseMillis = new AtomicLong();
+    private final AtomicLong maxPauseMillis = new AtomicLong();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    // 上次回收后的年轻代占用，只在通知线程上读写
+    private long youngAfterLastGc;
+
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+    /**
+     * 不注册回收通知的实例，测试通过 {@link #record} 模拟回收
+     */
+    GcMonitor() {
+    }
+
+    /**
+     * 在当前 JVM 的全部回收器上注册通知
+     */
+    static GcMonitor start() {
+        GcMonitor monitor = new GcMonitor();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(monitor, null, null);
+                monitor.emitters.add(emitter);
+            }
+        }
+        if (monitor.emitters.isEmpty()) {
+            log.warn("No garbage collector emits notifications, GC health checks are disabled");
+        }
+        return monitor;
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        GcInfo gc = info.getGcInfo();
+
+        long allocated = 0;
+        for (Map.Entry<String, MemoryUsage> entry : gc.getMemoryUsageBeforeGc().entrySet()) {
+            if (isYoungPool(entry.getKey())) {
+                long before = entry.getValue().getUsed();
+                long after = gc.getMemoryUsageAfterGc().get(entry.getKey()).getUsed();
+                allocated += Math.max(0, before - youngAfterLastGc);
+                youngAfterLastGc = after;
+            }
+        }
+        boolean pause = !isConcurrent(info.getGcName(), info.getGcCause());
+        record(pause ? gc.getDuration() : -1, allocated);
+    }
+
+    /**
+     * 累计一次回收，pauseMillis 为负表示并发阶段，只累计分配量
+     */
+    void record(long pauseMillis, long allocatedBytes) {
+        if (pauseMillis >= 0) {
+            pauses.incrementAndGet();
+            this.pauseMillis.addAndGet(pauseMillis);
+            maxPauseMillis.accumulateAndGet(pauseMillis, Math::max);
+        }
+        this.allocatedBytes.addAndGet(allocatedBytes);
+    }
+
+    /**
+     * 取走上次调用以来的回收活动并清零；各计数分别清零，与并发的通知之间不保证原子
+     */
+    Activity drain() {
+        return new Activity(pauses.getAndSet(0), pauseMillis.getAndSet(0), maxPauseMillis.getAndSet(0),
+                allocatedBytes.getAndSet(0));
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(this);
+            } catch (ListenerNotFoundException e) {
+                // 已经移除
+            }
+        }
+        emitters.clear();
+    }
+
+    private static boolean isYoungPool(String pool) {
+        return pool.endsWith("Eden Space") || pool.endsWith("Nursery") || pool.equals("ZHeap")
+                || pool.equals("ZGC Young Generation");
+    }
+
+    private static boolean isConcurrent(String name, String cause) {
+        return "No GC".equals(cause) || name.endsWith("Cycles") || name.contains("Concurrent");
+    }
+}
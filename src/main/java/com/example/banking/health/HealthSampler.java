@@ -0,0 +1,249 @@
+package com.example.banking.health;
+
+import com.example.banking.repository.TransactionRepository;
+import com.example.banking.service.ConcurrencyLimitedTransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在后台定期采样 JVM 和存储的状态并生成健康结果，健康检查探针只读取最近一次的结果，不访问存储也不做任何计算。
+ * <p>
+ * 三项结果分别供不同的探针组使用：
+ * <ul>
+ *   <li>jvm（存活探针）：GC 停顿占采样周期的比例或回收后的堆占用达到严重阈值时为 DOWN，表示进程已无法恢复，应当重启</li>
+ *   <li>saturation（就绪探针）：GC 停顿比例、最长停顿、分配速率或回收后的堆占用超过限值时为 OUT_OF_SERVICE，暂停接收流量</li>
+ *   <li>dataStore（就绪探针）：采样周期内写操作的平均耗时超过 SLO，或读取存储规模失败时为 OUT_OF_SERVICE / DOWN</li>
+ * </ul>
+ * 堆占用取各堆内存池最近一次回收后的占用相对上限的最大比例，反映存活对象而不是尚未回收的垃圾。
+ * 写耗时读取 {@code transaction.repository} 计时器，批量写入 saveAll 的耗时随批量大小变化，不计入 SLO。
+ * 采样超过3个周期未更新时（如调度线程被长时间占用）结果为 UNKNOWN。
+ */
+@Component
+public class HealthSampler implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HealthSampler.class);
+
+    private static final String REPOSITORY_TIMER = "transaction.repository";
+    private static final List<String> WRITE_OPERATIONS = List.of("save", "saveIfNotDuplicate", "update", "deleteById");
+    private static final int STALE_INTERVALS = 3;
+
+    /**
+     * 健康判定阈值，比例取值0~1
+     */
+    record Thresholds(double gcOverheadLimit, double gcOverheadCritical, long gcPauseLimitMillis,
+                      double heapLimit, double heapCritical, long allocationRateLimitBytes,
+                      long writeLatencySloMillis, long writeLatencyMinSamples) {
+    }
+
+    private record Snapshot(long sampledAtNanos, Health jvm, Health saturation, Health dataStore) {
+    }
+
+    private final TransactionRepository transactionRepository;
+    private final ConcurrencyLimitedTransactionService concurrencyLimiter;
+    private final MeterRegistry meterRegistry;
+    private final GcMonitor gcMonitor;
+    private final Thresholds thresholds;
+    private final long staleAfterNanos;
+
+    // 以下字段只在采样线程上读写
+    private long lastSampleNanos;
+    private long lastWriteCount;
+    private double lastWriteNanos;
+
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public HealthSampler(TransactionRepository transactionRepository,
+                         ObjectProvider<ConcurrencyLimitedTransactionService> concurrencyLimiter,
+                         ObjectProvider<MeterRegistry> meterRegistry,
+                         @Value("${transaction.health.sample-interval:PT5S}") Duration sampleInterval,
+                         @Value("${transaction.health.gc-overhead-limit:0.1}") double gcOverheadLimit,
+                         @Value("${transaction.health.gc-overhead-critical:0.5}") double gcOverheadCritical,
+                         @Value("${transaction.health.gc-pause-limit-millis:500}") long gcPauseLimitMillis,
+                         @Value("${transaction.health.heap-limit:0.9}") double heapLimit,
+                         @Value("${transaction.health.heap-critical:0.98}") double heapCritical,
+                         @Value("${transaction.health.allocation-rate-limit-mb:2048}") long allocationRateLimitMb,
+                         @Value("${transaction.health.write-latency-slo-millis:50}") long writeLatencySloMillis,
+                         @Value("${transaction.health.write-latency-min-samples:20}") long writeLatencyMinSamples) {
+        this(transactionRepository, concurrencyLimiter.getIfAvailable(),
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), GcMonitor.start(), sampleInterval,
+                new Thresholds(gcOverheadLimit, gcOverheadCritical, gcPauseLimitMillis, heapLimit, heapCritical,
+                        allocationRateLimitMb * 1024 * 1024, writeLatencySloMillis, writeLatencyMinSamples));
+    }
+
+    HealthSampler(TransactionRepository transactionRepository, ConcurrencyLimitedTransactionService concurrencyLimiter,
+                  MeterRegistry meterRegistry, GcMonitor gcMonitor, Duration sampleInterval, Thresholds thresholds) {
+        this.transactionRepository = transactionRepository;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.meterRegistry = meterRegistry;
+        this.gcMonitor = gcMonitor;
+        this.thresholds = thresholds;
+        this.staleAfterNanos = sampleInterval.toNanos() * STALE_INTERVALS;
+        // 启动时先采样一次，建立计数基线，探针立即有结果
+        this.lastSampleNanos = System.nanoTime();
+        Health pending = Health.unknown().withDetail("status", "Health sampling has not completed").build();
+        this.snapshot = new Snapshot(lastSampleNanos, pending, pending, pending);
+        sample();
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.health.sample-interval:PT5S}",
+            initialDelayString = "${transaction.health.sample-interval:PT5S}")
+    public void sample() {
+        long now = System.nanoTime();
+        double windowSeconds = Math.max(now - lastSampleNanos, 1) / 1e9;
+        lastSampleNanos = now;
+        try {
+            GcMonitor.Activity gc = gcMonitor.drain();
+            double heapAfterGc = heapUsageAfterGc();
+            double gcOverhead = Math.min(1.0, gc.pauseMillis() / 1000.0 / windowSeconds);
+            long allocationRate = (long) (gc.allocatedBytes() / windowSeconds);
+            snapshot = new Snapshot(now,
+                    jvmHealth(gc, gcOverhead, heapAfterGc),
+                    saturationHealth(gc, gcOverhead, heapAfterGc, allocationRate),
+                    dataStoreHealth());
+        } catch (RuntimeException e) {
+            // 采样失败时保留上次结果，超过3个周期后探针返回 UNKNOWN
+            log.error("Health sampling failed", e);
+        }
+    }
+
+    /**
+     * 存活探针使用的 JVM 状态
+     */
+    public Health jvm() {
+        return current().jvm();
+    }
+
+    /**
+     * 就绪探针使用的资源饱和度
+     */
+    public Health saturation() {
+        return current().saturation();
+    }
+
+    /**
+     * 就绪探针使用的存储状态
+     */
+    public Health dataStore() {
+        return current().dataStore();
+    }
+
+    @Override
+    public void close() {
+        gcMonitor.close();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        long age = System.nanoTime() - current.sampledAtNanos();
+        if (age <= staleAfterNanos) {
+            return current;
+        }
+        Health stale = Health.unknown()
+                .withDetail("status", "Health sampling is stale")
+                .withDetail("sample_age_millis", TimeUnit.NANOSECONDS.toMillis(age))
+                .build();
+        return new Snapshot(current.sampledAtNanos(), stale, stale, stale);
+    }
+
+    private Health jvmHealth(GcMonitor.Activity gc, double gcOverhead, double heapAfterGc) {
+        boolean critical = gcOverhead >= thresholds.gcOverheadCritical() || heapAfterGc >= thresholds.heapCritical();
+        return (critical ? Health.down() : Health.up())
+                .withDetail("gc_pauses", gc.pauses())
+                .withDetail("gc_overhead", percent(gcOverhead))
+                .withDetail("heap_after_gc", percent(heapAfterGc))
+                .withDetail("available_processors", Runtime.getRuntime().availableProcessors())
+                .build();
+    }
+
+    private Health saturationHealth(GcMonitor.Activity gc, double gcOverhead, double heapAfterGc,
+                                    long allocationRate) {
+        boolean saturated = gcOverhead >= thresholds.gcOverheadLimit()
+                || gc.maxPauseMillis() >= thresholds.gcPauseLimitMillis()
+                || heapAfterGc >= thresholds.heapLimit()
+                || allocationRate >= thresholds.allocationRateLimitBytes();
+        Health.Builder builder = (saturated ? Health.status(Status.OUT_OF_SERVICE) : Health.up())
+                .withDetail("gc_overhead", percent(gcOverhead))
+                .withDetail("gc_max_pause_millis", gc.maxPauseMillis())
+                .withDetail("heap_after_gc", percent(heapAfterGc))
+                .withDetail("allocation_rate_bytes_per_second", allocationRate);
+        if (concurrencyLimiter != null) {
+            builder.withDetail("in_flight", concurrencyLimiter.getInFlight())
+                    .withDetail("max_concurrent", concurrencyLimiter.getMaxConcurrent());
+        }
+        return builder.build();
+    }
+
+    private Health dataStoreHealth() {
+        long count;
+        try {
+            count = transactionRepository.count();
+        } catch (RuntimeException e) {
+            return Health.down()
+                    .withDetail("error", String.valueOf(e.getMessage()))
+                    .withDetail("status", "Data store is not operational")
+                    .build();
+        }
+
+        long writes = 0;
+        double writeNanos = 0;
+        for (String operation : WRITE_OPERATIONS) {
+            Timer timer = meterRegistry.find(REPOSITORY_TIMER).tag("operation", operation).timer();
+            if (timer != null) {
+                writes += timer.count();
+                writeNanos += timer.totalTime(TimeUnit.NANOSECONDS);
+            }
+        }
+        long windowWrites = writes - lastWriteCount;
+        double windowMeanMillis = windowWrites > 0 ? (writeNanos - lastWriteNanos) / windowWrites / 1e6 : 0;
+        lastWriteCount = writes;
+        lastWriteNanos = writeNanos;
+
+        // 写入太少时平均值不可靠，不判定
+        boolean breached = windowWrites >= thresholds.writeLatencyMinSamples()
+                && windowMeanMillis >= thresholds.writeLatencySloMillis();
+        return (breached ? Health.status(Status.OUT_OF_SERVICE) : Health.up())
+                .withDetail("total_transactions", count)
+                .withDetail("writes", windowWrites)
+                .withDetail("write_latency_mean_millis", Math.round(windowMeanMillis * 1000) / 1000.0)
+                .withDetail("write_latency_slo_millis", thresholds.writeLatencySloMillis())
+                .build();
+    }
+
+    private static double heapUsageAfterGc() {
+        double max = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isCollectionUsageThresholdSupported()) {
+                continue;
+            }
+            MemoryUsage usage = pool.getCollectionUsage();
+            // 没有上限的池（如 G1 Eden）跟随整个堆伸缩，由老年代的比例体现
+            if (usage != null && usage.getMax() > 0) {
+                max = Math.max(max, (double) usage.getUsed() / usage.getMax());
+            }
+        }
+        return max;
+    }
+
+    private static String percent(double ratio) {
+        return String.format("%.2f%%", ratio * 100);
+    }
+}
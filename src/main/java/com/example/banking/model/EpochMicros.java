@@ -0,0 +1,42 @@
+package com.example.banking.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 时间戳的内部表示：UTC 纪元微秒，保存为 long。
+ * LocalDateTime 中不足一微秒的部分被截断。
+ */
+public final class EpochMicros {
+
+    // 表示时间戳缺失
+    public static final long NONE = Long.MIN_VALUE;
+
+    private static final long MICROS_PER_SECOND = 1_000_000L;
+    private static final int NANOS_PER_MICRO = 1_000;
+
+    private EpochMicros() {
+    }
+
+    public static long of(LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return NONE;
+        }
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * MICROS_PER_SECOND + timestamp.getNano() / NANOS_PER_MICRO;
+    }
+
+    /**
+     * 把查询下界转换为微秒，不足一微秒的部分向上取整，避免包含早于下界的时间
+     */
+    public static long ceil(LocalDateTime timestamp) {
+        return of(timestamp) + (timestamp.getNano() % NANOS_PER_MICRO != 0 ? 1 : 0);
+    }
+
+    public static LocalDateTime toLocalDateTime(long micros) {
+        if (micros == NONE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, MICROS_PER_SECOND),
+                (int) Math.floorMod(micros, MICROS_PER_SECOND) * NANOS_PER_MICRO, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.banking.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 金额的内部表示：固定两位小数的最小货币单位（分），保存为 long。
+ * 只在 API 边界与 BigDecimal 互相转换，内部比较和排序都是基本类型运算。
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    // 表示金额缺失
+    public static final long NONE = Long.MIN_VALUE;
+
+    private Money() {
+    }
+
+    /**
+     * 转换为最小货币单位，不做舍入：小数超过两位或超出 long 范围时抛出 IllegalArgumentException
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        if (amount == null) {
+            return NONE;
+        }
+        if (!hasValidScale(amount)) {
+            throw new IllegalArgumentException("Amount has more than " + SCALE + " decimal places: " + amount);
+        }
+        try {
+            long minorUnits = amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+            if (minorUnits == NONE) {
+                throw new ArithmeticException("Reserved value");
+            }
+            return minorUnits;
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount out of range: " + amount, e);
+        }
+    }
+
+    /**
+     * 去掉末尾的零后小数不超过两位
+     */
+    public static boolean hasValidScale(BigDecimal amount) {
+        return amount.stripTrailingZeros().scale() <= SCALE;
+    }
+
+    /**
+     * 把查询边界转换为最小货币单位：下界向上取整、上界向下取整，超出范围时收敛到可表示的最值
+     */
+    public static long toMinorUnitsBound(BigDecimal bound, boolean lower) {
+        try {
+            return bound.setScale(SCALE, lower ? RoundingMode.CEILING : RoundingMode.FLOOR)
+                    .unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            return bound.signum() > 0 ? Long.MAX_VALUE : NONE + 1;
+        }
+    }
+
+    public static BigDecimal toBigDecimal(long minorUnits) {
+        return minorUnits != NONE ? BigDecimal.valueOf(minorUnits, SCALE) : null;
+    }
+}
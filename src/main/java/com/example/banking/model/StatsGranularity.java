@@ -0,0 +1,35 @@
+package com.example.banking.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 交易统计的时间分桶粒度
+ */
+public enum StatsGranularity {
+    HOUR,
+    DAY,
+    MONTH;
+
+    /**
+     * 返回时间所在分桶的起点
+     */
+    public LocalDateTime truncate(LocalDateTime timestamp) {
+        return switch (this) {
+            case HOUR -> timestamp.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> timestamp.truncatedTo(ChronoUnit.DAYS);
+            case MONTH -> timestamp.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        };
+    }
+
+    /**
+     * 返回下一个分桶的起点，分桶为左闭右开区间
+     */
+    public LocalDateTime next(LocalDateTime bucketStart) {
+        return switch (this) {
+            case HOUR -> bucketStart.plusHours(1);
+            case DAY -> bucketStart.plusDays(1);
+            case MONTH -> bucketStart.plusMonths(1);
+        };
+    }
+}
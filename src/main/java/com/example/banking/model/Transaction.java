@@ -3,80 +3,114 @@ package com.example.banking.model;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicLong;
 
-public class Transaction {
-    // 使用原子长整型来生成唯一ID
-    private static final AtomicLong ID_GENERATOR = new AtomicLong(1);
-
-    private Long id;
-    private BigDecimal amount;
-    private String description;
-    private TransactionType type;
-    private LocalDateTime timestamp;
+/**
+ * 交易实体。金额和时间戳在内部以基本类型保存（见 {@link Money}、{@link EpochMicros}），
+ * BigDecimal / LocalDateTime 访问器只供 API 边界使用，存储和查询路径使用基本类型访问器。
+ * <p>
+ * 不可变：修改通过 {@code with*} 方法生成新实例，由Repository整体替换存储中的旧实例。
+ * 存储可以把同一个实例直接交给读取方、缓存和索引共享，无需防御性复制，读取方拿到的始终是一个完整的版本。
+ * version 由Repository在每次写入时递增，新建未保存的交易为 0。
+ * ID 由Repository在首次保存时分配（见 {@code IdAllocator}），新建未保存的交易ID为 null。
+ */
+public final class Transaction {
+    private final Long id;
+    // 最小货币单位
+    private final long amount;
+    private final String description;
+    private final TransactionType type;
+    // UTC 纪元微秒
+    private final long timestamp;
+    private final long version;
 
     // 默认构造函数
     public Transaction() {
-        this.id = ID_GENERATOR.getAndIncrement();
-        this.timestamp = LocalDateTime.now();
+        this(null, null, null);
     }
 
-    // 带参数的构造函数
+    // 带参数的构造函数，ID在保存时分配
     public Transaction(BigDecimal amount, String description, TransactionType type) {
-        this();
-        this.amount = amount;
-        this.description = description;
-        this.type = type;
+        this(null, Money.toMinorUnits(amount), description, type, EpochMicros.of(LocalDateTime.now()));
     }
 
     // 用于克隆或手动设置ID的构造函数
     public Transaction(Long id, BigDecimal amount, String description, TransactionType type, LocalDateTime timestamp) {
+        this(id, Money.toMinorUnits(amount), description, type,
+                EpochMicros.of(timestamp != null ? timestamp : LocalDateTime.now()));
+    }
+
+    // 从存储中以基本类型字段还原交易
+    public Transaction(Long id, long amount, String description, TransactionType type, long timestamp) {
+        this(id, amount, description, type, timestamp, 0);
+    }
+
+    public Transaction(Long id, long amount, String description, TransactionType type, long timestamp, long version) {
         this.id = id;
         this.amount = amount;
         this.description = description;
         this.type = type;
-        this.timestamp = timestamp != null ? timestamp : LocalDateTime.now();
+        this.timestamp = timestamp;
+        this.version = version;
     }
 
-    // Getters and Setters
     public Long getId() {
         return id;
     }
 
-    public void setId(Long id) {
-        this.id = id;
+    public Transaction withId(Long id) {
+        return new Transaction(id, amount, description, type, timestamp, version);
     }
 
     public BigDecimal getAmount() {
+        return Money.toBigDecimal(amount);
+    }
+
+    public Transaction withAmount(BigDecimal amount) {
+        return new Transaction(id, Money.toMinorUnits(amount), description, type, timestamp, version);
+    }
+
+    public long getAmountMinorUnits() {
         return amount;
     }
 
-    public void setAmount(BigDecimal amount) {
-        this.amount = amount;
+    public boolean hasAmount() {
+        return amount != Money.NONE;
     }
 
     public String getDescription() {
         return description;
     }
 
-    public void setDescription(String description) {
-        this.description = description;
+    public Transaction withDescription(String description) {
+        return new Transaction(id, amount, description, type, timestamp, version);
     }
 
     public TransactionType getType() {
         return type;
     }
 
-    public void setType(TransactionType type) {
-        this.type = type;
+    public Transaction withType(TransactionType type) {
+        return new Transaction(id, amount, description, type, timestamp, version);
     }
 
     public LocalDateTime getTimestamp() {
+        return EpochMicros.toLocalDateTime(timestamp);
+    }
+
+    public Transaction withTimestamp(LocalDateTime timestamp) {
+        return new Transaction(id, amount, description, type, EpochMicros.of(timestamp), version);
+    }
+
+    public long getTimestampMicros() {
         return timestamp;
     }
 
-    public void setTimestamp(LocalDateTime timestamp) {
-        this.timestamp = timestamp;
+    public long getVersion() {
+        return version;
+    }
+
+    public Transaction withVersion(long version) {
+        return new Transaction(id, amount, description, type, timestamp, version);
     }
 
     @Override
@@ -96,10 +130,11 @@ public class Transaction {
     public String toString() {
         return "Transaction{" +
                 "id=" + id +
-                ", amount=" + amount +
+                ", amount=" + getAmount() +
                 ", description='" + description + '\'' +
                 ", type=" + type +
-                ", timestamp=" + timestamp +
+                ", timestamp=" + getTimestamp() +
+                ", version=" + version +
                 '}';
     }
 } 
\ No newline at end of file
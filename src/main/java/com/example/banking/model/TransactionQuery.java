@@ -0,0 +1,213 @@
+package com.example.banking.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 交易列表查询条件：类型、金额范围、日期范围、排序和分页，
+ * 由Controller组装后经Service传递到Repository统一执行。
+ * 设置了游标时按键集分页，从游标之后开始取一页，页码被忽略。
+ * 金额和日期边界在构造时一次性换算为最小货币单位和纪元微秒，逐行过滤只做基本类型比较。
+ */
+public final class TransactionQuery {
+
+    public enum Sort {
+        TIMESTAMP_DESC,
+        TIMESTAMP_ASC,
+        AMOUNT_DESC,
+        AMOUNT_ASC;
+
+        public boolean isByTimestamp() {
+            return this == TIMESTAMP_DESC || this == TIMESTAMP_ASC;
+        }
+    }
+
+    private final TransactionType type;
+    private final BigDecimal minAmount;
+    private final BigDecimal maxAmount;
+    private final LocalDateTime startDate;
+    private final LocalDateTime endDate;
+    private final Sort sort;
+    private final int page;
+    private final int size;
+    private final TransactionCursor cursor;
+
+    // 换算后的闭区间边界，不设限时为对应类型的最值
+    private final long minAmountMinorUnits;
+    private final long maxAmountMinorUnits;
+    private final long startMicros;
+    private final long endMicros;
+
+    private TransactionQuery(Builder builder) {
+        this.type = builder.type;
+        this.minAmount = builder.minAmount;
+        this.maxAmount = builder.maxAmount;
+        this.startDate = builder.startDate;
+        this.endDate = builder.endDate;
+        this.sort = builder.sort != null ? builder.sort : Sort.TIMESTAMP_DESC;
+        this.page = builder.page;
+        this.size = builder.size;
+        this.cursor = builder.cursor;
+        this.minAmountMinorUnits = minAmount != null ? Money.toMinorUnitsBound(minAmount, true) : Long.MIN_VALUE;
+        this.maxAmountMinorUnits = maxAmount != null ? Money.toMinorUnitsBound(maxAmount, false) : Long.MAX_VALUE;
+        this.startMicros = startDate != null ? EpochMicros.ceil(startDate) : Long.MIN_VALUE;
+        this.endMicros = endDate != null ? EpochMicros.of(endDate) : Long.MAX_VALUE;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 判断交易是否满足全部过滤条件（不含分页）
+     */
+    public boolean matches(Transaction transaction) {
+        if (type != null && transaction.getType() != type) {
+            return false;
+        }
+        if (hasAmountRange()) {
+            long amount = transaction.getAmountMinorUnits();
+            if (amount == Money.NONE || amount < minAmountMinorUnits || amount > maxAmountMinorUnits) {
+                return false;
+            }
+        }
+        if (hasDateRange()) {
+            long timestamp = transaction.getTimestampMicros();
+            if (timestamp == EpochMicros.NONE || timestamp < startMicros || timestamp > endMicros) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean hasAmountRange() {
+        return minAmount != null || maxAmount != null;
+    }
+
+    public boolean hasDateRange() {
+        return startDate != null || endDate != null;
+    }
+
+    public long getOffset() {
+        return cursor != null ? 0 : (long) page * size;
+    }
+
+    public long getMinAmountMinorUnits() {
+        return minAmountMinorUnits;
+    }
+
+    public long getMaxAmountMinorUnits() {
+        return maxAmountMinorUnits;
+    }
+
+    public long getStartMicros() {
+        return startMicros;
+    }
+
+    public long getEndMicros() {
+        return endMicros;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    public LocalDateTime getStartDate() {
+        return startDate;
+    }
+
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public TransactionCursor getCursor() {
+        return cursor;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionQuery{" +
+                "type=" + type +
+                ", minAmount=" + minAmount +
+                ", maxAmount=" + maxAmount +
+                ", startDate=" + startDate +
+                ", endDate=" + endDate +
+                ", sort=" + sort +
+                ", page=" + page +
+                ", size=" + size +
+                ", cursor=" + cursor +
+                '}';
+    }
+
+    public static final class Builder {
+        private TransactionType type;
+        private BigDecimal minAmount;
+        private BigDecimal maxAmount;
+        private LocalDateTime startDate;
+        private LocalDateTime endDate;
+        private Sort sort;
+        private int page = 0;
+        private int size = 20;
+        private TransactionCursor cursor;
+
+        private Builder() {
+        }
+
+        public Builder type(TransactionType type) {
+            this.type = type;
+            return this;
+        }
+
+        public Builder amountRange(BigDecimal minAmount, BigDecimal maxAmount) {
+            this.minAmount = minAmount;
+            this.maxAmount = maxAmount;
+            return this;
+        }
+
+        public Builder dateRange(LocalDateTime startDate, LocalDateTime endDate) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            return this;
+        }
+
+        public Builder sort(Sort sort) {
+            this.sort = sort;
+            return this;
+        }
+
+        public Builder page(int page, int size) {
+            this.page = page;
+            this.size = size;
+            return this;
+        }
+
+        public Builder after(TransactionCursor cursor) {
+            this.cursor = cursor;
+            return this;
+        }
+
+        public TransactionQuery build() {
+            return new TransactionQuery(this);
+        }
+    }
+}
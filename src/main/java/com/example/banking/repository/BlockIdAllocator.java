@@ -0,0 +1,178 @@
+package com.example.banking.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按块租用的ID分配器。
+ * <p>
+ * 共享的分配点每次划出 blockSize 个连续ID作为一块，租给一个条带；条带内在自己的游标上 CAS 递增，
+ * 只有用完一块时才回到共享分配点，热路径上各条带互不竞争。条带按线程ID散列，数量为CPU核数的4倍以上，
+ * 游标之间相隔128字节，不共享缓存行。不使用 ThreadLocal：虚拟线程模式下每个请求一个线程，
+ * 按线程租块会让几乎每个块只用掉一个ID。
+ * <p>
+ * 配置了状态文件时，分配点每前进 {@value #RESERVATION_BLOCKS} 块才把新的高水位刷盘一次，
+ * 刷盘完成后才交出块内的ID；重启后从高水位继续分配，已租出但未用完的ID被跳过，不会重复。
+ */
+public class BlockIdAllocator implements IdAllocator {
+
+    private static final Logger log = LoggerFactory.getLogger(BlockIdAllocator.class);
+
+    public static final int DEFAULT_BLOCK_SIZE = 1000;
+
+    // 每个条带占16个long，相邻条带的游标位于不同缓存行
+    private static final int STRIDE = 16;
+    private static final int RESERVATION_BLOCKS = 64;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final int blockSize;
+    private final Path stateFile;
+    // 每个条带最近一次分配出的ID，0 表示尚未租块
+    private final AtomicLongArray cursors;
+    private final int stripeMask;
+    // 见过的最大外部ID，恢复期间每行调用一次，不经过 leaseLock；条带游标落后于它时放弃当前块
+    private final AtomicLong observedMax = new AtomicLong();
+
+    private final ReentrantLock leaseLock = new ReentrantLock();
+    // 以下字段由 leaseLock 保护，始终是 blockSize 的整数倍
+    private long nextBlockStart;
+    private long reservedLimit;
+
+    /**
+     * 不持久化高水位，重启后的唯一性依赖Repository恢复数据时调用 {@link #observe(long)}
+     */
+    public BlockIdAllocator(int blockSize) {
+        this(blockSize, null);
+    }
+
+    private BlockIdAllocator(int blockSize, Path stateFile) {
+        if (blockSize <= 1) {
+            throw new IllegalArgumentException("Block size must be greater than 1: " + blockSize);
+        }
+        this.blockSize = blockSize;
+        this.stateFile = stateFile;
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+        this.cursors = new AtomicLongArray(stripes * STRIDE);
+        this.stripeMask = stripes - 1;
+    }
+
+    /**
+     * 把高水位持久化到 stateFile 的实例，文件不存在时从1开始分配
+     */
+    public static BlockIdAllocator open(int blockSize, Path stateFile) throws IOException {
+        BlockIdAllocator allocator = new BlockIdAllocator(blockSize, stateFile);
+        Path parent = stateFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        if (Files.exists(stateFile)) {
+            allocator.nextBlockStart = allocator.roundUp(ByteBuffer.wrap(Files.readAllBytes(stateFile)).getLong());
+            allocator.reservedLimit = allocator.nextBlockStart;
+            log.info("Resuming transaction id allocation at {} from {}", allocator.nextBlockStart, stateFile);
+        }
+        return allocator;
+    }
+
+    /**
+     * 仅在内存中维护高水位的实例，供不经过Spring装配的Repository使用
+     */
+    public static BlockIdAllocator inMemory() {
+        return new BlockIdAllocator(DEFAULT_BLOCK_SIZE);
+    }
+
+    @Override
+    public long nextId() {
+        int slot = stripe() * STRIDE;
+        long leased = 0;
+        while (true) {
+            long last = cursors.get(slot);
+            long next;
+            if (last != 0 && (last + 1) % blockSize != 0 && last >= observedMax.get()) {
+                next = last + 1;
+            } else {
+                // 同一条带上并发的线程可能各自租到一块，CAS 失败的一方只浪费一块ID
+                if (leased == 0) {
+                    leased = leaseBlock();
+                }
+                next = leased;
+            }
+            if (cursors.compareAndSet(slot, last, next)) {
+                return next;
+            }
+        }
+    }
+
+    @Override
+    public void observe(long id) {
+        if (id > observedMax.get()) {
+            observedMax.accumulateAndGet(id, Math::max);
+        }
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * 租出下一块，返回块内第一个可用ID；0 不作为ID，第一块从1开始
+     */
+    private long leaseBlock() {
+        leaseLock.lock();
+        try {
+            long observed = observedMax.get();
+            long start = observed > 0 ? Math.max(nextBlockStart, roundUp(observed + 1)) : nextBlockStart;
+            if (start + blockSize > reservedLimit) {
+                long limit = start + (long) blockSize * RESERVATION_BLOCKS;
+                persist(limit);
+                reservedLimit = limit;
+            }
+            nextBlockStart = start + blockSize;
+            return Math.max(start, 1);
+        } finally {
+            leaseLock.unlock();
+        }
+    }
+
+    private void persist(long limit) {
+        if (stateFile == null) {
+            return;
+        }
+        Path temp = stateFile.resolveSibling(stateFile.getFileName() + TEMP_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temp,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(limit).flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, stateFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to persist transaction id high-water mark to " + stateFile, e);
+        }
+    }
+
+    private long roundUp(long id) {
+        return (id + blockSize - 1) / blockSize * blockSize;
+    }
+
+    private int stripe() {
+        long threadId = Thread.currentThread().threadId();
+        // 虚拟线程的ID连续递增，乘法散列后取高位，避免集中在少数条带
+        long h = threadId * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & stripeMask;
+    }
+}
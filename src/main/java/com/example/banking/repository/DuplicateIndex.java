@@ -0,0 +1,135 @@
+package com.example.banking.repository;
+
+import com.example.banking.model.EpochMicros;
+import com.example.banking.model.Money;
+import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * 重复交易检测索引：以 (金额, 描述, 类型) 指纹为键，记录近期交易的ID和时间（纪元微秒）。
+ * 条目按分钟分桶，超过保留时长的桶在写入时被惰性清理，
+ * 因此一次重复检查只需一次哈希查找，与存储总量无关。
+ */
+class DuplicateIndex {
+
+    record Fingerprint(long amount, String description, TransactionType type) {
+
+        static Fingerprint of(long amount, String description, TransactionType type) {
+            if (amount == Money.NONE || type == null) {
+                return null;
+            }
+            return new Fingerprint(amount, description, type);
+        }
+
+        static Fingerprint of(Transaction transaction) {
+            return of(transaction.getAmountMinorUnits(), transaction.getDescription(), transaction.getType());
+        }
+    }
+
+    private static final long MICROS_PER_MINUTE = 60_000_000L;
+
+    // 指纹 -> (交易ID -> 交易时间)，值为不可变Map，在compute中整体替换
+    private final Map<Fingerprint, Map<Long, Long>> entries = new ConcurrentHashMap<>();
+    // 分钟桶 -> 该分钟内出现过的指纹，用于定位需要过期清理的条目
+    private final ConcurrentSkipListMap<Long, Set<Fingerprint>> minuteBuckets = new ConcurrentSkipListMap<>();
+
+    private volatile int retentionMinutes;
+
+    DuplicateIndex(int retentionMinutes) {
+        this.retentionMinutes = retentionMinutes;
+    }
+
+    /**
+     * 保证保留时长不小于给定的检测时间窗口
+     */
+    void retainAtLeast(int minutes) {
+        if (minutes > retentionMinutes) {
+            synchronized (this) {
+                retentionMinutes = Math.max(retentionMinutes, minutes);
+            }
+        }
+    }
+
+    void add(Fingerprint fingerprint, long id, long timestamp) {
+        if (fingerprint == null || timestamp == EpochMicros.NONE) {
+            return;
+        }
+        entries.compute(fingerprint, (key, ids) -> {
+            Map<Long, Long> updated = ids != null ? new HashMap<>(ids) : new HashMap<>();
+            updated.put(id, timestamp);
+            return Map.copyOf(updated);
+        });
+        minuteBuckets.computeIfAbsent(minuteOf(timestamp), key -> ConcurrentHashMap.newKeySet()).add(fingerprint);
+    }
+
+    void remove(Fingerprint fingerprint, long id) {
+        if (fingerprint == null) {
+            return;
+        }
+        entries.computeIfPresent(fingerprint, (key, ids) -> {
+            if (!ids.containsKey(id)) {
+                return ids;
+            }
+            Map<Long, Long> remaining = ids.entrySet().stream()
+                    .filter(entry -> entry.getKey() != id)
+                    .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
+            return remaining.isEmpty() ? null : remaining;
+        });
+    }
+
+    /**
+     * 判断指纹在 [from, to] 时间范围内是否已有交易
+     */
+    boolean contains(Fingerprint fingerprint, long from, long to) {
+        if (fingerprint == null) {
+            return false;
+        }
+        Map<Long, Long> ids = entries.get(fingerprint);
+        if (ids == null) {
+            return false;
+        }
+        for (long timestamp : ids.values()) {
+            if (timestamp >= from && timestamp <= to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 清理早于保留时长的分钟桶及其条目
+     */
+    void expire(long now) {
+        long cutoff = now - retentionMinutes * MICROS_PER_MINUTE;
+        long cutoffMinute = minuteOf(cutoff);
+        Map.Entry<Long, Set<Fingerprint>> bucket;
+        while ((bucket = minuteBuckets.firstEntry()) != null && bucket.getKey() < cutoffMinute) {
+            if (!minuteBuckets.remove(bucket.getKey(), bucket.getValue())) {
+                continue;
+            }
+            for (Fingerprint fingerprint : bucket.getValue()) {
+                entries.computeIfPresent(fingerprint, (key, ids) -> {
+                    Map<Long, Long> remaining = ids.entrySet().stream()
+                            .filter(entry -> entry.getValue() >= cutoff)
+                            .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
+                    return remaining.isEmpty() ? null : remaining;
+                });
+            }
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private static long minuteOf(long timestamp) {
+        return Math.floorDiv(timestamp, MICROS_PER_MINUTE);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.banking.repository;
+
+/**
+ * 新交易的ID分配器，由Repository在交易首次写入时调用，未保存的交易不占用ID。
+ *
+ * @see BlockIdAllocator
+ * @see SnowflakeIdAllocator
+ */
+public interface IdAllocator {
+
+    /**
+     * 分配一个全局唯一的正整数ID，不保证连续，也不保证多个线程之间按分配先后递增
+     */
+    long nextId();
+
+    /**
+     * 恢复出已有ID或写入调用方指定的ID时调用，保证之后分配的ID不会与它冲突
+     */
+    void observe(long id);
+}
@@ -0,0 +1,86 @@
+package com.example.banking.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 定长列文件：按固定行数分块内存映射，容量不足时追加映射新的分块，文件随之增长。
+ * 非线程安全，由调用方加锁。
+ */
+final class MappedColumn implements Closeable {
+
+    private final FileChannel channel;
+    private final int width;
+    private final int chunkRows;
+    private MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+
+    MappedColumn(Path file, int width, int chunkRows) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.width = width;
+        this.chunkRows = chunkRows;
+        long chunkBytes = (long) width * chunkRows;
+        ensureCapacity((int) Math.min(Integer.MAX_VALUE, (channel.size() + chunkBytes - 1) / chunkBytes * chunkRows));
+    }
+
+    /**
+     * 文件中已映射的行数（包含尚未写入的零值行）
+     */
+    int capacity() {
+        return chunks.length * chunkRows;
+    }
+
+    void ensureCapacity(int rows) throws IOException {
+        int required = (rows + chunkRows - 1) / chunkRows;
+        if (required <= chunks.length) {
+            return;
+        }
+        MappedByteBuffer[] grown = Arrays.copyOf(chunks, required);
+        long chunkBytes = (long) width * chunkRows;
+        for (int i = chunks.length; i < required; i++) {
+            grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * chunkBytes, chunkBytes);
+        }
+        chunks = grown;
+    }
+
+    long getLong(int row) {
+        return chunks[row / chunkRows].getLong((row % chunkRows) * width);
+    }
+
+    void putLong(int row, long value) {
+        chunks[row / chunkRows].putLong((row % chunkRows) * width, value);
+    }
+
+    int getInt(int row) {
+        return chunks[row / chunkRows].getInt((row % chunkRows) * width);
+    }
+
+    void putInt(int row, int value) {
+        chunks[row / chunkRows].putInt((row % chunkRows) * width, value);
+    }
+
+    byte getByte(int row) {
+        return chunks[row / chunkRows].get((row % chunkRows) * width);
+    }
+
+    void putByte(int row, byte value) {
+        chunks[row / chunkRows].put((row % chunkRows) * width, value);
+    }
+
+    void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        chunks = new MappedByteBuffer[0];
+        channel.close();
+    }
+}
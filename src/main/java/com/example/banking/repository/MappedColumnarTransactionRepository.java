@@ -0,0 +1,844 @@
+package com.example.banking.repository;
+
+import com.example.banking.model.EpochMicros;
+import com.example.banking.model.Money;
+import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionCursor;
+import com.example.banking.model.TransactionQuery;
+import com.example.banking.model.TransactionType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 基于内存映射列文件的交易存储，适合单节点上亿行的数据量。
+ * <p>
+ * 每列单独一个文件：ID、金额（{@link Money} 最小货币单位）、类型（byte）、时间戳（{@link EpochMicros} 纪元微秒）、
+ * 描述在字符串堆中的偏移量、版本号，以及行状态。数据位于堆外，堆内只保留基本类型数组实现的 ID -> 行号映射，
+ * 因此行数增长不会带来 GC 压力；过滤直接在基本类型列上顺序扫描，只为命中的行创建 Transaction 对象。
+ * <p>
+ * 没有二级索引的过滤、排序取前N行和聚合都是全表扫描，由 {@link ParallelScanEngine} 按行号分段在独立线程池上并行执行，
+ * 调用线程持有读锁直到全部分段完成，扫描期间看到的是同一个一致的状态。
+ * 唯一的二级索引是堆外的时间索引（{@link MappedTimestampIndex}），只用于按时间顺序的流式导出。
+ * <p>
+ * 同一ID的写入由按ID分段的行锁串行化：update 在行锁内读取当前行并执行 mutator，期间不持有全局锁，
+ * 其他ID的读写和扫描照常进行。真正写入列数据时仍短暂持有全局写锁——各列就地覆盖写入，
+ * 扫描直接读取列而没有按行的快照，若写入与扫描并发，扫描会读到新旧混杂的半行；写锁只覆盖几次列写入和描述追加，
+ * 不同ID的写入在这一步仍是串行的，吞吐受单个写锁限制。需要写入随键数扩展时使用默认的内存存储（按键加锁、不可变行）。
+ * 加锁顺序固定为先行锁后全局锁。
+ * <p>
+ * 行只追加不移动，删除只打墓碑标记。字符串堆同样只追加：新增交易和修改了描述的更新各追加一次（4字节长度+UTF-8字节），
+ * 描述未变的更新沿用原有偏移量；被覆盖的描述和已删除行的描述不回收，也没有在线压缩，
+ * 堆文件大小以历史上写入过的全部描述总量为上限，描述频繁改写的负载需要按该总量预留磁盘。通过 {@code transaction.store.type=mapped} 启用，
+ * 此时不使用预写日志，映射文件本身即持久化存储。
+ */
+@Repository
+@Qualifier(MeteredTransactionRepository.STORE_QUALIFIER)
+@ConditionalOnProperty(name = "transaction.store.type", havingValue = "mapped")
+public class MappedColumnarTransactionRepository implements TransactionRepository, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedColumnarTransactionRepository.class);
+
+    private static final long NULL_OFFSET = -1;
+    private static final byte NULL_TYPE = -1;
+
+    private static final byte ROW_EMPTY = 0;
+    private static final byte ROW_LIVE = 1;
+    private static final byte ROW_DELETED = 2;
+
+    private static final int DEFAULT_CHUNK_ROWS = 1 << 20;
+    private static final int HEAP_CHUNK_SIZE = 64 * 1024 * 1024;
+    private static final int DEFAULT_DUPLICATE_RETENTION_MINUTES = 5;
+    private static final int STREAM_BATCH_ROWS = 4096;
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final MappedColumn ids;
+    private final MappedColumn amounts;
+    private final MappedColumn types;
+    private final MappedColumn timestamps;
+    private final MappedColumn descriptions;
+    private final MappedColumn versions;
+    private final MappedColumn states;
+    private final MappedStringHeap descriptionHeap;
+    private final MappedTimestampIndex timestampIndex;
+
+    private final LongIntHashMap rowsById;
+    private final DuplicateIndex duplicateIndex = new DuplicateIndex(DEFAULT_DUPLICATE_RETENTION_MINUTES);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // 同一ID的读取-修改-写回与其他写入互斥；新分配的ID在写入前不会被其他写入方引用，无需加行锁
+    private final StripedLock rowLocks = new StripedLock(64);
+    // 只在写锁内递增；读取方随后的查询要等写锁释放，必然看到对应的修改
+    private volatile long modificationVersion;
+    private final ParallelScanEngine scanEngine;
+    private final IdAllocator idAllocator;
+
+    private int rowCount;
+    private long liveCount;
+
+    @Autowired
+    public MappedColumnarTransactionRepository(@Value("${transaction.store.dir:data/columnar}") String directory,
+                                               ParallelScanEngine scanEngine,
+                                               IdAllocator idAllocator) throws IOException {
+        this(Path.of(directory), DEFAULT_CHUNK_ROWS, scanEngine, idAllocator);
+    }
+
+    MappedColumnarTransactionRepository(Path directory, int chunkRows) throws IOException {
+        this(directory, chunkRows, ParallelScanEngine.sequential());
+    }
+
+    MappedColumnarTransactionRepository(Path directory, int chunkRows, ParallelScanEngine scanEngine) throws IOException {
+        this(directory, chunkRows, scanEngine, BlockIdAllocator.inMemory());
+    }
+
+    MappedColumnarTransactionRepository(Path directory, int chunkRows, ParallelScanEngine scanEngine,
+                                        IdAllocator idAllocator) throws IOException {
+        this.scanEngine = scanEngine;
+        this.idAllocator = idAllocator;
+        Files.createDirectories(directory);
+        this.ids = new MappedColumn(directory.resolve("id.col"), Long.BYTES, chunkRows);
+        this.amounts = new MappedColumn(directory.resolve("amount.col"), Long.BYTES, chunkRows);
+        this.types = new MappedColumn(directory.resolve("type.col"), Byte.BYTES, chunkRows);
+        this.timestamps = new MappedColumn(directory.resolve("timestamp.col"), Long.BYTES, chunkRows);
+        this.descriptions = new MappedColumn(directory.resolve("description.col"), Long.BYTES, chunkRows);
+        this.versions = new MappedColumn(directory.resolve("version.col"), Long.BYTES, chunkRows);
+        this.states = new MappedColumn(directory.resolve("state.col"), Byte.BYTES, chunkRows);
+        this.descriptionHeap = new MappedStringHeap(directory.resolve("description.heap"), HEAP_CHUNK_SIZE);
+        this.timestampIndex = new MappedTimestampIndex(directory.resolve("timestamp.idx"), chunkRows, timestamps, ids);
+        this.rowsById = new LongIntHashMap(states.capacity());
+        load();
+        if (timestampIndex.load(rowCount)) {
+            log.warn("Rebuilt timestamp index of columnar store in {}", directory);
+        }
+        log.info("Opened columnar transaction store in {} with {} live rows", directory, liveCount);
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        // 在写锁外分配ID
+        if (transaction.getId() == null) {
+            transaction = transaction.withId(idAllocator.nextId());
+            return write(transaction);
+        }
+        ReentrantLock rowLock = rowLocks.lockFor(transaction.getId());
+        rowLock.lock();
+        try {
+            return write(transaction);
+        } finally {
+            rowLock.unlock();
+        }
+    }
+
+    private Transaction write(Transaction transaction) {
+        lock.writeLock().lock();
+        try {
+            return store(transaction);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 写入一行，调用方持有写锁，ID已指定时还持有该ID的行锁
+     */
+    private Transaction store(Transaction transaction) {
+        // 调用方指定的ID同样推进分配器，之后分配的ID不会覆盖它
+        if (transaction.getId() == null) {
+            transaction = transaction.withId(idAllocator.nextId());
+        } else {
+            idAllocator.observe(transaction.getId());
+        }
+        long amount = transaction.getAmountMinorUnits();
+        try {
+            long id = transaction.getId();
+            int row = rowsById.get(id);
+            long version = 1;
+            String description = transaction.getDescription();
+            long descriptionOffset;
+            if (row != LongIntHashMap.MISSING) {
+                duplicateIndex.remove(fingerprint(row), id);
+                version = versions.getLong(row) + 1;
+                // 时间索引按改写前的时间戳定位该行，先移动索引项再改写时间戳列
+                timestampIndex.reposition(row, transaction.getTimestampMicros());
+                timestamps.putLong(row, transaction.getTimestampMicros());
+                // 描述未变时沿用原偏移量，只修改金额或类型的更新不会让字符串堆增长
+                descriptionOffset = Objects.equals(descriptionAt(row), description)
+                        ? descriptions.getLong(row) : appendDescription(description);
+            } else {
+                row = appendRow();
+                ids.putLong(row, id);
+                // 新行立即加入时间索引，之后的写入失败时留下的空行同样在索引中，索引始终覆盖全部行
+                timestamps.putLong(row, transaction.getTimestampMicros());
+                timestampIndex.insert(row);
+                descriptionOffset = appendDescription(description);
+            }
+            versions.putLong(row, version);
+            amounts.putLong(row, amount);
+            types.putByte(row, transaction.getType() != null ? (byte) transaction.getType().ordinal() : NULL_TYPE);
+            descriptions.putLong(row, descriptionOffset);
+            // 状态列最后写入，重启时以它判断行是否完整
+            if (states.getByte(row) != ROW_LIVE) {
+                states.putByte(row, ROW_LIVE);
+                rowsById.put(id, row);
+                liveCount++;
+            }
+            duplicateIndex.add(fingerprint(row), id, timestamps.getLong(row));
+            modificationVersion++;
+            return read(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write transaction " + transaction.getId(), e);
+        }
+    }
+
+    @Override
+    public Optional<Transaction> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            int row = rowsById.get(id);
+            return row != LongIntHashMap.MISSING ? Optional.of(read(row)) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> findAll() {
+        return scan(row -> true);
+    }
+
+    @Override
+    public Optional<Transaction> update(Long id, UnaryOperator<Transaction> mutator) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        // 读取和 mutator 只持有行锁，同一ID的其他写入等待，其他ID不受影响；写回时才短暂获取写锁
+        ReentrantLock rowLock = rowLocks.lockFor(id);
+        rowLock.lock();
+        try {
+            Optional<Transaction> current = findById(id);
+            if (current.isEmpty()) {
+                return Optional.empty();
+            }
+            Transaction next = mutator.apply(current.get());
+            if (!id.equals(next.getId())) {
+                throw new IllegalArgumentException("Transaction id cannot be changed by an update");
+            }
+            return Optional.of(write(next));
+        } finally {
+            rowLock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Transaction> remove(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        ReentrantLock rowLock = rowLocks.lockFor(id);
+        rowLock.lock();
+        lock.writeLock().lock();
+        try {
+            int row = rowsById.remove(id);
+            if (row == LongIntHashMap.MISSING) {
+                return Optional.empty();
+            }
+            Transaction removed = read(row);
+            duplicateIndex.remove(fingerprint(row), id);
+            states.putByte(row, ROW_DELETED);
+            liveCount--;
+            modificationVersion++;
+            return Optional.of(removed);
+        } finally {
+            lock.writeLock().unlock();
+            rowLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> findByType(TransactionType type) {
+        if (type == null) {
+            return new ArrayList<>();
+        }
+        byte ordinal = (byte) type.ordinal();
+        return scan(row -> types.getByte(row) == ordinal);
+    }
+
+    @Override
+    public List<Transaction> findByAmountRange(BigDecimal minAmount, BigDecimal maxAmount) {
+        if (minAmount == null && maxAmount == null) {
+            return findAll();
+        }
+        return scan(amountFilter(minAmount, maxAmount));
+    }
+
+    @Override
+    public List<Transaction> findByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        if (startDate == null && endDate == null) {
+            return findAll();
+        }
+        return scan(dateFilter(startDate, endDate));
+    }
+
+    @Override
+    public List<Transaction> findWithPagination(int offset, int limit) {
+        return select(row -> true, byTimestamp().reversed(), offset, limit);
+    }
+
+    @Override
+    public List<Transaction> findByQuery(TransactionQuery query) {
+        IntPredicate filter = queryFilter(query);
+        RowOrder order = order(query.getSort());
+
+        TransactionCursor cursor = query.getCursor();
+        if (cursor != null) {
+            // 键集分页：只保留排序上位于游标 (时间戳, ID) 之后的行
+            long cursorMicros = EpochMicros.of(cursor.getTimestamp());
+            long cursorId = cursor.getId();
+            int direction = query.getSort() == TransactionQuery.Sort.TIMESTAMP_DESC ? -1 : 1;
+            filter = filter.and(row -> {
+                int compared = Long.compare(timestamps.getLong(row), cursorMicros);
+                if (compared == 0) {
+                    compared = Long.compare(ids.getLong(row), cursorId);
+                }
+                return compared * direction > 0;
+            });
+        }
+        return select(filter, order, query.getOffset(), query.getSize());
+    }
+
+    /**
+     * 沿时间索引按键集分批读取：每批在读锁内从上一批最后一项 (时间戳, ID, 行号) 之后二分定位，读取固定数量的索引项，
+     * 堆内只持有当前批次，与匹配行数无关。遍历期间修改了时间戳的行可能被跳过或重复输出。
+     * 金额排序没有对应的有序结构，无法在固定堆占用下输出，直接拒绝
+     */
+    @Override
+    public Stream<Transaction> stream(TransactionQuery query) {
+        if (!query.getSort().isByTimestamp()) {
+            throw new UnsupportedOperationException("Columnar store streams in timestamp order only");
+        }
+        Iterator<Transaction> iterator = new BatchIterator(queryFilter(query), query.getStartMicros(), query.getEndMicros(),
+                query.getSort() == TransactionQuery.Sort.TIMESTAMP_DESC);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public <A> A aggregate(TransactionQuery query, Supplier<A> identity, BiConsumer<A, Transaction> accumulator,
+                           BinaryOperator<A> combiner) {
+        IntPredicate filter = queryFilter(query);
+        lock.readLock().lock();
+        try {
+            return scanEngine.reduceRange(0, rowCount, identity, (result, row) -> {
+                if (states.getByte(row) == ROW_LIVE && filter.test(row)) {
+                    accumulator.accept(result, read(row));
+                }
+            }, combiner);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long modificationVersion() {
+        return modificationVersion;
+    }
+
+    @Override
+    public Map<String, Integer> indexSizes() {
+        lock.readLock().lock();
+        try {
+            return Map.of("id", rowsById.size(), "duplicate", duplicateIndex.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Transaction> saveIfNotDuplicate(Transaction transaction, int timeWindow) {
+        return saveAll(List.of(transaction), timeWindow).get(0);
+    }
+
+    @Override
+    public List<Optional<Transaction>> saveAll(List<Transaction> transactions, int timeWindow) {
+        // 先按固定顺序获取批内已指定ID的行锁，再获取一次写锁完成整批
+        List<ReentrantLock> heldRowLocks = rowLocks.locksFor(transactions.stream()
+                .map(Transaction::getId)
+                .filter(Objects::nonNull)
+                .toList());
+        heldRowLocks.forEach(ReentrantLock::lock);
+        lock.writeLock().lock();
+        try {
+            List<Optional<Transaction>> results = new ArrayList<>(transactions.size());
+            for (Transaction transaction : transactions) {
+                results.add(storeIfNotDuplicate(transaction, timeWindow));
+            }
+            return results;
+        } finally {
+            lock.writeLock().unlock();
+            heldRowLocks.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    private Optional<Transaction> storeIfNotDuplicate(Transaction transaction, int timeWindow) {
+        long now = EpochMicros.of(LocalDateTime.now());
+        duplicateIndex.retainAtLeast(timeWindow);
+        duplicateIndex.expire(now);
+        if (duplicateIndex.contains(DuplicateIndex.Fingerprint.of(transaction),
+                now - TimeUnit.MINUTES.toMicros(timeWindow), now)) {
+            return Optional.empty();
+        }
+        return Optional.of(store(transaction));
+    }
+
+    @Override
+    public List<Transaction> findPotentialDuplicates(
+            BigDecimal amount,
+            String description,
+            TransactionType type,
+            int timeWindow) {
+
+        long now = EpochMicros.of(LocalDateTime.now());
+        long minorUnits = Money.toMinorUnits(amount);
+        byte ordinal = type != null ? (byte) type.ordinal() : NULL_TYPE;
+        // 先比较基本类型列，全部命中后才读取字符串堆中的描述
+        return scan(dateFilter(now - TimeUnit.MINUTES.toMicros(timeWindow), now)
+                .and(row -> amounts.getLong(row) == minorUnits && minorUnits != Money.NONE)
+                .and(row -> types.getByte(row) == ordinal)
+                .and(row -> Objects.equals(descriptionAt(row), description)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            ids.close();
+            amounts.close();
+            types.close();
+            timestamps.close();
+            descriptions.close();
+            versions.close();
+            states.close();
+            descriptionHeap.close();
+            timestampIndex.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 启动时恢复行数、ID映射、字符串堆写入位置、ID分配器以及近期交易的重复检测指纹
+     */
+    private void load() {
+        int row = states.capacity();
+        while (row > 0 && states.getByte(row - 1) == ROW_EMPTY) {
+            row--;
+        }
+        rowCount = row;
+
+        long heapEnd = 0;
+        long recentMicros = EpochMicros.of(LocalDateTime.now().minusMinutes(DEFAULT_DUPLICATE_RETENTION_MINUTES));
+        for (int i = 0; i < rowCount; i++) {
+            long offset = descriptions.getLong(i);
+            if (offset != NULL_OFFSET) {
+                heapEnd = Math.max(heapEnd, offset + descriptionHeap.sizeAt(offset));
+            }
+            byte state = states.getByte(i);
+            if (state == ROW_EMPTY) {
+                continue;
+            }
+            long id = ids.getLong(i);
+            // 已删除行的ID同样不能再分配
+            idAllocator.observe(id);
+            if (state != ROW_LIVE) {
+                continue;
+            }
+            rowsById.put(id, i);
+            liveCount++;
+            if (timestamps.getLong(i) >= recentMicros) {
+                duplicateIndex.add(fingerprint(i), id, timestamps.getLong(i));
+            }
+        }
+        descriptionHeap.restoreEnd(heapEnd);
+    }
+
+    private long appendDescription(String description) throws IOException {
+        return description != null ? descriptionHeap.append(description) : NULL_OFFSET;
+    }
+
+    private int appendRow() throws IOException {
+        int row = rowCount;
+        if (row == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Columnar store is full");
+        }
+        ids.ensureCapacity(row + 1);
+        amounts.ensureCapacity(row + 1);
+        types.ensureCapacity(row + 1);
+        timestamps.ensureCapacity(row + 1);
+        descriptions.ensureCapacity(row + 1);
+        versions.ensureCapacity(row + 1);
+        states.ensureCapacity(row + 1);
+        timestampIndex.ensureCapacity(row + 1);
+        rowCount++;
+        return row;
+    }
+
+    private List<Transaction> scan(IntPredicate filter) {
+        lock.readLock().lock();
+        try {
+            // 各段结果按行号顺序拼接，与顺序扫描的结果顺序相同
+            return scanEngine.<List<Transaction>>reduceRange(0, rowCount, ArrayList::new, (result, row) -> {
+                if (states.getByte(row) == ROW_LIVE && filter.test(row)) {
+                    result.add(read(row));
+                }
+            }, (left, right) -> {
+                left.addAll(right);
+                return left;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 扫描一遍列数据，用大小为 offset+limit 的行号堆保留排序最靠前的行，只为最终结果创建对象。
+     * 每段各自保留本段的前 offset+limit 行，合并时再从两段中取前 offset+limit 行
+     */
+    private List<Transaction> select(IntPredicate filter, RowOrder order, long offset, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        long keep = offset + limit;
+        lock.readLock().lock();
+        try {
+            if (keep > liveCount) {
+                keep = liveCount;
+            }
+            if (keep <= 0) {
+                return new ArrayList<>();
+            }
+            long bound = keep;
+            int capacity = (int) Math.max(1, Math.min(keep, scanEngine.getSegmentSize()));
+            RowHeap top = scanEngine.reduceRange(0, rowCount,
+                    () -> new RowHeap(order, bound, capacity),
+                    (heap, row) -> {
+                        if (states.getByte(row) == ROW_LIVE && filter.test(row)) {
+                            heap.offer(row);
+                        }
+                    },
+                    RowHeap::merge);
+            int[] rows = top.drainSorted();
+            List<Transaction> result = new ArrayList<>();
+            for (int i = (int) Math.min(offset, rows.length); i < rows.length; i++) {
+                result.add(read(rows[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 由query的类型、金额和日期条件组合出行过滤器，不含游标和分页
+     */
+    private IntPredicate queryFilter(TransactionQuery query) {
+        IntPredicate filter = row -> true;
+        if (query.getType() != null) {
+            byte ordinal = (byte) query.getType().ordinal();
+            filter = row -> types.getByte(row) == ordinal;
+        }
+        if (query.hasAmountRange()) {
+            filter = filter.and(amountFilter(query.getMinAmountMinorUnits(), query.getMaxAmountMinorUnits()));
+        }
+        if (query.hasDateRange()) {
+            filter = filter.and(dateFilter(query.getStartMicros(), query.getEndMicros()));
+        }
+        return filter;
+    }
+
+    private RowOrder order(TransactionQuery.Sort sort) {
+        return switch (sort) {
+            case TIMESTAMP_DESC -> byTimestamp().reversed();
+            case TIMESTAMP_ASC -> byTimestamp();
+            case AMOUNT_DESC -> byAmount().reversed();
+            case AMOUNT_ASC -> byAmount();
+        };
+    }
+
+    private RowOrder byTimestamp() {
+        return (left, right) -> {
+            int compared = Long.compare(timestamps.getLong(left), timestamps.getLong(right));
+            return compared != 0 ? compared : Long.compare(ids.getLong(left), ids.getLong(right));
+        };
+    }
+
+    private RowOrder byAmount() {
+        return (left, right) -> {
+            int compared = Long.compare(amounts.getLong(left), amounts.getLong(right));
+            return compared != 0 ? compared : Long.compare(ids.getLong(left), ids.getLong(right));
+        };
+    }
+
+    private IntPredicate amountFilter(BigDecimal minAmount, BigDecimal maxAmount) {
+        return amountFilter(
+                minAmount != null ? Money.toMinorUnitsBound(minAmount, true) : Long.MIN_VALUE,
+                maxAmount != null ? Money.toMinorUnitsBound(maxAmount, false) : Long.MAX_VALUE);
+    }
+
+    private IntPredicate amountFilter(long min, long max) {
+        return row -> {
+            long amount = amounts.getLong(row);
+            return amount != Money.NONE && amount >= min && amount <= max;
+        };
+    }
+
+    private IntPredicate dateFilter(LocalDateTime startDate, LocalDateTime endDate) {
+        return dateFilter(
+                startDate != null ? EpochMicros.ceil(startDate) : Long.MIN_VALUE,
+                endDate != null ? EpochMicros.of(endDate) : Long.MAX_VALUE);
+    }
+
+    private IntPredicate dateFilter(long start, long end) {
+        return row -> {
+            long timestamp = timestamps.getLong(row);
+            return timestamp != EpochMicros.NONE && timestamp >= start && timestamp <= end;
+        };
+    }
+
+    private Transaction read(int row) {
+        byte type = types.getByte(row);
+        return new Transaction(
+                ids.getLong(row),
+                amounts.getLong(row),
+                descriptionAt(row),
+                type != NULL_TYPE ? TYPES[type] : null,
+                timestamps.getLong(row),
+                versions.getLong(row));
+    }
+
+    private String descriptionAt(int row) {
+        long offset = descriptions.getLong(row);
+        return offset != NULL_OFFSET ? descriptionHeap.get(offset) : null;
+    }
+
+    private DuplicateIndex.Fingerprint fingerprint(int row) {
+        byte type = types.getByte(row);
+        return DuplicateIndex.Fingerprint.of(amounts.getLong(row), descriptionAt(row),
+                type != NULL_TYPE ? TYPES[type] : null);
+    }
+
+    /**
+     * 行号之间的比较，按列值排序时不装箱
+     */
+    @FunctionalInterface
+    private interface RowOrder {
+        int compare(int left, int right);
+
+        default RowOrder reversed() {
+            return (left, right) -> compare(right, left);
+        }
+    }
+
+    /**
+     * 保留排序最靠前的 limit 个行号的有界堆，堆顶是已保留行中排序最靠后的一个，数组按需增长
+     */
+    private static final class RowHeap {
+        private final RowOrder order;
+        private final long limit;
+        private int[] rows;
+        private int size;
+
+        RowHeap(RowOrder order, long limit, int initialCapacity) {
+            this.order = order;
+            this.limit = limit;
+            this.rows = new int[initialCapacity];
+        }
+
+        void offer(int row) {
+            if (size < limit) {
+                if (size == rows.length) {
+                    rows = Arrays.copyOf(rows, (int) Math.min(limit, (long) rows.length * 2));
+                }
+                rows[size] = row;
+                siftUp(rows, size++, order);
+            } else if (order.compare(row, rows[0]) < 0) {
+                rows[0] = row;
+                siftDown(rows, 0, size, order);
+            }
+        }
+
+        RowHeap merge(RowHeap other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.rows[i]);
+            }
+            return this;
+        }
+
+        /**
+         * 按 order 升序返回保留的行号，堆随之失效
+         */
+        int[] drainSorted() {
+            heapSort(rows, size, order);
+            return Arrays.copyOf(rows, size);
+        }
+
+        // 输入已是以排序最靠后的行为堆顶的堆，依次把堆顶换到末尾
+        private static void heapSort(int[] rows, int length, RowOrder order) {
+            for (int end = length - 1; end > 0; end--) {
+                int last = rows[0];
+                rows[0] = rows[end];
+                rows[end] = last;
+                siftDown(rows, 0, end, order);
+            }
+        }
+
+        private static void siftUp(int[] rows, int index, RowOrder order) {
+            int row = rows[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (order.compare(row, rows[parent]) <= 0) {
+                    break;
+                }
+                rows[index] = rows[parent];
+                index = parent;
+            }
+            rows[index] = row;
+        }
+
+        private static void siftDown(int[] rows, int index, int length, RowOrder order) {
+            int row = rows[index];
+            int half = length >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                if (child + 1 < length && order.compare(rows[child + 1], rows[child]) > 0) {
+                    child++;
+                }
+                if (order.compare(row, rows[child]) >= 0) {
+                    break;
+                }
+                rows[index] = rows[child];
+                index = child;
+            }
+            rows[index] = row;
+        }
+    }
+
+    /**
+     * 沿时间索引分批读取：每批只在读锁内读取固定数量的索引项，消费在锁外进行，
+     * 消费慢的调用方不会长时间阻塞写入；读取时复核行状态和过滤条件，跳过已删除或不匹配的行。
+     * 超出时间范围即停止，不遍历范围外的索引项
+     */
+    private final class BatchIterator implements Iterator<Transaction> {
+
+        private final IntPredicate filter;
+        private final long startMicros;
+        private final long endMicros;
+        private final boolean descending;
+        private final ArrayDeque<Transaction> batch = new ArrayDeque<>(STREAM_BATCH_ROWS);
+        // 上一批最后读取的索引项，下一批从它之后继续
+        private boolean started;
+        private long lastTimestamp;
+        private long lastId;
+        private int lastRow;
+        private boolean exhausted;
+
+        BatchIterator(IntPredicate filter, long startMicros, long endMicros, boolean descending) {
+            this.filter = filter;
+            this.startMicros = startMicros;
+            this.endMicros = endMicros;
+            this.descending = descending;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (batch.isEmpty() && !exhausted) {
+                fill();
+            }
+            return !batch.isEmpty();
+        }
+
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return batch.poll();
+        }
+
+        private void fill() {
+            lock.readLock().lock();
+            try {
+                int position = firstPosition();
+                int step = descending ? -1 : 1;
+                for (int read = 0; read < STREAM_BATCH_ROWS; read++, position += step) {
+                    if (position < 0 || position >= timestampIndex.size()) {
+                        exhausted = true;
+                        return;
+                    }
+                    int row = timestampIndex.rowAt(position);
+                    long timestamp = timestamps.getLong(row);
+                    if (descending ? timestamp < startMicros : timestamp > endMicros) {
+                        exhausted = true;
+                        return;
+                    }
+                    started = true;
+                    lastTimestamp = timestamp;
+                    lastId = ids.getLong(row);
+                    lastRow = row;
+                    if (states.getByte(row) == ROW_LIVE && filter.test(row)) {
+                        batch.add(read(row));
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private int firstPosition() {
+            if (!started) {
+                return descending
+                        ? timestampIndex.upperBound(endMicros, Long.MAX_VALUE, Integer.MAX_VALUE) - 1
+                        : timestampIndex.lowerBound(startMicros, Long.MIN_VALUE, -1);
+            }
+            return descending
+                    ? timestampIndex.lowerBound(lastTimestamp, lastId, lastRow) - 1
+                    : timestampIndex.upperBound(lastTimestamp, lastId, lastRow);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.banking.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 只追加的字符串堆：每个字符串存为 长度(4)+UTF-8字节，按偏移量引用。
+ * 堆按固定大小分块映射，字符串不跨块存放，剩余空间不足时从下一块开头写入。
+ * 被覆盖或删除的字符串不回收。非线程安全，由调用方加锁。
+ */
+final class MappedStringHeap implements Closeable {
+
+    private final FileChannel channel;
+    private final int chunkSize;
+    private MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+    private long end;
+
+    MappedStringHeap(Path file, int chunkSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.chunkSize = chunkSize;
+        ensureChunks((int) ((channel.size() + chunkSize - 1) / chunkSize));
+    }
+
+    long append(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Integer.BYTES + bytes.length;
+        if (length > chunkSize) {
+            throw new IllegalArgumentException("Description too long: " + bytes.length + " bytes");
+        }
+        if (end % chunkSize + length > chunkSize) {
+            end = (end / chunkSize + 1) * chunkSize;
+        }
+        long offset = end;
+        ensureChunks((int) ((offset + length + chunkSize - 1) / chunkSize));
+        MappedByteBuffer chunk = chunks[(int) (offset / chunkSize)];
+        int position = (int) (offset % chunkSize);
+        chunk.putInt(position, bytes.length);
+        chunk.put(position + Integer.BYTES, bytes);
+        end = offset + length;
+        return offset;
+    }
+
+    String get(long offset) {
+        MappedByteBuffer chunk = chunks[(int) (offset / chunkSize)];
+        int position = (int) (offset % chunkSize);
+        byte[] bytes = new byte[chunk.getInt(position)];
+        chunk.get(position + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 字符串占用的字节数，用于重启后根据引用恢复堆的写入位置
+     */
+    int sizeAt(long offset) {
+        return Integer.BYTES + chunks[(int) (offset / chunkSize)].getInt((int) (offset % chunkSize));
+    }
+
+    /**
+     * 已写入的字节数，包括不再被引用的字符串
+     */
+    long size() {
+        return end;
+    }
+
+    void restoreEnd(long end) {
+        this.end = end;
+    }
+
+    void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        chunks = new MappedByteBuffer[0];
+        channel.close();
+    }
+
+    private void ensureChunks(int required) throws IOException {
+        if (required <= chunks.length) {
+            return;
+        }
+        MappedByteBuffer[] grown = Arrays.copyOf(chunks, required);
+        for (int i = chunks.length; i < required; i++) {
+            grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * chunkSize, chunkSize);
+        }
+        chunks = grown;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.banking.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 列式存储的时间索引：按 (时间戳, ID, 行号) 升序排列的行号，存放在定长列文件中，堆内占用不随行数增长。
+ * 索引恰好包含 [0, 行数) 内的每一行，已删除的行同样保留，读取方自行复核行状态。
+ * <p>
+ * 交易时间戳基本随写入递增，新行通常追加在末尾；时间戳早于已有行的新行以及修改时间戳的更新
+ * 需要移动新旧位置之间的索引项，代价与移动距离成正比。非线程安全，由调用方加锁。
+ */
+final class MappedTimestampIndex implements Closeable {
+
+    private final MappedColumn positions;
+    private final MappedColumn timestamps;
+    private final MappedColumn ids;
+    private int size;
+
+    MappedTimestampIndex(Path file, int chunkRows, MappedColumn timestamps, MappedColumn ids) throws IOException {
+        this.positions = new MappedColumn(file, Integer.BYTES, chunkRows);
+        this.timestamps = timestamps;
+        this.ids = ids;
+    }
+
+    /**
+     * 启动时核对索引是否按序包含 [0, rowCount) 的每一行，上次写入中途退出导致不一致时重建
+     *
+     * @return 是否重建了索引
+     */
+    boolean load(int rowCount) throws IOException {
+        positions.ensureCapacity(rowCount);
+        size = rowCount;
+        if (isConsistent()) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            positions.putInt(i, i);
+        }
+        // 原地堆排序，不在堆内分配与行数相关的数组
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i, size);
+        }
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int rowAt(int position) {
+        return positions.getInt(position);
+    }
+
+    void ensureCapacity(int rows) throws IOException {
+        positions.ensureCapacity(rows);
+    }
+
+    /**
+     * 加入一个新行，该行的时间戳和ID已写入
+     */
+    void insert(int row) {
+        int position = upperBound(timestamps.getLong(row), ids.getLong(row), row);
+        for (int i = size; i > position; i--) {
+            positions.putInt(i, positions.getInt(i - 1));
+        }
+        positions.putInt(position, row);
+        size++;
+    }
+
+    /**
+     * 行的时间戳将从当前值改为 timestamp，须在改写时间戳列之前调用
+     */
+    void reposition(int row, long timestamp) {
+        long id = ids.getLong(row);
+        long current = timestamps.getLong(row);
+        if (timestamp == current) {
+            return;
+        }
+        int from = lowerBound(current, id, row);
+        int to = lowerBound(timestamp, id, row);
+        if (to > from) {
+            // 后移：中间的项依次前移一位，该行落在目标位置之前
+            to--;
+            for (int i = from; i < to; i++) {
+                positions.putInt(i, positions.getInt(i + 1));
+            }
+        } else {
+            for (int i = from; i > to; i--) {
+                positions.putInt(i, positions.getInt(i - 1));
+            }
+        }
+        positions.putInt(to, row);
+    }
+
+    /**
+     * 第一个不小于 (timestamp, id, row) 的位置
+     */
+    int lowerBound(long timestamp, long id, int row) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(positions.getInt(mid), timestamp, id, row) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 第一个大于 (timestamp, id, row) 的位置
+     */
+    int upperBound(long timestamp, long id, int row) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(positions.getInt(mid), timestamp, id, row) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public void close() throws IOException {
+        positions.close();
+    }
+
+    // 严格递增且每项都在 [0, size) 内时，size 个互不相同的行号恰好覆盖全部行
+    private boolean isConsistent() {
+        for (int i = 0; i < size; i++) {
+            int row = positions.getInt(i);
+            if (row < 0 || row >= size) {
+                return false;
+            }
+            if (i > 0 && compare(positions.getInt(i - 1), row) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int compare(int left, int right) {
+        return compare(left, timestamps.getLong(right), ids.getLong(right), right);
+    }
+
+    private int compare(int row, long timestamp, long id, int otherRow) {
+        int compared = Long.compare(timestamps.getLong(row), timestamp);
+        if (compared == 0) {
+            compared = Long.compare(ids.getLong(row), id);
+        }
+        return compared != 0 ? compared : Integer.compare(row, otherRow);
+    }
+
+    private void siftDown(int index, int length) {
+        int half = length >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < length && compare(positions.getInt(child + 1), positions.getInt(child)) > 0) {
+                child++;
+            }
+            if (compare(positions.getInt(index), positions.getInt(child)) >= 0) {
+                return;
+            }
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    private void swap(int left, int right) {
+        int row = positions.getInt(left);
+        positions.putInt(left, positions.getInt(right));
+        positions.putInt(right, row);
+    }
+}
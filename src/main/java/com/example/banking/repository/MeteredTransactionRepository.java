@@ -0,0 +1,202 @@
+package com.example.banking.repository;
+
+import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionQuery;
+import com.example.banking.model.TransactionType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * 为实际的存储实现记录每个操作的耗时，并注册存储规模和索引条目数的 Gauge。
+ * <p>
+ * 计时器 {@value #TIMER_NAME} 只带 operation 一个标签，取值为接口方法名；计时器在构造时创建好，
+ * 热路径上不再查找注册表。通过 {@code management.metrics.enable.transaction=false} 关闭后注册表返回空实现，
+ * 调用只多一次方法转发。惰性遍历的耗时从创建到流关闭为止。
+ */
+@Repository
+@Primary
+public class MeteredTransactionRepository implements TransactionRepository {
+
+    /**
+     * 实际存储实现的限定名，内存和列式两种实现都标注它，由本类包装后对外提供
+     */
+    public static final String STORE_QUALIFIER = "transactionStore";
+
+    static final String TIMER_NAME = "transaction.repository";
+
+    private final TransactionRepository delegate;
+    private final MeterRegistry registry;
+
+    private final Timer save;
+    private final Timer findById;
+    private final Timer findAll;
+    private final Timer deleteById;
+    private final Timer update;
+    private final Timer findByType;
+    private final Timer findByAmountRange;
+    private final Timer findByDateRange;
+    private final Timer findWithPagination;
+    private final Timer findByQuery;
+    private final Timer stream;
+    private final Timer aggregate;
+    private final Timer count;
+    private final Timer saveIfNotDuplicate;
+    private final Timer saveAll;
+    private final Timer findPotentialDuplicates;
+
+    @Autowired
+    public MeteredTransactionRepository(@Qualifier(STORE_QUALIFIER) TransactionRepository delegate,
+                                        MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.save = timer("save");
+        this.findById = timer("findById");
+        this.findAll = timer("findAll");
+        this.deleteById = timer("deleteById");
+        this.update = timer("update");
+        this.findByType = timer("findByType");
+        this.findByAmountRange = timer("findByAmountRange");
+        this.findByDateRange = timer("findByDateRange");
+        this.findWithPagination = timer("findWithPagination");
+        this.findByQuery = timer("findByQuery");
+        this.stream = timer("stream");
+        this.aggregate = timer("aggregate");
+        this.count = timer("count");
+        this.saveIfNotDuplicate = timer("saveIfNotDuplicate");
+        this.saveAll = timer("saveAll");
+        this.findPotentialDuplicates = timer("findPotentialDuplicates");
+
+        // Gauge 只持有存储的弱引用，采集时才读取
+        Gauge.builder("transaction.store.size", delegate, TransactionRepository::count)
+                .description("存储中的交易笔数")
+                .register(registry);
+        for (String index : delegate.indexSizes().keySet()) {
+            Gauge.builder("transaction.index.size", delegate, store -> store.indexSizes().getOrDefault(index, 0))
+                    .description("二级索引的条目数")
+                    .tag("index", index)
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        return save.record(() -> delegate.save(transaction));
+    }
+
+    @Override
+    public Optional<Transaction> findById(Long id) {
+        return findById.record(() -> delegate.findById(id));
+    }
+
+    @Override
+    public List<Transaction> findAll() {
+        return findAll.record(delegate::findAll);
+    }
+
+    @Override
+    public Optional<Transaction> remove(Long id) {
+        return deleteById.record(() -> delegate.remove(id));
+    }
+
+    @Override
+    public Optional<Transaction> update(Long id, UnaryOperator<Transaction> mutator) {
+        return update.record(() -> delegate.update(id, mutator));
+    }
+
+    @Override
+    public List<Transaction> findByType(TransactionType type) {
+        return findByType.record(() -> delegate.findByType(type));
+    }
+
+    @Override
+    public List<Transaction> findByAmountRange(BigDecimal minAmount, BigDecimal maxAmount) {
+        return findByAmountRange.record(() -> delegate.findByAmountRange(minAmount, maxAmount));
+    }
+
+    @Override
+    public List<Transaction> findByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        return findByDateRange.record(() -> delegate.findByDateRange(startDate, endDate));
+    }
+
+    @Override
+    public List<Transaction> findWithPagination(int offset, int limit) {
+        return findWithPagination.record(() -> delegate.findWithPagination(offset, limit));
+    }
+
+    @Override
+    public List<Transaction> findByQuery(TransactionQuery query) {
+        return findByQuery.record(() -> delegate.findByQuery(query));
+    }
+
+    @Override
+    public Stream<Transaction> stream(TransactionQuery query) {
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            return delegate.stream(query).onClose(() -> sample.stop(stream));
+        } catch (RuntimeException e) {
+            sample.stop(stream);
+            throw e;
+        }
+    }
+
+    @Override
+    public <A> A aggregate(TransactionQuery query, Supplier<A> identity, BiConsumer<A, Transaction> accumulator,
+                           BinaryOperator<A> combiner) {
+        return aggregate.record(() -> delegate.aggregate(query, identity, accumulator, combiner));
+    }
+
+    @Override
+    public long count() {
+        return count.record(delegate::count);
+    }
+
+    @Override
+    public long modificationVersion() {
+        return delegate.modificationVersion();
+    }
+
+    @Override
+    public Map<String, Integer> indexSizes() {
+        return delegate.indexSizes();
+    }
+
+    @Override
+    public Optional<Transaction> saveIfNotDuplicate(Transaction transaction, int timeWindow) {
+        return saveIfNotDuplicate.record(() -> delegate.saveIfNotDuplicate(transaction, timeWindow));
+    }
+
+    @Override
+    public List<Optional<Transaction>> saveAll(List<Transaction> transactions, int timeWindow) {
+        return saveAll.record(() -> delegate.saveAll(transactions, timeWindow));
+    }
+
+    @Override
+    public List<Transaction> findPotentialDuplicates(BigDecimal amount, String description, TransactionType type,
+                                                     int timeWindow) {
+        return findPotentialDuplicates.record(
+                () -> delegate.findPotentialDuplicates(amount, description, type, timeWindow));
+    }
+
+    private Timer timer(String operation) {
+        return Timer.builder(TIMER_NAME)
+                .description("存储操作耗时")
+                .tag("operation", operation)
+                .register(registry);
+    }
+}
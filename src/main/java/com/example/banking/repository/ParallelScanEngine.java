@@ -0,0 +1,164 @@
+package com.example.banking.repository;
+
+import java.io.Closeable;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * 无法使用索引的过滤和聚合的并行扫描引擎。
+ * <p>
+ * 数据按固定大小切分为段，每段在独立的 {@link ForkJoinPool} 上各自累加出部分结果，再按段顺序两两合并，
+ * 合并顺序与数据顺序一致，列表类结果保持原有顺序。线程池与 {@code ForkJoinPool.commonPool()} 分开，
+ * 扫描不会占满公共池，其他使用公共池的代码（包括请求线程上的并行流）也不会拖慢扫描；
+ * 线程数上限即扫描可占用的CPU核数，请求线程只等待结果。
+ * <p>
+ * 数据量不足一段或并行度为1时直接在调用线程上顺序执行，不经过线程池。
+ */
+public class ParallelScanEngine implements Closeable {
+
+    private static final int DEFAULT_SEGMENT_SIZE = 8192;
+
+    private final ForkJoinPool pool;
+    private final int parallelism;
+    private final int segmentSize;
+
+    /**
+     * @param parallelism 扫描线程数，不大于0时取可用处理器数
+     * @param segmentSize 每段的行数，也是并行执行的最小数据量
+     */
+    public ParallelScanEngine(int parallelism, int segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive: " + segmentSize);
+        }
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.segmentSize = segmentSize;
+        this.pool = this.parallelism > 1 ? new ForkJoinPool(this.parallelism, ScanThread::new, null, false) : null;
+    }
+
+    /**
+     * 在调用线程上顺序执行的实例，供不经过Spring装配的Repository使用
+     */
+    public static ParallelScanEngine sequential() {
+        return new ParallelScanEngine(1, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * 对 [from, to) 的行号并行累加，每段从 identity 创建的新容器开始，结果按行号顺序合并
+     */
+    public <A> A reduceRange(int from, int to, Supplier<A> identity, ObjIntConsumer<A> accumulator,
+                             BinaryOperator<A> combiner) {
+        RangeTask<A> task = new RangeTask<>(from, to, identity, accumulator, combiner);
+        return pool == null || to - from <= segmentSize ? task.compute() : pool.invoke(task);
+    }
+
+    /**
+     * 对可拆分数据源（如并发集合的 spliterator）并行累加；拆分按数据源估计的大小进行，每段约为一个段长
+     */
+    public <T, A> A reduce(Spliterator<T> source, Supplier<A> identity, BiConsumer<A, ? super T> accumulator,
+                           BinaryOperator<A> combiner) {
+        SpliteratorTask<T, A> task = new SpliteratorTask<>(source, identity, accumulator, combiner);
+        return pool == null || source.estimateSize() <= segmentSize ? task.compute() : pool.invoke(task);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class ScanThread extends ForkJoinWorkerThread {
+
+        ScanThread(ForkJoinPool pool) {
+            super(pool);
+            setName("transaction-scan-" + getPoolIndex());
+            setDaemon(true);
+        }
+    }
+
+    private final class RangeTask<A> extends RecursiveTask<A> {
+
+        private final int from;
+        private final int to;
+        private final Supplier<A> identity;
+        private final ObjIntConsumer<A> accumulator;
+        private final BinaryOperator<A> combiner;
+
+        RangeTask(int from, int to, Supplier<A> identity, ObjIntConsumer<A> accumulator, BinaryOperator<A> combiner) {
+            this.from = from;
+            this.to = to;
+            this.identity = identity;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected A compute() {
+            if (pool == null || to - from <= segmentSize) {
+                A result = identity.get();
+                for (int row = from; row < to; row++) {
+                    accumulator.accept(result, row);
+                }
+                return result;
+            }
+            // 切分点对齐到段边界，段的划分与递归深度无关
+            int segments = (int) (((long) to - from + segmentSize - 1) / segmentSize);
+            int middle = from + segments / 2 * segmentSize;
+            RangeTask<A> right = new RangeTask<>(middle, to, identity, accumulator, combiner);
+            right.fork();
+            A left = new RangeTask<>(from, middle, identity, accumulator, combiner).compute();
+            return combiner.apply(left, right.join());
+        }
+    }
+
+    private final class SpliteratorTask<T, A> extends RecursiveTask<A> {
+
+        private final Spliterator<T> source;
+        private final Supplier<A> identity;
+        private final BiConsumer<A, ? super T> accumulator;
+        private final BinaryOperator<A> combiner;
+
+        SpliteratorTask(Spliterator<T> source, Supplier<A> identity, BiConsumer<A, ? super T> accumulator,
+                        BinaryOperator<A> combiner) {
+            this.source = source;
+            this.identity = identity;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected A compute() {
+            Spliterator<T> prefix;
+            if (pool != null && source.estimateSize() > segmentSize && (prefix = source.trySplit()) != null) {
+                // trySplit 返回的是前半部分，合并时放在左侧以保持遍历顺序
+                SpliteratorTask<T, A> right = new SpliteratorTask<>(source, identity, accumulator, combiner);
+                right.fork();
+                A left = new SpliteratorTask<>(prefix, identity, accumulator, combiner).compute();
+                return combiner.apply(left, right.join());
+            }
+            A result = identity.get();
+            source.forEachRemaining(element -> accumulator.accept(result, element));
+            return result;
+        }
+    }
+}
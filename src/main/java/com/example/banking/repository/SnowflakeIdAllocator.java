@@ -0,0 +1,97 @@
+package com.example.banking.repository;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * 时间 + 节点号的ID分配器，适合多节点部署：各节点按节点号分配，无需共享任何状态。
+ * <p>
+ * ID 布局（高位到低位）：符号位 0、自 2024-01-01 起的毫秒数 41 位、节点号 10 位、条带 4 位、序号 8 位。
+ * 每个条带各自维护"毫秒数+序号"游标并用 CAS 推进，线程按线程ID散列到条带，热路径上互不竞争；
+ * 同一毫秒内某条带的序号用完时借用下一毫秒，不等待时钟，游标单调递增，时钟小幅回拨也不会产生重复ID。
+ * <p>
+ * 重启后的唯一性依赖时钟在停机期间前进超过借用的时间，Repository恢复数据时调用的 {@link #observe(long)}
+ * 会把游标推进到本节点已有的最大ID之后。生成的ID超过 2^53，JavaScript 客户端应按字符串处理。
+ */
+public class SnowflakeIdAllocator implements IdAllocator {
+
+    // 2024-01-01T00:00:00Z
+    static final long EPOCH_MILLIS = 1704067200000L;
+
+    static final int NODE_BITS = 10;
+    static final int STRIPE_BITS = 4;
+    static final int SEQUENCE_BITS = 8;
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    private static final int STRIPE_SHIFT = SEQUENCE_BITS;
+    private static final int NODE_SHIFT = STRIPE_SHIFT + STRIPE_BITS;
+    private static final int TIME_SHIFT = NODE_SHIFT + NODE_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    // 每个条带占16个long，相邻条带的游标位于不同缓存行
+    private static final int STRIDE = 16;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    // 每个条带最近一次分配的 (毫秒数 << SEQUENCE_BITS) | 序号
+    private final AtomicLongArray cursors = new AtomicLongArray(STRIPES * STRIDE);
+
+    public SnowflakeIdAllocator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdAllocator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextId() {
+        int stripe = stripe();
+        int slot = stripe * STRIDE;
+        long floor = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        while (true) {
+            long last = cursors.get(slot);
+            long next = Math.max(floor, last + 1);
+            if (cursors.compareAndSet(slot, last, next)) {
+                return compose(next >>> SEQUENCE_BITS, stripe, next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    @Override
+    public void observe(long id) {
+        if (((id >>> NODE_SHIFT) & MAX_NODE_ID) != nodeId) {
+            // 其他节点分配的ID节点号不同，不会冲突
+            return;
+        }
+        int slot = (int) ((id >>> STRIPE_SHIFT) & (STRIPES - 1)) * STRIDE;
+        long cursor = ((id >>> TIME_SHIFT) << SEQUENCE_BITS) | (id & SEQUENCE_MASK);
+        if (cursor > cursors.get(slot)) {
+            cursors.accumulateAndGet(slot, cursor, Math::max);
+        }
+    }
+
+    public int getNodeId() {
+        return (int) nodeId;
+    }
+
+    /**
+     * ID中的时间部分，自纪元起的毫秒数
+     */
+    static long timestampMillis(long id) {
+        return (id >>> TIME_SHIFT) + EPOCH_MILLIS;
+    }
+
+    private long compose(long millis, int stripe, long sequence) {
+        return (millis << TIME_SHIFT) | (nodeId << NODE_SHIFT) | ((long) stripe << STRIPE_SHIFT) | sequence;
+    }
+
+    private static int stripe() {
+        long h = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (STRIPES - 1);
+    }
+}
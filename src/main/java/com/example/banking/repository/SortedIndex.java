@@ -0,0 +1,103 @@
+package com.example.banking.repository;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 基于跳表的有序二级索引，条目为 (键, 交易ID)，键为基本类型 long（最小货币单位或纪元微秒）。
+ * 相同键的多笔交易按ID区分，范围查询代价为 O(log n + k)。
+ */
+class SortedIndex {
+
+    record Entry(long key, long id) {
+    }
+
+    private static final Comparator<Entry> ORDER = (left, right) -> {
+        int compared = Long.compare(left.key(), right.key());
+        return compared != 0 ? compared : Long.compare(left.id(), right.id());
+    };
+
+    private final NavigableSet<Entry> entries = new ConcurrentSkipListSet<>(ORDER);
+    // 跳表的 size() 需要遍历全部条目，条目数单独计数，供监控频繁读取
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * 添加条目，absentKey 表示键缺失的哨兵值，此时不建索引
+     */
+    void add(long key, long id, long absentKey) {
+        if (key != absentKey && entries.add(new Entry(key, id))) {
+            count.increment();
+        }
+    }
+
+    /**
+     * 添加条目，包括键为哨兵值的条目
+     */
+    void add(long key, long id) {
+        if (entries.add(new Entry(key, id))) {
+            count.increment();
+        }
+    }
+
+    void remove(long key, long id) {
+        if (entries.remove(new Entry(key, id))) {
+            count.decrement();
+        }
+    }
+
+    /**
+     * 返回键落在 [from, to] 闭区间内的条目，不设限的一端传入 Long.MIN_VALUE / Long.MAX_VALUE
+     */
+    NavigableSet<Entry> range(long from, long to) {
+        return seek(from, to, null, false);
+    }
+
+    /**
+     * 在 [from, to] 区间内按给定方向定位到游标条目之后的条目；cursor 为 null 时从区间起点开始
+     */
+    NavigableSet<Entry> seek(long from, long to, Entry cursor, boolean descending) {
+        if (from > to) {
+            return Collections.emptyNavigableSet();
+        }
+        Entry low = new Entry(from, Long.MIN_VALUE);
+        Entry high = new Entry(to, Long.MAX_VALUE);
+        boolean lowInclusive = true;
+        boolean highInclusive = true;
+
+        if (cursor != null) {
+            if (descending && ORDER.compare(cursor, high) <= 0) {
+                high = cursor;
+                highInclusive = false;
+            } else if (!descending && ORDER.compare(cursor, low) >= 0) {
+                low = cursor;
+                lowInclusive = false;
+            }
+            if (ORDER.compare(low, high) > 0) {
+                return Collections.emptyNavigableSet();
+            }
+        }
+
+        NavigableSet<Entry> view = entries.subSet(low, lowInclusive, high, highInclusive);
+        return descending ? view.descendingSet() : view;
+    }
+
+    Stream<Long> idsInRange(long from, long to) {
+        return range(from, to).stream().map(Entry::id);
+    }
+
+    /**
+     * 全部条目的可拆分迭代器，供并行扫描使用；跳表的区间视图不支持拆分
+     */
+    Spliterator<Entry> spliterator() {
+        return entries.spliterator();
+    }
+
+    int size() {
+        return count.intValue();
+    }
+}
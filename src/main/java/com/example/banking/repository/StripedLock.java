@@ -0,0 +1,53 @@
+package com.example.banking.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分段锁：按键的哈希把锁请求分散到固定数量的锁上，
+ * 不同键大概率落在不同的锁上，避免全局锁成为瓶颈
+ */
+class StripedLock {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    StripedLock(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1) << 1);
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    ReentrantLock lockFor(Object key) {
+        return locks[stripe(key)];
+    }
+
+    /**
+     * 返回这些键对应的锁，去重后按分段顺序排列；需要同时持有多把锁时按此顺序加锁，避免互相等待
+     */
+    List<ReentrantLock> locksFor(Collection<?> keys) {
+        boolean[] used = new boolean[locks.length];
+        for (Object key : keys) {
+            used[stripe(key)] = true;
+        }
+        List<ReentrantLock> result = new ArrayList<>();
+        for (int i = 0; i < locks.length; i++) {
+            if (used[i]) {
+                result.add(locks[i]);
+            }
+        }
+        return result;
+    }
+
+    private int stripe(Object key) {
+        int hash = key != null ? key.hashCode() : 0;
+        // 扰动高位，避免哈希值低位相同的键集中到同一把锁
+        hash ^= (hash >>> 16);
+        return hash & mask;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.banking.repository;
+
+import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 交易的紧凑二进制编码，供预写日志和快照使用。
+ * 布局：id(8) 版本号(8) 类型(1) 时间戳纪元微秒(8) 金额最小货币单位(8) 描述长度(4)+UTF-8字节，
+ * 类型为 -1、描述长度为 -1 表示 null，金额和时间戳的缺失值与内存表示相同。
+ */
+final class TransactionCodec {
+
+    private static final byte NULL_TYPE = -1;
+    private static final int NULL_LENGTH = -1;
+    private static final int FIXED_SIZE = 8 + 8 + 1 + 8 + 8 + 4;
+
+    private TransactionCodec() {
+    }
+
+    static int encodedSize(Transaction transaction) {
+        int size = FIXED_SIZE;
+        if (transaction.getDescription() != null) {
+            size += transaction.getDescription().length() * 3;
+        }
+        return size;
+    }
+
+    static void encode(Transaction transaction, ByteBuffer buffer) {
+        buffer.putLong(transaction.getId());
+        buffer.putLong(transaction.getVersion());
+        buffer.put(transaction.getType() != null ? (byte) transaction.getType().ordinal() : NULL_TYPE);
+        buffer.putLong(transaction.getTimestampMicros());
+        buffer.putLong(transaction.getAmountMinorUnits());
+
+        if (transaction.getDescription() != null) {
+            byte[] description = transaction.getDescription().getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(description.length);
+            buffer.put(description);
+        } else {
+            buffer.putInt(NULL_LENGTH);
+        }
+    }
+
+    static Transaction decode(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        long version = buffer.getLong();
+        byte typeOrdinal = buffer.get();
+        TransactionType type = typeOrdinal != NULL_TYPE ? TransactionType.values()[typeOrdinal] : null;
+        long timestamp = buffer.getLong();
+        long amount = buffer.getLong();
+
+        int descriptionLength = buffer.getInt();
+        String description = null;
+        if (descriptionLength != NULL_LENGTH) {
+            byte[] bytes = new byte[descriptionLength];
+            buffer.get(bytes);
+            description = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return new Transaction(id, amount, description, type, timestamp, version);
+    }
+}
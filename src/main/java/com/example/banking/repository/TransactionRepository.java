@@ -1,12 +1,19 @@
 package com.example.banking.repository;
 
 import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionQuery;
 import com.example.banking.model.TransactionType;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 public interface TransactionRepository {
 
@@ -16,7 +23,22 @@ public interface TransactionRepository {
 
     List<Transaction> findAll();
 
-    boolean deleteById(Long id);
+    /**
+     * 删除一笔交易，返回在行锁内被删除的那个版本，不存在时返回空。
+     * 调用方据此扣减派生数据，不必在锁外先读一次旧值
+     */
+    Optional<Transaction> remove(Long id);
+
+    default boolean deleteById(Long id) {
+        return remove(id).isPresent();
+    }
+
+    /**
+     * 原子地修改一笔交易：在该ID的行锁内把当前值的副本交给 mutator，将其返回值作为新值写入，
+     * 同一ID的并发修改依次执行，不同ID互不阻塞。存储中的原对象不被修改，读取方只会看到修改前或修改后的完整交易。
+     * mutator 应只做内存操作，不得访问Repository；交易不存在时不调用 mutator，返回空
+     */
+    Optional<Transaction> update(Long id, UnaryOperator<Transaction> mutator);
 
     List<Transaction> findByType(TransactionType type);
 
@@ -26,8 +48,53 @@ public interface TransactionRepository {
 
     List<Transaction> findWithPagination(int offset, int limit);
 
+    /**
+     * 按组合条件查询一页交易，结果按query指定的顺序排列
+     */
+    List<Transaction> findByQuery(TransactionQuery query);
+
+    /**
+     * 惰性遍历满足query过滤条件的全部交易（忽略分页），不物化结果集，供导出等大批量读取使用。
+     * 按query指定的顺序遍历；列式实现沿堆外时间索引分批读取，只支持按时间排序；遍历期间的并发写入不保证可见
+     */
+    Stream<Transaction> stream(TransactionQuery query);
+
+    /**
+     * 对满足query过滤条件的全部交易做归约（忽略排序和分页）。无法通过索引缩小范围时在
+     * {@link ParallelScanEngine} 上分段并行执行：每段由 identity 创建独立的容器，accumulator 只操作本段容器，
+     * combiner 合并两个部分结果，三者都不需要自行同步
+     */
+    <A> A aggregate(TransactionQuery query, Supplier<A> identity, BiConsumer<A, Transaction> accumulator,
+                    BinaryOperator<A> combiner);
+
     long count();
 
+    /**
+     * 全库修改版本号，每次保存、修改或删除生效之后递增，进程重启后从0开始。
+     * 先读取版本号再查询时，查询结果至少包含该版本之前的全部修改，可作为条件请求的校验值
+     */
+    long modificationVersion();
+
+    /**
+     * 各二级索引的条目数，键为索引名，供监控采集使用；每个键的值都应能以 O(1) 读取，
+     * 不保证与并发写入严格一致。没有二级索引的实现返回空Map
+     */
+    default Map<String, Integer> indexSizes() {
+        return Map.of();
+    }
+
+    /**
+     * 在指纹锁内原子地完成重复检查与保存：时间窗口内已存在相同金额、描述和类型的交易时不保存，
+     * 返回空；否则保存并返回该交易
+     */
+    Optional<Transaction> saveIfNotDuplicate(Transaction transaction, int timeWindow);
+
+    /**
+     * 批量保存，逐条按 {@link #saveIfNotDuplicate} 的规则做重复检查；
+     * 返回结果与输入一一对应，重复的交易为空。持久化开销按整批摊销
+     */
+    List<Optional<Transaction>> saveAll(List<Transaction> transactions, int timeWindow);
+
     List<Transaction> findPotentialDuplicates(
             BigDecimal amount, 
             String description, 
@@ -1,26 +1,141 @@
 package com.example.banking.repository;
 
+import com.example.banking.model.EpochMicros;
+import com.example.banking.model.Money;
 import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionCursor;
+import com.example.banking.model.TransactionQuery;
 import com.example.banking.model.TransactionType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
+@Qualifier(MeteredTransactionRepository.STORE_QUALIFIER)
+@ConditionalOnProperty(name = "transaction.store.type", havingValue = "memory", matchIfMissing = true)
 public class TransactionRepositoryImpl implements TransactionRepository {
 
+    private static final Logger log = LoggerFactory.getLogger(TransactionRepositoryImpl.class);
+
     // 使用ConcurrentHashMap保证线程安全
     private final Map<Long, Transaction> transactionsMap = new ConcurrentHashMap<>();
 
+    // 二级索引：类型 -> 该类型按 (时间, ID) 有序的条目，金额(分)/时间(微秒) -> 有序 (键, ID)。
+    // 类型索引按时间分区，按类型过滤且按时间排序时只遍历该类型的条目
+    private final Map<TransactionType, SortedIndex> typeIndex = new EnumMap<>(TransactionType.class);
+    private final SortedIndex amountIndex = new SortedIndex();
+    private final SortedIndex timestampIndex = new SortedIndex();
+
+    // 重复检测指纹索引，以及保证"检查-保存"原子性的指纹分段锁
+    private final DuplicateIndex duplicateIndex = new DuplicateIndex(DEFAULT_DUPLICATE_RETENTION_MINUTES);
+    private final StripedLock fingerprintLocks = new StripedLock(64);
+    // 在写入对读取方可见之后才递增，见 modificationVersion
+    private final AtomicLong modificationVersion = new AtomicLong();
+
+    private static final int DEFAULT_DUPLICATE_RETENTION_MINUTES = 5;
+    // 非排序字段的区间命中不超过该条数时，由该区间驱动查询再排序，见 scan
+    static final int SELECTIVE_RANGE_LIMIT = 4096;
+    private static final Comparator<Transaction> TIMESTAMP_ORDER =
+            Comparator.comparingLong(Transaction::getTimestampMicros).thenComparingLong(Transaction::getId);
+    private static final Comparator<Transaction> AMOUNT_ORDER =
+            Comparator.comparingLong(Transaction::getAmountMinorUnits).thenComparingLong(Transaction::getId);
+
+    // 参与索引的字段，前后两个版本相同时跳过索引维护
+    private record IndexedKeys(long amount, String description, TransactionType type, long timestamp) {
+
+        static IndexedKeys of(Transaction transaction) {
+            return new IndexedKeys(transaction.getAmountMinorUnits(), transaction.getDescription(),
+                    transaction.getType(), transaction.getTimestampMicros());
+        }
+
+        DuplicateIndex.Fingerprint fingerprint() {
+            return DuplicateIndex.Fingerprint.of(amount, description, type);
+        }
+    }
+
+    // 无法使用索引的聚合在独立线程池上按段并行扫描
+    private final ParallelScanEngine scanEngine;
+
+    // 新交易首次保存时分配ID
+    private final IdAllocator idAllocator;
+    // 用过的最大ID，写入快照头：快照只含存活的交易，最大ID被删除且所在日志段被清理后，重启仍不会再分配它
+    private final AtomicLong highestId = new AtomicLong();
+
+    // 预写日志和快照，未启用持久化时为null
+    private final TransactionWriteAheadLog writeAheadLog;
+    private final TransactionSnapshotStore snapshotStore;
+
+    // 上次快照时日志已追加的记录数，没有新写入时跳过快照
+    private long checkpointedRecords = -1;
+
+    public TransactionRepositoryImpl() {
+        this((TransactionWriteAheadLog) null, null);
+    }
+
+    @Autowired
+    public TransactionRepositoryImpl(ObjectProvider<TransactionWriteAheadLog> writeAheadLog,
+                                     ObjectProvider<TransactionSnapshotStore> snapshotStore,
+                                     ParallelScanEngine scanEngine,
+                                     IdAllocator idAllocator) {
+        this(writeAheadLog.getIfAvailable(), snapshotStore.getIfAvailable(), scanEngine, idAllocator);
+    }
+
+    public TransactionRepositoryImpl(TransactionWriteAheadLog writeAheadLog) {
+        this(writeAheadLog, null);
+    }
+
+    public TransactionRepositoryImpl(TransactionWriteAheadLog writeAheadLog, TransactionSnapshotStore snapshotStore) {
+        this(writeAheadLog, snapshotStore, ParallelScanEngine.sequential());
+    }
+
+    public TransactionRepositoryImpl(TransactionWriteAheadLog writeAheadLog, TransactionSnapshotStore snapshotStore,
+                                     ParallelScanEngine scanEngine) {
+        this(writeAheadLog, snapshotStore, scanEngine, BlockIdAllocator.inMemory());
+    }
+
+    public TransactionRepositoryImpl(TransactionWriteAheadLog writeAheadLog, TransactionSnapshotStore snapshotStore,
+                                     ParallelScanEngine scanEngine, IdAllocator idAllocator) {
+        this.scanEngine = scanEngine;
+        this.idAllocator = idAllocator;
+        for (TransactionType type : TransactionType.values()) {
+            typeIndex.put(type, new SortedIndex());
+        }
+        this.writeAheadLog = writeAheadLog;
+        this.snapshotStore = writeAheadLog != null ? snapshotStore : null;
+        if (writeAheadLog != null) {
+            recover(writeAheadLog);
+        }
+    }
+
     @Override
     public Transaction save(Transaction transaction) {
-        // 如果是新交易（没有ID），将自动在Transaction构造函数中分配ID
-        transactionsMap.put(transaction.getId(), transaction);
-        return transaction;
+        // 新交易（没有ID）在写入时分配ID
+        List<CompletableFuture<Void>> pending = new ArrayList<>(1);
+        Transaction stored = store(transaction, pending);
+        // 在锁外等待组提交刷盘完成
+        pending.forEach(TransactionWriteAheadLog::await);
+        return stored;
     }
 
     @Override
@@ -34,77 +149,476 @@ public class TransactionRepositoryImpl implements TransactionRepository {
     }
 
     @Override
-    public boolean deleteById(Long id) {
-        return transactionsMap.remove(id) != null;
+    @SuppressWarnings("unchecked")
+    public Optional<Transaction> update(Long id, UnaryOperator<Transaction> mutator) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        CompletableFuture<Void>[] pending = new CompletableFuture[1];
+        // computeIfPresent 只锁定该ID所在的哈希桶，相当于按键分段的行锁：同一ID的修改串行，不同ID并行
+        Transaction updated = transactionsMap.computeIfPresent(id, (key, existing) -> {
+            Transaction changed = mutator.apply(existing);
+            if (!key.equals(changed.getId())) {
+                throw new IllegalArgumentException("Transaction id cannot be changed by an update");
+            }
+            Transaction next = changed.withVersion(existing.getVersion() + 1);
+            // 先追加日志：日志已失败时在此抛出，内存和索引保持不变
+            if (writeAheadLog != null) {
+                pending[0] = writeAheadLog.appendPut(next);
+            }
+            reindex(key, existing, next);
+            return next;
+        });
+        if (updated != null) {
+            modificationVersion.incrementAndGet();
+        }
+        if (pending[0] != null) {
+            TransactionWriteAheadLog.await(pending[0]);
+        }
+        return Optional.ofNullable(updated);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<Transaction> remove(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        CompletableFuture<Void>[] pending = new CompletableFuture[1];
+        Transaction[] removed = new Transaction[1];
+        transactionsMap.computeIfPresent(id, (key, existing) -> {
+            if (writeAheadLog != null) {
+                pending[0] = writeAheadLog.appendDelete(key);
+            }
+            unindex(key, existing);
+            removed[0] = existing;
+            return null;
+        });
+        if (removed[0] != null) {
+            modificationVersion.incrementAndGet();
+        }
+        if (pending[0] != null) {
+            TransactionWriteAheadLog.await(pending[0]);
+        }
+        return Optional.ofNullable(removed[0]);
     }
 
     @Override
     public List<Transaction> findByType(TransactionType type) {
-        return transactionsMap.values().stream()
+        if (type == null) {
+            return new ArrayList<>();
+        }
+        return resolve(typeIndex.get(type).idsInRange(Long.MIN_VALUE, Long.MAX_VALUE))
                 .filter(transaction -> transaction.getType() == type)
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<Transaction> findByAmountRange(BigDecimal minAmount, BigDecimal maxAmount) {
-        return transactionsMap.values().stream()
-                .filter(transaction -> {
-                    BigDecimal amount = transaction.getAmount();
-                    return (minAmount == null || amount.compareTo(minAmount) >= 0) &&
-                           (maxAmount == null || amount.compareTo(maxAmount) <= 0);
-                })
+        if (minAmount == null && maxAmount == null) {
+            return findAll();
+        }
+        long min = minAmount != null ? Money.toMinorUnitsBound(minAmount, true) : Long.MIN_VALUE;
+        long max = maxAmount != null ? Money.toMinorUnitsBound(maxAmount, false) : Long.MAX_VALUE;
+        return resolve(amountIndex.idsInRange(min, max))
+                .filter(transaction -> inAmountRange(transaction, min, max))
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<Transaction> findByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        return transactionsMap.values().stream()
-                .filter(transaction -> {
-                    LocalDateTime date = transaction.getTimestamp();
-                    return (startDate == null || date.isEqual(startDate) || date.isAfter(startDate)) &&
-                           (endDate == null || date.isEqual(endDate) || date.isBefore(endDate));
-                })
+        if (startDate == null && endDate == null) {
+            return findAll();
+        }
+        long start = startDate != null ? EpochMicros.ceil(startDate) : Long.MIN_VALUE;
+        long end = endDate != null ? EpochMicros.of(endDate) : Long.MAX_VALUE;
+        return resolve(timestampIndex.idsInRange(start, end))
+                .filter(transaction -> inDateRange(transaction, start, end))
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<Transaction> findWithPagination(int offset, int limit) {
-        return transactionsMap.values().stream()
-                .sorted(Comparator.comparing(Transaction::getTimestamp).reversed())
+        // 时间索引本身有序，无需每次对全量数据排序
+        return resolve(timestampIndex.range(Long.MIN_VALUE, Long.MAX_VALUE).descendingSet().stream().map(SortedIndex.Entry::id))
                 .skip(offset)
                 .limit(limit)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<Transaction> findByQuery(TransactionQuery query) {
+        // 由选择性较高的索引驱动，凑满一页即停止，见 scan
+        return scan(query)
+                .skip(query.getOffset())
+                .limit(query.getSize())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<Transaction> stream(TransactionQuery query) {
+        // 跳表视图是惰性的弱一致迭代，遍历期间只持有当前条目
+        return scan(query);
+    }
+
+    @Override
+    public <A> A aggregate(TransactionQuery query, Supplier<A> identity, BiConsumer<A, Transaction> accumulator,
+                           BinaryOperator<A> combiner) {
+        BiConsumer<A, Long> byId = (result, id) -> {
+            Transaction transaction = transactionsMap.get(id);
+            if (transaction != null && query.matches(transaction)) {
+                accumulator.accept(result, transaction);
+            }
+        };
+        // 范围条件由有序索引定位到区间内的条目，代价与命中数成正比；跳表的区间视图不支持拆分，在调用线程上顺序遍历
+        if (query.hasDateRange() || query.hasAmountRange()) {
+            A result = identity.get();
+            NavigableSet<SortedIndex.Entry> entries = query.hasDateRange()
+                    ? timestampIndex.range(query.getStartMicros(), query.getEndMicros())
+                    : amountIndex.range(query.getMinAmountMinorUnits(), query.getMaxAmountMinorUnits());
+            entries.forEach(entry -> byId.accept(result, entry.id()));
+            return result;
+        }
+        // 只有类型条件或没有条件时按哈希表的桶分段并行扫描
+        if (query.getType() != null) {
+            return scanEngine.reduce(typeIndex.get(query.getType()).spliterator(), identity,
+                    (A result, SortedIndex.Entry entry) -> byId.accept(result, entry.id()), combiner);
+        }
+        return scanEngine.reduce(transactionsMap.values().spliterator(), identity, (result, transaction) -> {
+            if (query.matches(transaction)) {
+                accumulator.accept(result, transaction);
+            }
+        }, combiner);
+    }
+
     @Override
     public long count() {
         return transactionsMap.size();
     }
-    
+
+    @Override
+    public long modificationVersion() {
+        return modificationVersion.get();
+    }
+
+    @Override
+    public Map<String, Integer> indexSizes() {
+        int typed = 0;
+        for (SortedIndex entries : typeIndex.values()) {
+            typed += entries.size();
+        }
+        return Map.of("type", typed,
+                "amount", amountIndex.size(),
+                "timestamp", timestampIndex.size(),
+                "duplicate", duplicateIndex.size());
+    }
+
+    @Override
+    public Optional<Transaction> saveIfNotDuplicate(Transaction transaction, int timeWindow) {
+        DuplicateIndex.Fingerprint fingerprint = DuplicateIndex.Fingerprint.of(transaction);
+        ReentrantLock lock = fingerprintLocks.lockFor(fingerprint);
+        List<CompletableFuture<Void>> pending = new ArrayList<>(1);
+        Transaction stored;
+        lock.lock();
+        try {
+            long now = EpochMicros.of(LocalDateTime.now());
+            duplicateIndex.retainAtLeast(timeWindow);
+            duplicateIndex.expire(now);
+            if (duplicateIndex.contains(fingerprint, now - TimeUnit.MINUTES.toMicros(timeWindow), now)) {
+                return Optional.empty();
+            }
+            // store 返回时指纹已进入索引，之后的相同请求会被判为重复，无需持锁等待落盘
+            stored = store(transaction, pending);
+        } finally {
+            lock.unlock();
+        }
+        // 与 saveAll 相同，在锁外等待组提交，共用同一分段锁的写入方可以进入同一次刷盘
+        pending.forEach(TransactionWriteAheadLog::await);
+        return Optional.of(stored);
+    }
+
+    @Override
+    public List<Optional<Transaction>> saveAll(List<Transaction> transactions, int timeWindow) {
+        long now = EpochMicros.of(LocalDateTime.now());
+        long windowStart = now - TimeUnit.MINUTES.toMicros(timeWindow);
+        duplicateIndex.retainAtLeast(timeWindow);
+        duplicateIndex.expire(now);
+
+        List<Optional<Transaction>> results = new ArrayList<>(transactions.size());
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            DuplicateIndex.Fingerprint fingerprint = DuplicateIndex.Fingerprint.of(transaction);
+            ReentrantLock lock = fingerprintLocks.lockFor(fingerprint);
+            lock.lock();
+            try {
+                // 同批次内先写入的交易已进入指纹索引，批内重复同样会被识别
+                if (duplicateIndex.contains(fingerprint, windowStart, now)) {
+                    results.add(Optional.empty());
+                    continue;
+                }
+                results.add(Optional.of(store(transaction, pending)));
+            } finally {
+                lock.unlock();
+            }
+        }
+        // 整批记录都已入队，只在最后等待落盘，一次组提交即可覆盖大量记录
+        pending.forEach(TransactionWriteAheadLog::await);
+        return results;
+    }
+
     @Override
     public List<Transaction> findPotentialDuplicates(
-            BigDecimal amount, 
-            String description, 
+            BigDecimal amount,
+            String description,
             TransactionType type,
             int timeWindow) {
-        
+
         // 当前时间
-        LocalDateTime now = LocalDateTime.now();
+        long now = EpochMicros.of(LocalDateTime.now());
         // 时间窗口开始时间
-        LocalDateTime windowStart = now.minusMinutes(timeWindow);
-        
-        // 查找满足条件的潜在重复交易
-        return transactionsMap.values().stream()
-                .filter(transaction -> 
+        long windowStart = now - TimeUnit.MINUTES.toMicros(timeWindow);
+        long minorUnits = Money.toMinorUnits(amount);
+
+        // 只在时间索引的窗口范围内查找满足条件的潜在重复交易
+        return resolve(timestampIndex.idsInRange(windowStart, now))
+                .filter(transaction ->
                     // 金额完全相同
-                    transaction.getAmount().compareTo(amount) == 0 &&
+                    transaction.hasAmount() &&
+                    transaction.getAmountMinorUnits() == minorUnits &&
                     // 描述完全相同
                     Objects.equals(transaction.getDescription(), description) &&
                     // 类型相同
                     transaction.getType() == type &&
                     // 在时间窗口内
-                    !transaction.getTimestamp().isBefore(windowStart) &&
-                    !transaction.getTimestamp().isAfter(now))
+                    inDateRange(transaction, windowStart, now))
                 .collect(Collectors.toList());
     }
-} 
\ No newline at end of file
+
+    /**
+     * 生成快照并删除已被覆盖的日志段，返回是否实际写入了快照。
+     * <p>
+     * 先切换日志段，再遍历 ConcurrentHashMap 的弱一致视图写出快照，写入方不会被阻塞。
+     * 切段瞬间可能有写入已进入旧段日志但尚未对 Map 可见，因此快照记录从切段前的活动段开始重放：
+     * 重放的记录都是完整的行状态，按日志顺序覆盖到快照之上结果仍然正确。
+     */
+    public synchronized boolean checkpoint() {
+        if (snapshotStore == null) {
+            return false;
+        }
+        long appended = writeAheadLog.getAppendedRecords();
+        if (appended == checkpointedRecords) {
+            return false;
+        }
+        try {
+            long replayFrom = writeAheadLog.rollSegment().join();
+            // 切段前进入旧段的写入在追加日志前已计入最大ID
+            snapshotStore.write(new TransactionSnapshotStore.Header(replayFrom, highestId.get()), transactionsMap.values());
+            int deleted = writeAheadLog.deleteSegmentsBefore(replayFrom);
+            snapshotStore.deleteSnapshotsBefore(replayFrom);
+            checkpointedRecords = appended;
+            log.debug("Checkpoint complete, replay starts at segment {}, {} segment(s) removed", replayFrom, deleted);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write transaction snapshot", e);
+        }
+    }
+
+    /**
+     * 加载最新快照并重放其后的预写日志，重建内存数据和索引，并推进ID分配器
+     */
+    private void recover(TransactionWriteAheadLog wal) {
+        try {
+            long replayFrom = 0;
+            if (snapshotStore != null) {
+                Optional<TransactionSnapshotStore.Header> header = snapshotStore.load(this::restore);
+                if (header.isPresent()) {
+                    replayFrom = header.get().replayFromSequence();
+                    observeId(header.get().highestId());
+                }
+            }
+            wal.recover(new TransactionWriteAheadLog.ReplayHandler() {
+                @Override
+                public void onPut(Transaction transaction) {
+                    restore(transaction);
+                }
+
+                @Override
+                public void onDelete(long id) {
+                    Transaction previous = transactionsMap.remove(id);
+                    if (previous != null) {
+                        unindex(id, previous);
+                    }
+                    observeId(id);
+                }
+            }, replayFrom);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover transactions from write-ahead log", e);
+        }
+    }
+
+    /**
+     * 以递增后的版本号写入内存并追加日志，返回实际存储的实例；日志落盘的future加入pending，未启用持久化时不加入。
+     * 没有ID的交易先分配ID，重复检查在调用方完成，被判定为重复的交易不占用ID；
+     * 调用方指定的ID同样推进分配器，之后分配的ID不会覆盖它。
+     * 在compute中追加日志并维护索引，保证同一ID的写入、索引更新和日志顺序一致。
+     * 日志进入失败状态后追加直接抛出，内存不再变化；已在内存中但刷盘失败的修改由调用方收到异常，
+     * 日志随即拒绝之后的所有写入（fail-stop），重启后按磁盘上的日志恢复
+     */
+    private Transaction store(Transaction transaction, List<CompletableFuture<Void>> pending) {
+        Transaction identified;
+        if (transaction.getId() != null) {
+            observeId(transaction.getId());
+            identified = transaction;
+        } else {
+            identified = transaction.withId(idAllocator.nextId());
+            highestId.accumulateAndGet(identified.getId(), Math::max);
+        }
+        Transaction stored = transactionsMap.compute(identified.getId(), (id, existing) -> {
+            Transaction next = identified.withVersion(existing != null ? existing.getVersion() + 1 : 1);
+            if (writeAheadLog != null) {
+                pending.add(writeAheadLog.appendPut(next));
+            }
+            reindex(id, existing, next);
+            return next;
+        });
+        modificationVersion.incrementAndGet();
+        return stored;
+    }
+
+    private void restore(Transaction transaction) {
+        Transaction previous = transactionsMap.put(transaction.getId(), transaction);
+        reindex(transaction.getId(), previous, transaction);
+        observeId(transaction.getId());
+    }
+
+    private void observeId(long id) {
+        idAllocator.observe(id);
+        highestId.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * 按旧版本的键值移除索引条目、按新版本的键值添加；交易不可变，旧版本就是上次建索引时的值
+     */
+    private void reindex(Long id, Transaction previousVersion, Transaction transaction) {
+        IndexedKeys current = IndexedKeys.of(transaction);
+        IndexedKeys previous = previousVersion != null ? IndexedKeys.of(previousVersion) : null;
+        if (current.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            removeEntries(id, previous);
+        }
+        if (current.type() != null) {
+            typeIndex.get(current.type()).add(current.timestamp(), id);
+        }
+        amountIndex.add(current.amount(), id, Money.NONE);
+        timestampIndex.add(current.timestamp(), id, EpochMicros.NONE);
+        duplicateIndex.add(current.fingerprint(), id, current.timestamp());
+    }
+
+    private void unindex(Long id, Transaction previous) {
+        removeEntries(id, IndexedKeys.of(previous));
+    }
+
+    private void removeEntries(Long id, IndexedKeys keys) {
+        if (keys.type() != null) {
+            typeIndex.get(keys.type()).remove(keys.timestamp(), id);
+        }
+        amountIndex.remove(keys.amount(), id);
+        timestampIndex.remove(keys.timestamp(), id);
+        duplicateIndex.remove(keys.fingerprint(), id);
+    }
+
+    /**
+     * 沿排序字段的索引顺序遍历并逐条校验其余条件，凑满一页即停止；按类型过滤且按时间排序时遍历该类型的时间索引。
+     * 另一个区间条件（按时间排序时的金额区间、按金额排序时的日期区间）命中不超过 {@value #SELECTIVE_RANGE_LIMIT}
+     * 条时改由该区间驱动：取出区间内全部匹配的交易再排序，代价与命中数成正比，与总行数无关。
+     * 跳过 offset 行的代价仍与 offset 成正比，深翻页应使用游标
+     */
+    private Stream<Transaction> scan(TransactionQuery query) {
+        TransactionCursor cursor = query.getCursor();
+        SortedIndex.Entry cursorEntry = cursor != null
+                ? new SortedIndex.Entry(EpochMicros.of(cursor.getTimestamp()), cursor.getId()) : null;
+        boolean descending = query.getSort() == TransactionQuery.Sort.TIMESTAMP_DESC
+                || query.getSort() == TransactionQuery.Sort.AMOUNT_DESC;
+        SortedIndex dateIndex = query.getType() != null ? typeIndex.get(query.getType()) : timestampIndex;
+        // 时间索引中不含缺少时间戳的交易，按类型分区的索引与之保持一致
+        long startMicros = Math.max(query.getStartMicros(), EpochMicros.NONE + 1);
+
+        NavigableSet<SortedIndex.Entry> entries;
+        if (query.getSort().isByTimestamp()) {
+            if (query.hasAmountRange()) {
+                List<Transaction> selected = selectiveRange(
+                        amountIndex.range(query.getMinAmountMinorUnits(), query.getMaxAmountMinorUnits()), query);
+                if (selected != null) {
+                    return sorted(selected.stream()
+                            .filter(transaction -> transaction.getTimestampMicros() != EpochMicros.NONE)
+                            .filter(transaction -> cursorEntry == null || isAfter(transaction, cursorEntry, descending)),
+                            TIMESTAMP_ORDER, descending);
+                }
+            }
+            // 在 (时间戳, ID) 有序索引上直接定位到游标之后，代价与翻页深度无关
+            entries = dateIndex.seek(startMicros, query.getEndMicros(), cursorEntry, descending);
+        } else {
+            if (query.hasDateRange()) {
+                List<Transaction> selected = selectiveRange(dateIndex.range(startMicros, query.getEndMicros()), query);
+                if (selected != null) {
+                    return sorted(selected.stream().filter(Transaction::hasAmount), AMOUNT_ORDER, descending);
+                }
+            }
+            // 类型条件最多过滤掉三分之二的条目，沿金额索引遍历即可
+            entries = amountIndex.range(query.getMinAmountMinorUnits(), query.getMaxAmountMinorUnits());
+            if (descending) {
+                entries = entries.descendingSet();
+            }
+        }
+        return resolve(entries.stream().map(SortedIndex.Entry::id))
+                .filter(query::matches);
+    }
+
+    /**
+     * 区间内条目不超过 {@link #SELECTIVE_RANGE_LIMIT} 条时返回其中满足query的交易，否则返回null；
+     * 放弃时最多已遍历该数量的条目
+     */
+    private List<Transaction> selectiveRange(NavigableSet<SortedIndex.Entry> range, TransactionQuery query) {
+        List<Long> ids = new ArrayList<>();
+        for (SortedIndex.Entry entry : range) {
+            if (ids.size() == SELECTIVE_RANGE_LIMIT) {
+                return null;
+            }
+            ids.add(entry.id());
+        }
+        return resolve(ids.stream()).filter(query::matches).collect(Collectors.toList());
+    }
+
+    private static Stream<Transaction> sorted(Stream<Transaction> transactions, Comparator<Transaction> order,
+                                              boolean descending) {
+        return transactions.sorted(descending ? order.reversed() : order);
+    }
+
+    private static boolean isAfter(Transaction transaction, SortedIndex.Entry cursor, boolean descending) {
+        int compared = Long.compare(transaction.getTimestampMicros(), cursor.key());
+        if (compared == 0) {
+            compared = Long.compare(transaction.getId(), cursor.id());
+        }
+        return descending ? compared < 0 : compared > 0;
+    }
+
+    /**
+     * 将索引命中的ID解析为交易；读取期间可能被并发删除，故过滤掉已不存在的记录
+     */
+    private Stream<Transaction> resolve(Stream<Long> ids) {
+        return ids.map(transactionsMap::get).filter(Objects::nonNull);
+    }
+
+    // 索引与哈希表不是原子更新的，索引命中后再用交易当前版本复核一次，避免并发修改期间返回不匹配的结果
+    private static boolean inAmountRange(Transaction transaction, long minAmount, long maxAmount) {
+        long amount = transaction.getAmountMinorUnits();
+        return amount != Money.NONE && amount >= minAmount && amount <= maxAmount;
+    }
+
+    private static boolean inDateRange(Transaction transaction, long startDate, long endDate) {
+        long date = transaction.getTimestampMicros();
+        return date != EpochMicros.NONE && date >= startDate && date <= endDate;
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.banking.repository;
+
+import com.example.banking.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 交易数据的二进制快照。
+ * <p>
+ * 文件格式：魔数(4) 版本(4) 重放起始日志段序号(8) 已使用过的最大ID(8)，随后为若干条 长度(4)+交易编码，
+ * 以长度 -1 结尾，再跟记录数(8) 和此前全部字节的 CRC32C(4)。
+ * 快照先写入临时文件并刷盘，再原子重命名，崩溃时不会留下半个快照；
+ * 加载时以内存映射方式分窗口读取，避免把整个文件复制进堆。
+ */
+public class TransactionSnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionSnapshotStore.class);
+
+    private static final int MAGIC = 0x54584E53;
+    // 只读取当前版本，其他版本的快照在启动时报错，不做兼容转换
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8;
+    private static final int FOOTER_SIZE = 4 + 8 + 4;
+    private static final int END_OF_RECORDS = -1;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final long MAP_WINDOW_SIZE = 256L * 1024 * 1024;
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+
+    /**
+     * 快照头：恢复时从哪个日志段开始重放，以及写快照时用过的最大ID（包括此前已删除、不在快照中的交易）
+     */
+    public record Header(long replayFromSequence, long highestId) {
+    }
+
+    public TransactionSnapshotStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * 写入快照，header 记录恢复时需要从哪个日志段开始重放以及ID分配的高水位。
+     * rows 可以是被并发修改的集合的弱一致视图，写入期间不阻塞写入方。
+     */
+    public Path write(Header header, Iterable<Transaction> rows) throws IOException {
+        Path target = snapshotPath(header.replayFromSequence());
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        long count = 0;
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(header.replayFromSequence()).putLong(header.highestId());
+            for (Transaction transaction : rows) {
+                int required = Integer.BYTES + TransactionCodec.encodedSize(transaction);
+                if (buffer.remaining() < required) {
+                    drain(buffer, channel, crc);
+                    if (buffer.capacity() < required) {
+                        buffer = ByteBuffer.allocateDirect(required);
+                    }
+                }
+                int lengthPosition = buffer.position();
+                buffer.position(lengthPosition + Integer.BYTES);
+                TransactionCodec.encode(transaction, buffer);
+                buffer.putInt(lengthPosition, buffer.position() - lengthPosition - Integer.BYTES);
+                count++;
+            }
+            if (buffer.remaining() < FOOTER_SIZE) {
+                drain(buffer, channel, crc);
+            }
+            buffer.putInt(END_OF_RECORDS).putLong(count);
+            drain(buffer, channel, crc);
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+        log.info("Wrote snapshot of {} transactions to {}", count, target);
+        return target;
+    }
+
+    /**
+     * 加载最新的快照，逐条回调交易，返回快照头；没有快照时返回空
+     */
+    public Optional<Header> load(Consumer<Transaction> consumer) throws IOException {
+        List<Path> snapshots = listSnapshots();
+        if (snapshots.isEmpty()) {
+            return Optional.empty();
+        }
+        Path latest = snapshots.get(snapshots.size() - 1);
+        try (FileChannel channel = FileChannel.open(latest, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + FOOTER_SIZE) {
+                throw new IOException("Snapshot " + latest + " is truncated");
+            }
+            // 先校验整个文件再回放，损坏的快照不会留下部分数据
+            verifyChecksum(channel, size, latest);
+
+            MappedReader reader = new MappedReader(channel, size - Integer.BYTES);
+            ByteBuffer headerBuffer = reader.require(HEADER_SIZE);
+            int magic = headerBuffer.getInt();
+            int version = headerBuffer.getInt();
+            if (magic != MAGIC || version != VERSION) {
+                throw new IOException("Unsupported snapshot format in " + latest);
+            }
+            Header header = new Header(headerBuffer.getLong(), headerBuffer.getLong());
+
+            long count = 0;
+            while (true) {
+                int length = reader.require(Integer.BYTES).getInt();
+                if (length == END_OF_RECORDS) {
+                    break;
+                }
+                ByteBuffer window = reader.require(length);
+                consumer.accept(TransactionCodec.decode(window.slice(window.position(), length)));
+                window.position(window.position() + length);
+                count++;
+            }
+            long expected = reader.require(Long.BYTES).getLong();
+            if (count != expected) {
+                throw new IOException("Snapshot " + latest + " contains " + count + " records, expected " + expected);
+            }
+            log.info("Loaded {} transactions from snapshot {}", count, latest);
+            return Optional.of(header);
+        }
+    }
+
+    /**
+     * 删除早于指定日志段序号的快照以及残留的临时文件
+     */
+    public void deleteSnapshotsBefore(long replayFromSequence) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.toList()) {
+                String name = path.getFileName().toString();
+                if (!name.startsWith(SNAPSHOT_PREFIX)) {
+                    continue;
+                }
+                if (name.endsWith(TEMP_SUFFIX) || (name.endsWith(SNAPSHOT_SUFFIX) && sequenceOf(path) < replayFromSequence)) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel, CRC32C crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void verifyChecksum(FileChannel channel, long size, Path snapshot) throws IOException {
+        long dataSize = size - Integer.BYTES;
+        CRC32C crc = new CRC32C();
+        for (long position = 0; position < dataSize; position += MAP_WINDOW_SIZE) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW_SIZE, dataSize - position)));
+        }
+        ByteBuffer stored = ByteBuffer.allocate(Integer.BYTES);
+        channel.read(stored, dataSize);
+        if (stored.flip().getInt() != (int) crc.getValue()) {
+            throw new IOException("Checksum mismatch in snapshot " + snapshot);
+        }
+    }
+
+    private void syncDirectory() {
+        // 目录项刷盘保证重命名持久化，部分平台不支持对目录调用 force
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            log.debug("Unable to sync snapshot directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long sequenceOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+
+    private Path snapshotPath(long replayFromSequence) {
+        return directory.resolve(String.format("%s%016d%s", SNAPSHOT_PREFIX, replayFromSequence, SNAPSHOT_SUFFIX));
+    }
+
+    /**
+     * 以固定大小的窗口映射文件，记录跨越窗口边界时从记录起点重新映射
+     */
+    private static final class MappedReader {
+
+        private final FileChannel channel;
+        private final long limit;
+        private long windowStart;
+        private MappedByteBuffer window;
+
+        MappedReader(FileChannel channel, long limit) {
+            this.channel = channel;
+            this.limit = limit;
+        }
+
+        ByteBuffer require(int length) throws IOException {
+            if (window == null || window.remaining() < length) {
+                long position = window == null ? 0 : windowStart + window.position();
+                if (length < 0 || position + length > limit) {
+                    throw new EOFException("Unexpected end of snapshot at offset " + position);
+                }
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(Math.max(MAP_WINDOW_SIZE, length), limit - position));
+            }
+            return window;
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package com.example.banking.repository;
+
+import com.example.banking.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 交易存储的追加式预写日志（WAL）。
+ * <p>
+ * 每条记录格式为：负载长度(4) CRC32C(4) 操作(1) 负载。写入由单独的刷盘线程完成，
+ * 在组提交窗口内到达的所有写请求合并为一次 write + 一次 fsync，多个并发写入方共享一次刷盘。
+ * 启动时按顺序重放日志段以重建内存状态，末尾不完整或校验失败的记录视为崩溃时的残缺写入并被截断。
+ * <p>
+ * 日志按段存储，当前段超过大小上限或快照需要确定日志位置时切换到新段；
+ * 已被快照覆盖的旧段通过 {@link #deleteSegmentsBefore(long)} 删除。
+ * <p>
+ * 写入或刷盘失败后日志进入失败状态（fail-stop）：此后排队的记录不再写出，新的追加直接抛出异常，
+ * 已写入内存但未落盘的修改不会被之后的记录覆盖到磁盘上，重启后按磁盘上的日志恢复。
+ */
+public class TransactionWriteAheadLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionWriteAheadLog.class);
+
+    static final byte OP_PUT = 1;
+    static final byte OP_DELETE = 2;
+
+    private static final String SEGMENT_PREFIX = "transactions-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+    private static final int MAX_BATCH_SIZE = 4096;
+    private static final long DEFAULT_SEGMENT_SIZE_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * 重放日志时的回调
+     */
+    public interface ReplayHandler {
+
+        void onPut(Transaction transaction);
+
+        void onDelete(long id);
+    }
+
+    /**
+     * 写请求或切段请求，切段请求的 rolled 非空，完成时返回切段前的活动段序号
+     */
+    private record PendingWrite(ByteBuffer record, CompletableFuture<Void> future, CompletableFuture<Long> rolled) {
+
+        boolean isRoll() {
+            return rolled != null;
+        }
+
+        void fail(Throwable cause) {
+            if (rolled != null) {
+                rolled.completeExceptionally(cause);
+            } else {
+                future.completeExceptionally(cause);
+            }
+        }
+    }
+
+    private static final PendingWrite SHUTDOWN = new PendingWrite(ByteBuffer.allocate(0), new CompletableFuture<>(), null);
+
+    private final Path directory;
+    private final long groupCommitWindowNanos;
+    private final boolean fsync;
+    private final long segmentSizeBytes;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong appendedRecords = new AtomicLong();
+
+    // 仅由刷盘线程修改
+    private FileChannel channel;
+    private volatile long activeSequence;
+    private Thread writer;
+    private volatile boolean open;
+    // 第一次写入失败的原因，非空后拒绝一切写入
+    private volatile IOException failure;
+
+    public TransactionWriteAheadLog(Path directory, long groupCommitWindowMicros, boolean fsync) throws IOException {
+        this(directory, groupCommitWindowMicros, fsync, DEFAULT_SEGMENT_SIZE_BYTES);
+    }
+
+    public TransactionWriteAheadLog(Path directory, long groupCommitWindowMicros, boolean fsync,
+                                    long segmentSizeBytes) throws IOException {
+        this.directory = directory;
+        this.groupCommitWindowNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitWindowMicros);
+        this.fsync = fsync;
+        this.segmentSizeBytes = segmentSizeBytes;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * 重放全部日志并开始接受写入，只能调用一次
+     */
+    public void recover(ReplayHandler handler) throws IOException {
+        recover(handler, 0);
+    }
+
+    /**
+     * 从指定序号的日志段开始重放并开始接受写入，更早的段已被快照覆盖，不再读取
+     */
+    public synchronized void recover(ReplayHandler handler, long fromSequence) throws IOException {
+        if (open) {
+            throw new IllegalStateException("Write-ahead log already recovered");
+        }
+        List<Path> segments = listSegments().stream()
+                .filter(segment -> sequenceOf(segment) >= fromSequence)
+                .toList();
+        long records = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            records += replaySegment(segments.get(i), handler, i == segments.size() - 1);
+        }
+        activeSequence = segments.isEmpty() ? Math.max(fromSequence, 1) : sequenceOf(segments.get(segments.size() - 1));
+        channel = openSegment(activeSequence);
+        open = true;
+
+        writer = new Thread(this::writeLoop, "transaction-wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Recovered {} records from {} write-ahead log segment(s) in {}", records, segments.size(), directory);
+    }
+
+    public CompletableFuture<Void> appendPut(Transaction transaction) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + 1 + TransactionCodec.encodedSize(transaction));
+        record.position(RECORD_HEADER_SIZE);
+        record.put(OP_PUT);
+        TransactionCodec.encode(transaction, record);
+        return enqueue(record);
+    }
+
+    public CompletableFuture<Void> appendDelete(long id) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + 1 + Long.BYTES);
+        record.position(RECORD_HEADER_SIZE);
+        record.put(OP_DELETE);
+        record.putLong(id);
+        return enqueue(record);
+    }
+
+    /**
+     * 切换到新的日志段。返回的 future 在此前排队的写入全部落盘后完成，结果为切换前的活动段序号
+     */
+    public CompletableFuture<Long> rollSegment() {
+        if (!open) {
+            throw new IllegalStateException("Write-ahead log is not open");
+        }
+        checkNotFailed();
+        CompletableFuture<Long> rolled = new CompletableFuture<>();
+        queue.add(new PendingWrite(null, null, rolled));
+        return rolled;
+    }
+
+    /**
+     * 删除序号小于指定值的日志段，活动段不会被删除，返回删除的段数
+     */
+    public int deleteSegmentsBefore(long sequence) throws IOException {
+        long limit = Math.min(sequence, activeSequence);
+        int deleted = 0;
+        for (Path segment : listSegments()) {
+            if (sequenceOf(segment) < limit && Files.deleteIfExists(segment)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * 写入失败后为 true，需要重启恢复
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    public long getActiveSequence() {
+        return activeSequence;
+    }
+
+    /**
+     * 本次启动以来追加的记录数
+     */
+    public long getAppendedRecords() {
+        return appendedRecords.get();
+    }
+
+    /**
+     * 等待写入持久化，失败时抛出 UncheckedIOException
+     */
+    public static void await(CompletableFuture<Void> pending) {
+        try {
+            pending.join();
+        } catch (RuntimeException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof IOException ioException) {
+                throw new UncheckedIOException("Failed to persist transaction", ioException);
+            }
+            throw new IllegalStateException("Failed to persist transaction", cause);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (!open) {
+                return;
+            }
+            open = false;
+        }
+        queue.add(SHUTDOWN);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+
+        // 关闭过程中仍在排队的写入不会再落盘，显式通知等待方
+        List<PendingWrite> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        IOException closedException = new IOException("Write-ahead log closed");
+        abandoned.forEach(write -> write.fail(closedException));
+    }
+
+    private CompletableFuture<Void> enqueue(ByteBuffer record) {
+        if (!open) {
+            throw new IllegalStateException("Write-ahead log is not open");
+        }
+        checkNotFailed();
+        int payloadLength = record.position() - RECORD_HEADER_SIZE;
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), RECORD_HEADER_SIZE, payloadLength);
+        record.putInt(0, payloadLength);
+        record.putInt(4, (int) crc.getValue());
+        record.flip();
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        queue.add(new PendingWrite(record, future, null));
+        appendedRecords.incrementAndGet();
+        return future;
+    }
+
+    private void checkNotFailed() {
+        IOException failed = failure;
+        if (failed != null) {
+            throw new UncheckedIOException("Write-ahead log has failed, restart to recover", failed);
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+                // 组提交：在窗口期内继续收集写请求，合并为一次刷盘
+                long deadline = System.nanoTime() + groupCommitWindowNanos;
+                while (batch.size() < MAX_BATCH_SIZE) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        queue.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+                        break;
+                    }
+                    PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+
+            if (batch.remove(SHUTDOWN)) {
+                running = false;
+                queue.drainTo(batch);
+                batch.remove(SHUTDOWN);
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        // 切段请求之前的写入落在旧段，之后的写入落在新段
+        int start = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite write = batch.get(i);
+            if (write.isRoll()) {
+                write(batch.subList(start, i));
+                start = i + 1;
+                // 失败后不再切段，快照不能覆盖内存中未落盘的修改
+                if (failure != null) {
+                    write.rolled().completeExceptionally(failure);
+                    continue;
+                }
+                try {
+                    write.rolled().complete(roll());
+                } catch (IOException e) {
+                    log.error("Failed to roll write-ahead log segment", e);
+                    write.rolled().completeExceptionally(e);
+                }
+            }
+        }
+        write(batch.subList(start, batch.size()));
+
+        try {
+            if (channel.position() >= segmentSizeBytes) {
+                roll();
+            }
+        } catch (IOException e) {
+            log.error("Failed to roll write-ahead log segment", e);
+        }
+    }
+
+    private long roll() throws IOException {
+        long previous = activeSequence;
+        FileChannel next = openSegment(previous + 1);
+        channel.close();
+        channel = next;
+        activeSequence = previous + 1;
+        return previous;
+    }
+
+    private void write(List<PendingWrite> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        // 失败之后排队的记录不再写出，否则磁盘上会出现缺少前序修改的记录
+        IOException failed = failure;
+        if (failed != null) {
+            batch.forEach(write -> write.future().completeExceptionally(failed));
+            return;
+        }
+        try {
+            ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = batch.get(i).record();
+            }
+            while (buffers[buffers.length - 1].hasRemaining()) {
+                channel.write(buffers);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            for (PendingWrite write : batch) {
+                write.future().complete(null);
+            }
+        } catch (IOException e) {
+            log.error("Failed to append {} records to write-ahead log, rejecting further writes", batch.size(), e);
+            failure = e;
+            for (PendingWrite write : batch) {
+                write.future().completeExceptionally(e);
+            }
+        }
+    }
+
+    private long replaySegment(Path segment, ReplayHandler handler, boolean last) throws IOException {
+        long records = 0;
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                try {
+                    int checksum = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_SIZE) {
+                        throw new IOException("Invalid record length " + length);
+                    }
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    CRC32C crc = new CRC32C();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != checksum) {
+                        throw new IOException("Checksum mismatch");
+                    }
+                    apply(ByteBuffer.wrap(payload), handler);
+                } catch (IOException e) {
+                    if (!last) {
+                        throw new IOException("Corrupted write-ahead log segment " + segment + " at offset " + validLength, e);
+                    }
+                    // 最后一个日志段的残缺尾部来自崩溃时未完成的写入，截断后继续
+                    log.warn("Truncating torn tail of {} at offset {}: {}", segment, validLength, e.getMessage());
+                    try (FileChannel truncate = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                        truncate.truncate(validLength);
+                    }
+                    break;
+                }
+                validLength += RECORD_HEADER_SIZE + length;
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private static void apply(ByteBuffer payload, ReplayHandler handler) {
+        byte op = payload.get();
+        switch (op) {
+            case OP_PUT -> handler.onPut(TransactionCodec.decode(payload));
+            case OP_DELETE -> handler.onDelete(payload.getLong());
+            default -> throw new IllegalStateException("Unknown write-ahead log operation " + op);
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private FileChannel openSegment(long sequence) throws IOException {
+        return FileChannel.open(segmentPath(sequence),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+}
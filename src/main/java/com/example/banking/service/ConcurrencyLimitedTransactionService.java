@@ -0,0 +1,178 @@
+package com.example.banking.service;
+
+import com.example.banking.dto.BatchTransactionResponse;
+import com.example.banking.dto.CreateTransactionRequest;
+import com.example.banking.dto.TransactionDTO;
+import com.example.banking.dto.TransactionStatsDTO;
+import com.example.banking.dto.UpdateTransactionRequest;
+import com.example.banking.exception.BusinessException;
+import com.example.banking.model.StatsGranularity;
+import com.example.banking.model.TransactionQuery;
+import com.example.banking.model.TransactionType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 在 {@link TransactionServiceImpl} 前限制同时执行的业务调用数。
+ * <p>
+ * 平台线程模式下并发度受Tomcat线程池约束；启用虚拟线程（{@code spring.threads.virtual.enabled=true}）后
+ * 每个请求一个虚拟线程，数量不再有上限，由这里的许可数保护存储层。等待许可超过
+ * {@code transaction.concurrency.acquire-timeout-millis} 的调用返回 503，而不是无限排队。
+ * 导出返回的惰性流在关闭前一直占用许可，因为遍历期间仍在读取存储。
+ */
+@Service
+public class ConcurrencyLimitedTransactionService implements TransactionService {
+
+    private final TransactionService delegate;
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long acquireTimeoutMillis;
+
+    @Autowired
+    public ConcurrencyLimitedTransactionService(
+            @Qualifier("transactionServiceImpl") TransactionService delegate,
+            @Value("${transaction.concurrency.max-concurrent:200}") int maxConcurrent,
+            @Value("${transaction.concurrency.acquire-timeout-millis:1000}") long acquireTimeoutMillis) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("transaction.concurrency.max-concurrent must be positive: " + maxConcurrent);
+        }
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConcurrent);
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    @Override
+    public TransactionDTO createTransaction(CreateTransactionRequest request) {
+        return limited(() -> delegate.createTransaction(request));
+    }
+
+    @Override
+    public BatchTransactionResponse createTransactions(List<CreateTransactionRequest> requests) {
+        return limited(() -> delegate.createTransactions(requests));
+    }
+
+    @Override
+    public List<TransactionDTO> getAllTransactions() {
+        return limited(delegate::getAllTransactions);
+    }
+
+    @Override
+    public TransactionDTO getTransactionById(Long id) {
+        return limited(() -> delegate.getTransactionById(id));
+    }
+
+    @Override
+    public TransactionDTO updateTransaction(Long id, UpdateTransactionRequest request) {
+        return limited(() -> delegate.updateTransaction(id, request));
+    }
+
+    @Override
+    public void deleteTransaction(Long id) {
+        limited(() -> {
+            delegate.deleteTransaction(id);
+            return null;
+        });
+    }
+
+    @Override
+    public List<TransactionDTO> getTransactionsByType(TransactionType type) {
+        return limited(() -> delegate.getTransactionsByType(type));
+    }
+
+    @Override
+    public List<TransactionDTO> getTransactionsByAmountRange(BigDecimal minAmount, BigDecimal maxAmount) {
+        return limited(() -> delegate.getTransactionsByAmountRange(minAmount, maxAmount));
+    }
+
+    @Override
+    public List<TransactionDTO> getTransactionsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        return limited(() -> delegate.getTransactionsByDateRange(startDate, endDate));
+    }
+
+    @Override
+    public List<TransactionDTO> getTransactionsWithPagination(int page, int size) {
+        return limited(() -> delegate.getTransactionsWithPagination(page, size));
+    }
+
+    @Override
+    public List<TransactionDTO> findTransactions(TransactionQuery query) {
+        return limited(() -> delegate.findTransactions(query));
+    }
+
+    @Override
+    public Stream<TransactionDTO> exportTransactions(TransactionQuery query) {
+        acquire();
+        try {
+            return delegate.exportTransactions(query).onClose(permits::release);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<TransactionStatsDTO> getTransactionStats(StatsGranularity granularity, TransactionType type,
+                                                         LocalDateTime startDate, LocalDateTime endDate) {
+        return limited(() -> delegate.getTransactionStats(granularity, type, startDate, endDate));
+    }
+
+    @Override
+    public long getTransactionCount() {
+        return limited(delegate::getTransactionCount);
+    }
+
+    // 只检查参数，不占用许可：非法请求在过载时同样直接返回 400
+    @Override
+    public void validateQuery(TransactionQuery query) {
+        delegate.validateQuery(query);
+    }
+
+    // 只读一个计数器，不占用许可：过载时条件请求仍能以 304 快速返回
+    @Override
+    public long getModificationVersion() {
+        return delegate.getModificationVersion();
+    }
+
+    /**
+     * 当前正在执行的调用数
+     */
+    public int getInFlight() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    private <T> T limited(Supplier<T> call) {
+        acquire();
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void acquire() {
+        try {
+            if (permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new BusinessException("服务繁忙，请稍后重试", HttpStatus.SERVICE_UNAVAILABLE.value(), "Service Overloaded");
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.banking.service;
+
+import com.example.banking.dto.BatchItemResult;
+import com.example.banking.dto.BatchTransactionResponse;
+import com.example.banking.dto.CreateTransactionRequest;
+import com.example.banking.dto.TransactionDTO;
+import com.example.banking.dto.TransactionStatsDTO;
+import com.example.banking.dto.UpdateTransactionRequest;
+import com.example.banking.exception.DuplicateTransactionException;
+import com.example.banking.model.StatsGranularity;
+import com.example.banking.model.TransactionQuery;
+import com.example.banking.model.TransactionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 记录每个业务方法的耗时和被拒绝的重复交易数，位于 {@link ConcurrencyLimitedTransactionService} 之前，
+ * 耗时包含等待并发许可的时间，与调用方感受到的一致。
+ * <p>
+ * 计时器 {@value #TIMER_NAME} 只带 method 一个标签；重复交易计数器按来源区分单条创建和批量导入。
+ * 导出的耗时从调用到流关闭为止。
+ */
+@Service
+@Primary
+public class MeteredTransactionService implements TransactionService {
+
+    static final String TIMER_NAME = "transaction.service";
+    static final String DUPLICATES_NAME = "transaction.duplicates.rejected";
+
+    private final TransactionService delegate;
+    private final MeterRegistry registry;
+
+    private final Timer createTransaction;
+    private final Timer createTransactions;
+    private final Timer getAllTransactions;
+    private final Timer getTransactionById;
+    private final Timer updateTransaction;
+    private final Timer deleteTransaction;
+    private final Timer getTransactionsByType;
+    private final Timer getTransactionsByAmountRange;
+    private final Timer getTransactionsByDateRange;
+    private final Timer getTransactionsWithPagination;
+    private final Timer findTransactions;
+    private final Timer exportTransactions;
+    private final Timer getTransactionStats;
+    private final Timer getTransactionCount;
+
+    private final Counter singleDuplicates;
+    private final Counter batchDuplicates;
+
+    @Autowired
+    public MeteredTransactionService(
+            @Qualifier("concurrencyLimitedTransactionService") TransactionService delegate,
+            MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.createTransaction = timer("createTransaction");
+        this.createTransactions = timer("createTransactions");
+        this.getAllTransactions = timer("getAllTransactions");
+        this.getTransactionById = timer("getTransactionById");
+        this.updateTransaction = timer("updateTransaction");
+        this.deleteTransaction = timer("deleteTransaction");
+        this.getTransactionsByType = timer("getTransactionsByType");
+        this.getTransactionsByAmountRange = timer("getTransactionsByAmountRange");
+        this.getTransactionsByDateRange = timer("getTransactionsByDateRange");
+        this.getTransactionsWithPagination = timer("getTransactionsWithPagination");
+        this.findTransactions = timer("findTransactions");
+        this.exportTransactions = timer("exportTransactions");
+        this.getTransactionStats = timer("getTransactionStats");
+        this.getTransactionCount = timer("getTransactionCount");
+        this.singleDuplicates = duplicates("single");
+        this.batchDuplicates = duplicates("batch");
+    }
+
+    @Override
+    public TransactionDTO createTransaction(CreateTransactionRequest request) {
+        try {
+            return createTransaction.record(() -> delegate.createTransaction(request));
+        } catch (DuplicateTransactionException e) {
+            singleDuplicates.increment();
+            throw e;
+        }
+    }
+
+    @Override
+    public BatchTransactionResponse createTransactions(List<CreateTransactionRequest> requests) {
+        BatchTransactionResponse response = createTransactions.record(() -> delegate.createTransactions(requests));
+        long duplicates = response.getResults().stream()
+                .filter(result -> result.getStatus() == BatchItemResult.Status.DUPLICATE)
+                .count();
+        if (duplicates > 0) {
+            batchDuplicates.increment(duplicates);
+        }
+        return response;
+    }
+
+    @Override
+    public List<TransactionDTO> getAllTransactions() {
+        return getAllTransactions.record(delegate::getAllTransactions);
+    }
+
+    @Override
+    public TransactionDTO getTransactionById(Long id) {
+        return getTransactionById.record(() -> delegate.getTransactionById(id));
+    }
+
+    @Override
+    public TransactionDTO updateTransaction(Long id, UpdateTransactionRequest request) {
+        return updateTransaction.record(() -> delegate.updateTransaction(id, request));
+    }
+
+    @Override
+    public void deleteTransaction(Long id) {
+        deleteTransaction.record(() -> delegate.deleteTransaction(id));
+    }
+
+    @Override
+    public List<TransactionDTO> getTransactionsByType(TransactionType type) {
+        return getTransactionsByType.record(() -> delegate.getTransactionsByType(type));
+    }
+
+    @Override
+    public List<TransactionDTO> getTransactionsByAmountRange(BigDecimal minAmount, BigDecimal maxAmount) {
+        return getTransactionsByAmountRange.record(() -> delegate.getTransactionsByAmountRange(minAmount, maxAmount));
+    }
+
+    @Override
+    public List<TransactionDTO> getTransactionsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        return getTransactionsByDateRange.record(() -> delegate.getTransactionsByDateRange(startDate, endDate));
+    }
+
+    @Override
+    public List<TransactionDTO> getTransactionsWithPagination(int page, int size) {
+        return getTransactionsWithPagination.record(() -> delegate.getTransactionsWithPagination(page, size));
+    }
+
+    @Override
+    public List<TransactionDTO> findTransactions(TransactionQuery query) {
+        return findTransactions.record(() -> delegate.findTransactions(query));
+    }
+
+    @Override
+    public Stream<TransactionDTO> exportTransactions(TransactionQuery query) {
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            return delegate.exportTransactions(query).onClose(() -> sample.stop(exportTransactions));
+        } catch (RuntimeException e) {
+            sample.stop(exportTransactions);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<TransactionStatsDTO> getTransactionStats(StatsGranularity granularity, TransactionType type,
+                                                         LocalDateTime startDate, LocalDateTime endDate) {
+        return getTransactionStats.record(() -> delegate.getTransactionStats(granularity, type, startDate, endDate));
+    }
+
+    @Override
+    public long getTransactionCount() {
+        return getTransactionCount.record(delegate::getTransactionCount);
+    }
+
+    // 只检查参数，不计时
+    @Override
+    public void validateQuery(TransactionQuery query) {
+        delegate.validateQuery(query);
+    }
+
+    // 只读一个计数器，计时的开销比调用本身还大
+    @Override
+    public long getModificationVersion() {
+        return delegate.getModificationVersion();
+    }
+
+    private Timer timer(String method) {
+        return Timer.builder(TIMER_NAME)
+                .description("业务方法耗时，包含等待并发许可的时间")
+                .tag("method", method)
+                .register(registry);
+    }
+
+    private Counter duplicates(String source) {
+        return Counter.builder(DUPLICATES_NAME)
+                .description("因重复被拒绝的交易数")
+                .tag("source", source)
+                .register(registry);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.banking.service;
+
+import com.example.banking.dto.TransactionChangeEvent;
+
+/**
+ * 接收 {@link TransactionServiceImpl} 中每次成功的创建、修改和删除。在写入请求的线程上同步调用，实现不能阻塞
+ */
+public interface TransactionChangeListener {
+
+    TransactionChangeListener NONE = event -> {
+    };
+
+    void onChange(TransactionChangeEvent event);
+}
@@ -0,0 +1,220 @@
+package com.example.banking.service;
+
+import com.example.banking.dto.TransactionDTO;
+import com.example.banking.model.Transaction;
+import com.example.banking.repository.TransactionRepository;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 全部交易列表的增量维护视图，取代整表缓存。
+ * 首次读取时从Repository加载一次，之后每次写入只按ID重新读取并更新该条记录，不再整体失效重建；
+ * 按ID重读而不是直接套用调用方的新值，并发写同一交易时视图总是收敛到Repository中的最新状态。
+ * <p>
+ * 交易按ID升序存放在不可变的分块数组中（每块最多 {@link #CHUNK_SIZE} 条），写入时只复制受影响的一块；
+ * 读取返回的快照只引用这些分块，两次写入之间的读取共用同一个快照，下一次读取重建快照只需复制分块引用（n/CHUNK_SIZE）。
+ * 视图保存的是不可变的 {@link Transaction}，DTO 在读取快照元素时才创建：内存存储下与Repository共用同一批对象，
+ * 视图自身只占分块数组的引用（每条约8字节）；列式存储每次读取都会新建对象，视图相当于在堆上多存一份全部交易。
+ * <p>
+ * 视图只在有人读取全部交易后才开始维护：首次读取之前写入方只读一次 volatile 标志即返回，不加锁也不读取Repository。
+ * 加载之后的维护持有锁读取Repository（列式存储需要等待其读写锁），使用 ReentrantLock 而不是 synchronized，
+ * 虚拟线程在锁内等待时可以让出载体线程；批量写入逐条获取锁，不在N次读取期间一直持有。
+ */
+class TransactionListView {
+
+    static final int CHUNK_SIZE = 512;
+
+    private final TransactionRepository transactionRepository;
+    // 键是块内最小的ID，块内按ID升序，发布后不再修改
+    private final NavigableMap<Long, Transaction[]> chunks = new TreeMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    // 只在锁内由 false 变为 true，锁外读取用于跳过尚未加载的视图
+    private volatile boolean loaded;
+    private volatile List<TransactionDTO> snapshot;
+
+    TransactionListView(TransactionRepository transactionRepository) {
+        this.transactionRepository = transactionRepository;
+    }
+
+    List<TransactionDTO> getAll() {
+        List<TransactionDTO> current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        // 写入后只有一个线程重建快照，其余读取方等待并复用结果
+        lock.lock();
+        try {
+            if (snapshot == null) {
+                if (!loaded) {
+                    // 先置位再加载：此后提交的写入会看到标志并等待锁，此前提交的写入已在加载结果中
+                    loaded = true;
+                    try {
+                        load();
+                    } catch (RuntimeException e) {
+                        chunks.clear();
+                        loaded = false;
+                        throw e;
+                    }
+                }
+                snapshot = new Snapshot(chunks.values().toArray(new Transaction[0][]));
+            }
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 交易创建、修改或删除后调用；视图尚未加载时无需处理，首次读取会看到最新数据
+     */
+    void refresh(Long id) {
+        if (!loaded) {
+            return;
+        }
+        lock.lock();
+        try {
+            Optional<Transaction> current = transactionRepository.findById(id);
+            if (current.isPresent()) {
+                put(current.get());
+            } else {
+                remove(id);
+            }
+            snapshot = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void refresh(Collection<Long> ids) {
+        ids.forEach(this::refresh);
+    }
+
+    private void load() {
+        List<Transaction> all = new ArrayList<>(transactionRepository.findAll());
+        all.sort(Comparator.comparing(Transaction::getId));
+        for (int from = 0; from < all.size(); from += CHUNK_SIZE) {
+            Transaction[] chunk = all.subList(from, Math.min(all.size(), from + CHUNK_SIZE)).toArray(new Transaction[0]);
+            chunks.put(chunk[0].getId(), chunk);
+        }
+    }
+
+    private void put(Transaction transaction) {
+        long id = transaction.getId();
+        Map.Entry<Long, Transaction[]> entry = chunks.floorEntry(id);
+        if (entry == null) {
+            entry = chunks.firstEntry();
+        }
+        if (entry == null) {
+            chunks.put(id, new Transaction[]{transaction});
+            return;
+        }
+        Transaction[] chunk = entry.getValue();
+        int index = indexOf(chunk, id);
+        if (index >= 0) {
+            Transaction[] copy = chunk.clone();
+            copy[index] = transaction;
+            chunks.put(entry.getKey(), copy);
+            return;
+        }
+        int insertion = -index - 1;
+        Transaction[] copy = new Transaction[chunk.length + 1];
+        System.arraycopy(chunk, 0, copy, 0, insertion);
+        copy[insertion] = transaction;
+        System.arraycopy(chunk, insertion, copy, insertion + 1, chunk.length - insertion);
+        chunks.remove(entry.getKey());
+        if (copy.length > CHUNK_SIZE) {
+            // 满块对半拆分
+            Transaction[] head = Arrays.copyOfRange(copy, 0, copy.length / 2);
+            Transaction[] tail = Arrays.copyOfRange(copy, copy.length / 2, copy.length);
+            chunks.put(head[0].getId(), head);
+            chunks.put(tail[0].getId(), tail);
+        } else {
+            chunks.put(copy[0].getId(), copy);
+        }
+    }
+
+    private void remove(long id) {
+        Map.Entry<Long, Transaction[]> entry = chunks.floorEntry(id);
+        if (entry == null) {
+            return;
+        }
+        Transaction[] chunk = entry.getValue();
+        int index = indexOf(chunk, id);
+        if (index < 0) {
+            return;
+        }
+        chunks.remove(entry.getKey());
+        if (chunk.length > 1) {
+            Transaction[] copy = new Transaction[chunk.length - 1];
+            System.arraycopy(chunk, 0, copy, 0, index);
+            System.arraycopy(chunk, index + 1, copy, index, chunk.length - index - 1);
+            chunks.put(copy[0].getId(), copy);
+        }
+    }
+
+    private static int indexOf(Transaction[] chunk, long id) {
+        int low = 0;
+        int high = chunk.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = chunk[mid].getId();
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * 由不可变分块组成的只读列表，按位置读取时二分查找所在分块并创建DTO
+     */
+    private static final class Snapshot extends AbstractList<TransactionDTO> implements RandomAccess {
+        private final Transaction[][] chunks;
+        // offsets[i] 是第i块第一条记录在整个列表中的位置
+        private final int[] offsets;
+        private final int size;
+
+        Snapshot(Transaction[][] chunks) {
+            this.chunks = chunks;
+            this.offsets = new int[chunks.length];
+            int total = 0;
+            for (int i = 0; i < chunks.length; i++) {
+                offsets[i] = total;
+                total += chunks[i].length;
+            }
+            this.size = total;
+        }
+
+        @Override
+        public TransactionDTO get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            int chunk = Arrays.binarySearch(offsets, index);
+            if (chunk < 0) {
+                chunk = -chunk - 2;
+            }
+            return TransactionDTO.from(chunks[chunk][index - offsets[chunk]]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
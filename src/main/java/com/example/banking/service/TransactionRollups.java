@@ -0,0 +1,191 @@
+package com.example.banking.service;
+
+import com.example.banking.dto.TransactionStatsDTO;
+import com.example.banking.model.EpochMicros;
+import com.example.banking.model.Money;
+import com.example.banking.model.StatsGranularity;
+import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionQuery;
+import com.example.banking.model.TransactionType;
+import com.example.banking.repository.TransactionRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按交易类型和时间分桶（小时、天、月）增量维护的统计汇总。
+ * <p>
+ * 创建时通过 {@link TransactionRepository#aggregate} 全量构建一次，此时服务尚未对外提供写入，构建与写入不会交错。
+ * 之后每次创建、修改、删除在Repository提交之后按新旧值调整受影响的分桶：写入失败时汇总不变，也不在Repository的行锁内执行。
+ * <p>
+ * 分桶表是并发有序表，笔数和合计是 {@link LongAdder}，写入方之间没有全局锁。增减可交换，同一交易的并发修改和删除
+ * 无论以什么顺序调整汇总，最终都等于按提交顺序调整的结果；调整过程中的查询可能看到某次修改只完成了一半。
+ * <p>
+ * 小时分桶另外保存各金额的笔数（有序表），最小值、最大值取其首尾，删除极值不需要重新扫描交易；
+ * 天和月分桶的极值由所含小时分桶合并得到。查询代价与范围内的分桶数成正比，堆占用与（小时分桶 × 不同金额数）成正比。
+ */
+class TransactionRollups {
+
+    /**
+     * 参与汇总的交易字段，修改前先取出旧值用于扣减
+     */
+    record Entry(TransactionType type, long timestamp, long amount) {
+
+        static Entry of(Transaction transaction) {
+            if (transaction.getType() == null || transaction.getTimestampMicros() == EpochMicros.NONE
+                    || !transaction.hasAmount()) {
+                return null;
+            }
+            return new Entry(transaction.getType(), transaction.getTimestampMicros(), transaction.getAmountMinorUnits());
+        }
+    }
+
+    private record BucketKey(long start, TransactionType type) implements Comparable<BucketKey> {
+        @Override
+        public int compareTo(BucketKey other) {
+            int compared = Long.compare(start, other.start);
+            return compared != 0 ? compared : type.compareTo(other.type);
+        }
+    }
+
+    private static final class Bucket {
+        final LongAdder count = new LongAdder();
+        final LongAdder sum = new LongAdder();
+        // 金额 -> 笔数，只有小时分桶维护；调整乱序到达时笔数可能暂时为负，归零的金额被移除
+        final ConcurrentSkipListMap<Long, Long> amounts;
+
+        Bucket(boolean trackAmounts) {
+            this.amounts = trackAmounts ? new ConcurrentSkipListMap<>() : null;
+        }
+
+        void adjust(long amount, int delta) {
+            count.add(delta);
+            sum.add(delta * amount);
+            if (amounts != null) {
+                amounts.merge(amount, (long) delta, (current, added) -> current + added != 0 ? current + added : null);
+            }
+        }
+    }
+
+    private static final StatsGranularity FINEST = StatsGranularity.HOUR;
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final Map<StatsGranularity, ConcurrentNavigableMap<BucketKey, Bucket>> buckets = new EnumMap<>(StatsGranularity.class);
+
+    TransactionRollups(TransactionRepository transactionRepository) {
+        for (StatsGranularity granularity : StatsGranularity.values()) {
+            buckets.put(granularity, new ConcurrentSkipListMap<>());
+        }
+        // 分桶表本身是并发的，Repository分段并行扫描时各段直接累加到同一份汇总
+        transactionRepository.aggregate(TransactionQuery.builder().build(), () -> this,
+                (rollups, transaction) -> rollups.adjust(Entry.of(transaction), 1),
+                (left, right) -> left);
+    }
+
+    void add(Transaction transaction) {
+        adjust(Entry.of(transaction), 1);
+    }
+
+    void remove(Entry before) {
+        adjust(before, -1);
+    }
+
+    /**
+     * 按一次已提交的修改调整汇总：扣减修改前的值，计入修改后的值
+     */
+    void replace(Entry before, Entry after) {
+        if (before != null && before.equals(after)) {
+            return;
+        }
+        adjust(before, -1);
+        adjust(after, 1);
+    }
+
+    /**
+     * 返回 [startDate, endDate] 内各分桶的统计，按分桶时间和交易类型排序；type 为 null 时返回全部类型
+     */
+    List<TransactionStatsDTO> query(StatsGranularity granularity, TransactionType type,
+                                    LocalDateTime startDate, LocalDateTime endDate) {
+        long from = startDate != null ? EpochMicros.of(granularity.truncate(startDate)) : Long.MIN_VALUE;
+        long to = endDate != null ? EpochMicros.of(endDate) : Long.MAX_VALUE;
+        List<TransactionStatsDTO> result = new ArrayList<>();
+        if (from > to) {
+            return result;
+        }
+        for (Map.Entry<BucketKey, Bucket> entry : buckets.get(granularity)
+                .subMap(new BucketKey(from, TYPES[0]), true, new BucketKey(to, TYPES[TYPES.length - 1]), true).entrySet()) {
+            BucketKey key = entry.getKey();
+            if (type != null && key.type() != type) {
+                continue;
+            }
+            long count = entry.getValue().count.sum();
+            long sum = entry.getValue().sum.sum();
+            long[] extremes = extremes(granularity, key);
+            // 空分桶不删除，避免与并发写入竞争；调整进行到一半的分桶同样跳过
+            if (count <= 0 || extremes == null) {
+                continue;
+            }
+            result.add(new TransactionStatsDTO(
+                    EpochMicros.toLocalDateTime(key.start()),
+                    key.type(),
+                    count,
+                    Money.toBigDecimal(sum),
+                    Money.toBigDecimal(extremes[0]),
+                    Money.toBigDecimal(extremes[1]),
+                    Money.toBigDecimal(sum).divide(BigDecimal.valueOf(count), Money.SCALE, RoundingMode.HALF_EVEN)
+            ));
+        }
+        return result;
+    }
+
+    private void adjust(Entry entry, int delta) {
+        if (entry == null) {
+            return;
+        }
+        buckets.forEach((granularity, rollup) -> rollup
+                .computeIfAbsent(keyOf(granularity, entry), key -> new Bucket(granularity == FINEST))
+                .adjust(entry.amount(), delta));
+    }
+
+    /**
+     * 分桶的最小值和最大值，由所含小时分桶的金额表合并；没有笔数为正的金额时返回 null
+     */
+    private long[] extremes(StatsGranularity granularity, BucketKey key) {
+        long nextStart = EpochMicros.of(granularity.next(EpochMicros.toLocalDateTime(key.start())));
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (Map.Entry<BucketKey, Bucket> hour : buckets.get(FINEST)
+                .subMap(new BucketKey(key.start(), TYPES[0]), true, new BucketKey(nextStart, TYPES[0]), false).entrySet()) {
+            if (hour.getKey().type() != key.type()) {
+                continue;
+            }
+            ConcurrentSkipListMap<Long, Long> amounts = hour.getValue().amounts;
+            for (Map.Entry<Long, Long> amount : amounts.entrySet()) {
+                if (amount.getValue() > 0) {
+                    min = Math.min(min, amount.getKey());
+                    break;
+                }
+            }
+            for (Map.Entry<Long, Long> amount : amounts.descendingMap().entrySet()) {
+                if (amount.getValue() > 0) {
+                    max = Math.max(max, amount.getKey());
+                    break;
+                }
+            }
+        }
+        return min <= max ? new long[]{min, max} : null;
+    }
+
+    private static BucketKey keyOf(StatsGranularity granularity, Entry entry) {
+        LocalDateTime start = granularity.truncate(EpochMicros.toLocalDateTime(entry.timestamp()));
+        return new BucketKey(EpochMicros.of(start), entry.type());
+    }
+}
@@ -1,18 +1,25 @@
 package com.example.banking.service;
 
+import com.example.banking.dto.BatchTransactionResponse;
 import com.example.banking.dto.CreateTransactionRequest;
 import com.example.banking.dto.TransactionDTO;
+import com.example.banking.dto.TransactionStatsDTO;
 import com.example.banking.dto.UpdateTransactionRequest;
+import com.example.banking.model.StatsGranularity;
+import com.example.banking.model.TransactionQuery;
 import com.example.banking.model.TransactionType;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface TransactionService {
 
     TransactionDTO createTransaction(CreateTransactionRequest request);
 
+    BatchTransactionResponse createTransactions(List<CreateTransactionRequest> requests);
+
     List<TransactionDTO> getAllTransactions();
 
     TransactionDTO getTransactionById(Long id);
@@ -29,5 +36,30 @@ public interface TransactionService {
 
     List<TransactionDTO> getTransactionsWithPagination(int page, int size);
 
+    List<TransactionDTO> findTransactions(TransactionQuery query);
+
+    /**
+     * 校验分页、游标和过滤条件，不合法时抛出 {@link com.example.banking.exception.BusinessException}；
+     * 不访问数据，供调用方在条件请求判断之前先拒绝非法查询
+     */
+    void validateQuery(TransactionQuery query);
+
+    /**
+     * 校验过滤条件后返回满足条件的全部交易的惰性流，忽略分页，内存占用与结果行数无关
+     */
+    Stream<TransactionDTO> exportTransactions(TransactionQuery query);
+
+    /**
+     * 按交易类型和时间分桶返回笔数、合计、最小、最大和平均金额，代价与分桶数成正比
+     */
+    List<TransactionStatsDTO> getTransactionStats(StatsGranularity granularity, TransactionType type,
+                                                  LocalDateTime startDate, LocalDateTime endDate);
+
     long getTransactionCount();
+
+    /**
+     * 全库修改版本号，任何交易被创建、修改或删除后递增。先读取版本号再查询，版本号未变时查询结果也不会变，
+     * 调用方可据此跳过重复查询
+     */
+    long getModificationVersion();
 } 
\ No newline at end of file
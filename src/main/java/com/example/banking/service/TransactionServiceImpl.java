@@ -1,12 +1,19 @@
 package com.example.banking.service;
 
+import com.example.banking.dto.BatchItemResult;
+import com.example.banking.dto.BatchTransactionResponse;
 import com.example.banking.dto.CreateTransactionRequest;
+import com.example.banking.dto.TransactionChangeEvent;
 import com.example.banking.dto.TransactionDTO;
+import com.example.banking.dto.TransactionStatsDTO;
 import com.example.banking.dto.UpdateTransactionRequest;
 import com.example.banking.exception.BusinessException;
 import com.example.banking.exception.DuplicateTransactionException;
 import com.example.banking.exception.TransactionNotFoundException;
+import com.example.banking.model.Money;
+import com.example.banking.model.StatsGranularity;
 import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionQuery;
 import com.example.banking.model.TransactionType;
 import com.example.banking.repository.TransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,60 +25,112 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class TransactionServiceImpl implements TransactionService {
 
     private final TransactionRepository transactionRepository;
+    private final TransactionListView allTransactionsView;
+    private final TransactionRollups rollups;
+    private final TransactionChangeListener changeListener;
+
+    // 批次内重复判定的键，与Repository的重复指纹一致
+    private record BatchKey(long amount, String description, TransactionType type) {
+    }
 
     @Value("${transaction.duplicate.timewindow:5}")
     private int duplicateTimeWindow;
 
-    @Autowired
     public TransactionServiceImpl(TransactionRepository transactionRepository) {
+        this(transactionRepository, TransactionChangeListener.NONE);
+    }
+
+    @Autowired
+    public TransactionServiceImpl(TransactionRepository transactionRepository,
+                                  TransactionChangeListener changeListener) {
         this.transactionRepository = transactionRepository;
+        this.allTransactionsView = new TransactionListView(transactionRepository);
+        this.rollups = new TransactionRollups(transactionRepository);
+        this.changeListener = changeListener;
     }
 
     @Override
     public TransactionDTO createTransaction(CreateTransactionRequest request) {
-        if (request.getAmount() == null || request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+        if (request.getAmount() == null) {
             throw new BusinessException("交易金额必须大于零", HttpStatus.BAD_REQUEST.value(), "Invalid Amount");
         }
-        
-        // 检查重复交易
-        List<Transaction> duplicates = transactionRepository.findPotentialDuplicates(
-                request.getAmount(),
-                request.getDescription(),
-                request.getType(),
-                duplicateTimeWindow
-        );
-        
-        // 如果找到潜在的重复交易，抛出异常
-        if (!duplicates.isEmpty()) {
-            throw new DuplicateTransactionException(
-                    request.getAmount().toString(),
-                    request.getDescription(),
-                    request.getType().toString()
-            );
-        }
+        validateAmount(request.getAmount());
         
         Transaction transaction = new Transaction(
                 request.getAmount(),
                 request.getDescription(),
                 request.getType()
         );
-        Transaction savedTransaction = transactionRepository.save(transaction);
-        return mapToDTO(savedTransaction);
+        
+        // 重复检查与保存在Repository中原子完成，并发的相同请求只有一个能成功
+        Transaction savedTransaction = transactionRepository.saveIfNotDuplicate(transaction, duplicateTimeWindow)
+                .orElseThrow(() -> new DuplicateTransactionException(
+                        request.getAmount().toString(),
+                        request.getDescription(),
+                        request.getType().toString()
+                ));
+        rollups.add(savedTransaction);
+        allTransactionsView.refresh(savedTransaction.getId());
+        TransactionDTO created = mapToDTO(savedTransaction);
+        changeListener.onChange(TransactionChangeEvent.created(created));
+        return created;
+    }
+
+    @Override
+    public BatchTransactionResponse createTransactions(List<CreateTransactionRequest> requests) {
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+        List<Transaction> accepted = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        Set<BatchKey> seen = new HashSet<>();
+
+        // 一次遍历完成校验和批内去重，只有通过的交易进入Repository
+        for (int i = 0; i < requests.size(); i++) {
+            CreateTransactionRequest request = requests.get(i);
+            String error = validateBatchItem(request);
+            if (error != null) {
+                results[i] = BatchItemResult.rejected(i, BatchItemResult.Status.INVALID, error);
+                continue;
+            }
+            BatchKey key = new BatchKey(Money.toMinorUnits(request.getAmount()), request.getDescription(), request.getType());
+            if (!seen.add(key)) {
+                results[i] = BatchItemResult.rejected(i, BatchItemResult.Status.DUPLICATE, "批次内存在重复交易");
+                continue;
+            }
+            accepted.add(new Transaction(request.getAmount(), request.getDescription(), request.getType()));
+            acceptedIndexes.add(i);
+        }
+
+        List<Optional<Transaction>> saved = transactionRepository.saveAll(accepted, duplicateTimeWindow);
+        saved.forEach(result -> result.ifPresent(rollups::add));
+        allTransactionsView.refresh(saved.stream().flatMap(Optional::stream).map(Transaction::getId).toList());
+        saved.forEach(result -> result.ifPresent(
+                transaction -> changeListener.onChange(TransactionChangeEvent.created(mapToDTO(transaction)))));
+        for (int j = 0; j < saved.size(); j++) {
+            int index = acceptedIndexes.get(j);
+            results[index] = saved.get(j)
+                    .map(transaction -> BatchItemResult.created(index, transaction.getId()))
+                    .orElseGet(() -> BatchItemResult.rejected(index, BatchItemResult.Status.DUPLICATE,
+                            "时间窗口内存在重复交易"));
+        }
+        return new BatchTransactionResponse(Arrays.asList(results));
     }
 
     @Override
-    @Cacheable(value = "allTransactions")
     public List<TransactionDTO> getAllTransactions() {
-        return transactionRepository.findAll().stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return allTransactionsView.getAll();
     }
 
     @Override
@@ -82,36 +141,48 @@ public class TransactionServiceImpl implements TransactionService {
                 .orElseThrow(() -> new TransactionNotFoundException(id));
     }
 
+    // 只失效被修改的那一条；不做写穿透，避免与并发删除交错时把旧值写回缓存
     @Override
-    @CacheEvict(value = {"transactions", "allTransactions"}, allEntries = true)
+    @CacheEvict(value = "transactions", key = "#id")
     public TransactionDTO updateTransaction(Long id, UpdateTransactionRequest request) {
-        if (request.getAmount() != null && request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
-            throw new BusinessException("交易金额必须大于零", HttpStatus.BAD_REQUEST.value(), "Invalid Amount");
-        }
-        
-        Transaction transaction = transactionRepository.findById(id)
-                .orElseThrow(() -> new TransactionNotFoundException(id));
-        
         if (request.getAmount() != null) {
-            transaction.setAmount(request.getAmount());
-        }
-        if (request.getDescription() != null) {
-            transaction.setDescription(request.getDescription());
-        }
-        if (request.getType() != null) {
-            transaction.setType(request.getType());
+            validateAmount(request.getAmount());
         }
         
-        Transaction updatedTransaction = transactionRepository.save(transaction);
-        return mapToDTO(updatedTransaction);
+        // 读取、修改、写回在Repository的行锁内原子完成，新版本替换旧版本，旧版本本身不变；
+        // 被替换的版本记录下来，提交成功后才在行锁外调整汇总，写入失败（如预写日志故障）时汇总不变
+        Transaction[] previous = new Transaction[1];
+        Transaction updatedTransaction = transactionRepository.update(id, current -> {
+            previous[0] = current;
+            Transaction updated = current;
+            if (request.getAmount() != null) {
+                updated = updated.withAmount(request.getAmount());
+            }
+            if (request.getDescription() != null) {
+                updated = updated.withDescription(request.getDescription());
+            }
+            if (request.getType() != null) {
+                updated = updated.withType(request.getType());
+            }
+            return updated;
+        }).orElseThrow(() -> new TransactionNotFoundException(id));
+        rollups.replace(TransactionRollups.Entry.of(previous[0]), TransactionRollups.Entry.of(updatedTransaction));
+        allTransactionsView.refresh(id);
+        TransactionDTO updated = mapToDTO(updatedTransaction);
+        changeListener.onChange(TransactionChangeEvent.updated(updated));
+        return updated;
     }
 
     @Override
-    @CacheEvict(value = {"transactions", "allTransactions"}, allEntries = true)
+    @CacheEvict(value = "transactions", key = "#id")
     public void deleteTransaction(Long id) {
-        if (!transactionRepository.deleteById(id)) {
-            throw new TransactionNotFoundException(id);
-        }
+        // 扣减的是在行锁内被删除的那个版本；并发修改若先提交，删除的就是修改后的值，两者的调整可交换，到达顺序不影响结果
+        Transaction removed = transactionRepository.remove(id)
+                .orElseThrow(() -> new TransactionNotFoundException(id));
+        rollups.remove(TransactionRollups.Entry.of(removed));
+        allTransactionsView.refresh(id);
+        // 事件在行锁外发布，可能晚于并发修改的事件或先于它到达；删除事件的版本号大于被删除的版本，客户端按版本号收敛到已删除
+        changeListener.onChange(TransactionChangeEvent.deleted(id, removed.getVersion()));
     }
 
     @Override
@@ -163,18 +234,111 @@ public class TransactionServiceImpl implements TransactionService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<TransactionDTO> findTransactions(TransactionQuery query) {
+        validateQuery(query);
+        return transactionRepository.findByQuery(query).stream()
+                .map(this::mapToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void validateQuery(TransactionQuery query) {
+        if (query.getPage() < 0) {
+            throw new BusinessException("页码不能为负数", HttpStatus.BAD_REQUEST.value(), "Invalid Page");
+        }
+        
+        if (query.getSize() <= 0) {
+            throw new BusinessException("每页大小必须大于零", HttpStatus.BAD_REQUEST.value(), "Invalid Size");
+        }
+        
+        validateFilters(query);
+        
+        if (query.getCursor() != null && !query.getSort().isByTimestamp()) {
+            throw new BusinessException("游标分页仅支持按时间排序", HttpStatus.BAD_REQUEST.value(), "Invalid Cursor");
+        }
+    }
+
+    @Override
+    public Stream<TransactionDTO> exportTransactions(TransactionQuery query) {
+        validateFilters(query);
+        return transactionRepository.stream(query).map(this::mapToDTO);
+    }
+
+    @Override
+    public List<TransactionStatsDTO> getTransactionStats(StatsGranularity granularity, TransactionType type,
+                                                         LocalDateTime startDate, LocalDateTime endDate) {
+        if (granularity == null) {
+            throw new BusinessException("统计粒度不能为空", HttpStatus.BAD_REQUEST.value(), "Invalid Granularity");
+        }
+        if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+            throw new BusinessException("开始日期不能晚于结束日期", HttpStatus.BAD_REQUEST.value(), "Invalid Date Range");
+        }
+        return rollups.query(granularity, type, startDate, endDate);
+    }
+
     @Override
     public long getTransactionCount() {
         return transactionRepository.count();
     }
 
+    @Override
+    public long getModificationVersion() {
+        return transactionRepository.modificationVersion();
+    }
+
+    /**
+     * 金额在内部以两位小数的最小货币单位保存，不做舍入：小数最多两位，须大于零且不超出可表示范围
+     */
+    private void validateAmount(BigDecimal amount) {
+        if (!Money.hasValidScale(amount)) {
+            throw new BusinessException("交易金额最多两位小数", HttpStatus.BAD_REQUEST.value(), "Invalid Amount");
+        }
+        long minorUnits;
+        try {
+            minorUnits = Money.toMinorUnits(amount);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("交易金额超出范围", HttpStatus.BAD_REQUEST.value(), "Invalid Amount");
+        }
+        if (minorUnits <= 0) {
+            throw new BusinessException("交易金额必须大于零", HttpStatus.BAD_REQUEST.value(), "Invalid Amount");
+        }
+    }
+
+    private void validateFilters(TransactionQuery query) {
+        if (query.getMinAmount() != null && query.getMaxAmount() != null
+                && query.getMinAmount().compareTo(query.getMaxAmount()) > 0) {
+            throw new BusinessException("最小金额不能大于最大金额", HttpStatus.BAD_REQUEST.value(), "Invalid Amount Range");
+        }
+
+        if (query.getStartDate() != null && query.getEndDate() != null
+                && query.getStartDate().isAfter(query.getEndDate())) {
+            throw new BusinessException("开始日期不能晚于结束日期", HttpStatus.BAD_REQUEST.value(), "Invalid Date Range");
+        }
+    }
+
+    /**
+     * 校验批量导入中的单条请求，返回错误信息，通过时返回null
+     */
+    private String validateBatchItem(CreateTransactionRequest request) {
+        if (request == null) {
+            return "交易数据不能为空";
+        }
+        if (request.getType() == null) {
+            return "交易类型不能为空";
+        }
+        if (request.getAmount() == null) {
+            return "交易金额必须大于零";
+        }
+        try {
+            validateAmount(request.getAmount());
+        } catch (BusinessException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
     private TransactionDTO mapToDTO(Transaction transaction) {
-        return new TransactionDTO(
-                transaction.getId(),
-                transaction.getAmount(),
-                transaction.getDescription(),
-                transaction.getType(),
-                transaction.getTimestamp()
-        );
+        return TransactionDTO.from(transaction);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,380 @@
+package com.example.banking.stream;
+
+import com.example.banking.dto.TransactionChangeEvent;
+import com.example.banking.exception.BusinessException;
+import com.example.banking.service.TransactionChangeListener;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 交易变更的推送源。每次变更只写入一次固定容量的环形缓冲区，订阅者各自持有读取位置，按自己的速度从缓冲区读取，
+ * 发布方的开销与订阅者数量无关。
+ * <p>
+ * 写入后由一个分发线程唤醒有新事件的订阅者，发送任务在固定大小的线程池上执行：同一订阅者同时最多一个任务，
+ * 每轮最多发送 {@value #MAX_EVENTS_PER_SEND} 条并只刷新一次，还有剩余时重新排队，积压多的订阅者不会独占线程。
+ * 不使用虚拟线程：SseEmitter 在 synchronized 中阻塞写出，慢连接会钉住载体线程。
+ * <p>
+ * 落后超过缓冲区容量的订阅者被断开；客户端（如浏览器的 EventSource）带 Last-Event-ID 重连后，
+ * 该事件仍在缓冲区中时从下一条继续，否则先收到一条 reset 事件，应当重新加载列表。
+ * 事件 ID 带进程启动标识，重启前的 ID 一律按 reset 处理。事件内容在第一个订阅者读取时序列化一次，所有订阅者共用。
+ */
+@Component
+public class TransactionChangeFeed implements TransactionChangeListener, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionChangeFeed.class);
+
+    static final String RESET_EVENT = "reset";
+    static final int MAX_EVENTS_PER_SEND = 256;
+    private static final int MAX_BUFFER_SIZE = 1 << 24;
+
+    /**
+     * 一条 SSE 事件，name 为空时是默认的 message 事件
+     */
+    record Event(String id, String name, String data) {
+    }
+
+    /**
+     * 订阅者的输出端，生产环境为 {@link SseEmitter}。send 写出一批事件后刷新一次
+     */
+    interface EventSink {
+        void send(List<Event> events) throws IOException;
+
+        void heartbeat() throws IOException;
+
+        void complete();
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Entry[] ring;
+    private final int mask;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final ReentrantLock publishLock = new ReentrantLock();
+    // 已发布的最大序号，从1开始；先写缓冲区槽位再更新，读取方看到序号时槽位已经可见
+    private volatile long published;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService deliveries;
+    private final Thread dispatcher;
+    private final Counter dropped;
+    private volatile boolean closed;
+
+    @Autowired
+    public TransactionChangeFeed(ObjectMapper objectMapper, ObjectProvider<MeterRegistry> meterRegistry,
+                                 @Value("${transaction.stream.buffer-size:8192}") int bufferSize,
+                                 @Value("${transaction.stream.max-subscribers:10000}") int maxSubscribers,
+                                 @Value("${transaction.stream.timeout:PT30M}") Duration timeout,
+                                 @Value("${transaction.stream.delivery-threads:4}") int deliveryThreads) {
+        this(objectMapper, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), bufferSize, maxSubscribers,
+                timeout, deliveryThreads);
+    }
+
+    TransactionChangeFeed(ObjectMapper objectMapper, MeterRegistry meterRegistry, int bufferSize, int maxSubscribers,
+                          Duration timeout, int deliveryThreads) {
+        if (bufferSize < 1 || bufferSize > MAX_BUFFER_SIZE || maxSubscribers < 1 || deliveryThreads < 1) {
+            throw new IllegalArgumentException("Invalid change feed configuration");
+        }
+        this.objectMapper = objectMapper;
+        // 容量取不小于 bufferSize 的2的幂，序号按位与即得槽位
+        int capacity = 1;
+        while (capacity < bufferSize) {
+            capacity <<= 1;
+        }
+        this.ring = new Entry[capacity];
+        this.mask = capacity - 1;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+        Gauge.builder("transaction.stream.subscribers", subscribers, Set::size)
+                .description("变更推送的当前订阅者数")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("transaction.stream.dropped")
+                .description("落后超过缓冲区容量而被断开的订阅者数")
+                .register(meterRegistry);
+        // 每个订阅者同时最多排队一个任务，队列长度不超过订阅者数
+        this.deliveries = Executors.newFixedThreadPool(deliveryThreads,
+                Thread.ofPlatform().name("transaction-feed-", 0).daemon().factory());
+        this.dispatcher = Thread.ofPlatform().name("transaction-feed-dispatcher").daemon().start(this::dispatch);
+    }
+
+    /**
+     * 追加到环形缓冲区并唤醒分发线程，不序列化也不遍历订阅者
+     */
+    @Override
+    public void onChange(TransactionChangeEvent event) {
+        publishLock.lock();
+        try {
+            long sequence = published + 1;
+            ring[(int) (sequence & mask)] = new Entry(sequence, event);
+            published = sequence;
+        } finally {
+            publishLock.unlock();
+        }
+        LockSupport.unpark(dispatcher);
+    }
+
+    /**
+     * 新建一个 SSE 订阅。lastEventId 为客户端重连时带回的最后一条事件 ID，首次订阅为空
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = subscribe(lastEventId, new EmitterSink(emitter));
+        emitter.onCompletion(subscriber::cancel);
+        emitter.onTimeout(subscriber::cancel);
+        emitter.onError(error -> subscriber.cancel());
+        return emitter;
+    }
+
+    Subscriber subscribe(String lastEventId, EventSink sink) {
+        if (closed) {
+            throw new BusinessException("变更推送已关闭", HttpStatus.SERVICE_UNAVAILABLE.value(), "Stream Closed");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new BusinessException("变更推送的订阅数已达上限", HttpStatus.SERVICE_UNAVAILABLE.value(),
+                    "Too Many Subscribers");
+        }
+        long current = published;
+        long resumeAfter = resumePoint(lastEventId, current);
+        Subscriber subscriber = new Subscriber(sink, resumeAfter >= 0 ? resumeAfter + 1 : current + 1,
+                lastEventId != null && resumeAfter < 0);
+        subscribers.add(subscriber);
+        // 补发重连期间错过的事件，或发送 reset
+        subscriber.signal();
+        return subscriber;
+    }
+
+    /**
+     * 向空闲的订阅者发送心跳注释，及时发现已断开的连接，也防止代理因空闲关闭连接
+     */
+    @Scheduled(fixedDelayString = "${transaction.stream.heartbeat-interval:PT15S}",
+            initialDelayString = "${transaction.stream.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatDue = true;
+            subscriber.signal();
+        }
+    }
+
+    int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(dispatcher);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.cancel();
+            subscriber.sink.complete();
+        }
+        deliveries.shutdown();
+    }
+
+    private void dispatch() {
+        long seen = 0;
+        while (!closed) {
+            long current = published;
+            if (current == seen) {
+                LockSupport.park(this);
+                continue;
+            }
+            seen = current;
+            for (Subscriber subscriber : subscribers) {
+                subscriber.signal();
+            }
+        }
+    }
+
+    /**
+     * Last-Event-ID 对应的事件仍在缓冲区中时返回其序号，否则返回-1
+     */
+    private long resumePoint(String lastEventId, long current) {
+        if (lastEventId == null) {
+            return current;
+        }
+        int separator = lastEventId.indexOf('-');
+        if (separator < 0 || !epoch.equals(lastEventId.substring(0, separator))) {
+            return -1;
+        }
+        long sequence;
+        try {
+            sequence = Long.parseLong(lastEventId.substring(separator + 1), 36);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        long oldestRetained = Math.max(1, current - ring.length + 1);
+        return sequence <= current && sequence + 1 >= oldestRetained ? sequence : -1;
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + Long.toString(sequence, 36);
+    }
+
+    private final class Entry {
+        private final long sequence;
+        private final TransactionChangeEvent event;
+        private volatile String data;
+
+        private Entry(long sequence, TransactionChangeEvent event) {
+            this.sequence = sequence;
+            this.event = event;
+        }
+
+        // 并发的首次读取可能各自序列化一次，结果相同
+        private String data() {
+            String serialized = data;
+            if (serialized == null) {
+                try {
+                    serialized = objectMapper.writeValueAsString(event);
+                } catch (JsonProcessingException e) {
+                    throw new UncheckedIOException(e);
+                }
+                data = serialized;
+            }
+            return serialized;
+        }
+    }
+
+    /**
+     * 一个订阅者的读取位置。同一时刻最多一个发送任务在运行，next 只在发送任务中读写，
+     * 任务之间通过 scheduled 的原子操作建立先后关系
+     */
+    final class Subscriber {
+        private final EventSink sink;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private long next;
+        private boolean reset;
+        private volatile boolean heartbeatDue;
+        private volatile boolean cancelled;
+
+        private Subscriber(EventSink sink, long next, boolean reset) {
+            this.sink = sink;
+            this.next = next;
+            this.reset = reset;
+        }
+
+        void cancel() {
+            cancelled = true;
+            subscribers.remove(this);
+        }
+
+        private void signal() {
+            if (!cancelled && scheduled.compareAndSet(false, true)) {
+                try {
+                    deliveries.execute(this::drain);
+                } catch (RuntimeException e) {
+                    // 关闭后拒绝新任务
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                deliver();
+            } catch (IOException | RuntimeException e) {
+                log.debug("Dropping change feed subscriber after send failure", e);
+                cancel();
+                sink.complete();
+            } finally {
+                scheduled.set(false);
+            }
+            // 本轮达到批量上限，或发送期间有新事件而分发线程的唤醒因任务未结束被忽略，重新排队
+            if (!cancelled && (published >= next || heartbeatDue)) {
+                signal();
+            }
+        }
+
+        /**
+         * 最多发送 {@value #MAX_EVENTS_PER_SEND} 条，落后超过缓冲区容量时断开
+         */
+        private void deliver() throws IOException {
+            if (cancelled) {
+                return;
+            }
+            List<Event> batch = new ArrayList<>();
+            if (reset) {
+                batch.add(new Event(eventId(next - 1), RESET_EVENT, "{}"));
+                reset = false;
+            }
+            long upTo = Math.min(published, next + MAX_EVENTS_PER_SEND - 1);
+            for (long sequence = next; sequence <= upTo; sequence++) {
+                Entry entry = ring[(int) (sequence & mask)];
+                if (entry == null || entry.sequence != sequence) {
+                    // 槽位已被后面的事件覆盖
+                    dropped.increment();
+                    cancel();
+                    sink.complete();
+                    return;
+                }
+                batch.add(new Event(eventId(sequence), null, entry.data()));
+            }
+            if (!batch.isEmpty()) {
+                sink.send(batch);
+                next = upTo + 1;
+                heartbeatDue = false;
+            } else if (heartbeatDue) {
+                heartbeatDue = false;
+                sink.heartbeat();
+            }
+        }
+    }
+
+    private static final class EmitterSink implements EventSink {
+        private final SseEmitter emitter;
+
+        private EmitterSink(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // 整批事件一次写出、一次刷新
+        @Override
+        public void send(List<Event> events) throws IOException {
+            Set<ResponseBodyEmitter.DataWithMediaType> data = new LinkedHashSet<>();
+            for (Event event : events) {
+                SseEmitter.SseEventBuilder builder = SseEmitter.event().id(event.id()).data(event.data());
+                data.addAll((event.name() != null ? builder.name(event.name()) : builder).build());
+            }
+            emitter.send(data);
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment(""));
+        }
+
+        @Override
+        public void complete() {
+            emitter.complete();
+        }
+    }
+}
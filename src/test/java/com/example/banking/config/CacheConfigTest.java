@@ -0,0 +1,91 @@
+package com.example.banking.config;
+
+import com.example.banking.dto.TransactionDTO;
+import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionType;
+import com.example.banking.repository.TransactionRepository;
+import com.example.banking.repository.TransactionRepositoryImpl;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheConfigTest {
+
+    private static final String DEFAULT_SPEC = "maximumSize=500,expireAfterWrite=30m";
+
+    private final MockEnvironment environment = new MockEnvironment();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TransactionRepositoryImpl repository = new TransactionRepositoryImpl();
+    private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+    @BeforeEach
+    void setUp() {
+        beanFactory.registerSingleton("transactionRepository", repository);
+        beanFactory.registerSingleton("meterRegistry", meterRegistry);
+    }
+
+    @Test
+    void testPerCacheSpecAndEvictionMetrics() {
+        environment.setProperty(CacheConfig.SPEC_PROPERTY_PREFIX + CacheConfig.TRANSACTIONS, "maximumSize=2");
+        CacheManager cacheManager = createCacheManager();
+
+        Cache<Object, Object> transactions = nativeCache(cacheManager, CacheConfig.TRANSACTIONS);
+        assertEquals(2, transactions.policy().eviction().orElseThrow().getMaximum());
+
+        for (long id = 1; id <= 10; id++) {
+            transactions.put(id, "value-" + id);
+        }
+        transactions.getIfPresent(1L);
+        transactions.cleanUp();
+
+        // 统计始终开启，超出容量的淘汰按原因计数
+        assertTrue(transactions.stats().requestCount() > 0);
+        assertEquals(8.0, meterRegistry.get(CacheConfig.EVICTIONS_METRIC)
+                .tags("cache", CacheConfig.TRANSACTIONS, "cause", "SIZE")
+                .counter().count());
+    }
+
+    @Test
+    void testKnownCachesLoadThroughRepository() {
+        environment.setProperty(CacheConfig.SPEC_PROPERTY_PREFIX + CacheConfig.TRANSACTIONS,
+                "maximumSize=100,refreshAfterWrite=1m");
+        repository.save(new Transaction(7L, new BigDecimal("12.30"), "刷新", TransactionType.INCOME, LocalDateTime.now()));
+        CacheManager cacheManager = createCacheManager();
+
+        Cache<Object, Object> transactions = nativeCache(cacheManager, CacheConfig.TRANSACTIONS);
+        assertInstanceOf(LoadingCache.class, transactions);
+        TransactionDTO loaded = (TransactionDTO) ((LoadingCache<Object, Object>) transactions).get(7L);
+        assertEquals("刷新", loaded.getDescription());
+        assertNull(((LoadingCache<Object, Object>) transactions).get(8L));
+    }
+
+    @Test
+    void testUnknownCacheUsesDefaultSpec() {
+        CacheManager cacheManager = createCacheManager();
+
+        Cache<Object, Object> other = nativeCache(cacheManager, "other");
+        assertEquals(500, other.policy().eviction().orElseThrow().getMaximum());
+    }
+
+    private CacheManager createCacheManager() {
+        return new CacheConfig().cacheManager(environment, DEFAULT_SPEC,
+                beanFactory.getBeanProvider(TransactionRepository.class),
+                beanFactory.getBeanProvider(MeterRegistry.class));
+    }
+
+    private static Cache<Object, Object> nativeCache(CacheManager cacheManager, String name) {
+        return ((CaffeineCache) cacheManager.getCache(name)).getNativeCache();
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.banking.controller;
+
+import com.example.banking.dto.BatchItemResult;
+import com.example.banking.dto.BatchTransactionResponse;
+import com.example.banking.dto.CreateTransactionRequest;
+import com.example.banking.dto.TransactionDTO;
+import com.example.banking.dto.UpdateTransactionRequest;
+import com.example.banking.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryTransactionCodecTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Test
+    void transactionRoundTrip() throws IOException {
+        TransactionDTO transaction = new TransactionDTO(123456789L, new BigDecimal("-100.50"),
+                "工资 💰 salary", TransactionType.INCOME, LocalDateTime.of(2024, 3, 1, 9, 30, 15, 123456000));
+
+        BinaryWriter writer = writer(64);
+        BinaryTransactionCodec.writeHeader(writer, BinaryTransactionCodec.TRANSACTION);
+        BinaryTransactionCodec.writeTransaction(writer, transaction);
+        writer.finish();
+
+        BinaryReader reader = reader(64);
+        assertEquals(BinaryTransactionCodec.TRANSACTION, BinaryTransactionCodec.readHeader(reader));
+        TransactionDTO decoded = BinaryTransactionCodec.readTransaction(reader);
+        assertEquals(transaction.getId(), decoded.getId());
+        assertEquals(transaction.getAmount(), decoded.getAmount());
+        assertEquals(transaction.getDescription(), decoded.getDescription());
+        assertEquals(transaction.getType(), decoded.getType());
+        assertEquals(transaction.getTimestamp(), decoded.getTimestamp());
+        assertTrue(reader.atEnd());
+    }
+
+    @Test
+    void nullFieldsTakeNoSpace() throws IOException {
+        BinaryWriter writer = writer(64);
+        BinaryTransactionCodec.writeTransaction(writer, new TransactionDTO());
+        writer.finish();
+
+        assertEquals(1, out.size());
+        TransactionDTO decoded = BinaryTransactionCodec.readTransaction(reader(64));
+        assertNull(decoded.getId());
+        assertNull(decoded.getAmount());
+        assertNull(decoded.getDescription());
+        assertNull(decoded.getType());
+        assertNull(decoded.getTimestamp());
+    }
+
+    @Test
+    void listLargerThanBufferIsStreamed() throws IOException {
+        List<TransactionDTO> transactions = new ArrayList<>();
+        for (long i = 1; i <= 500; i++) {
+            transactions.add(new TransactionDTO(i, BigDecimal.valueOf(i, 2), "交易" + i,
+                    TransactionType.EXPENSE, LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(i)));
+        }
+
+        BinaryWriter writer = writer(256);
+        BinaryTransactionCodec.writeTransactions(writer, transactions);
+        assertTrue(writer.isStreaming());
+        writer.finish();
+
+        List<TransactionDTO> decoded = BinaryTransactionCodec.readTransactions(reader(256));
+        assertEquals(500, decoded.size());
+        assertEquals(transactions.get(499).getAmount(), decoded.get(499).getAmount());
+        assertEquals(transactions.get(499).getTimestamp(), decoded.get(499).getTimestamp());
+    }
+
+    @Test
+    void stringLongerThanBuffer() throws IOException {
+        String description = "长描述".repeat(100);
+        BinaryWriter writer = writer(32);
+        BinaryTransactionCodec.writeRequest(writer, new BigDecimal("1.00"), description, TransactionType.EXPENSE);
+        writer.finish();
+
+        UpdateTransactionRequest decoded = BinaryTransactionCodec.readUpdateRequest(reader(32));
+        assertEquals(description, decoded.getDescription());
+        assertEquals(new BigDecimal("1.00"), decoded.getAmount());
+        assertEquals(TransactionType.EXPENSE, decoded.getType());
+    }
+
+    @Test
+    void batchResponseRoundTrip() throws IOException {
+        BatchTransactionResponse response = new BatchTransactionResponse(Arrays.asList(
+                BatchItemResult.created(0, 1L),
+                BatchItemResult.rejected(1, BatchItemResult.Status.DUPLICATE, "批次内存在重复交易")));
+
+        BinaryWriter writer = writer(64);
+        BinaryTransactionCodec.writeBatchResponse(writer, response);
+        writer.finish();
+
+        BatchTransactionResponse decoded = BinaryTransactionCodec.readBatchResponse(reader(64));
+        assertEquals(2, decoded.getTotal());
+        assertEquals(1, decoded.getCreated());
+        assertEquals(1, decoded.getRejected());
+        assertEquals(1L, decoded.getResults().get(0).getId());
+        assertEquals(BatchItemResult.Status.DUPLICATE, decoded.getResults().get(1).getStatus());
+        assertEquals("批次内存在重复交易", decoded.getResults().get(1).getError());
+    }
+
+    @Test
+    void createRequestsOverLimitRejectedBeforeReadingElements() throws IOException {
+        BinaryWriter writer = writer(64);
+        writer.writeVarLong(3);
+        for (int i = 0; i < 3; i++) {
+            BinaryTransactionCodec.writeRequest(writer, BigDecimal.ONE, null, TransactionType.INCOME);
+        }
+        writer.finish();
+
+        List<CreateTransactionRequest> requests = BinaryTransactionCodec.readCreateRequests(reader(64), 3);
+        assertEquals(3, requests.size());
+        assertThrows(BinaryTransactionCodec.BatchTooLargeException.class,
+                () -> BinaryTransactionCodec.readCreateRequests(reader(64), 2));
+    }
+
+    @Test
+    void malformedInputRejected() throws IOException {
+        out.write(new byte[]{2, BinaryTransactionCodec.TRANSACTION});
+        assertThrows(BinaryReader.MalformedMessageException.class, () -> BinaryTransactionCodec.readHeader(reader(8)));
+
+        out.reset();
+        out.write(new byte[]{8, 7});
+        assertThrows(BinaryReader.MalformedMessageException.class, () -> BinaryTransactionCodec.readCreateRequest(reader(8)));
+
+        out.reset();
+        out.write(new byte[]{1, (byte) 0x96});
+        assertThrows(EOFException.class, () -> BinaryTransactionCodec.readTransaction(reader(8)));
+    }
+
+    private BinaryWriter writer(int bufferSize) {
+        return new BinaryWriter(new byte[bufferSize], () -> out);
+    }
+
+    private BinaryReader reader(int bufferSize) {
+        return new BinaryReader(new byte[bufferSize], new ByteArrayInputStream(out.toByteArray()));
+    }
+}
@@ -1,10 +1,16 @@
 package com.example.banking.controller;
 
+import com.example.banking.dto.BatchItemResult;
+import com.example.banking.dto.BatchTransactionResponse;
 import com.example.banking.dto.CreateTransactionRequest;
 import com.example.banking.dto.TransactionDTO;
+import com.example.banking.dto.TransactionStatsDTO;
 import com.example.banking.dto.UpdateTransactionRequest;
 import com.example.banking.exception.BusinessException;
 import com.example.banking.exception.TransactionNotFoundException;
+import com.example.banking.model.StatsGranularity;
+import com.example.banking.model.TransactionCursor;
+import com.example.banking.model.TransactionQuery;
 import com.example.banking.model.TransactionType;
 import com.example.banking.service.TransactionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -16,19 +22,30 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(TransactionController.class)
@@ -86,6 +103,54 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.type", is("INCOME")));
     }
     
+    @Test
+    void createTransactions_jsonArray() throws Exception {
+        when(transactionService.createTransactions(anyList()))
+                .thenReturn(new BatchTransactionResponse(Arrays.asList(
+                        BatchItemResult.created(0, 1L),
+                        BatchItemResult.rejected(1, BatchItemResult.Status.DUPLICATE, "批次内存在重复交易"))));
+
+        mockMvc.perform(post("/api/transactions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(createRequest, createRequest))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(2)))
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.results[0].status", is("CREATED")))
+                .andExpect(jsonPath("$.results[0].id", is(1)))
+                .andExpect(jsonPath("$.results[1].status", is("DUPLICATE")));
+
+        verify(transactionService).createTransactions(argThat(list -> list.size() == 2));
+    }
+
+    @Test
+    void createTransactions_ndjson() throws Exception {
+        when(transactionService.createTransactions(anyList()))
+                .thenReturn(new BatchTransactionResponse(Collections.emptyList()));
+        String body = objectMapper.writeValueAsString(createRequest) + "\n"
+                + objectMapper.writeValueAsString(updateRequest) + "\n"
+                + objectMapper.writeValueAsString(createRequest) + "\n";
+
+        mockMvc.perform(post("/api/transactions/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(body))
+                .andExpect(status().isOk());
+
+        verify(transactionService).createTransactions(argThat(list -> list.size() == 3
+                && list.get(1).getType() == TransactionType.EXPENSE));
+    }
+
+    @Test
+    void createTransactions_malformedBody() throws Exception {
+        mockMvc.perform(post("/api/transactions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"amount\": 1.00,"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Invalid Batch")));
+
+        verify(transactionService, never()).createTransactions(anyList());
+    }
+
     @Test
     void createTransaction_invalidAmount() throws Exception {
         CreateTransactionRequest invalidRequest = new CreateTransactionRequest(
@@ -105,7 +170,7 @@ class TransactionControllerTest {
 
     @Test
     void getAllTransactions() throws Exception {
-        when(transactionService.getAllTransactions())
+        when(transactionService.findTransactions(any(TransactionQuery.class)))
                 .thenReturn(Arrays.asList(testTransactionDTO));
 
         mockMvc.perform(get("/api/transactions"))
@@ -117,30 +182,80 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$[0].type", is("INCOME")));
     }
 
+    @Test
+    void getAllTransactions_notModified() throws Exception {
+        when(transactionService.getModificationVersion()).thenReturn(7L);
+        when(transactionService.findTransactions(any(TransactionQuery.class)))
+                .thenReturn(Arrays.asList(testTransactionDTO));
+
+        String etag = mockMvc.perform(get("/api/transactions"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // 版本号未变：304，不再查询
+        mockMvc.perform(get("/api/transactions").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+        verify(transactionService, times(1)).findTransactions(any(TransactionQuery.class));
+
+        when(transactionService.getModificationVersion()).thenReturn(8L);
+        mockMvc.perform(get("/api/transactions").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+        verify(transactionService, times(2)).findTransactions(any(TransactionQuery.class));
+    }
+
+    @Test
+    void getAllTransactions_invalidQueryWithMatchingEtag() throws Exception {
+        when(transactionService.getModificationVersion()).thenReturn(7L);
+        String etag = mockMvc.perform(get("/api/transactions"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        doThrow(new BusinessException("页码不能为负数", 400, "Invalid Page"))
+                .when(transactionService).validateQuery(argThat(query -> query.getPage() < 0));
+
+        // 参数先于条件请求校验，If-None-Match 匹配也返回 400
+        mockMvc.perform(get("/api/transactions?page=-1&size=0").header("If-None-Match", etag))
+                .andExpect(status().isBadRequest());
+        verify(transactionService, times(1)).findTransactions(any(TransactionQuery.class));
+    }
+
     @Test
     void getAllTransactions_withFilters_byType() throws Exception {
-        when(transactionService.getAllTransactions())
+        when(transactionService.findTransactions(any(TransactionQuery.class)))
                 .thenReturn(Arrays.asList(testTransactionDTO));
 
         mockMvc.perform(get("/api/transactions?type=INCOME"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].type", is("INCOME")));
+
+        verify(transactionService).findTransactions(argThat(query ->
+                query.getType() == TransactionType.INCOME
+                        && query.getPage() == 0
+                        && query.getSize() == 20
+                        && query.getSort() == TransactionQuery.Sort.TIMESTAMP_DESC));
     }
 
     @Test
     void getAllTransactions_withFilters_byAmountRange() throws Exception {
-        when(transactionService.getAllTransactions())
+        when(transactionService.findTransactions(any(TransactionQuery.class)))
                 .thenReturn(Arrays.asList(testTransactionDTO));
 
-        mockMvc.perform(get("/api/transactions?minAmount=50.00&maxAmount=150.00"))
+        mockMvc.perform(get("/api/transactions?minAmount=50.00&maxAmount=150.00&sort=AMOUNT_ASC"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)));
+
+        verify(transactionService).findTransactions(argThat(query ->
+                new BigDecimal("50.00").compareTo(query.getMinAmount()) == 0
+                        && new BigDecimal("150.00").compareTo(query.getMaxAmount()) == 0
+                        && query.getSort() == TransactionQuery.Sort.AMOUNT_ASC));
     }
 
     @Test
     void getAllTransactions_empty() throws Exception {
-        when(transactionService.getAllTransactions())
+        when(transactionService.findTransactions(any(TransactionQuery.class)))
                 .thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/api/transactions"))
@@ -148,6 +263,39 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$", hasSize(0)));
     }
 
+    @Test
+    void getAllTransactions_withCursor() throws Exception {
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.of(2024, 1, 1, 10, 0), 7L);
+        when(transactionService.findTransactions(any(TransactionQuery.class)))
+                .thenReturn(Arrays.asList(testTransactionDTO));
+
+        mockMvc.perform(get("/api/transactions?size=1&cursor=" + cursor.encode()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().string("X-Next-Cursor",
+                        new TransactionCursor(testTransactionDTO.getTimestamp(), 1L).encode()));
+
+        verify(transactionService).findTransactions(argThat(query -> cursor.equals(query.getCursor())));
+    }
+
+    @Test
+    void getAllTransactions_lastPageHasNoCursor() throws Exception {
+        when(transactionService.findTransactions(any(TransactionQuery.class)))
+                .thenReturn(Arrays.asList(testTransactionDTO));
+
+        mockMvc.perform(get("/api/transactions?size=20"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void getAllTransactions_malformedCursor() throws Exception {
+        mockMvc.perform(get("/api/transactions?cursor=%%%"))
+                .andExpect(status().isBadRequest());
+
+        verify(transactionService, never()).findTransactions(any());
+    }
+
     @Test
     void getTransactionById_existing() throws Exception {
         when(transactionService.getTransactionById(1L))
@@ -241,6 +389,86 @@ class TransactionControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void exportTransactions_ndjson() throws Exception {
+        when(transactionService.exportTransactions(any(TransactionQuery.class)))
+                .thenReturn(Stream.of(testTransactionDTO, testTransactionDTO));
+
+        MvcResult result = mockMvc.perform(get("/api/transactions/export")
+                .param("type", "INCOME"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, objectMapper.readValue(lines[1], TransactionDTO.class).getId());
+        verify(transactionService).exportTransactions(argThat(query ->
+                query.getType() == TransactionType.INCOME && query.getSort() == TransactionQuery.Sort.TIMESTAMP_ASC));
+    }
+
+    @Test
+    void exportTransactions_csvWithGzip() throws Exception {
+        TransactionDTO quoted = new TransactionDTO(2L, new BigDecimal("5.00"), "咖啡, \"大杯\"",
+                TransactionType.EXPENSE, LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        when(transactionService.exportTransactions(any(TransactionQuery.class))).thenReturn(Stream.of(quoted));
+
+        MvcResult result = mockMvc.perform(get("/api/transactions/export")
+                .param("format", "csv")
+                .header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] compressed = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        String csv;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertEquals("id,amount,description,type,timestamp\n"
+                + "2,5.00,\"咖啡, \"\"大杯\"\"\",EXPENSE,2024-01-02T03:04:05\n", csv);
+    }
+
+    @Test
+    void exportTransactions_unsupportedFormat() throws Exception {
+        mockMvc.perform(get("/api/transactions/export").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Invalid Format")));
+
+        verify(transactionService, never()).exportTransactions(any(TransactionQuery.class));
+    }
+
+    @Test
+    void getTransactionStats() throws Exception {
+        TransactionStatsDTO stats = new TransactionStatsDTO(LocalDateTime.of(2024, 3, 1, 0, 0), TransactionType.EXPENSE, 2,
+                new BigDecimal("30.00"), new BigDecimal("10.00"), new BigDecimal("20.00"), new BigDecimal("15.00"));
+        when(transactionService.getTransactionStats(eq(StatsGranularity.MONTH), eq(TransactionType.EXPENSE), any(), any()))
+                .thenReturn(Collections.singletonList(stats));
+
+        mockMvc.perform(get("/api/transactions/stats")
+                .param("groupBy", "MONTH")
+                .param("type", "EXPENSE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].count", is(2)))
+                .andExpect(jsonPath("$[0].avg", is(15.00)));
+    }
+
+    @Test
+    void getTransactionStats_invalidGranularity() throws Exception {
+        mockMvc.perform(get("/api/transactions/stats").param("groupBy", "WEEK"))
+                .andExpect(status().isBadRequest());
+
+        verify(transactionService, never()).getTransactionStats(any(), any(), any(), any());
+    }
+
     @Test
     void getTransactionCount() throws Exception {
         when(transactionService.getTransactionCount()).thenReturn(5L);
@@ -252,17 +480,167 @@ class TransactionControllerTest {
     
     @Test
     void getTransactions_invalidPaginationParams() throws Exception {
+        when(transactionService.findTransactions(any(TransactionQuery.class)))
+                .thenThrow(new BusinessException("页码不能为负数", HttpStatus.BAD_REQUEST.value(), "Invalid Page"));
+
         mockMvc.perform(get("/api/transactions?page=-1&size=10"))
-                .andExpect(status().is5xxServerError());
+                .andExpect(status().isBadRequest());
     }
     
     @Test
     void getTransactions_invalidAmountRange() throws Exception {
-        when(transactionService.getAllTransactions())
-                .thenReturn(Collections.emptyList());
+        when(transactionService.findTransactions(any(TransactionQuery.class)))
+                .thenThrow(new BusinessException("最小金额不能大于最大金额", HttpStatus.BAD_REQUEST.value(), "Invalid Amount Range"));
 
         mockMvc.perform(get("/api/transactions?minAmount=200&maxAmount=100"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getTransactionById_notModified() throws Exception {
+        testTransactionDTO.setVersion(3);
+        when(transactionService.getTransactionById(1L)).thenReturn(testTransactionDTO);
+
+        String etag = mockMvc.perform(get("/api/transactions/1"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(0)));
+                .andExpect(jsonPath("$.version").doesNotExist())
+                .andReturn().getResponse().getHeader("ETag");
+
+        MvcResult result = mockMvc.perform(get("/api/transactions/1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andReturn();
+        assertEquals(0, result.getResponse().getContentLength());
+
+        testTransactionDTO.setVersion(4);
+        mockMvc.perform(get("/api/transactions/1").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(1)));
+    }
+
+    @Test
+    void getTransactionById_binary() throws Exception {
+        when(transactionService.getTransactionById(1L)).thenReturn(testTransactionDTO);
+
+        MvcResult result = mockMvc.perform(get("/api/transactions/1")
+                .accept(BinaryTransactionMessageConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", BinaryTransactionMessageConverter.MEDIA_TYPE_VALUE))
+                .andReturn();
+
+        byte[] body = result.getResponse().getContentAsByteArray();
+        assertEquals(body.length, result.getResponse().getContentLength());
+        BinaryReader reader = binaryReader(body);
+        assertEquals(BinaryTransactionCodec.TRANSACTION, BinaryTransactionCodec.readHeader(reader));
+        TransactionDTO decoded = BinaryTransactionCodec.readTransaction(reader);
+        assertEquals(1L, decoded.getId());
+        assertEquals(new BigDecimal("100.50"), decoded.getAmount());
+        assertEquals("测试交易", decoded.getDescription());
+    }
+
+    @Test
+    void getAllTransactions_binary() throws Exception {
+        when(transactionService.findTransactions(any(TransactionQuery.class)))
+                .thenReturn(Arrays.asList(testTransactionDTO, testTransactionDTO));
+
+        MvcResult result = mockMvc.perform(get("/api/transactions")
+                .accept(BinaryTransactionMessageConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        BinaryReader reader = binaryReader(result.getResponse().getContentAsByteArray());
+        assertEquals(BinaryTransactionCodec.TRANSACTION_LIST, BinaryTransactionCodec.readHeader(reader));
+        assertEquals(2, BinaryTransactionCodec.readTransactions(reader).size());
+    }
+
+    @Test
+    void getAllTransactions_wildcardAcceptStillJson() throws Exception {
+        when(transactionService.findTransactions(any(TransactionQuery.class)))
+                .thenReturn(Arrays.asList(testTransactionDTO));
+
+        mockMvc.perform(get("/api/transactions").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void createTransaction_binaryBody() throws Exception {
+        when(transactionService.createTransaction(any(CreateTransactionRequest.class)))
+                .thenReturn(testTransactionDTO);
+
+        mockMvc.perform(post("/api/transactions")
+                .contentType(BinaryTransactionMessageConverter.MEDIA_TYPE)
+                .content(binaryMessage(BinaryTransactionCodec.CREATE_REQUEST, createRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is(1)));
+
+        verify(transactionService).createTransaction(argThat(request ->
+                new BigDecimal("100.50").equals(request.getAmount())
+                        && "测试交易".equals(request.getDescription())
+                        && request.getType() == TransactionType.INCOME));
+    }
+
+    @Test
+    void createTransaction_malformedBinaryBody() throws Exception {
+        mockMvc.perform(post("/api/transactions")
+                .contentType(BinaryTransactionMessageConverter.MEDIA_TYPE)
+                .content(new byte[]{1, (byte) BinaryTransactionCodec.CREATE_REQUEST, 2}))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Malformed Request")));
+
+        verify(transactionService, never()).createTransaction(any());
+    }
+
+    @Test
+    void createTransactions_binary() throws Exception {
+        when(transactionService.createTransactions(anyList()))
+                .thenReturn(new BatchTransactionResponse(Arrays.asList(
+                        BatchItemResult.created(0, 1L),
+                        BatchItemResult.rejected(1, BatchItemResult.Status.DUPLICATE, "批次内存在重复交易"))));
+
+        MvcResult result = mockMvc.perform(post("/api/transactions/batch")
+                .contentType(BinaryTransactionMessageConverter.MEDIA_TYPE)
+                .accept(BinaryTransactionMessageConverter.MEDIA_TYPE)
+                .content(binaryMessage(BinaryTransactionCodec.CREATE_REQUEST_LIST, createRequest, createRequest)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        BinaryReader reader = binaryReader(result.getResponse().getContentAsByteArray());
+        assertEquals(BinaryTransactionCodec.BATCH_RESPONSE, BinaryTransactionCodec.readHeader(reader));
+        BatchTransactionResponse response = BinaryTransactionCodec.readBatchResponse(reader);
+        assertEquals(2, response.getTotal());
+        assertEquals(BatchItemResult.Status.DUPLICATE, response.getResults().get(1).getStatus());
+        verify(transactionService).createTransactions(argThat(list -> list.size() == 2));
+    }
+
+    @Test
+    void createTransactions_binaryTooLarge() throws Exception {
+        CreateTransactionRequest[] requests = new CreateTransactionRequest[10001];
+        Arrays.fill(requests, createRequest);
+
+        mockMvc.perform(post("/api/transactions/batch")
+                .contentType(BinaryTransactionMessageConverter.MEDIA_TYPE)
+                .content(binaryMessage(BinaryTransactionCodec.CREATE_REQUEST_LIST, requests)))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.error", is("Batch Too Large")));
+
+        verify(transactionService, never()).createTransactions(anyList());
+    }
+
+    private static byte[] binaryMessage(int messageType, CreateTransactionRequest... requests) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryWriter writer = new BinaryWriter(new byte[1024], () -> out);
+        BinaryTransactionCodec.writeHeader(writer, messageType);
+        if (messageType == BinaryTransactionCodec.CREATE_REQUEST_LIST) {
+            writer.writeVarLong(requests.length);
+        }
+        for (CreateTransactionRequest request : requests) {
+            BinaryTransactionCodec.writeRequest(writer, request.getAmount(), request.getDescription(), request.getType());
+        }
+        writer.finish();
+        return out.toByteArray();
+    }
+
+    private static BinaryReader binaryReader(byte[] body) {
+        return new BinaryReader(new byte[1024], new ByteArrayInputStream(body));
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,38 @@
+package com.example.banking.health;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GcMonitorTest {
+
+    @Test
+    void drainResetsActivity() {
+        GcMonitor monitor = new GcMonitor();
+        monitor.record(30, 1000);
+        monitor.record(10, 500);
+        monitor.record(-1, 200);
+
+        GcMonitor.Activity activity = monitor.drain();
+        assertEquals(2, activity.pauses());
+        assertEquals(40, activity.pauseMillis());
+        assertEquals(30, activity.maxPauseMillis());
+        assertEquals(1700, activity.allocatedBytes());
+
+        assertEquals(new GcMonitor.Activity(0, 0, 0, 0), monitor.drain());
+    }
+
+    @Test
+    void receivesCollectorNotifications() throws InterruptedException {
+        try (GcMonitor monitor = GcMonitor.start()) {
+            long pauses = 0;
+            for (int attempt = 0; attempt < 50 && pauses == 0; attempt++) {
+                System.gc();
+                // 回收通知在单独的线程上异步送达
+                Thread.sleep(100);
+                pauses += monitor.drain().pauses();
+            }
+            assertTrue(pauses > 0);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.banking.health;
+
+import com.example.banking.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class HealthSamplerTest {
+
+    // 回收后堆占用的阈值设为不可达，避免测试JVM本身的堆状态影响结果
+    private static final HealthSampler.Thresholds THRESHOLDS =
+            new HealthSampler.Thresholds(0.1, 0.5, 500, 2.0, 2.0, 1L << 30, 50, 5);
+
+    private TransactionRepository repository;
+    private MeterRegistry registry;
+    private GcMonitor gcMonitor;
+    private HealthSampler sampler;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(TransactionRepository.class);
+        when(repository.count()).thenReturn(42L);
+        registry = new SimpleMeterRegistry();
+        gcMonitor = new GcMonitor();
+        sampler = new HealthSampler(repository, null, registry, gcMonitor, Duration.ofMinutes(1), THRESHOLDS);
+    }
+
+    @Test
+    void probesReadCachedSnapshot() {
+        assertEquals(Status.UP, sampler.dataStore().getStatus());
+        assertEquals(42L, sampler.dataStore().getDetails().get("total_transactions"));
+        assertEquals(Status.UP, sampler.jvm().getStatus());
+        assertEquals(Status.UP, sampler.saturation().getStatus());
+
+        sampler.jvm();
+        sampler.dataStore();
+        // 只有构造时的一次采样访问了存储
+        verify(repository, times(1)).count();
+    }
+
+    @Test
+    void slowWritesBreachSloUntilNextWindow() {
+        Timer save = Timer.builder("transaction.repository").tag("operation", "save").register(registry);
+        for (int i = 0; i < 10; i++) {
+            save.record(Duration.ofMillis(80));
+        }
+        sampler.sample();
+        assertEquals(Status.OUT_OF_SERVICE, sampler.dataStore().getStatus());
+        assertEquals(10L, sampler.dataStore().getDetails().get("writes"));
+
+        // 新的采样周期内没有慢写入
+        for (int i = 0; i < 10; i++) {
+            save.record(Duration.ofMillis(1));
+        }
+        sampler.sample();
+        assertEquals(Status.UP, sampler.dataStore().getStatus());
+    }
+
+    @Test
+    void tooFewWritesAreNotJudged() {
+        Timer update = Timer.builder("transaction.repository").tag("operation", "update").register(registry);
+        update.record(Duration.ofSeconds(1));
+
+        sampler.sample();
+        assertEquals(Status.UP, sampler.dataStore().getStatus());
+    }
+
+    @Test
+    void batchWritesAreExcludedFromSlo() {
+        Timer saveAll = Timer.builder("transaction.repository").tag("operation", "saveAll").register(registry);
+        for (int i = 0; i < 10; i++) {
+            saveAll.record(Duration.ofSeconds(1));
+        }
+
+        sampler.sample();
+        assertEquals(Status.UP, sampler.dataStore().getStatus());
+    }
+
+    @Test
+    void storeFailureIsDown() {
+        when(repository.count()).thenThrow(new IllegalStateException("closed"));
+
+        sampler.sample();
+        assertEquals(Status.DOWN, sampler.dataStore().getStatus());
+    }
+
+    @Test
+    void heavyGcFailsLivenessAndReadiness() {
+        gcMonitor.record(60_000, 0);
+
+        sampler.sample();
+        assertEquals(Status.DOWN, sampler.jvm().getStatus());
+        assertEquals(Status.OUT_OF_SERVICE, sampler.saturation().getStatus());
+
+        sampler.sample();
+        assertEquals(Status.UP, sampler.jvm().getStatus());
+        assertEquals(Status.UP, sampler.saturation().getStatus());
+    }
+
+    @Test
+    void allocationRateOnlyAffectsReadiness() {
+        gcMonitor.record(-1, 1L << 40);
+
+        sampler.sample();
+        assertEquals(Status.UP, sampler.jvm().getStatus());
+        assertEquals(Status.OUT_OF_SERVICE, sampler.saturation().getStatus());
+    }
+
+    @Test
+    void staleSnapshotIsUnknown() {
+        HealthSampler stale = new HealthSampler(repository, null, registry, gcMonitor, Duration.ofNanos(1), THRESHOLDS);
+
+        assertEquals(Status.UNKNOWN, stale.jvm().getStatus());
+        assertEquals(Status.UNKNOWN, stale.dataStore().getStatus());
+    }
+}
@@ -6,6 +6,7 @@ import com.example.banking.dto.UpdateTransactionRequest;
 import com.example.banking.model.TransactionType;
 import com.example.banking.repository.TransactionRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +24,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -39,6 +41,9 @@ public class TransactionIntegrationTest {
     
     @Autowired
     private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
     
     @BeforeEach
     public void setup() {
@@ -206,4 +211,72 @@ public class TransactionIntegrationTest {
         // 测试结束后，清理所有创建的交易
         clearAllTransactions();
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testConditionalGet() throws Exception {
+        CreateTransactionRequest request = new CreateTransactionRequest(
+                new BigDecimal("88.00"), "条件请求测试", TransactionType.INCOME);
+        String created = mockMvc.perform(post("/api/transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(created).get("id").asLong();
+
+        String listEtag = mockMvc.perform(get("/api/transactions"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        String detailEtag = mockMvc.perform(get("/api/transactions/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/transactions").header("If-None-Match", listEtag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/transactions/" + id).header("If-None-Match", detailEtag))
+                .andExpect(status().isNotModified());
+
+        // 修改之后两个 ETag 都失效
+        mockMvc.perform(put("/api/transactions/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\": \"已修改\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/transactions").header("If-None-Match", listEtag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/transactions/" + id).header("If-None-Match", detailEtag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description", is("已修改")));
+
+        clearAllTransactions();
+    }
+
+    @Test
+    public void testMetricsRecorded() throws Exception {
+        double createdBefore = serviceCalls("createTransaction");
+        double errorsBefore = errorCount("Invalid Amount Range");
+
+        CreateTransactionRequest request = new CreateTransactionRequest(
+                new BigDecimal("66.60"), "指标测试交易", TransactionType.EXPENSE);
+        mockMvc.perform(post("/api/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/api/transactions?minAmount=10&maxAmount=1"))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(createdBefore + 1, serviceCalls("createTransaction"));
+        assertEquals(errorsBefore + 1, errorCount("Invalid Amount Range"));
+        assertTrue(meterRegistry.get("transaction.repository").tag("operation", "saveIfNotDuplicate")
+                .timer().count() > 0);
+        assertEquals(transactionRepository.count(), meterRegistry.get("transaction.store.size").gauge().value());
+
+        clearAllTransactions();
+    }
+
+    private double serviceCalls(String method) {
+        return meterRegistry.get("transaction.service").tag("method", method).timer().count();
+    }
+
+    private double errorCount(String type) {
+        var counter = meterRegistry.find("transaction.errors").tag("type", type).counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.banking.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void testToMinorUnitsUsesBankersRounding() {
+        assertEquals(10050L, Money.toMinorUnits(new BigDecimal("100.5")));
+        assertEquals(1002L, Money.toMinorUnits(new BigDecimal("10.0200")));
+        assertEquals(100L, Money.toMinorUnits(new BigDecimal("1E+0")));
+        assertThrows(IllegalArgumentException.class, () -> Money.toMinorUnits(new BigDecimal("10.025")));
+        assertThrows(IllegalArgumentException.class, () -> Money.toMinorUnits(new BigDecimal("0.004")));
+        assertEquals(Money.NONE, Money.toMinorUnits(null));
+        assertThrows(IllegalArgumentException.class, () -> Money.toMinorUnits(new BigDecimal("1e20")));
+    }
+
+    @Test
+    void testBoundsRoundTowardsRange() {
+        assertEquals(1001L, Money.toMinorUnitsBound(new BigDecimal("10.001"), true));
+        assertEquals(1000L, Money.toMinorUnitsBound(new BigDecimal("10.009"), false));
+        assertEquals(Long.MAX_VALUE, Money.toMinorUnitsBound(new BigDecimal("1e30"), false));
+    }
+
+    @Test
+    void testToBigDecimalKeepsCurrencyScale() {
+        assertEquals(new BigDecimal("300.00"), Money.toBigDecimal(30000L));
+        assertNull(Money.toBigDecimal(Money.NONE));
+    }
+
+    @Test
+    void testEpochMicrosRoundTrip() {
+        LocalDateTime beforeEpoch = LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000);
+        assertEquals(-1L, EpochMicros.of(beforeEpoch));
+        assertEquals(beforeEpoch, EpochMicros.toLocalDateTime(EpochMicros.of(beforeEpoch)));
+
+        LocalDateTime subMicro = LocalDateTime.of(2024, 1, 1, 0, 0, 0, 1_500);
+        assertEquals(EpochMicros.of(subMicro) + 1, EpochMicros.ceil(subMicro));
+        assertNull(EpochMicros.toLocalDateTime(EpochMicros.NONE));
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.banking.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionCursorTest {
+
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123456000), 42L);
+        
+        String encoded = cursor.encode();
+        
+        // 游标对客户端不透明，只包含URL安全字符
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+        assertEquals(cursor, TransactionCursor.decode(encoded));
+    }
+
+    @Test
+    void testDecodeMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> TransactionCursor.decode("not a cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> TransactionCursor.decode("bm8tc2VwYXJhdG9y"));
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -13,7 +14,8 @@ class TransactionTest {
     void testDefaultConstructor() {
         Transaction transaction = new Transaction();
         
-        assertNotNull(transaction.getId());
+        // 未保存的交易不占用ID
+        assertNull(transaction.getId());
         assertNotNull(transaction.getTimestamp());
         assertNull(transaction.getAmount());
         assertNull(transaction.getDescription());
@@ -28,7 +30,7 @@ class TransactionTest {
         
         Transaction transaction = new Transaction(amount, description, type);
         
-        assertNotNull(transaction.getId());
+        assertNull(transaction.getId());
         assertEquals(amount, transaction.getAmount());
         assertEquals(description, transaction.getDescription());
         assertEquals(type, transaction.getType());
@@ -41,7 +43,8 @@ class TransactionTest {
         BigDecimal amount = new BigDecimal("100.50");
         String description = "测试交易";
         TransactionType type = TransactionType.INCOME;
-        LocalDateTime timestamp = LocalDateTime.now();
+        // 时间戳内部以微秒保存
+        LocalDateTime timestamp = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
         
         Transaction transaction = new Transaction(id, amount, description, type, timestamp);
         
@@ -68,6 +71,52 @@ class TransactionTest {
         assertNotNull(transaction.getTimestamp());
     }
 
+    @Test
+    void testCompactRepresentation() {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123456789);
+        Transaction transaction = new Transaction(1L, new BigDecimal("10.0500"), "精度", TransactionType.EXPENSE, timestamp);
+
+        // 金额保存为两位小数的最小货币单位，时间戳截断到微秒
+        assertEquals(new BigDecimal("10.05"), transaction.getAmount());
+        assertEquals(1005L, transaction.getAmountMinorUnits());
+        assertEquals(timestamp.truncatedTo(ChronoUnit.MICROS), transaction.getTimestamp());
+
+        // 超出两位小数的金额不做舍入
+        assertThrows(IllegalArgumentException.class, () -> transaction.withAmount(new BigDecimal("10.005")));
+
+        Transaction withoutAmount = transaction.withAmount(null);
+        assertNull(withoutAmount.getAmount());
+        assertFalse(withoutAmount.hasAmount());
+    }
+
+    @Test
+    void testWithersReturnNewInstances() {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 1, 12, 0);
+        Transaction original = new Transaction(1L, new BigDecimal("100.50"), "原描述", TransactionType.INCOME, timestamp);
+
+        Transaction changed = original.withAmount(new BigDecimal("20.00"))
+                .withDescription("新描述")
+                .withType(TransactionType.EXPENSE)
+                .withTimestamp(timestamp.plusDays(1))
+                .withVersion(3);
+
+        // 原实例保持不变
+        assertEquals(new BigDecimal("100.50"), original.getAmount());
+        assertEquals("原描述", original.getDescription());
+        assertEquals(TransactionType.INCOME, original.getType());
+        assertEquals(timestamp, original.getTimestamp());
+        assertEquals(0, original.getVersion());
+
+        assertEquals(1L, changed.getId());
+        assertEquals(new BigDecimal("20.00"), changed.getAmount());
+        assertEquals("新描述", changed.getDescription());
+        assertEquals(TransactionType.EXPENSE, changed.getType());
+        assertEquals(timestamp.plusDays(1), changed.getTimestamp());
+        assertEquals(3, changed.getVersion());
+        // 同一ID的不同版本相等
+        assertEquals(original, changed);
+    }
+
     @Test
     void testEqualsAndHashCode() {
         Transaction transaction1 = new Transaction(1L, new BigDecimal("100.50"), "交易1", TransactionType.INCOME, LocalDateTime.now());
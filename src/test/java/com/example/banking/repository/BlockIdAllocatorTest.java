@@ -0,0 +1,100 @@
+package com.example.banking.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockIdAllocatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSingleThreadAllocatesConsecutiveIdsFromOne() {
+        BlockIdAllocator allocator = new BlockIdAllocator(10);
+
+        for (long expected = 1; expected <= 25; expected++) {
+            assertEquals(expected, allocator.nextId());
+        }
+    }
+
+    @Test
+    void testObserveSkipsRecoveredIds() {
+        BlockIdAllocator allocator = new BlockIdAllocator(10);
+        allocator.observe(42);
+        allocator.observe(7);
+
+        // 从已有最大ID之后的下一块开始分配
+        assertEquals(50, allocator.nextId());
+    }
+
+    @Test
+    void testObserveDuringAllocationAbandonsCurrentBlock() {
+        BlockIdAllocator allocator = new BlockIdAllocator(10);
+        assertEquals(1, allocator.nextId());
+
+        // 调用方写入了当前块内的ID，之后的分配跳过整块
+        allocator.observe(5);
+        assertEquals(10, allocator.nextId());
+        assertEquals(11, allocator.nextId());
+    }
+
+    @Test
+    void testConcurrentAllocationsAreUnique() throws Exception {
+        BlockIdAllocator allocator = new BlockIdAllocator(16);
+        int threads = 8;
+        int idsPerThread = 5_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < idsPerThread; j++) {
+                        assertTrue(ids.add(allocator.nextId()));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * idsPerThread, ids.size());
+        assertTrue(ids.stream().allMatch(id -> id > 0));
+    }
+
+    @Test
+    void testHighWaterMarkSurvivesRestart() throws IOException {
+        Path stateFile = tempDir.resolve("id").resolve("transaction.hwm");
+        BlockIdAllocator allocator = BlockIdAllocator.open(10, stateFile);
+        long last = 0;
+        for (int i = 0; i < 3; i++) {
+            last = allocator.nextId();
+        }
+
+        // 未正常关闭也不会重复：重启后从已刷盘的高水位继续
+        BlockIdAllocator restarted = BlockIdAllocator.open(10, stateFile);
+        long next = restarted.nextId();
+        assertTrue(next > last, next + " <= " + last);
+        assertEquals(0, next % 10);
+    }
+}
@@ -0,0 +1,414 @@
+package com.example.banking.repository;
+
+import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionCursor;
+import com.example.banking.model.TransactionQuery;
+import com.example.banking.model.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内存映射列式存储的单元测试，分块行数设得很小以覆盖跨块读写
+ */
+class MappedColumnarTransactionRepositoryTest {
+
+    private static final int CHUNK_ROWS = 4;
+
+    @TempDir
+    Path storeDirectory;
+
+    private MappedColumnarTransactionRepository repository;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        repository = new MappedColumnarTransactionRepository(storeDirectory, CHUNK_ROWS);
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        repository.close();
+    }
+
+    @Test
+    void testSaveAndFindById() {
+        repository.save(new Transaction(1L, new BigDecimal("100.50"), "工资", TransactionType.INCOME, now));
+
+        Transaction found = repository.findById(1L).orElseThrow();
+        assertEquals(new BigDecimal("100.50"), found.getAmount());
+        assertEquals("工资", found.getDescription());
+        assertEquals(TransactionType.INCOME, found.getType());
+        assertEquals(now, found.getTimestamp());
+        assertFalse(repository.findById(2L).isPresent());
+        assertFalse(repository.findById(null).isPresent());
+    }
+
+    @Test
+    void testAmountStoredAsMinorUnits() {
+        Transaction saved = repository.save(new Transaction(1L, new BigDecimal("10.1"), null, TransactionType.EXPENSE, now));
+
+        assertEquals(new BigDecimal("10.10"), saved.getAmount());
+        assertNull(saved.getDescription());
+        assertThrows(IllegalArgumentException.class, () -> repository.save(
+                new Transaction(2L, new BigDecimal("1e30"), "溢出", TransactionType.EXPENSE, now)));
+    }
+
+    @Test
+    void testUpdateAndDelete() {
+        repository.save(new Transaction(1L, new BigDecimal("1.00"), "原描述", TransactionType.INCOME, now));
+        repository.save(new Transaction(1L, new BigDecimal("2.00"), "新描述", TransactionType.EXPENSE, now));
+
+        assertEquals(1, repository.count());
+        Transaction updated = repository.findById(1L).orElseThrow();
+        assertEquals(new BigDecimal("2.00"), updated.getAmount());
+        assertEquals("新描述", updated.getDescription());
+        assertTrue(repository.findByType(TransactionType.INCOME).isEmpty());
+
+        assertTrue(repository.deleteById(1L));
+        assertFalse(repository.deleteById(1L));
+        assertEquals(0, repository.count());
+        assertTrue(repository.findAll().isEmpty());
+    }
+
+    @Test
+    void testModificationVersion() {
+        repository.save(new Transaction(1L, new BigDecimal("1.00"), "原描述", TransactionType.INCOME, now));
+        repository.update(1L, transaction -> transaction.withDescription("新描述"));
+        assertEquals(2, repository.modificationVersion());
+
+        assertFalse(repository.update(2L, transaction -> transaction).isPresent());
+        assertFalse(repository.deleteById(2L));
+        assertEquals(2, repository.modificationVersion());
+
+        assertTrue(repository.deleteById(1L));
+        assertEquals(3, repository.modificationVersion());
+    }
+
+    @Test
+    void testUpdate() {
+        repository.save(new Transaction(1L, new BigDecimal("10.00"), "原描述", TransactionType.INCOME, now));
+
+        Transaction updated = repository.update(1L, transaction -> transaction
+                .withDescription("新描述")
+                .withAmount(new BigDecimal("12.00"))).orElseThrow();
+
+        assertEquals("新描述", updated.getDescription());
+        assertEquals(2, updated.getVersion());
+        assertEquals(2, repository.findById(1L).orElseThrow().getVersion());
+        assertEquals(new BigDecimal("12.00"), repository.findById(1L).orElseThrow().getAmount());
+        assertEquals(1, repository.count());
+        assertFalse(repository.update(2L, transaction -> transaction).isPresent());
+    }
+
+    @Test
+    void testUnchangedDescriptionReusesHeapEntry() {
+        repository.save(new Transaction(1L, new BigDecimal("10.00"), "描述", TransactionType.INCOME, now));
+        MappedStringHeap heap = (MappedStringHeap) ReflectionTestUtils.getField(repository, "descriptionHeap");
+        long size = heap.size();
+
+        for (int i = 0; i < 100; i++) {
+            repository.update(1L, transaction -> transaction.withAmount(transaction.getAmount().add(BigDecimal.ONE)));
+        }
+        assertEquals(size, heap.size());
+
+        // 修改描述才追加新的字符串
+        repository.update(1L, transaction -> transaction.withDescription("新描述"));
+        assertTrue(heap.size() > size);
+        assertEquals("新描述", repository.findById(1L).orElseThrow().getDescription());
+        assertEquals(new BigDecimal("110.00"), repository.findById(1L).orElseThrow().getAmount());
+    }
+
+    @Test
+    void testUpdateHoldsOnlyRowLockWhileMutating() throws Exception {
+        repository.save(new Transaction(1L, new BigDecimal("10.00"), "慢修改", TransactionType.INCOME, now));
+        repository.save(new Transaction(2L, new BigDecimal("20.00"), "其他", TransactionType.INCOME, now));
+        CountDownLatch mutating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Optional<Transaction>> slow = executor.submit(() -> repository.update(1L, transaction -> {
+                mutating.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return transaction.withDescription("已修改");
+            }));
+            assertTrue(mutating.await(5, TimeUnit.SECONDS));
+
+            // mutator 执行期间，其他ID的修改、扫描和新增不被阻塞
+            assertEquals("其他已修改", repository.update(2L, t -> t.withDescription("其他已修改"))
+                    .orElseThrow().getDescription());
+            assertEquals(2, repository.findAll().size());
+            repository.save(new Transaction(3L, new BigDecimal("30.00"), "新增", TransactionType.EXPENSE, now));
+
+            // 同一ID的写入等待行锁
+            Future<Boolean> delete = executor.submit(() -> repository.deleteById(1L));
+            assertThrows(TimeoutException.class, () -> delete.get(200, TimeUnit.MILLISECONDS));
+
+            release.countDown();
+            assertEquals("已修改", slow.get(5, TimeUnit.SECONDS).orElseThrow().getDescription());
+            assertTrue(delete.get(5, TimeUnit.SECONDS));
+            assertFalse(repository.findById(1L).isPresent());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testConcurrentUpdatesToSameIdAreNotLost() throws Exception {
+        repository.save(new Transaction(1L, new BigDecimal("0.01"), "计数", TransactionType.INCOME, now));
+        int threads = 4;
+        int perThread = 250;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        repository.update(1L, transaction -> transaction.withAmount(
+                                transaction.getAmount().add(new BigDecimal("0.01"))));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Transaction result = repository.findById(1L).orElseThrow();
+        assertEquals(new BigDecimal("0.01").multiply(BigDecimal.valueOf(threads * perThread + 1)), result.getAmount());
+        assertEquals(threads * perThread + 1, result.getVersion());
+    }
+
+    @Test
+    void testRangeScansAcrossChunks() {
+        for (long id = 1; id <= 10; id++) {
+            repository.save(new Transaction(id, BigDecimal.valueOf(id * 10), "交易" + id,
+                    id % 2 == 0 ? TransactionType.EXPENSE : TransactionType.INCOME, now.minusHours(id)));
+        }
+
+        assertEquals(5, repository.findByType(TransactionType.EXPENSE).size());
+        assertEquals(3, repository.findByAmountRange(new BigDecimal("25"), new BigDecimal("50")).size());
+        assertEquals(4, repository.findByDateRange(now.minusHours(4), now).size());
+        assertEquals(10, repository.findByAmountRange(null, null).size());
+
+        List<Transaction> page = repository.findWithPagination(2, 3);
+        assertEquals(List.of(3L, 4L, 5L), page.stream().map(Transaction::getId).toList());
+    }
+
+    @Test
+    void testFindByQueryWithCursor() {
+        for (long id = 1; id <= 9; id++) {
+            repository.save(new Transaction(id, BigDecimal.valueOf(id), "分页", TransactionType.INCOME, now.minusMinutes(id)));
+        }
+        TransactionQuery firstQuery = TransactionQuery.builder().page(0, 4).build();
+        List<Transaction> first = repository.findByQuery(firstQuery);
+        assertEquals(List.of(1L, 2L, 3L, 4L), first.stream().map(Transaction::getId).toList());
+
+        TransactionQuery nextQuery = TransactionQuery.builder()
+                .page(0, 4)
+                .after(TransactionCursor.after(first.get(first.size() - 1)))
+                .build();
+        assertEquals(List.of(5L, 6L, 7L, 8L), repository.findByQuery(nextQuery).stream().map(Transaction::getId).toList());
+
+        TransactionQuery byAmount = TransactionQuery.builder()
+                .amountRange(new BigDecimal("3"), new BigDecimal("6"))
+                .sort(TransactionQuery.Sort.AMOUNT_DESC)
+                .page(1, 2)
+                .build();
+        assertEquals(List.of(4L, 3L), repository.findByQuery(byAmount).stream().map(Transaction::getId).toList());
+    }
+
+    @Test
+    void testSaveIfNotDuplicate() {
+        Transaction first = new Transaction(1L, new BigDecimal("50.00"), "午餐", TransactionType.EXPENSE, LocalDateTime.now());
+        Transaction second = new Transaction(2L, new BigDecimal("50.0"), "午餐", TransactionType.EXPENSE, LocalDateTime.now());
+
+        assertTrue(repository.saveIfNotDuplicate(first, 5).isPresent());
+        Optional<Transaction> duplicate = repository.saveIfNotDuplicate(second, 5);
+
+        assertFalse(duplicate.isPresent());
+        assertEquals(1, repository.findPotentialDuplicates(new BigDecimal("50"), "午餐", TransactionType.EXPENSE, 5).size());
+    }
+
+    @Test
+    void testStreamReadsInBatchesInQueryOrder() {
+        int rows = 5000;
+        // 写入顺序与时间顺序相反
+        for (long id = 1; id <= rows; id++) {
+            repository.save(new Transaction(id, new BigDecimal(id % 2 == 0 ? "2.00" : "1.00").add(BigDecimal.valueOf(id)),
+                    "批量", TransactionType.EXPENSE, now.minusSeconds(id)));
+        }
+        repository.deleteById(2L);
+
+        TransactionQuery query = TransactionQuery.builder()
+                .amountRange(new BigDecimal("3.00"), null)
+                .sort(TransactionQuery.Sort.TIMESTAMP_ASC)
+                .build();
+        List<Long> ids = repository.stream(query).map(Transaction::getId).toList();
+
+        // 跨越多个读取批次，按时间升序输出，已删除的行不出现
+        assertEquals(rows - 2, ids.size());
+        assertEquals((long) rows, ids.get(0));
+        assertEquals(3L, ids.get(ids.size() - 1));
+        assertEquals(repository.findByQuery(TransactionQuery.builder()
+                        .amountRange(new BigDecimal("3.00"), null)
+                        .sort(TransactionQuery.Sort.TIMESTAMP_ASC)
+                        .page(0, rows)
+                        .build()).stream().map(Transaction::getId).toList(), ids);
+
+        // 降序并限定时间范围，只遍历范围内的索引项
+        List<Long> descending = repository.stream(TransactionQuery.builder()
+                .dateRange(now.minusSeconds(4500), now.minusSeconds(100))
+                .sort(TransactionQuery.Sort.TIMESTAMP_DESC)
+                .build()).map(Transaction::getId).toList();
+        assertEquals(4401, descending.size());
+        assertEquals(100L, descending.get(0));
+        assertEquals(4500L, descending.get(descending.size() - 1));
+
+        assertThrows(UnsupportedOperationException.class, () -> repository.stream(TransactionQuery.builder()
+                .sort(TransactionQuery.Sort.AMOUNT_DESC)
+                .build()));
+    }
+
+    @Test
+    void testTimestampIndexFollowsUpdatesAndSurvivesReopen() throws IOException {
+        for (long id = 1; id <= 20; id++) {
+            repository.save(new Transaction(id, new BigDecimal("1.00"), "批量", TransactionType.EXPENSE, now.minusSeconds(id)));
+        }
+        // 修改时间戳后该行移到新的位置
+        repository.update(20L, transaction -> transaction.withTimestamp(now));
+        repository.update(1L, transaction -> transaction.withTimestamp(now.minusSeconds(100)));
+        List<Long> expected = List.of(1L, 19L, 18L, 17L, 16L, 15L, 14L, 13L, 12L, 11L, 10L, 9L, 8L, 7L, 6L, 5L, 4L, 3L, 2L, 20L);
+        assertEquals(expected, streamAscending());
+
+        repository.close();
+        repository = new MappedColumnarTransactionRepository(storeDirectory, CHUNK_ROWS);
+        assertEquals(expected, streamAscending());
+
+        // 索引与列数据不一致（例如写入中途退出）时启动重建
+        repository.close();
+        try (MappedColumn index = new MappedColumn(storeDirectory.resolve("timestamp.idx"), Integer.BYTES, CHUNK_ROWS)) {
+            index.putInt(0, 5);
+        }
+        repository = new MappedColumnarTransactionRepository(storeDirectory, CHUNK_ROWS);
+        assertEquals(expected, streamAscending());
+    }
+
+    private List<Long> streamAscending() {
+        return repository.stream(TransactionQuery.builder()
+                .sort(TransactionQuery.Sort.TIMESTAMP_ASC)
+                .build()).map(Transaction::getId).toList();
+    }
+
+    @Test
+    void testSaveAll() {
+        repository.save(new Transaction(1L, new BigDecimal("100.50"), "工资", TransactionType.INCOME, now));
+
+        List<Optional<Transaction>> results = repository.saveAll(List.of(
+                new Transaction(2L, new BigDecimal("100.50"), "工资", TransactionType.INCOME, now),
+                new Transaction(3L, new BigDecimal("5.00"), "咖啡", TransactionType.EXPENSE, now),
+                new Transaction(4L, new BigDecimal("6.00"), "午餐", TransactionType.EXPENSE, now)), 5);
+
+        assertEquals(List.of(false, true, true), results.stream().map(Optional::isPresent).toList());
+        assertEquals(3, repository.count());
+        assertTrue(repository.findById(4L).isPresent());
+    }
+
+    @Test
+    void testParallelScansMatchSequentialOrder() throws IOException {
+        for (long id = 1; id <= 40; id++) {
+            TransactionType type = id % 2 == 0 ? TransactionType.EXPENSE : TransactionType.INCOME;
+            repository.save(new Transaction(id, BigDecimal.valueOf(id % 7), "行" + id, type, now.minusMinutes(id)));
+        }
+        repository.deleteById(10L);
+        TransactionQuery query = TransactionQuery.builder()
+                .type(TransactionType.EXPENSE)
+                .sort(TransactionQuery.Sort.AMOUNT_DESC)
+                .page(1, 5)
+                .build();
+        List<Transaction> expenses = repository.findByType(TransactionType.EXPENSE);
+        List<Transaction> page = repository.findByQuery(query);
+        repository.close();
+
+        // 每段3行，40行被切分到扫描线程池的多个分段上
+        ParallelScanEngine engine = new ParallelScanEngine(4, 3);
+        try {
+            repository = new MappedColumnarTransactionRepository(storeDirectory, CHUNK_ROWS, engine);
+            assertEquals(ids(expenses), ids(repository.findByType(TransactionType.EXPENSE)));
+            assertEquals(ids(page), ids(repository.findByQuery(query)));
+
+            long[] totals = repository.aggregate(TransactionQuery.builder().type(TransactionType.EXPENSE).build(),
+                    () -> new long[2],
+                    (result, transaction) -> {
+                        result[0]++;
+                        result[1] += transaction.getAmountMinorUnits();
+                    },
+                    (left, right) -> {
+                        left[0] += right[0];
+                        left[1] += right[1];
+                        return left;
+                    });
+            assertEquals(19, totals[0]);
+            assertEquals(expenses.stream().mapToLong(Transaction::getAmountMinorUnits).sum(), totals[1]);
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    void testReopenRestoresRowsAndIdAllocator() throws IOException {
+        long highId = 5000;
+        for (long id = 1; id <= 6; id++) {
+            repository.save(new Transaction(id, BigDecimal.valueOf(id), "持久化" + id, TransactionType.TRANSFER, now));
+        }
+        repository.save(new Transaction(highId, new BigDecimal("1.00"), "高位ID", TransactionType.INCOME, now));
+        repository.deleteById(2L);
+        // 已删除行的ID同样不会再分配
+        repository.deleteById(highId);
+        repository.close();
+
+        repository = new MappedColumnarTransactionRepository(storeDirectory, CHUNK_ROWS);
+        assertEquals(5, repository.count());
+        assertFalse(repository.findById(2L).isPresent());
+        assertEquals("持久化6", repository.findById(6L).orElseThrow().getDescription());
+        Transaction created = repository.save(new Transaction(new BigDecimal("8.00"), "新交易", TransactionType.EXPENSE));
+        assertTrue(created.getId() > highId);
+        repository.deleteById(created.getId());
+
+        // 重启后字符串堆从原有末尾继续追加，不覆盖已有描述
+        repository.save(new Transaction(7L, new BigDecimal("7.00"), "重启后写入", TransactionType.INCOME, now));
+        assertEquals("持久化1", repository.findById(1L).orElseThrow().getDescription());
+        assertEquals("重启后写入", repository.findById(7L).orElseThrow().getDescription());
+    }
+
+    private static List<Long> ids(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getId).toList();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.banking.repository;
+
+import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionQuery;
+import com.example.banking.model.TransactionType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeteredTransactionRepositoryTest {
+
+    private MeterRegistry registry;
+    private TransactionRepositoryImpl store;
+    private MeteredTransactionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        store = new TransactionRepositoryImpl();
+        repository = new MeteredTransactionRepository(store, registry);
+    }
+
+    @Test
+    void recordsEachOperationUnderItsOwnTag() {
+        Transaction saved = repository.save(new Transaction(new BigDecimal("10.00"), "午餐", TransactionType.EXPENSE));
+        repository.findById(saved.getId());
+        repository.findById(saved.getId());
+        repository.deleteById(saved.getId());
+
+        assertEquals(1, timerCount("save"));
+        assertEquals(2, timerCount("findById"));
+        assertEquals(1, timerCount("deleteById"));
+        assertEquals(0, timerCount("findAll"));
+    }
+
+    @Test
+    void recordsFailedCalls() {
+        assertThrows(NullPointerException.class, () -> repository.save(null));
+        assertEquals(1, timerCount("save"));
+    }
+
+    @Test
+    void recordsStreamWhenClosed() {
+        repository.save(new Transaction(new BigDecimal("10.00"), "午餐", TransactionType.EXPENSE));
+
+        Stream<Transaction> rows = repository.stream(TransactionQuery.builder().build());
+        assertEquals(0, timerCount("stream"));
+        assertEquals(1, rows.count());
+        rows.close();
+        assertEquals(1, timerCount("stream"));
+    }
+
+    @Test
+    void gaugesFollowStoreAndIndexSizes() {
+        repository.save(new Transaction(new BigDecimal("10.00"), "午餐", TransactionType.EXPENSE));
+        repository.save(new Transaction(new BigDecimal("20.00"), "工资", TransactionType.INCOME));
+
+        assertEquals(2.0, registry.get("transaction.store.size").gauge().value());
+        assertEquals(2.0, indexSize("type"));
+        assertEquals(2.0, indexSize("amount"));
+        assertEquals(2.0, indexSize("timestamp"));
+        assertEquals(2.0, indexSize("duplicate"));
+
+        Long id = store.findAll().get(0).getId();
+        repository.deleteById(id);
+        assertEquals(1.0, registry.get("transaction.store.size").gauge().value());
+        assertEquals(1.0, indexSize("amount"));
+        assertEquals(1.0, indexSize("timestamp"));
+    }
+
+    private long timerCount(String operation) {
+        return registry.get(MeteredTransactionRepository.TIMER_NAME).tag("operation", operation).timer().count();
+    }
+
+    private double indexSize(String index) {
+        return registry.get("transaction.index.size").tag("index", index).gauge().value();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.banking.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelScanEngineTest {
+
+    private final ParallelScanEngine engine = new ParallelScanEngine(4, 100);
+
+    @AfterEach
+    void tearDown() {
+        engine.close();
+    }
+
+    @Test
+    void testReduceRangeKeepsRowOrderAcrossSegments() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        List<Integer> rows = engine.<List<Integer>>reduceRange(0, 10_000, ArrayList::new, (result, row) -> {
+            threads.add(Thread.currentThread().getName());
+            result.add(row);
+        }, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+
+        assertEquals(IntStream.range(0, 10_000).boxed().toList(), rows);
+        // 分段只在扫描线程池上执行，不占用公共池
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("transaction-scan-")), threads.toString());
+    }
+
+    @Test
+    void testReduceSplitsConcurrentCollections() {
+        ConcurrentHashMap<Integer, Long> values = new ConcurrentHashMap<>();
+        for (int i = 1; i <= 50_000; i++) {
+            values.put(i, (long) i);
+        }
+
+        long[] sum = engine.reduce(values.values().spliterator(), () -> new long[1],
+                (result, value) -> result[0] += value,
+                (left, right) -> {
+                    left[0] += right[0];
+                    return left;
+                });
+
+        assertEquals(50_000L * 50_001 / 2, sum[0]);
+    }
+
+    @Test
+    void testSmallInputsRunOnCallerThread() {
+        String caller = Thread.currentThread().getName();
+        List<String> threads = engine.<List<String>>reduceRange(0, 100, ArrayList::new,
+                (result, row) -> result.add(Thread.currentThread().getName()),
+                (left, right) -> left);
+
+        assertTrue(threads.stream().allMatch(caller::equals));
+
+        ParallelScanEngine sequential = ParallelScanEngine.sequential();
+        assertEquals(1, sequential.getParallelism());
+        int[] count = sequential.reduceRange(0, 100_000, () -> new int[1], (result, row) -> result[0]++,
+                (left, right) -> left);
+        assertEquals(100_000, count[0]);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.banking.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdAllocatorTest {
+
+    private static final long NOW = SnowflakeIdAllocator.EPOCH_MILLIS + 86_400_000L;
+
+    @Test
+    void testIdsEncodeTimeAndNode() {
+        SnowflakeIdAllocator allocator = new SnowflakeIdAllocator(5, () -> NOW);
+
+        long id = allocator.nextId();
+
+        assertTrue(id > 0);
+        assertEquals(NOW, SnowflakeIdAllocator.timestampMillis(id));
+        assertEquals(5, (id >>> (SnowflakeIdAllocator.SEQUENCE_BITS + SnowflakeIdAllocator.STRIPE_BITS))
+                & SnowflakeIdAllocator.MAX_NODE_ID);
+        assertNotEquals(id, new SnowflakeIdAllocator(6, () -> NOW).nextId());
+    }
+
+    @Test
+    void testSequenceOverflowAndClockRollbackStayUnique() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdAllocator allocator = new SnowflakeIdAllocator(1, clock::get);
+        Set<Long> ids = new HashSet<>();
+        long previous = 0;
+
+        // 同一毫秒内超过序号容量时借用下一毫秒，时钟回拨后仍继续递增
+        for (int i = 0; i < 1_000; i++) {
+            long id = allocator.nextId();
+            assertTrue(id > previous);
+            assertTrue(ids.add(id));
+            previous = id;
+        }
+        clock.set(NOW - 10_000);
+        assertTrue(allocator.nextId() > previous);
+    }
+
+    @Test
+    void testObserveAdvancesPastRecoveredIds() {
+        SnowflakeIdAllocator before = new SnowflakeIdAllocator(3, () -> NOW);
+        long recovered = before.nextId();
+
+        // 重启后时钟落后于已分配的ID
+        SnowflakeIdAllocator restarted = new SnowflakeIdAllocator(3, () -> NOW - 60_000);
+        restarted.observe(recovered);
+        // 其他节点的ID不影响本节点
+        restarted.observe(new SnowflakeIdAllocator(4, () -> NOW + 60_000).nextId());
+
+        long next = restarted.nextId();
+        assertTrue(next > recovered);
+        assertEquals(NOW, SnowflakeIdAllocator.timestampMillis(next));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdAllocator(1024));
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.banking.repository;
 
 import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionCursor;
+import com.example.banking.model.TransactionQuery;
 import com.example.banking.model.TransactionType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,8 +10,15 @@ import org.junit.jupiter.api.Test;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -50,26 +59,61 @@ public class TransactionRepositoryImplTest {
         assertEquals(testTransaction.getTimestamp(), saved.getTimestamp());
     }
     
+    @Test
+    void testSave_assignsIdOnlyToStoredTransactions() {
+        Transaction first = repository.save(new Transaction(new BigDecimal("10.00"), "分配ID", TransactionType.INCOME));
+        assertNotNull(first.getId());
+        
+        // 被判定为重复的交易不占用ID，下一笔交易拿到紧随其后的ID
+        assertFalse(repository.saveIfNotDuplicate(
+                new Transaction(new BigDecimal("10.00"), "分配ID", TransactionType.INCOME), 5).isPresent());
+        Transaction second = repository.saveIfNotDuplicate(
+                new Transaction(new BigDecimal("20.00"), "分配ID", TransactionType.INCOME), 5).orElseThrow();
+        assertEquals(first.getId() + 1, second.getId());
+        assertEquals(2, repository.count());
+    }
+    
     @Test
     void testSave_existingTransaction() {
         // 先保存交易
         Transaction saved = repository.save(testTransaction);
         Long id = saved.getId();
         
-        // 修改并再次保存
-        saved.setAmount(new BigDecimal("200.75"));
-        saved.setDescription("更新的交易");
-        saved.setType(TransactionType.EXPENSE);
+        // 生成新版本并再次保存
+        Transaction updated = repository.save(saved
+                .withAmount(new BigDecimal("200.75"))
+                .withDescription("更新的交易")
+                .withType(TransactionType.EXPENSE));
         
-        Transaction updated = repository.save(saved);
-        
-        // 验证更新成功且ID保持不变
+        // 验证更新成功、ID保持不变且版本号递增
         assertEquals(id, updated.getId());
+        assertEquals(1, saved.getVersion());
+        assertEquals(2, updated.getVersion());
         assertEquals(new BigDecimal("200.75"), updated.getAmount());
         assertEquals("更新的交易", updated.getDescription());
         assertEquals(TransactionType.EXPENSE, updated.getType());
     }
     
+    @Test
+    void testModificationVersion_advancesOnEveryEffectiveWrite() {
+        assertEquals(0, repository.modificationVersion());
+        Transaction saved = repository.save(testTransaction);
+        assertEquals(1, repository.modificationVersion());
+
+        repository.update(saved.getId(), transaction -> transaction.withDescription("修改后"));
+        assertEquals(2, repository.modificationVersion());
+
+        // 重复、不存在的ID等没有实际写入的调用不改变版本号
+        assertFalse(repository.saveIfNotDuplicate(
+                new Transaction(testTransaction.getAmount(), "修改后", testTransaction.getType()), 5).isPresent());
+        assertFalse(repository.update(999L, transaction -> transaction).isPresent());
+        assertFalse(repository.deleteById(999L));
+        assertEquals(2, repository.modificationVersion());
+
+        assertTrue(repository.deleteById(saved.getId()));
+        assertEquals(3, repository.modificationVersion());
+    }
+
     @Test
     void testFindById_existing() {
         // 先保存交易
@@ -367,6 +411,350 @@ public class TransactionRepositoryImplTest {
         assertTrue(duplicates.isEmpty());
     }
     
+    @Test
+    void testIndexes_followNewVersion() {
+        setupMultipleTransactions();
+        
+        // 以修改了金额和类型的新版本覆盖已保存的交易
+        Transaction transaction = repository.findById(2L).orElseThrow();
+        repository.save(transaction.withAmount(new BigDecimal("500.00")).withType(TransactionType.TRANSFER));
+        
+        // 旧的索引条目应被移除
+        assertTrue(repository.findByType(TransactionType.EXPENSE).isEmpty());
+        assertTrue(repository.findByAmountRange(new BigDecimal("50.00"), new BigDecimal("60.00")).isEmpty());
+        
+        // 新的索引条目可被查询到
+        assertEquals(2, repository.findByType(TransactionType.TRANSFER).size());
+        List<Transaction> result = repository.findByAmountRange(new BigDecimal("400.00"), null);
+        assertEquals(1, result.size());
+        assertEquals(2L, result.get(0).getId());
+    }
+    
+    @Test
+    void testIndexes_afterDelete() {
+        setupMultipleTransactions();
+        
+        repository.deleteById(4L);
+        
+        assertTrue(repository.findByType(TransactionType.TRANSFER).isEmpty());
+        assertTrue(repository.findByAmountRange(new BigDecimal("200.00"), new BigDecimal("200.00")).isEmpty());
+        assertEquals(2, repository.findByDateRange(null, now.minusDays(1)).size());
+    }
+    
+    @Test
+    void testFindByAmountRange_invertedRange() {
+        setupMultipleTransactions();
+        
+        List<Transaction> result = repository.findByAmountRange(
+                new BigDecimal("150.00"), 
+                new BigDecimal("50.00"));
+        
+        assertTrue(result.isEmpty());
+    }
+    
+    @Test
+    void testFindByQuery_filtersSortsAndPages() {
+        setupMultipleTransactions();
+        
+        // 默认按时间倒序
+        List<Transaction> all = repository.findByQuery(TransactionQuery.builder().page(0, 10).build());
+        assertEquals(4, all.size());
+        assertEquals(1L, all.get(0).getId());
+        assertEquals(4L, all.get(3).getId());
+        
+        // 组合过滤：收入类型且金额不低于100
+        List<Transaction> income = repository.findByQuery(TransactionQuery.builder()
+                .type(TransactionType.INCOME)
+                .amountRange(new BigDecimal("100.00"), null)
+                .sort(TransactionQuery.Sort.AMOUNT_DESC)
+                .page(0, 10)
+                .build());
+        assertEquals(2, income.size());
+        assertEquals(3L, income.get(0).getId());
+        assertEquals(1L, income.get(1).getId());
+        
+        // 分页在过滤之后进行
+        List<Transaction> secondPage = repository.findByQuery(TransactionQuery.builder()
+                .dateRange(now.minusDays(1).truncatedTo(ChronoUnit.DAYS), null)
+                .sort(TransactionQuery.Sort.AMOUNT_ASC)
+                .page(1, 2)
+                .build());
+        assertEquals(1, secondPage.size());
+        assertEquals(3L, secondPage.get(0).getId());
+    }
+    
+    @Test
+    void testFindByQuery_withCursor() {
+        setupMultipleTransactions();
+        
+        List<Transaction> firstPage = repository.findByQuery(TransactionQuery.builder().page(0, 2).build());
+        assertEquals(List.of(1L, 3L), firstPage.stream().map(Transaction::getId).toList());
+        
+        // 翻页期间插入更新的交易，不应影响后续页
+        repository.save(new Transaction(5L, new BigDecimal("10.00"), "新交易", TransactionType.INCOME, now.plusMinutes(1)));
+        
+        List<Transaction> secondPage = repository.findByQuery(TransactionQuery.builder()
+                .page(0, 2)
+                .after(TransactionCursor.after(firstPage.get(1)))
+                .build());
+        assertEquals(List.of(2L, 4L), secondPage.stream().map(Transaction::getId).toList());
+        
+        List<Transaction> lastPage = repository.findByQuery(TransactionQuery.builder()
+                .page(0, 2)
+                .after(TransactionCursor.after(secondPage.get(1)))
+                .build());
+        assertTrue(lastPage.isEmpty());
+        
+        // 升序游标同样生效，且与日期范围组合
+        List<Transaction> ascending = repository.findByQuery(TransactionQuery.builder()
+                .sort(TransactionQuery.Sort.TIMESTAMP_ASC)
+                .dateRange(null, now)
+                .page(0, 10)
+                .after(TransactionCursor.after(repository.findById(4L).orElseThrow()))
+                .build());
+        assertEquals(List.of(2L, 3L, 1L), ascending.stream().map(Transaction::getId).toList());
+    }
+    
+    @Test
+    void testFindByQuery_selectiveRangeMatchesIndexWalk() {
+        // 金额 1.00~100.00 循环，时间逐分钟递减，行数超过选择性区间的阈值
+        int rows = TransactionRepositoryImpl.SELECTIVE_RANGE_LIMIT * 2;
+        for (long id = 1; id <= rows; id++) {
+            repository.save(new Transaction(id, BigDecimal.valueOf(id % 100 + 1), "交易" + id,
+                    TransactionType.values()[(int) (id % 3)], now.minusMinutes(id)));
+        }
+
+        // 窄金额区间由金额索引驱动，宽金额区间沿时间索引遍历，两者的结果都应与逐条过滤排序一致
+        for (BigDecimal max : List.of(new BigDecimal("3.00"), new BigDecimal("90.00"))) {
+            TransactionQuery.Builder builder = TransactionQuery.builder()
+                    .type(TransactionType.INCOME)
+                    .amountRange(new BigDecimal("2.00"), max)
+                    .page(0, 25);
+            List<Transaction> expected = repository.findAll().stream()
+                    .filter(builder.build()::matches)
+                    .sorted(Comparator.comparing(Transaction::getTimestamp).thenComparing(Transaction::getId).reversed())
+                    .toList();
+
+            List<Transaction> firstPage = repository.findByQuery(builder.build());
+            assertEquals(ids(expected.subList(0, 25)), ids(firstPage));
+            List<Transaction> nextPage = repository.findByQuery(builder
+                    .after(TransactionCursor.after(firstPage.get(24)))
+                    .build());
+            assertEquals(ids(expected.subList(25, 50)), ids(nextPage));
+        }
+
+        // 窄日期区间按金额排序
+        TransactionQuery byAmount = TransactionQuery.builder()
+                .dateRange(now.minusMinutes(300), now.minusMinutes(100))
+                .sort(TransactionQuery.Sort.AMOUNT_DESC)
+                .page(1, 10)
+                .build();
+        List<Transaction> expected = repository.findAll().stream()
+                .filter(byAmount::matches)
+                .sorted(Comparator.comparing(Transaction::getAmount).thenComparing(Transaction::getId).reversed())
+                .skip(10)
+                .limit(10)
+                .toList();
+        assertEquals(ids(expected), ids(repository.findByQuery(byAmount)));
+    }
+
+    @Test
+    void testStream_appliesFiltersIgnoringPagination() {
+        setupMultipleTransactions();
+        
+        TransactionQuery query = TransactionQuery.builder()
+                .amountRange(new BigDecimal("60"), null)
+                .sort(TransactionQuery.Sort.AMOUNT_ASC)
+                .page(0, 1)
+                .build();
+        
+        // 分页参数被忽略，按指定顺序返回全部匹配的交易
+        assertEquals(List.of(1L, 3L, 4L), repository.stream(query).map(Transaction::getId).toList());
+    }
+    
+    @Test
+    void testSaveIfNotDuplicate() {
+        repository.save(testTransaction);
+        
+        // 金额写法不同（100.5 与 100.50）但数值相同，仍视为重复
+        Transaction duplicate = new Transaction(2L, new BigDecimal("100.5"), "测试交易", TransactionType.INCOME, now);
+        assertTrue(repository.saveIfNotDuplicate(duplicate, 5).isEmpty());
+        assertEquals(1, repository.count());
+        
+        // 描述不同则不是重复
+        Transaction other = new Transaction(3L, new BigDecimal("100.50"), "另一笔交易", TransactionType.INCOME, now);
+        assertTrue(repository.saveIfNotDuplicate(other, 5).isPresent());
+        assertEquals(2, repository.count());
+    }
+    
+    @Test
+    void testSaveIfNotDuplicate_followsUpdatesAndDeletes() {
+        repository.save(testTransaction);
+        
+        // 原交易被修改描述后，原指纹不再构成重复
+        repository.save(testTransaction.withDescription("已修改"));
+        Transaction sameAsOriginal = new Transaction(2L, new BigDecimal("100.50"), "测试交易", TransactionType.INCOME, now);
+        assertTrue(repository.saveIfNotDuplicate(sameAsOriginal, 5).isPresent());
+        
+        // 删除后同一指纹可以再次创建
+        repository.deleteById(2L);
+        Transaction again = new Transaction(3L, new BigDecimal("100.50"), "测试交易", TransactionType.INCOME, now);
+        assertTrue(repository.saveIfNotDuplicate(again, 5).isPresent());
+    }
+    
+    @Test
+    void testSaveIfNotDuplicate_outsideTimeWindow() {
+        repository.save(new Transaction(1L, new BigDecimal("100.50"), "测试交易", TransactionType.INCOME,
+                LocalDateTime.now().minusMinutes(6)));
+        
+        Transaction fresh = new Transaction(2L, new BigDecimal("100.50"), "测试交易", TransactionType.INCOME, now);
+        assertTrue(repository.saveIfNotDuplicate(fresh, 5).isPresent());
+    }
+    
+    @Test
+    void testSaveAll() {
+        repository.save(testTransaction);
+        
+        List<Optional<Transaction>> results = repository.saveAll(List.of(
+                new Transaction(2L, new BigDecimal("20.00"), "批量一", TransactionType.EXPENSE, now),
+                new Transaction(3L, new BigDecimal("100.5"), "测试交易", TransactionType.INCOME, now),
+                new Transaction(4L, new BigDecimal("30.00"), "批量二", TransactionType.TRANSFER, now)), 5);
+        
+        // 结果与输入一一对应，与已有交易重复的条目被跳过
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isPresent());
+        assertTrue(results.get(1).isEmpty());
+        assertTrue(results.get(2).isPresent());
+        assertEquals(3, repository.count());
+        assertEquals(1, repository.findByType(TransactionType.TRANSFER).size());
+    }
+    
+    @Test
+    void testUpdate_copyOnWrite() {
+        repository.save(testTransaction);
+        
+        Transaction before = repository.findById(1L).orElseThrow();
+        Transaction updated = repository.update(1L, transaction -> transaction
+                .withAmount(new BigDecimal("300.00"))
+                .withType(TransactionType.EXPENSE)).orElseThrow();
+        
+        // 旧版本不变，存储和索引指向新版本
+        assertEquals(new BigDecimal("100.50"), before.getAmount());
+        assertEquals(1, before.getVersion());
+        assertEquals(2, updated.getVersion());
+        assertSame(updated, repository.findById(1L).orElseThrow());
+        assertTrue(repository.findByType(TransactionType.INCOME).isEmpty());
+        assertEquals(1, repository.findByAmountRange(new BigDecimal("300"), null).size());
+        assertFalse(repository.update(999L, transaction -> transaction).isPresent());
+        assertThrows(IllegalArgumentException.class, () -> repository.update(1L, transaction -> new Transaction(2L,
+                transaction.getAmountMinorUnits(), transaction.getDescription(), transaction.getType(),
+                transaction.getTimestampMicros())));
+        assertEquals(1, repository.count());
+    }
+    
+    @Test
+    void testUpdate_concurrentUpdatesOnSameKeyAreLinearizable() throws Exception {
+        repository.save(new Transaction(1L, 0L, "0", TransactionType.INCOME, 1L));
+        repository.save(new Transaction(2L, 0L, "0", TransactionType.INCOME, 1L));
+        int threads = 8;
+        int updatesPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            long id = i % 2 + 1;
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < updatesPerThread; j++) {
+                    // 金额和描述在同一次修改中一起变化
+                    repository.update(id, transaction -> new Transaction(transaction.getId(),
+                            transaction.getAmountMinorUnits() + 1, String.valueOf(transaction.getAmountMinorUnits() + 1),
+                            transaction.getType(), transaction.getTimestampMicros()));
+                }
+                return null;
+            }));
+        }
+        Future<Integer> reader = executor.submit(() -> {
+            start.await();
+            int torn = 0;
+            while (!writers.stream().allMatch(Future::isDone)) {
+                Transaction current = repository.findById(1L).orElseThrow();
+                if (!String.valueOf(current.getAmountMinorUnits()).equals(current.getDescription())) {
+                    torn++;
+                }
+            }
+            return torn;
+        });
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        
+        // 没有丢失的修改，读取方也没有看到修改了一半的交易
+        assertEquals(0, reader.get(30, TimeUnit.SECONDS));
+        assertEquals(threads / 2 * updatesPerThread, repository.findById(1L).orElseThrow().getAmountMinorUnits());
+        assertEquals(threads / 2 * updatesPerThread, repository.findById(2L).orElseThrow().getAmountMinorUnits());
+        executor.shutdown();
+    }
+    
+    @Test
+    void testAggregate() {
+        repository = new TransactionRepositoryImpl((TransactionWriteAheadLog) null, null, new ParallelScanEngine(4, 2));
+        setupMultipleTransactions();
+        
+        // 无范围条件时在扫描线程池上并行累加，有范围条件时沿索引顺序累加，结果相同
+        assertEquals(4, sumAmounts(TransactionQuery.builder().build()).size());
+        assertEquals(List.of(10050L, 15075L), sumAmounts(TransactionQuery.builder().type(TransactionType.INCOME).build()));
+        assertEquals(List.of(5025L, 15075L), sumAmounts(TransactionQuery.builder()
+                .dateRange(now.minusDays(1).minusHours(1), now.minusHours(1)).build()));
+        assertEquals(List.of(20000L), sumAmounts(TransactionQuery.builder()
+                .type(TransactionType.TRANSFER).amountRange(new BigDecimal("150"), null).build()));
+    }
+    
+    @Test
+    void testSaveIfNotDuplicate_concurrentIdenticalRequests() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            long id = 100L + i;
+            results.add(executor.submit(() -> {
+                start.await();
+                Transaction transaction = new Transaction(id, new BigDecimal("88.80"), "并发重复", TransactionType.EXPENSE, LocalDateTime.now());
+                return repository.saveIfNotDuplicate(transaction, 5).isPresent();
+            }));
+        }
+        start.countDown();
+        
+        int saved = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(10, TimeUnit.SECONDS)) {
+                saved++;
+            }
+        }
+        executor.shutdown();
+        
+        // 并发的相同请求只能有一个通过检查
+        assertEquals(1, saved);
+        assertEquals(1, repository.count());
+    }
+    
+    private List<Long> sumAmounts(TransactionQuery query) {
+        List<Long> amounts = repository.aggregate(query, ArrayList::new,
+                (result, transaction) -> result.add(transaction.getAmountMinorUnits()),
+                (left, right) -> {
+                    left.addAll(right);
+                    return left;
+                });
+        amounts.sort(null);
+        return amounts;
+    }
+    
+    private static List<Long> ids(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getId).toList();
+    }
+    
     /**
      * 初始化多个测试交易
      */
@@ -0,0 +1,204 @@
+package com.example.banking.repository;
+
+import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 快照与日志压缩测试
+ */
+class TransactionSnapshotStoreTest {
+
+    @TempDir
+    Path dataDirectory;
+
+    private final List<TransactionWriteAheadLog> openLogs = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        closeAll();
+    }
+
+    @Test
+    void testRestartFromSnapshotAndLogTail() throws IOException {
+        TransactionRepositoryImpl repository = openRepository();
+        LocalDateTime timestamp = LocalDateTime.of(2024, 6, 1, 8, 0, 0, 987654000);
+        repository.save(new Transaction(1L, new BigDecimal("100.50"), "工资", TransactionType.INCOME, timestamp));
+        repository.save(new Transaction(2L, new BigDecimal("20.00"), null, TransactionType.EXPENSE, timestamp));
+        repository.save(new Transaction(3L, new BigDecimal("300"), "转账", TransactionType.TRANSFER, timestamp));
+        assertTrue(repository.checkpoint());
+
+        // 快照之后的修改只存在于日志尾部
+        Transaction updated = repository.findById(2L).orElseThrow();
+        repository.save(updated.withAmount(new BigDecimal("25.75")));
+        repository.deleteById(3L);
+        repository.save(new Transaction(4L, new BigDecimal("4.00"), "快照后新增", TransactionType.EXPENSE, timestamp));
+        closeAll();
+
+        TransactionRepositoryImpl recovered = openRepository();
+        assertEquals(3, recovered.count());
+        Transaction first = recovered.findById(1L).orElseThrow();
+        assertEquals(new BigDecimal("100.50"), first.getAmount());
+        assertEquals("工资", first.getDescription());
+        assertEquals(timestamp, first.getTimestamp());
+        assertEquals(new BigDecimal("25.75"), recovered.findById(2L).orElseThrow().getAmount());
+        assertEquals(2, recovered.findById(2L).orElseThrow().getVersion());
+        assertEquals(1, first.getVersion());
+        assertFalse(recovered.findById(3L).isPresent());
+        assertTrue(recovered.findById(4L).isPresent());
+        assertEquals(2, recovered.findByType(TransactionType.EXPENSE).size());
+    }
+
+    @Test
+    void testCheckpointRemovesCoveredSegments() throws IOException {
+        TransactionRepositoryImpl repository = openRepository();
+        for (long id = 1; id <= 3; id++) {
+            repository.save(new Transaction(id, new BigDecimal(id), "第一批", TransactionType.INCOME, null));
+            // 每次快照切换一个新段
+            assertTrue(repository.checkpoint());
+        }
+
+        // 只保留快照重放起点之后的日志段，以及唯一一个快照
+        assertEquals(2, files(".wal").size());
+        assertEquals(1, files(".snap").size());
+        closeAll();
+        assertEquals(3, openRepository().count());
+    }
+
+    @Test
+    void testCheckpointSkippedWithoutNewWrites() throws IOException {
+        TransactionRepositoryImpl repository = openRepository();
+        repository.save(new Transaction(1L, new BigDecimal("1.00"), "一次写入", TransactionType.INCOME, null));
+
+        assertTrue(repository.checkpoint());
+        assertFalse(repository.checkpoint());
+
+        repository.save(new Transaction(2L, new BigDecimal("2.00"), "再次写入", TransactionType.INCOME, null));
+        assertTrue(repository.checkpoint());
+    }
+
+    @Test
+    void testIdAllocatorAdvancedFromSnapshot() throws IOException {
+        TransactionRepositoryImpl repository = openRepository();
+        long highId = 5000;
+        repository.save(new Transaction(highId, new BigDecimal("1.00"), "高位ID", TransactionType.INCOME, null));
+        repository.checkpoint();
+        closeAll();
+
+        TransactionRepositoryImpl recovered = openRepository();
+
+        Transaction created = recovered.save(new Transaction(new BigDecimal("3.00"), "重启后新增", TransactionType.EXPENSE));
+        assertTrue(created.getId() > highId);
+    }
+
+    @Test
+    void testDeletedHighestIdNotReissuedAfterCheckpoint() throws IOException {
+        TransactionRepositoryImpl repository = openRepository();
+        repository.save(new Transaction(1L, new BigDecimal("1.00"), "保留", TransactionType.INCOME, null));
+        Transaction highest = repository.save(new Transaction(new BigDecimal("2.00"), "已删除", TransactionType.INCOME));
+        repository.deleteById(highest.getId());
+        // 快照只含存活交易；再做一次快照后，删除记录所在的日志段被清理
+        assertTrue(repository.checkpoint());
+        repository.update(1L, transaction -> transaction.withDescription("再次修改"));
+        assertTrue(repository.checkpoint());
+        closeAll();
+
+        TransactionRepositoryImpl recovered = openRepository();
+
+        Transaction created = recovered.save(new Transaction(new BigDecimal("3.00"), "重启后新增", TransactionType.EXPENSE));
+        assertTrue(created.getId() > highest.getId());
+    }
+
+    @Test
+    void testCheckpointDoesNotLoseConcurrentWrites() throws Exception {
+        TransactionRepositoryImpl repository = openRepository();
+        int threads = 4;
+        int perThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long base = t * 10_000L;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 1; i <= perThread; i++) {
+                    repository.save(new Transaction(base + i, new BigDecimal(i), "并发写入", TransactionType.INCOME, null));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        // 写入进行期间反复生成快照
+        Future<?> checkpoints = Executors.newSingleThreadExecutor().submit(() -> {
+            while (writing.get()) {
+                repository.checkpoint();
+            }
+        });
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        checkpoints.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+        closeAll();
+
+        assertEquals(threads * perThread, openRepository().count());
+    }
+
+    @Test
+    void testCorruptedSnapshotFailsRecovery() throws IOException {
+        TransactionRepositoryImpl repository = openRepository();
+        repository.save(new Transaction(1L, new BigDecimal("10.00"), "快照数据", TransactionType.INCOME, null));
+        repository.checkpoint();
+        closeAll();
+
+        Path snapshot = files(".snap").get(0);
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7F}), 20);
+        }
+
+        assertThrows(UncheckedIOException.class, this::openRepository);
+    }
+
+    private TransactionRepositoryImpl openRepository() throws IOException {
+        TransactionWriteAheadLog log = new TransactionWriteAheadLog(dataDirectory, 100, true);
+        openLogs.add(log);
+        return new TransactionRepositoryImpl(log, new TransactionSnapshotStore(dataDirectory));
+    }
+
+    private void closeAll() throws IOException {
+        for (TransactionWriteAheadLog log : openLogs) {
+            log.close();
+        }
+        openLogs.clear();
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (var files = Files.list(dataDirectory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.banking.repository;
+
+import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 预写日志的持久化与崩溃恢复测试
+ */
+class TransactionWriteAheadLogTest {
+
+    @TempDir
+    Path walDirectory;
+
+    private final List<TransactionWriteAheadLog> openLogs = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (TransactionWriteAheadLog log : openLogs) {
+            log.close();
+        }
+    }
+
+    @Test
+    void testRecoverAfterRestart() throws IOException {
+        TransactionRepositoryImpl repository = openRepository();
+        LocalDateTime timestamp = LocalDateTime.of(2024, 5, 1, 9, 30, 15, 123456000);
+        repository.save(new Transaction(1L, new BigDecimal("100.50"), "工资", TransactionType.INCOME, timestamp));
+        repository.save(new Transaction(2L, new BigDecimal("20.00"), null, TransactionType.EXPENSE, timestamp));
+        repository.save(new Transaction(3L, new BigDecimal("300"), "转账", TransactionType.TRANSFER, timestamp));
+
+        // 更新和删除同样需要被重放
+        Transaction updated = repository.findById(2L).orElseThrow();
+        repository.save(updated.withAmount(new BigDecimal("25.75")).withDescription("午餐"));
+        repository.deleteById(3L);
+        closeAll();
+
+        TransactionRepositoryImpl recovered = openRepository();
+
+        assertEquals(2, recovered.count());
+        Transaction first = recovered.findById(1L).orElseThrow();
+        assertEquals(new BigDecimal("100.50"), first.getAmount());
+        assertEquals("工资", first.getDescription());
+        assertEquals(TransactionType.INCOME, first.getType());
+        assertEquals(timestamp, first.getTimestamp());
+
+        Transaction second = recovered.findById(2L).orElseThrow();
+        assertEquals(new BigDecimal("25.75"), second.getAmount());
+        assertEquals("午餐", second.getDescription());
+        // 版本号随日志一起恢复
+        assertEquals(2, second.getVersion());
+        assertEquals(1, first.getVersion());
+        assertFalse(recovered.findById(3L).isPresent());
+
+        // 索引同样被重建
+        assertEquals(1, recovered.findByType(TransactionType.EXPENSE).size());
+        assertTrue(recovered.findByType(TransactionType.TRANSFER).isEmpty());
+    }
+
+    @Test
+    void testIdAllocatorAdvancedAfterRecovery() throws IOException {
+        TransactionRepositoryImpl repository = openRepository();
+        long highId = 5000;
+        repository.save(new Transaction(highId, new BigDecimal("1.00"), "高位ID", TransactionType.INCOME, null));
+        // 已删除交易的ID同样不会再分配
+        repository.save(new Transaction(highId + 1, new BigDecimal("2.00"), "已删除", TransactionType.INCOME, null));
+        repository.deleteById(highId + 1);
+        closeAll();
+
+        TransactionRepositoryImpl recovered = openRepository();
+
+        Transaction created = recovered.save(new Transaction(new BigDecimal("3.00"), "重启后新增", TransactionType.EXPENSE));
+        assertTrue(created.getId() > highId + 1);
+    }
+
+    @Test
+    void testTornTailIsTruncated() throws IOException {
+        TransactionRepositoryImpl repository = openRepository();
+        repository.save(new Transaction(1L, new BigDecimal("10.00"), "完整记录", TransactionType.INCOME, null));
+        closeAll();
+
+        // 模拟崩溃时只写入了一半的记录
+        Path segment = singleSegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer partial = ByteBuffer.allocate(12);
+            partial.putInt(64).putInt(12345).putInt(7).flip();
+            channel.write(partial);
+        }
+        long tornSize = Files.size(segment);
+
+        TransactionRepositoryImpl recovered = openRepository();
+        assertEquals(1, recovered.count());
+        assertTrue(Files.size(segment) < tornSize);
+
+        // 截断后可以继续追加，再次重启数据完整
+        recovered.save(new Transaction(2L, new BigDecimal("20.00"), "恢复后写入", TransactionType.EXPENSE, null));
+        closeAll();
+        assertEquals(2, openRepository().count());
+    }
+
+    @Test
+    void testConcurrentWritersShareGroupCommit() throws Exception {
+        TransactionRepositoryImpl repository = openRepository();
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long base = t * 10_000L;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 1; i <= perThread; i++) {
+                    repository.save(new Transaction(base + i, new BigDecimal(i), "并发写入", TransactionType.INCOME, null));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        closeAll();
+
+        assertEquals(threads * perThread, openRepository().count());
+    }
+
+    @Test
+    void testSegmentsRollWhenFull() throws IOException {
+        TransactionWriteAheadLog log = new TransactionWriteAheadLog(walDirectory, 100, true, 256);
+        openLogs.add(log);
+        TransactionRepositoryImpl repository = new TransactionRepositoryImpl(log);
+        for (long id = 1; id <= 20; id++) {
+            repository.save(new Transaction(id, new BigDecimal(id), "分段写入", TransactionType.INCOME, null));
+        }
+        closeAll();
+
+        try (var files = Files.list(walDirectory)) {
+            assertTrue(files.count() > 1);
+        }
+        assertEquals(20, openRepository().count());
+    }
+
+    @Test
+    void testDuplicateCheckDoesNotWaitForPendingFsync() throws Exception {
+        // 组提交窗口足够长，第一笔写入在断言期间一直处于等待落盘状态
+        TransactionWriteAheadLog log = new TransactionWriteAheadLog(walDirectory, TimeUnit.SECONDS.toMicros(3), true);
+        openLogs.add(log);
+        TransactionRepositoryImpl repository = new TransactionRepositoryImpl(log);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Optional<Transaction>> first = executor.submit(() -> repository.saveIfNotDuplicate(
+                new Transaction(new BigDecimal("10.00"), "等待落盘", TransactionType.INCOME), 5));
+        while (repository.count() == 0) {
+            Thread.onSpinWait();
+        }
+
+        // 相同指纹使用同一把分段锁，第一笔写入等待刷盘时不持有该锁
+        assertFalse(repository.saveIfNotDuplicate(
+                new Transaction(new BigDecimal("10.00"), "等待落盘", TransactionType.INCOME), 5).isPresent());
+        assertFalse(first.isDone());
+        assertTrue(first.get(10, TimeUnit.SECONDS).isPresent());
+        executor.shutdown();
+    }
+
+    @Test
+    void testWriteFailureStopsFurtherWrites() throws IOException {
+        TransactionWriteAheadLog log = new TransactionWriteAheadLog(walDirectory, 100, true);
+        openLogs.add(log);
+        TransactionRepositoryImpl repository = new TransactionRepositoryImpl(log);
+        repository.save(new Transaction(1L, new BigDecimal("10.00"), "已落盘", TransactionType.INCOME, null));
+
+        // 关闭刷盘线程使用的文件通道，模拟磁盘写入失败
+        ((FileChannel) ReflectionTestUtils.getField(log, "channel")).close();
+        assertThrows(UncheckedIOException.class, () -> repository.save(
+                new Transaction(2L, new BigDecimal("20.00"), "写入失败", TransactionType.INCOME, null)));
+        assertTrue(log.isFailed());
+
+        // 之后的写入在修改内存之前被拒绝，也不能切段做快照
+        assertThrows(UncheckedIOException.class, () -> repository.save(
+                new Transaction(3L, new BigDecimal("30.00"), "被拒绝", TransactionType.INCOME, null)));
+        assertThrows(UncheckedIOException.class, () -> repository.deleteById(1L));
+        assertThrows(UncheckedIOException.class, () -> repository.update(1L, t -> t.withDescription("被拒绝")));
+        assertTrue(repository.findById(3L).isEmpty());
+        assertEquals("已落盘", repository.findById(1L).orElseThrow().getDescription());
+        assertThrows(UncheckedIOException.class, log::rollSegment);
+        closeAll();
+
+        // 重启后只恢复已落盘的记录
+        TransactionRepositoryImpl recovered = openRepository();
+        assertEquals(1, recovered.count());
+        assertTrue(recovered.findById(1L).isPresent());
+    }
+
+    private TransactionRepositoryImpl openRepository() throws IOException {
+        TransactionWriteAheadLog log = new TransactionWriteAheadLog(walDirectory, 100, true);
+        openLogs.add(log);
+        return new TransactionRepositoryImpl(log);
+    }
+
+    private void closeAll() throws IOException {
+        for (TransactionWriteAheadLog log : openLogs) {
+            log.close();
+        }
+        openLogs.clear();
+    }
+
+    private Path singleSegment() throws IOException {
+        try (var files = Files.list(walDirectory)) {
+            List<Path> segments = files.toList();
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.banking.service;
+
+import com.example.banking.dto.TransactionDTO;
+import com.example.banking.exception.BusinessException;
+import com.example.banking.exception.TransactionNotFoundException;
+import com.example.banking.model.TransactionQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ConcurrencyLimitedTransactionServiceTest {
+
+    private TransactionService delegate;
+    private ConcurrencyLimitedTransactionService service;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(TransactionService.class);
+        service = new ConcurrencyLimitedTransactionService(delegate, 1, 50);
+    }
+
+    @Test
+    void rejectsWithServiceUnavailableWhenSaturated() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.getTransactionCount()).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await();
+            return 1L;
+        });
+
+        // 虚拟线程占住唯一的许可
+        CompletableFuture<Long> running = new CompletableFuture<>();
+        Thread.ofVirtual().start(() -> running.complete(service.getTransactionCount()));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        assertEquals(1, service.getInFlight());
+
+        BusinessException exception = assertThrows(BusinessException.class, () -> service.getTransactionById(1L));
+        assertEquals(503, exception.getStatusCode());
+        assertEquals("Service Overloaded", exception.getErrorType());
+        verify(delegate, never()).getTransactionById(any());
+
+        release.countDown();
+        assertEquals(1L, running.get(5, TimeUnit.SECONDS));
+        assertEquals(0, service.getInFlight());
+    }
+
+    @Test
+    void releasesPermitWhenDelegateThrows() {
+        when(delegate.getTransactionById(1L)).thenThrow(new TransactionNotFoundException(1L));
+
+        assertThrows(TransactionNotFoundException.class, () -> service.getTransactionById(1L));
+        assertEquals(0, service.getInFlight());
+    }
+
+    @Test
+    void exportHoldsPermitUntilStreamClosed() {
+        TransactionQuery query = TransactionQuery.builder().build();
+        when(delegate.exportTransactions(query)).thenReturn(Stream.of(new TransactionDTO()));
+
+        Stream<TransactionDTO> rows = service.exportTransactions(query);
+        assertEquals(1, service.getInFlight());
+        assertThrows(BusinessException.class, () -> service.getTransactionCount());
+
+        rows.close();
+        assertEquals(0, service.getInFlight());
+    }
+}
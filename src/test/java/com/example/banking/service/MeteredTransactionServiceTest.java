@@ -0,0 +1,85 @@
+package com.example.banking.service;
+
+import com.example.banking.dto.BatchItemResult;
+import com.example.banking.dto.BatchTransactionResponse;
+import com.example.banking.dto.CreateTransactionRequest;
+import com.example.banking.dto.TransactionDTO;
+import com.example.banking.exception.DuplicateTransactionException;
+import com.example.banking.exception.TransactionNotFoundException;
+import com.example.banking.model.TransactionQuery;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MeteredTransactionServiceTest {
+
+    private TransactionService delegate;
+    private MeterRegistry registry;
+    private MeteredTransactionService service;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(TransactionService.class);
+        registry = new SimpleMeterRegistry();
+        service = new MeteredTransactionService(delegate, registry);
+    }
+
+    @Test
+    void recordsEachMethodUnderItsOwnTag() {
+        when(delegate.getTransactionById(1L)).thenReturn(new TransactionDTO());
+        when(delegate.getTransactionById(2L)).thenThrow(new TransactionNotFoundException(2L));
+
+        service.getTransactionById(1L);
+        assertThrows(TransactionNotFoundException.class, () -> service.getTransactionById(2L));
+        service.getTransactionCount();
+
+        assertEquals(2, timerCount("getTransactionById"));
+        assertEquals(1, timerCount("getTransactionCount"));
+        assertEquals(0, timerCount("createTransaction"));
+    }
+
+    @Test
+    void countsRejectedDuplicatesBySource() {
+        when(delegate.createTransaction(any())).thenThrow(new DuplicateTransactionException("重复"));
+        when(delegate.createTransactions(any())).thenReturn(new BatchTransactionResponse(List.of(
+                BatchItemResult.created(0, 1L),
+                BatchItemResult.rejected(1, BatchItemResult.Status.DUPLICATE, "重复"),
+                BatchItemResult.rejected(2, BatchItemResult.Status.DUPLICATE, "重复"),
+                BatchItemResult.rejected(3, BatchItemResult.Status.INVALID, "无效"))));
+
+        assertThrows(DuplicateTransactionException.class,
+                () -> service.createTransaction(new CreateTransactionRequest()));
+        service.createTransactions(List.of());
+
+        assertEquals(1.0, duplicates("single"));
+        assertEquals(2.0, duplicates("batch"));
+        assertEquals(1, timerCount("createTransaction"));
+    }
+
+    @Test
+    void recordsExportWhenStreamClosed() {
+        TransactionQuery query = TransactionQuery.builder().build();
+        when(delegate.exportTransactions(query)).thenReturn(Stream.of(new TransactionDTO()));
+
+        Stream<TransactionDTO> rows = service.exportTransactions(query);
+        assertEquals(0, timerCount("exportTransactions"));
+        rows.close();
+        assertEquals(1, timerCount("exportTransactions"));
+    }
+
+    private long timerCount(String method) {
+        return registry.get(MeteredTransactionService.TIMER_NAME).tag("method", method).timer().count();
+    }
+
+    private double duplicates(String source) {
+        return registry.get(MeteredTransactionService.DUPLICATES_NAME).tag("source", source).counter().count();
+    }
+}
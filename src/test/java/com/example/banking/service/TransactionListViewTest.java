@@ -0,0 +1,108 @@
+package com.example.banking.service;
+
+import com.example.banking.dto.TransactionDTO;
+import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionType;
+import com.example.banking.repository.TransactionRepository;
+import com.example.banking.repository.TransactionRepositoryImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * 全部交易视图的分块维护测试，使用真实的内存Repository核对每次写入后的快照
+ */
+class TransactionListViewTest {
+
+    private TransactionRepositoryImpl repository;
+    private TransactionListView view;
+
+    @BeforeEach
+    void setUp() {
+        repository = new TransactionRepositoryImpl();
+        view = new TransactionListView(repository);
+    }
+
+    @Test
+    void testSnapshotFollowsWritesAcrossChunks() {
+        int rows = TransactionListView.CHUNK_SIZE * 3;
+        for (long id = 1; id <= rows; id += 2) {
+            save(id, "初始");
+        }
+        assertEquals(rows / 2, view.getAll().size());
+
+        // 乱序插入剩余的ID，分块被拆分
+        List<Long> inserts = new ArrayList<>(LongStream.rangeClosed(1, rows).filter(id -> id % 2 == 0).boxed().toList());
+        Collections.shuffle(inserts, new Random(7));
+        inserts.forEach(id -> {
+            save(id, "插入");
+            view.refresh(id);
+        });
+        // 比已有ID都小的ID插入到第一块开头
+        repository.save(new Transaction(0L, new BigDecimal("1.00"), "最小", TransactionType.INCOME, null));
+        view.refresh(0L);
+        assertEquals(LongStream.rangeClosed(0, rows).boxed().toList(), ids(view.getAll()));
+
+        // 修改只替换该条记录，删除整块后该块消失
+        repository.update(5L, transaction -> transaction.withDescription("已修改"));
+        view.refresh(5L);
+        for (long id = 0; id <= TransactionListView.CHUNK_SIZE; id++) {
+            if (id != 5L) {
+                repository.deleteById(id);
+                view.refresh(id);
+            }
+        }
+        List<TransactionDTO> snapshot = view.getAll();
+        assertEquals(rows + 1 - TransactionListView.CHUNK_SIZE, snapshot.size());
+        assertEquals(5L, snapshot.get(0).getId());
+        assertEquals("已修改", snapshot.get(0).getDescription());
+        assertEquals(TransactionListView.CHUNK_SIZE + 1L, snapshot.get(1).getId());
+        assertEquals((long) rows, snapshot.get(snapshot.size() - 1).getId());
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.get(snapshot.size()));
+    }
+
+    @Test
+    void testSnapshotSharedUntilNextWriteAndImmutable() {
+        save(1L, "第一笔");
+        List<TransactionDTO> first = view.getAll();
+        assertSame(first, view.getAll());
+        assertThrows(UnsupportedOperationException.class, () -> first.remove(0));
+
+        save(2L, "第二笔");
+        view.refresh(2L);
+        List<TransactionDTO> second = view.getAll();
+        assertNotSame(first, second);
+        // 旧快照不受后续写入影响
+        assertEquals(1, first.size());
+        assertEquals(List.of(1L, 2L), ids(second));
+    }
+
+    @Test
+    void testRefreshBeforeFirstReadSkipsRepository() {
+        TransactionRepository untouched = mock(TransactionRepository.class);
+        TransactionListView unloaded = new TransactionListView(untouched);
+
+        unloaded.refresh(1L);
+        unloaded.refresh(List.of(2L, 3L));
+
+        verifyNoInteractions(untouched);
+    }
+
+    private void save(long id, String description) {
+        repository.save(new Transaction(id, new BigDecimal("1.00"), description, TransactionType.INCOME, null));
+    }
+
+    private static List<Long> ids(List<TransactionDTO> transactions) {
+        return transactions.stream().map(TransactionDTO::getId).toList();
+    }
+}
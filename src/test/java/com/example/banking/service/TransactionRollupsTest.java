@@ -0,0 +1,203 @@
+package com.example.banking.service;
+
+import com.example.banking.dto.TransactionStatsDTO;
+import com.example.banking.dto.UpdateTransactionRequest;
+import com.example.banking.exception.TransactionNotFoundException;
+import com.example.banking.model.StatsGranularity;
+import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionType;
+import com.example.banking.repository.TransactionRepositoryImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 统计汇总的增量维护测试，使用真实的内存Repository，汇总在数据写入后构建
+ */
+class TransactionRollupsTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 15, 0, 0);
+
+    private TransactionRepositoryImpl repository;
+    private TransactionRollups rollups;
+
+    @BeforeEach
+    void setUp() {
+        repository = new TransactionRepositoryImpl();
+    }
+
+    @Test
+    void testInitialBuildGroupsByTypeAndBucket() {
+        save(1L, "10.00", TransactionType.INCOME, DAY.plusHours(9));
+        save(2L, "30.00", TransactionType.INCOME, DAY.plusHours(9).plusMinutes(30));
+        save(3L, "5.50", TransactionType.EXPENSE, DAY.plusHours(10));
+        save(4L, "7.00", TransactionType.INCOME, DAY.plusDays(10));
+        rollups = new TransactionRollups(repository);
+
+        List<TransactionStatsDTO> daily = rollups.query(StatsGranularity.DAY, null, null, null);
+        assertEquals(3, daily.size());
+        TransactionStatsDTO income = daily.get(0);
+        assertEquals(DAY, income.getBucket());
+        assertEquals(TransactionType.INCOME, income.getType());
+        assertEquals(2, income.getCount());
+        assertEquals(new BigDecimal("40.00"), income.getSum());
+        assertEquals(new BigDecimal("10.00"), income.getMin());
+        assertEquals(new BigDecimal("30.00"), income.getMax());
+        assertEquals(new BigDecimal("20.00"), income.getAvg());
+
+        List<TransactionStatsDTO> hourly = rollups.query(StatsGranularity.HOUR, TransactionType.INCOME, DAY, DAY.plusDays(1));
+        assertEquals(1, hourly.size());
+        assertEquals(DAY.plusHours(9), hourly.get(0).getBucket());
+
+        List<TransactionStatsDTO> monthly = rollups.query(StatsGranularity.MONTH, TransactionType.INCOME, null, null);
+        assertEquals(1, monthly.size());
+        assertEquals(3, monthly.get(0).getCount());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 0, 0), monthly.get(0).getBucket());
+    }
+
+    @Test
+    void testIncrementalChangesAfterBuild() {
+        save(1L, "10.00", TransactionType.INCOME, DAY.plusHours(1));
+        rollups = new TransactionRollups(repository);
+        assertEquals(1, rollups.query(StatsGranularity.DAY, null, null, null).size());
+
+        // 新增
+        Transaction second = new Transaction(2L, new BigDecimal("50.00"), "b", TransactionType.INCOME, DAY.plusHours(2));
+        rollups.add(repository.save(second));
+        assertEquals(new BigDecimal("50.00"), single(StatsGranularity.DAY).getMax());
+
+        // 修改类型：从收入桶移到支出桶
+        Transaction expense = repository.save(second.withType(TransactionType.EXPENSE));
+        rollups.replace(TransactionRollups.Entry.of(second), TransactionRollups.Entry.of(expense));
+        List<TransactionStatsDTO> daily = rollups.query(StatsGranularity.DAY, null, null, null);
+        assertEquals(2, daily.size());
+        assertEquals(new BigDecimal("10.00"), daily.get(0).getMax());
+        assertEquals(TransactionType.EXPENSE, daily.get(1).getType());
+
+        // 删除最后一笔后分桶消失
+        TransactionRollups.Entry removed = TransactionRollups.Entry.of(expense);
+        repository.deleteById(2L);
+        rollups.remove(removed);
+        assertEquals(TransactionType.INCOME, single(StatsGranularity.DAY).getType());
+    }
+
+    @Test
+    void testDeletingExtremeKeepsRemainingExtremes() {
+        save(1L, "10.00", TransactionType.EXPENSE, DAY.plusHours(1));
+        save(2L, "99.00", TransactionType.EXPENSE, DAY.plusHours(2));
+        save(3L, "40.00", TransactionType.EXPENSE, DAY.plusHours(3));
+        save(4L, "99.00", TransactionType.EXPENSE, DAY.plusHours(3));
+        rollups = new TransactionRollups(repository);
+        rollups.query(StatsGranularity.DAY, null, null, null);
+
+        TransactionRollups.Entry max = TransactionRollups.Entry.of(repository.findById(2L).orElseThrow());
+        repository.deleteById(2L);
+        rollups.remove(max);
+
+        // 同金额的另一笔仍在，最大值不变；不重新扫描交易
+        TransactionStatsDTO stats = single(StatsGranularity.DAY);
+        assertEquals(3, stats.getCount());
+        assertEquals(new BigDecimal("149.00"), stats.getSum());
+        assertEquals(new BigDecimal("10.00"), stats.getMin());
+        assertEquals(new BigDecimal("99.00"), stats.getMax());
+
+        TransactionRollups.Entry last = TransactionRollups.Entry.of(repository.findById(4L).orElseThrow());
+        repository.deleteById(4L);
+        rollups.remove(last);
+        assertEquals(new BigDecimal("40.00"), single(StatsGranularity.DAY).getMax());
+        assertEquals(new BigDecimal("40.00"), single(StatsGranularity.MONTH).getMax());
+        List<TransactionStatsDTO> hourly = rollups.query(StatsGranularity.HOUR, null, null, null);
+        assertEquals(List.of(DAY.plusHours(1), DAY.plusHours(3)), hourly.stream().map(TransactionStatsDTO::getBucket).toList());
+    }
+
+    @Test
+    void testFailedUpdateLeavesRollupsUnchanged() {
+        save(1L, "10.00", TransactionType.INCOME, DAY);
+        // 模拟预写日志故障：mutator 已执行，写入随后失败，Repository未改变
+        TransactionRepositoryImpl failing = new TransactionRepositoryImpl() {
+            @Override
+            public Optional<Transaction> update(Long id, UnaryOperator<Transaction> mutator) {
+                mutator.apply(findById(id).orElseThrow());
+                throw new UncheckedIOException(new IOException("log unavailable"));
+            }
+        };
+        failing.save(repository.findById(1L).orElseThrow());
+        TransactionServiceImpl service = new TransactionServiceImpl(failing);
+
+        assertThrows(UncheckedIOException.class, () -> service.updateTransaction(1L,
+                new UpdateTransactionRequest(new BigDecimal("99.00"), null, TransactionType.EXPENSE)));
+
+        List<TransactionStatsDTO> stats = service.getTransactionStats(StatsGranularity.DAY, null, null, null);
+        assertEquals(1, stats.size());
+        assertEquals(TransactionType.INCOME, stats.get(0).getType());
+        assertEquals(new BigDecimal("10.00"), stats.get(0).getMax());
+    }
+
+    @Test
+    void testConcurrentUpdateAndDeleteKeepRollupsConsistent() throws Exception {
+        save(1L, "1.00", TransactionType.INCOME, DAY);
+        for (long id = 2; id < 500; id++) {
+            save(id, "10.00", TransactionType.INCOME, DAY);
+        }
+        TransactionServiceImpl service = new TransactionServiceImpl(repository);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (long id = 2; id < 500; id++) {
+                long target = id;
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> update = executor.submit(() -> {
+                    start.await();
+                    try {
+                        service.updateTransaction(target,
+                                new UpdateTransactionRequest(new BigDecimal("20.00"), null, null));
+                    } catch (TransactionNotFoundException e) {
+                        // 删除先完成
+                    }
+                    return null;
+                });
+                Future<?> delete = executor.submit(() -> {
+                    start.await();
+                    service.deleteTransaction(target);
+                    return null;
+                });
+                start.countDown();
+                update.get(5, TimeUnit.SECONDS);
+                delete.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 每次删除扣减的都是被删除的那个版本，汇总只剩最初的一笔
+        List<TransactionStatsDTO> stats = service.getTransactionStats(StatsGranularity.DAY, null, null, null);
+        assertEquals(1, stats.size());
+        assertEquals(1, stats.get(0).getCount());
+        assertEquals(new BigDecimal("1.00"), stats.get(0).getSum());
+        assertEquals(new BigDecimal("1.00"), stats.get(0).getMax());
+    }
+
+    private TransactionStatsDTO single(StatsGranularity granularity) {
+        List<TransactionStatsDTO> stats = rollups.query(granularity, null, null, null);
+        assertEquals(1, stats.size());
+        return stats.get(0);
+    }
+
+    private Transaction save(Long id, String amount, TransactionType type, LocalDateTime timestamp) {
+        return repository.save(new Transaction(id, new BigDecimal(amount), "交易" + id, type, timestamp));
+    }
+}
@@ -1,12 +1,17 @@
 package com.example.banking.service;
 
+import com.example.banking.dto.BatchItemResult;
+import com.example.banking.dto.BatchTransactionResponse;
 import com.example.banking.dto.CreateTransactionRequest;
+import com.example.banking.dto.TransactionChangeEvent;
 import com.example.banking.dto.TransactionDTO;
 import com.example.banking.dto.UpdateTransactionRequest;
 import com.example.banking.exception.BusinessException;
 import com.example.banking.exception.DuplicateTransactionException;
 import com.example.banking.exception.TransactionNotFoundException;
+import com.example.banking.model.StatsGranularity;
 import com.example.banking.model.Transaction;
+import com.example.banking.model.TransactionQuery;
 import com.example.banking.model.TransactionType;
 import com.example.banking.repository.TransactionRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,9 +27,13 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class TransactionServiceTest {
@@ -32,6 +41,9 @@ class TransactionServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private TransactionChangeListener changeListener;
+
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
@@ -70,12 +82,9 @@ class TransactionServiceTest {
 
     @Test
     void createTransaction() {
-        // 设置模拟行为 - 没有重复交易
-        when(transactionRepository.findPotentialDuplicates(
-                any(BigDecimal.class), anyString(), any(TransactionType.class), anyInt()))
-                .thenReturn(Collections.emptyList());
-        
-        when(transactionRepository.save(any(Transaction.class))).thenReturn(testTransaction);
+        // 设置模拟行为 - 没有重复交易，原子保存成功
+        when(transactionRepository.saveIfNotDuplicate(any(Transaction.class), anyInt()))
+                .thenReturn(Optional.of(testTransaction));
 
         // 执行测试
         TransactionDTO result = transactionService.createTransaction(createRequest);
@@ -87,21 +96,22 @@ class TransactionServiceTest {
         assertEquals(testTransaction.getDescription(), result.getDescription());
         assertEquals(testTransaction.getType(), result.getType());
 
-        // 验证交互
-        verify(transactionRepository, times(1)).findPotentialDuplicates(
-                createRequest.getAmount(), 
-                createRequest.getDescription(), 
-                createRequest.getType(), 
-                5);
-        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        // 验证交互 - 使用配置的时间窗口，且不再全量扫描潜在重复交易
+        verify(transactionRepository, times(1)).saveIfNotDuplicate(
+                argThat(transaction -> transaction.getAmount().equals(createRequest.getAmount())
+                        && transaction.getDescription().equals(createRequest.getDescription())
+                        && transaction.getType() == createRequest.getType()),
+                eq(5));
+        verify(transactionRepository, never()).findPotentialDuplicates(any(), any(), any(), anyInt());
+        verify(changeListener).onChange(argThat(event -> event.getType() == TransactionChangeEvent.Type.CREATED
+                && event.getId().equals(1L) && event.getTransaction() == result));
     }
     
     @Test
     void createTransaction_duplicateDetected() {
-        // 设置模拟行为 - 发现重复交易
-        when(transactionRepository.findPotentialDuplicates(
-                any(BigDecimal.class), anyString(), any(TransactionType.class), anyInt()))
-                .thenReturn(Arrays.asList(testTransaction));
+        // 设置模拟行为 - 发现重复交易，未保存
+        when(transactionRepository.saveIfNotDuplicate(any(Transaction.class), anyInt()))
+                .thenReturn(Optional.empty());
         
         // 验证异常被抛出
         DuplicateTransactionException exception = assertThrows(DuplicateTransactionException.class, () -> {
@@ -115,11 +125,8 @@ class TransactionServiceTest {
         assertTrue(exception.getMessage().contains(createRequest.getType().toString()));
         
         // 验证交互
-        verify(transactionRepository, times(1)).findPotentialDuplicates(
-                createRequest.getAmount(), 
-                createRequest.getDescription(), 
-                createRequest.getType(), 
-                5);
+        verify(transactionRepository, times(1)).saveIfNotDuplicate(any(Transaction.class), eq(5));
+        verify(changeListener, never()).onChange(any());
         // 确认save方法没有被调用
         verify(transactionRepository, never()).save(any(Transaction.class));
     }
@@ -145,6 +152,75 @@ class TransactionServiceTest {
         verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
+    @Test
+    void createTransaction_withAmountBelowMinorUnit_shouldThrowException() {
+        // 小数超过两位的金额不做舍入，直接拒绝
+        CreateTransactionRequest invalidRequest = new CreateTransactionRequest(
+                new BigDecimal("0.004"),
+                "无效交易",
+                TransactionType.EXPENSE
+        );
+
+        BusinessException exception = assertThrows(BusinessException.class, () -> {
+            transactionService.createTransaction(invalidRequest);
+        });
+
+        assertEquals("交易金额最多两位小数", exception.getMessage());
+        assertEquals("Invalid Amount", exception.getErrorType());
+        assertEquals(400, exception.getStatusCode());
+        verify(transactionRepository, never()).saveIfNotDuplicate(any(Transaction.class), anyInt());
+    }
+
+    @Test
+    void createTransaction_withSubCentAmount_shouldNotRound() {
+        CreateTransactionRequest request = new CreateTransactionRequest(
+                new BigDecimal("10.005"),
+                "超出精度",
+                TransactionType.EXPENSE
+        );
+
+        BusinessException exception = assertThrows(BusinessException.class, () -> {
+            transactionService.createTransaction(request);
+        });
+
+        assertEquals("交易金额最多两位小数", exception.getMessage());
+        verify(transactionRepository, never()).saveIfNotDuplicate(any(Transaction.class), anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createTransactions_mixedBatch() {
+        // 第二条与第一条在批内重复，第三条金额无效，第四条与已有交易重复
+        List<CreateTransactionRequest> requests = Arrays.asList(
+                createRequest,
+                new CreateTransactionRequest(new BigDecimal("100.5"), "测试交易", TransactionType.INCOME),
+                new CreateTransactionRequest(new BigDecimal("-1.00"), "无效交易", TransactionType.EXPENSE),
+                new CreateTransactionRequest(new BigDecimal("20.00"), "已存在", TransactionType.EXPENSE)
+        );
+        when(transactionRepository.saveAll(any(List.class), eq(5)))
+                .thenReturn(Arrays.asList(Optional.of(testTransaction), Optional.empty()));
+
+        BatchTransactionResponse response = transactionService.createTransactions(requests);
+
+        assertEquals(4, response.getTotal());
+        assertEquals(1, response.getCreated());
+        assertEquals(3, response.getRejected());
+        List<BatchItemResult> results = response.getResults();
+        assertEquals(BatchItemResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(1L, results.get(0).getId());
+        assertEquals(BatchItemResult.Status.DUPLICATE, results.get(1).getStatus());
+        assertEquals(BatchItemResult.Status.INVALID, results.get(2).getStatus());
+        assertEquals("交易金额必须大于零", results.get(2).getError());
+        assertEquals(BatchItemResult.Status.DUPLICATE, results.get(3).getStatus());
+        assertEquals(3, results.get(3).getIndex());
+
+        // 只有通过校验和批内去重的交易进入Repository
+        verify(transactionRepository).saveAll(argThat(list -> list.size() == 2), eq(5));
+        // 只为实际创建的交易发布变更
+        verify(changeListener, times(1)).onChange(argThat(event -> event.getType() == TransactionChangeEvent.Type.CREATED
+                && event.getId().equals(1L)));
+    }
+
     @Test
     void getAllTransactions() {
         // 设置模拟行为
@@ -162,6 +238,33 @@ class TransactionServiceTest {
         verify(transactionRepository, times(1)).findAll();
     }
 
+    @Test
+    void getAllTransactions_appliesChangesWithoutReloading() {
+        when(transactionRepository.findAll()).thenReturn(Arrays.asList(testTransaction));
+        List<TransactionDTO> initial = transactionService.getAllTransactions();
+        assertSame(initial, transactionService.getAllTransactions());
+
+        // 修改后视图按ID重新读取该条记录
+        Transaction[] stored = {testTransaction};
+        when(transactionRepository.update(eq(1L), any())).thenAnswer(invocation -> {
+            UnaryOperator<Transaction> mutator = invocation.getArgument(1);
+            stored[0] = mutator.apply(stored[0]);
+            return Optional.of(stored[0]);
+        });
+        when(transactionRepository.findById(1L)).thenAnswer(invocation -> Optional.of(stored[0]));
+        transactionService.updateTransaction(1L, updateRequest);
+        assertEquals("更新的测试交易", transactionService.getAllTransactions().get(0).getDescription());
+
+        // 删除后该条记录从视图中移除
+        when(transactionRepository.remove(1L)).thenReturn(Optional.of(testTransaction));
+        when(transactionRepository.findById(1L)).thenReturn(Optional.empty());
+        transactionService.deleteTransaction(1L);
+        assertTrue(transactionService.getAllTransactions().isEmpty());
+
+        // 整个过程只全量加载一次
+        verify(transactionRepository, times(1)).findAll();
+    }
+
     @Test
     void getTransactionById_existing() {
         // 设置模拟行为
@@ -197,9 +300,12 @@ class TransactionServiceTest {
 
     @Test
     void updateTransaction_existing() {
-        // 设置模拟行为
-        when(transactionRepository.findById(1L)).thenReturn(Optional.of(testTransaction));
-        when(transactionRepository.save(any(Transaction.class))).thenReturn(testTransaction);
+        // 设置模拟行为：Repository把当前版本交给修改函数
+        BigDecimal originalAmount = testTransaction.getAmount();
+        when(transactionRepository.update(eq(1L), any())).thenAnswer(invocation -> {
+            UnaryOperator<Transaction> mutator = invocation.getArgument(1);
+            return Optional.of(mutator.apply(testTransaction));
+        });
 
         // 执行测试
         TransactionDTO result = transactionService.updateTransaction(1L, updateRequest);
@@ -209,16 +315,20 @@ class TransactionServiceTest {
         assertEquals(updateRequest.getAmount(), result.getAmount());
         assertEquals(updateRequest.getDescription(), result.getDescription());
         assertEquals(updateRequest.getType(), result.getType());
+        // 存储中的原对象不被原地修改
+        assertEquals(originalAmount, testTransaction.getAmount());
 
         // 验证交互
-        verify(transactionRepository, times(1)).findById(1L);
-        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(transactionRepository, times(1)).update(eq(1L), any());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(changeListener).onChange(argThat(event -> event.getType() == TransactionChangeEvent.Type.UPDATED
+                && event.getTransaction() == result));
     }
 
     @Test
     void updateTransaction_nonExisting() {
         // 设置模拟行为
-        when(transactionRepository.findById(999L)).thenReturn(Optional.empty());
+        when(transactionRepository.update(eq(999L), any())).thenReturn(Optional.empty());
 
         // 验证异常被抛出
         TransactionNotFoundException exception = assertThrows(TransactionNotFoundException.class, () -> {
@@ -229,7 +339,7 @@ class TransactionServiceTest {
         assertEquals("交易不存在，ID: 999", exception.getMessage());
 
         // 验证交互
-        verify(transactionRepository, times(1)).findById(999L);
+        verify(transactionRepository, times(1)).update(eq(999L), any());
         verify(transactionRepository, never()).save(any(Transaction.class));
     }
     
@@ -252,13 +362,14 @@ class TransactionServiceTest {
         
         // 验证不与仓库交互
         verify(transactionRepository, never()).findById(anyLong());
+        verify(transactionRepository, never()).update(anyLong(), any());
         verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
     @Test
     void deleteTransaction_existing() {
         // 设置模拟行为
-        when(transactionRepository.deleteById(1L)).thenReturn(true);
+        when(transactionRepository.remove(1L)).thenReturn(Optional.of(testTransaction));
 
         // 执行测试 - 不应抛出异常
         assertDoesNotThrow(() -> {
@@ -266,13 +377,17 @@ class TransactionServiceTest {
         });
 
         // 验证交互
-        verify(transactionRepository, times(1)).deleteById(1L);
+        verify(transactionRepository, times(1)).remove(1L);
+        // 删除事件的版本号大于被删除的版本，迟到的修改事件不会覆盖它
+        verify(changeListener).onChange(argThat(event -> event.getType() == TransactionChangeEvent.Type.DELETED
+                && event.getId().equals(1L) && event.getTransaction() == null
+                && event.getVersion() == testTransaction.getVersion() + 1));
     }
 
     @Test
     void deleteTransaction_nonExisting() {
         // 设置模拟行为
-        when(transactionRepository.deleteById(999L)).thenReturn(false);
+        when(transactionRepository.remove(999L)).thenReturn(Optional.empty());
 
         // 验证异常被抛出
         TransactionNotFoundException exception = assertThrows(TransactionNotFoundException.class, () -> {
@@ -283,7 +398,8 @@ class TransactionServiceTest {
         assertEquals("交易不存在，ID: 999", exception.getMessage());
 
         // 验证交互
-        verify(transactionRepository, times(1)).deleteById(999L);
+        verify(transactionRepository, times(1)).remove(999L);
+        verify(changeListener, never()).onChange(any());
     }
 
     @Test
@@ -397,6 +513,79 @@ class TransactionServiceTest {
         verify(transactionRepository, never()).findWithPagination(anyInt(), anyInt());
     }
 
+    @Test
+    void findTransactions() {
+        TransactionQuery query = TransactionQuery.builder()
+                .type(TransactionType.INCOME)
+                .amountRange(new BigDecimal("50"), new BigDecimal("200"))
+                .page(0, 10)
+                .build();
+        when(transactionRepository.findByQuery(query))
+                .thenReturn(Arrays.asList(testTransaction));
+
+        List<TransactionDTO> results = transactionService.findTransactions(query);
+
+        assertEquals(1, results.size());
+        assertEquals(testTransaction.getId(), results.get(0).getId());
+        verify(transactionRepository, times(1)).findByQuery(query);
+        verify(transactionRepository, never()).findAll();
+    }
+
+    @Test
+    void findTransactions_withInvalidQuery_shouldThrowException() {
+        TransactionQuery negativePage = TransactionQuery.builder().page(-1, 10).build();
+        TransactionQuery invalidAmountRange = TransactionQuery.builder()
+                .amountRange(new BigDecimal("200"), new BigDecimal("100"))
+                .build();
+        TransactionQuery invalidDateRange = TransactionQuery.builder()
+                .dateRange(LocalDateTime.now(), LocalDateTime.now().minusDays(1))
+                .build();
+
+        assertEquals("页码不能为负数",
+                assertThrows(BusinessException.class, () -> transactionService.findTransactions(negativePage)).getMessage());
+        assertEquals("最小金额不能大于最大金额",
+                assertThrows(BusinessException.class, () -> transactionService.findTransactions(invalidAmountRange)).getMessage());
+        assertEquals("开始日期不能晚于结束日期",
+                assertThrows(BusinessException.class, () -> transactionService.findTransactions(invalidDateRange)).getMessage());
+
+        verify(transactionRepository, never()).findByQuery(any());
+    }
+
+    @Test
+    void exportTransactions() {
+        TransactionQuery query = TransactionQuery.builder().type(TransactionType.INCOME).build();
+        when(transactionRepository.stream(query)).thenReturn(Stream.of(testTransaction));
+
+        List<TransactionDTO> result = transactionService.exportTransactions(query).toList();
+
+        assertEquals(1, result.size());
+        assertEquals(testTransaction.getId(), result.get(0).getId());
+    }
+
+    @Test
+    void exportTransactions_withInvalidRange_shouldThrowBeforeStreaming() {
+        TransactionQuery query = TransactionQuery.builder()
+                .amountRange(new BigDecimal("200"), new BigDecimal("100"))
+                .build();
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> transactionService.exportTransactions(query));
+
+        assertEquals(400, exception.getStatusCode());
+        verify(transactionRepository, never()).stream(any(TransactionQuery.class));
+    }
+
+    @Test
+    void getTransactionStats_withInvalidDateRange_shouldThrowException() {
+        LocalDateTime now = LocalDateTime.now();
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> transactionService.getTransactionStats(StatsGranularity.DAY, null, now, now.minusDays(1)));
+
+        assertEquals("Invalid Date Range", exception.getErrorType());
+        verify(transactionRepository, never()).stream(any(TransactionQuery.class));
+    }
+
     @Test
     void getTransactionCount() {
         // 设置模拟行为
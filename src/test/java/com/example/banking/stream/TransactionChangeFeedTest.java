@@ -0,0 +1,220 @@
+package com.example.banking.stream;
+
+import com.example.banking.dto.TransactionChangeEvent;
+import com.example.banking.dto.TransactionDTO;
+import com.example.banking.exception.BusinessException;
+import com.example.banking.model.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionChangeFeedTest {
+
+    private static final int BUFFER_SIZE = 8;
+
+    private SimpleMeterRegistry registry;
+    private TransactionChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        feed = new TransactionChangeFeed(new ObjectMapper().registerModule(new JavaTimeModule()), registry,
+                BUFFER_SIZE, 3, Duration.ofMinutes(1), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.close();
+    }
+
+    @Test
+    void testEventsDeliveredInOrder() {
+        RecordingSink sink = new RecordingSink();
+        feed.subscribe(null, sink);
+
+        feed.onChange(TransactionChangeEvent.created(transaction(1L, 1)));
+        feed.onChange(TransactionChangeEvent.updated(transaction(1L, 2)));
+        feed.onChange(TransactionChangeEvent.deleted(1L, 2));
+
+        await(() -> sink.events().size() == 3);
+        List<TransactionChangeFeed.Event> events = sink.events();
+        assertTrue(events.get(0).data().contains("\"type\":\"CREATED\""));
+        assertTrue(events.get(1).data().contains("\"version\":2"));
+        assertTrue(events.get(2).data().contains("\"type\":\"DELETED\""));
+        assertTrue(events.get(2).data().contains("\"version\":3"));
+        assertNull(events.get(0).name());
+        assertNotEquals(events.get(0).id(), events.get(1).id());
+    }
+
+    @Test
+    void testResumeFromLastEventId() {
+        RecordingSink first = new RecordingSink();
+        feed.subscribe(null, first);
+        feed.onChange(TransactionChangeEvent.created(transaction(1L, 1)));
+        await(() -> first.events().size() == 1);
+        String lastEventId = first.events().get(0).id();
+
+        // 断线期间发生的变更在重连后补发，不发送 reset
+        feed.onChange(TransactionChangeEvent.created(transaction(2L, 1)));
+        feed.onChange(TransactionChangeEvent.created(transaction(3L, 1)));
+        RecordingSink resumed = new RecordingSink();
+        feed.subscribe(lastEventId, resumed);
+
+        await(() -> resumed.events().size() == 2);
+        assertTrue(resumed.events().get(0).data().contains("\"id\":2"));
+        assertTrue(resumed.events().get(1).data().contains("\"id\":3"));
+    }
+
+    @Test
+    void testResetWhenLastEventIdNoLongerBuffered() {
+        RecordingSink first = new RecordingSink();
+        feed.subscribe(null, first);
+        feed.onChange(TransactionChangeEvent.created(transaction(1L, 1)));
+        await(() -> first.events().size() == 1);
+        String lastEventId = first.events().get(0).id();
+        for (long id = 2; id <= BUFFER_SIZE + 2; id++) {
+            feed.onChange(TransactionChangeEvent.created(transaction(id, 1)));
+        }
+
+        RecordingSink overwritten = new RecordingSink();
+        feed.subscribe(lastEventId, overwritten);
+        RecordingSink unknown = new RecordingSink();
+        feed.subscribe("other-1", unknown);
+
+        await(() -> !overwritten.events().isEmpty() && !unknown.events().isEmpty());
+        assertEquals(TransactionChangeFeed.RESET_EVENT, overwritten.events().get(0).name());
+        assertEquals(TransactionChangeFeed.RESET_EVENT, unknown.events().get(0).name());
+
+        // reset 之后从当前位置继续推送
+        feed.onChange(TransactionChangeEvent.deleted(1L, 1));
+        await(() -> overwritten.events().size() == 2);
+        assertTrue(overwritten.events().get(1).data().contains("DELETED"));
+    }
+
+    @Test
+    void testSlowSubscriberDropped() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink slow = new RecordingSink() {
+            @Override
+            public void send(List<TransactionChangeFeed.Event> events) throws IOException {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.send(events);
+            }
+        };
+        RecordingSink fast = new RecordingSink();
+        feed.subscribe(null, slow);
+        feed.subscribe(null, fast);
+
+        // 慢订阅者卡在第一次发送时，缓冲区被整体覆盖
+        feed.onChange(TransactionChangeEvent.created(transaction(1L, 1)));
+        await(() -> fast.events().size() == 1);
+        // 快订阅者逐条跟上，不会被覆盖
+        for (int id = 2; id <= BUFFER_SIZE * 2; id++) {
+            feed.onChange(TransactionChangeEvent.created(transaction(id, 1)));
+            int expected = id;
+            await(() -> fast.events().size() == expected);
+        }
+        release.countDown();
+
+        await(slow::isCompleted);
+        assertEquals(1, slow.events().size());
+        assertFalse(fast.isCompleted());
+        assertEquals(1, feed.getSubscriberCount());
+        assertEquals(1.0, registry.get("transaction.stream.dropped").counter().count());
+    }
+
+    @Test
+    void testSubscriberLimitAndCancel() {
+        TransactionChangeFeed.Subscriber first = feed.subscribe(null, new RecordingSink());
+        feed.subscribe(null, new RecordingSink());
+        feed.subscribe(null, new RecordingSink());
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> feed.subscribe(null, new RecordingSink()));
+        assertEquals(503, exception.getStatusCode());
+
+        first.cancel();
+        assertEquals(2, feed.getSubscriberCount());
+        feed.subscribe(null, new RecordingSink());
+        assertEquals(3.0, registry.get("transaction.stream.subscribers").gauge().value());
+    }
+
+    @Test
+    void testHeartbeatOnlyWhenIdle() {
+        RecordingSink sink = new RecordingSink();
+        feed.subscribe(null, sink);
+
+        feed.heartbeat();
+        await(() -> sink.heartbeats() == 1);
+        assertTrue(sink.events().isEmpty());
+    }
+
+    private static TransactionDTO transaction(long id, long version) {
+        TransactionDTO transaction = new TransactionDTO(id, new BigDecimal("10.00"), "变更" + id,
+                TransactionType.INCOME, LocalDateTime.of(2024, 1, 1, 0, 0));
+        transaction.setVersion(version);
+        return transaction;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met within 5 seconds");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static class RecordingSink implements TransactionChangeFeed.EventSink {
+        private final List<TransactionChangeFeed.Event> events = new ArrayList<>();
+        private int heartbeats;
+        private boolean completed;
+
+        @Override
+        public synchronized void send(List<TransactionChangeFeed.Event> batch) throws IOException {
+            events.addAll(batch);
+        }
+
+        @Override
+        public synchronized void heartbeat() {
+            heartbeats++;
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+
+        synchronized List<TransactionChangeFeed.Event> events() {
+            return new ArrayList<>(events);
+        }
+
+        synchronized int heartbeats() {
+            return heartbeats;
+        }
+
+        synchronized boolean isCompleted() {
+            return completed;
+        }
+    }
+}
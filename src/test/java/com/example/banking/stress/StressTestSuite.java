@@ -283,7 +283,7 @@ public class StressTestSuite {
                         if (random.nextBoolean()) {
                             // 创建新交易
                             CreateTransactionRequest request = new CreateTransactionRequest(
-                                new BigDecimal(200 + random.nextDouble() * 800),
+                                BigDecimal.valueOf(20_000 + random.nextInt(80_000), 2),
                                 "Mixed Workload Write " + threadId + "-" + j,
                                 TransactionType.values()[random.nextInt(TransactionType.values().length)]
                             );
@@ -303,7 +303,7 @@ public class StressTestSuite {
                             int randomId = random.nextInt(initialDataSize) + 1;
                             
                             UpdateTransactionRequest request = new UpdateTransactionRequest(
-                                new BigDecimal(300 + random.nextDouble() * 700),
+                                BigDecimal.valueOf(30_000 + random.nextInt(70_000), 2),
                                 "Updated Mixed Workload " + threadId + "-" + j,
                                 TransactionType.values()[random.nextInt(TransactionType.values().length)]
                             );